@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.agreement.cache;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+import de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementSummary;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * Keeps the agreement between a set of data owners on a single document, so that it only needs to
+ * be calculated again when one of the CASes of these data owners changes.
+ */
+public interface AgreementResultCache
+{
+    /**
+     * @param aDocument
+     *            the document.
+     * @param aMeasure
+     *            the agreement measure including its feature and traits.
+     * @param aCasTimestamps
+     *            the data owners and the timestamps of their CASes (see
+     *            {@link #getCasTimestamp}).
+     * @return the cached agreement if it has been calculated on exactly these CAS versions. The
+     *         returned summary is a copy and may be modified by the caller.
+     */
+    Optional<AgreementSummary> get(SourceDocument aDocument, AgreementMeasure<?> aMeasure,
+            Map<String, Long> aCasTimestamps);
+
+    void put(SourceDocument aDocument, AgreementMeasure<?> aMeasure,
+            Map<String, Long> aCasTimestamps, AgreementSummary aSummary);
+
+    /**
+     * @param aDocument
+     *            the document.
+     * @param aDataOwner
+     *            the data owner.
+     * @return the timestamp of the data owner's CAS or {@code -1} if the data owner does not have
+     *         a CAS yet.
+     * @throws IOException
+     *             if the timestamp cannot be obtained.
+     */
+    long getCasTimestamp(SourceDocument aDocument, String aDataOwner) throws IOException;
+
+    /**
+     * Writes the cached results for the given project to disk.
+     * 
+     * @param aProject
+     *            the project.
+     */
+    void persist(Project aProject);
+}
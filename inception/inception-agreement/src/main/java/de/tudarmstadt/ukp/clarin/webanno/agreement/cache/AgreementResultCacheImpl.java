@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.agreement.cache;
+
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.lang3.SerializationUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+
+import de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementSummary;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.config.AgreementAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure;
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+/**
+ * Keeps agreement results in memory and persists them to the project folder so that they survive
+ * a restart. Results are validated against the CAS timestamps when they are retrieved, so changes
+ * which are not noticed through events (e.g. while the application was not running) do not lead
+ * to stale results.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link AgreementAutoConfiguration#agreementResultCache}.
+ * </p>
+ */
+public class AgreementResultCacheImpl
+    implements AgreementResultCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String AGREEMENT_FOLDER = "agreement";
+    private static final String RESULTS_FILE = "results.ser";
+
+    private static final long NO_CAS = -1l;
+
+    private final RepositoryProperties repositoryProperties;
+    private final CasStorageService casStorageService;
+
+    private final ConcurrentMap<Long, ProjectResults> projects = new ConcurrentHashMap<>();
+
+    public AgreementResultCacheImpl(RepositoryProperties aRepositoryProperties,
+            CasStorageService aCasStorageService)
+    {
+        repositoryProperties = aRepositoryProperties;
+        casStorageService = aCasStorageService;
+    }
+
+    @Override
+    public Optional<AgreementSummary> get(SourceDocument aDocument, AgreementMeasure<?> aMeasure,
+            Map<String, Long> aCasTimestamps)
+    {
+        var results = getProjectResults(aDocument.getProject());
+        var entry = results.get(makeKey(aDocument, aMeasure, aCasTimestamps));
+
+        if (entry == null || !entry.casTimestamps().equals(aCasTimestamps)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(SerializationUtils.clone(entry.summary()));
+    }
+
+    @Override
+    public void put(SourceDocument aDocument, AgreementMeasure<?> aMeasure,
+            Map<String, Long> aCasTimestamps, AgreementSummary aSummary)
+    {
+        var results = getProjectResults(aDocument.getProject());
+        results.put(makeKey(aDocument, aMeasure, aCasTimestamps),
+                new Entry(new HashMap<>(aCasTimestamps), SerializationUtils.clone(aSummary)));
+    }
+
+    @Override
+    public long getCasTimestamp(SourceDocument aDocument, String aDataOwner) throws IOException
+    {
+        return casStorageService.getCasTimestamp(aDocument, aDataOwner).orElse(NO_CAS);
+    }
+
+    @Override
+    public void persist(Project aProject)
+    {
+        var results = projects.get(aProject.getId());
+        if (results == null) {
+            return;
+        }
+
+        var file = getResultsFile(aProject);
+        try {
+            results.write(file);
+        }
+        catch (IOException e) {
+            LOG.error("Unable to persist agreement results of {}", aProject, e);
+        }
+    }
+
+    @EventListener
+    public void onAfterCasWritten(AfterCasWrittenEvent aEvent)
+    {
+        var annDoc = aEvent.getDocument();
+        var results = projects.get(annDoc.getProject().getId());
+        if (results != null) {
+            results.invalidate(annDoc.getDocument().getId(), annDoc.getUser());
+        }
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemoved(BeforeDocumentRemovedEvent aEvent)
+    {
+        var doc = aEvent.getDocument();
+        var results = projects.get(doc.getProject().getId());
+        if (results != null) {
+            results.invalidate(doc.getId(), null);
+        }
+    }
+
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        var project = aEvent.getProject();
+        projects.remove(project.getId());
+
+        try {
+            Files.deleteIfExists(getResultsFile(project));
+        }
+        catch (IOException e) {
+            LOG.error("Unable to delete agreement results of {}", project, e);
+        }
+    }
+
+    @EventListener
+    public void onBeforeProjectRemoved(BeforeProjectRemovedEvent aEvent)
+    {
+        // The file is removed along with the project folder
+        projects.remove(aEvent.getProject().getId());
+    }
+
+    private ProjectResults getProjectResults(Project aProject)
+    {
+        return projects.computeIfAbsent(aProject.getId(),
+                $ -> ProjectResults.read(getResultsFile(aProject)));
+    }
+
+    private Path getResultsFile(Project aProject)
+    {
+        return repositoryProperties.getPath().toPath() //
+                .resolve(PROJECT_FOLDER) //
+                .resolve(String.valueOf(aProject.getId())) //
+                .resolve(AGREEMENT_FOLDER) //
+                .resolve(RESULTS_FILE);
+    }
+
+    private static Key makeKey(SourceDocument aDocument, AgreementMeasure<?> aMeasure,
+            Map<String, Long> aCasTimestamps)
+    {
+        String traits;
+        try {
+            traits = JSONUtil.toJsonString(aMeasure.getTraits());
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Unable to serialize agreement traits", e);
+        }
+
+        var configuration = aMeasure.getClass().getName() + "|" + aMeasure.getFeature().getId()
+                + "|" + traits;
+
+        var dataOwners = aCasTimestamps.keySet().stream().sorted().toList();
+
+        return new Key(aDocument.getId(), configuration, dataOwners);
+    }
+
+    private static class ProjectResults
+    {
+        private final Map<Long, Map<Key, Entry>> entriesByDocument;
+        private boolean dirty;
+
+        private ProjectResults(Map<Long, Map<Key, Entry>> aEntriesByDocument)
+        {
+            entriesByDocument = aEntriesByDocument;
+        }
+
+        synchronized Entry get(Key aKey)
+        {
+            var entries = entriesByDocument.get(aKey.documentId());
+            return entries != null ? entries.get(aKey) : null;
+        }
+
+        synchronized void put(Key aKey, Entry aEntry)
+        {
+            entriesByDocument.computeIfAbsent(aKey.documentId(), $ -> new HashMap<>()) //
+                    .put(aKey, aEntry);
+            dirty = true;
+        }
+
+        synchronized void invalidate(long aDocumentId, String aDataOwner)
+        {
+            var entries = entriesByDocument.get(aDocumentId);
+            if (entries == null) {
+                return;
+            }
+
+            if (aDataOwner == null) {
+                entriesByDocument.remove(aDocumentId);
+                dirty = true;
+                return;
+            }
+
+            dirty |= entries.keySet().removeIf(key -> key.dataOwners().contains(aDataOwner));
+        }
+
+        synchronized void write(Path aFile) throws IOException
+        {
+            if (!dirty) {
+                return;
+            }
+
+            Files.createDirectories(aFile.getParent());
+            var tempFile = aFile.resolveSibling(aFile.getFileName() + ".tmp");
+            try (var out = new ObjectOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeObject(entriesByDocument);
+            }
+            Files.move(tempFile, aFile, REPLACE_EXISTING, ATOMIC_MOVE);
+
+            dirty = false;
+        }
+
+        @SuppressWarnings("unchecked")
+        static ProjectResults read(Path aFile)
+        {
+            if (!Files.exists(aFile)) {
+                return new ProjectResults(new HashMap<>());
+            }
+
+            try (var in = new ObjectInputStream(
+                    new BufferedInputStream(Files.newInputStream(aFile)))) {
+                return new ProjectResults((Map<Long, Map<Key, Entry>>) in.readObject());
+            }
+            catch (IOException | ClassNotFoundException | ClassCastException e) {
+                // The results are only a cache, so if they cannot be read, we just start over
+                LOG.warn("Unable to read agreement results from [{}] - discarding", aFile, e);
+                return new ProjectResults(new HashMap<>());
+            }
+        }
+    }
+
+    private record Key(long documentId, String configuration, List<String> dataOwners)
+        implements Serializable
+    {}
+
+    private record Entry(Map<String, Long> casTimestamps, AgreementSummary summary)
+        implements Serializable
+    {}
+}
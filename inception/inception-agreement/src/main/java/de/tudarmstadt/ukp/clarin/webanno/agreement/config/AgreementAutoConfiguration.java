@@ -19,10 +19,14 @@ package de.tudarmstadt.ukp.clarin.webanno.agreement.config;
 
 import org.springframework.context.annotation.Bean;
 
+import de.tudarmstadt.ukp.clarin.webanno.agreement.cache.AgreementResultCache;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.cache.AgreementResultCacheImpl;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.cohenkappa.CohenKappaAgreementMeasureSupport;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.fleisskappa.FleissKappaAgreementMeasureSupport;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.krippendorffalpha.KrippendorffAlphaAgreementMeasureSupport;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.krippendorffalphaunitizing.KrippendorffAlphaUnitizingAgreementMeasureSupport;
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 
 public class AgreementAutoConfiguration
@@ -53,4 +57,11 @@ public class AgreementAutoConfiguration
     {
         return new KrippendorffAlphaUnitizingAgreementMeasureSupport();
     }
+
+    @Bean
+    public AgreementResultCache agreementResultCache(RepositoryProperties aRepositoryProperties,
+            CasStorageService aCasStorageService)
+    {
+        return new AgreementResultCacheImpl(aRepositoryProperties, aCasStorageService);
+    }
 }
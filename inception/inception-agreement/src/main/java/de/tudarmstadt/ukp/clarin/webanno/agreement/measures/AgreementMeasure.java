@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.clarin.webanno.agreement.measures;
 
 import java.io.Serializable;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import org.apache.uima.cas.CAS;
@@ -28,6 +29,26 @@ public interface AgreementMeasure<R extends Serializable>
 {
     R getAgreement(Map<String, CAS> aCasMap);
 
+    /**
+     * Prepares the calculation of the agreement between different subsets of the data owners of the
+     * given CASes, e.g. between every pair of annotators. Measures that can share work between
+     * these calculations should override this method.
+     * 
+     * @param aCasMap
+     *            a set of CASes, each associated with the data owner.
+     * @return the prepared agreement.
+     */
+    default PreparedAgreement<R> prepare(Map<String, CAS> aCasMap)
+    {
+        return dataOwners -> {
+            var casMap = new LinkedHashMap<String, CAS>();
+            for (var dataOwner : dataOwners) {
+                casMap.put(dataOwner, aCasMap.get(dataOwner));
+            }
+            return getAgreement(casMap);
+        };
+    }
+
     AnnotationFeature getFeature();
 
     DefaultAgreementTraits getTraits();
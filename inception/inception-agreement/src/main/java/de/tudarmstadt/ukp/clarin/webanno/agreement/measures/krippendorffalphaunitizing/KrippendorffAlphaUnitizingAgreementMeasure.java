@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.clarin.webanno.agreement.measures.krippendorffalphaun
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -30,6 +32,7 @@ import org.dkpro.statistics.agreement.unitizing.UnitizingAnnotationStudy;
 
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure_ImplBase;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.PreparedAgreement;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.results.unitizing.FullUnitizingAgreementResult;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 
@@ -46,6 +49,16 @@ public class KrippendorffAlphaUnitizingAgreementMeasure
 
     @Override
     public FullUnitizingAgreementResult getAgreement(Map<String, CAS> aCasMap)
+    {
+        return prepare(aCasMap).getAgreement(aCasMap.keySet());
+    }
+
+    /**
+     * Extracts the units from each CAS only once. The unitizing study for a subset of the data
+     * owners is then assembled from the extracted units.
+     */
+    @Override
+    public PreparedAgreement<FullUnitizingAgreementResult> prepare(Map<String, CAS> aCasMap)
     {
         var typeName = getFeature().getLayer().getName();
 
@@ -53,12 +66,11 @@ public class KrippendorffAlphaUnitizingAgreementMeasure
         // all have the same size - since the users cannot change the document sizes, this should be
         // an universally true assumption.
         var someCas = aCasMap.values().stream().filter(Objects::nonNull).findAny().get();
+        var continuumLength = someCas.getDocumentText().length();
 
-        // Create a unitizing study for that continuum.
-        var study = new UnitizingAnnotationStudy(someCas.getDocumentText().length());
-
-        // For each annotator, extract the feature values from all the annotator's CASses and add
-        // them to the unitizing study based on character offsets.
+        // For each annotator, extract the feature values from all the annotator's CASses based on
+        // character offsets.
+        var unitsByRater = new LinkedHashMap<String, List<Unit>>();
         for (var set : aCasMap.entrySet()) {
             var cas = set.getValue();
             if (cas == null) {
@@ -73,34 +85,54 @@ public class KrippendorffAlphaUnitizingAgreementMeasure
                 continue;
             }
 
-            var raterIdx = study.addRater(set.getKey());
+            var units = new ArrayList<Unit>();
             var f = t.getFeatureByBaseName(getFeature().getName());
             for (var ann : cas.<Annotation> select(t)) {
                 var featureValue = FSUtil.getFeature(ann, f, Object.class);
                 if (featureValue instanceof Collection) {
                     for (var value : (Collection<?>) featureValue) {
-                        study.addUnit(ann.getBegin(), ann.getEnd() - ann.getBegin(), raterIdx,
-                                value);
+                        units.add(new Unit(ann.getBegin(), ann.getEnd() - ann.getBegin(), value));
                     }
                 }
                 else {
-                    study.addUnit(ann.getBegin(), ann.getEnd() - ann.getBegin(), raterIdx,
-                            featureValue);
+                    units.add(new Unit(ann.getBegin(), ann.getEnd() - ann.getBegin(),
+                            featureValue));
                 }
             }
+            unitsByRater.put(set.getKey(), units);
         }
 
-        var result = new FullUnitizingAgreementResult(typeName, getFeature().getName(), study,
-                new ArrayList<>(aCasMap.keySet()), getTraits().isExcludeIncomplete());
+        return dataOwners -> {
+            // Create a unitizing study for that continuum and add the units of the selected
+            // raters
+            var study = new UnitizingAnnotationStudy(continuumLength);
+            for (var dataOwner : dataOwners) {
+                var units = unitsByRater.get(dataOwner);
+                if (units == null) {
+                    continue;
+                }
 
-        if (result.isEmpty()) {
-            result.setAgreement(Double.NaN);
-        }
-        else {
-            var measure = new KrippendorffAlphaUnitizingAgreement(study);
-            result.setAgreement(measure.calculateAgreement());
-        }
+                var raterIdx = study.addRater(dataOwner);
+                for (var unit : units) {
+                    study.addUnit(unit.offset(), unit.length(), raterIdx, unit.category());
+                }
+            }
 
-        return result;
+            var result = new FullUnitizingAgreementResult(typeName, getFeature().getName(), study,
+                    new ArrayList<>(dataOwners), getTraits().isExcludeIncomplete());
+
+            if (result.isEmpty()) {
+                result.setAgreement(Double.NaN);
+            }
+            else {
+                var measure = new KrippendorffAlphaUnitizingAgreement(study);
+                result.setAgreement(measure.calculateAgreement());
+            }
+
+            return result;
+        };
     }
+
+    private record Unit(int offset, int length, Object category)
+    {}
 }
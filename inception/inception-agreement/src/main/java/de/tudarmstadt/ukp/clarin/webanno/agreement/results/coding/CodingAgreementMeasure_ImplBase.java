@@ -17,15 +17,73 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.agreement.results.coding;
 
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toCollection;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.uima.cas.CAS;
+
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure_ImplBase;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.PreparedAgreement;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.Tag;
+import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 
 public abstract class CodingAgreementMeasure_ImplBase<T extends DefaultAgreementTraits>
     extends AgreementMeasure_ImplBase<FullCodingAgreementResult, T>
 {
-    public CodingAgreementMeasure_ImplBase(AnnotationFeature aFeature, T aTraits)
+    private final AnnotationSchemaService annotationService;
+
+    public CodingAgreementMeasure_ImplBase(AnnotationFeature aFeature, T aTraits,
+            AnnotationSchemaService aAnnotationService)
     {
         super(aFeature, aTraits);
+        annotationService = aAnnotationService;
+    }
+
+    @Override
+    public FullCodingAgreementResult getAgreement(Map<String, CAS> aCasMap)
+    {
+        return calculateAgreement(diff(aCasMap), listTags(), aCasMap);
+    }
+
+    /**
+     * Calculates the diff over all the CASes only once. The agreement for a subset of the data
+     * owners is then calculated on a projection of that diff.
+     */
+    @Override
+    public PreparedAgreement<FullCodingAgreementResult> prepare(Map<String, CAS> aCasMap)
+    {
+        var diff = diff(aCasMap);
+        var tagset = listTags();
+
+        return dataOwners -> {
+            var projection = diff.project(dataOwners);
+            return calculateAgreement(projection, tagset, projection.getCasMap());
+        };
+    }
+
+    protected abstract FullCodingAgreementResult calculateAgreement(CasDiff aDiff,
+            Set<String> aTagset, Map<String, CAS> aCasMap);
+
+    private CasDiff diff(Map<String, CAS> aCasMap)
+    {
+        var adapters = getDiffAdapters(annotationService, asList(getFeature().getLayer()));
+
+        return doDiff(adapters, getTraits().getLinkCompareBehavior(), aCasMap);
+    }
+
+    private Set<String> listTags()
+    {
+        return annotationService.listTags(getFeature().getTagset()).stream() //
+                .map(Tag::getName) //
+                .collect(toCollection(LinkedHashSet::new));
     }
 }
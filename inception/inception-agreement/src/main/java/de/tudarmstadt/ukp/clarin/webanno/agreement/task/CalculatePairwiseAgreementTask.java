@@ -23,12 +23,12 @@ import static java.util.Comparator.comparing;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
-import org.apache.commons.lang3.concurrent.LazyInitializer;
+import org.apache.commons.lang3.tuple.Pair;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.fit.util.FSUtil;
 import org.slf4j.Logger;
@@ -37,6 +37,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementSummary;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.PairwiseAgreementResult;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.cache.AgreementResultCache;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
@@ -56,6 +57,7 @@ public class CalculatePairwiseAgreementTask
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private @Autowired DocumentService documentService;
+    private @Autowired AgreementResultCache agreementResultCache;
 
     private final List<String> annotators;
     private final DefaultAgreementTraits traits;
@@ -98,10 +100,17 @@ public class CalculatePairwiseAgreementTask
                     LogMessage.info(this, doc.getName()));
 
             try (var session = CasStorageSession.openNested()) {
+                var casTimestamps = new LinkedHashMap<String, Long>();
+                for (var annotator : annotators) {
+                    if (hasData(doc, annotator)) {
+                        casTimestamps.put(annotator,
+                                agreementResultCache.getCasTimestamp(doc, annotator));
+                    }
+                }
+
+                var pairs = new ArrayList<Pair<String, String>>();
                 for (int m = 0; m < annotators.size(); m++) {
                     var annotator1 = annotators.get(m);
-                    var maybeCas1 = LazyInitializer.<Optional<CAS>> builder()
-                            .setInitializer(() -> loadCas(doc, annotator1, allAnnDocs)).get();
 
                     for (int n = 0; n < annotators.size(); n++) {
                         if (!(n < m)) {
@@ -111,7 +120,7 @@ public class CalculatePairwiseAgreementTask
 
                         var annotator2 = annotators.get(n);
 
-                        if (maybeCas1.get().isEmpty()) {
+                        if (!casTimestamps.containsKey(annotator1)) {
                             LOG.trace("Skipping combination {}/{}@{}: {} has no data", annotator1,
                                     annotator2, doc, annotator1);
                             summary.mergeResult(annotator1, annotator2, AgreementSummary
@@ -119,10 +128,7 @@ public class CalculatePairwiseAgreementTask
                             continue;
                         }
 
-                        var maybeCas2 = LazyInitializer.<Optional<CAS>> builder()
-                                .setInitializer(() -> loadCas(doc, annotator2, allAnnDocs)).get();
-
-                        if (maybeCas2.get().isEmpty()) {
+                        if (!casTimestamps.containsKey(annotator2)) {
                             LOG.trace("Skipping combination {}/{}@{}: {} has no data", annotator1,
                                     annotator2, doc, annotator2);
                             summary.mergeResult(annotator1, annotator2, AgreementSummary
@@ -130,20 +136,71 @@ public class CalculatePairwiseAgreementTask
                             continue;
                         }
 
-                        var casMap = new LinkedHashMap<String, CAS>();
-                        casMap.put(annotator1, maybeCas1.get().get());
-                        casMap.put(annotator2, maybeCas2.get().get());
-                        var res = AgreementSummary.of(measure.getAgreement(casMap));
-                        summary.mergeResult(annotator1, annotator2, res);
+                        var cached = agreementResultCache.get(doc, measure,
+                                pairTimestamps(casTimestamps, annotator1, annotator2));
+                        if (cached.isPresent()) {
+                            summary.mergeResult(annotator1, annotator2, cached.get());
+                            continue;
+                        }
+
+                        pairs.add(Pair.of(annotator1, annotator2));
+                    }
+                }
+
+                if (pairs.isEmpty()) {
+                    progress++;
+                    continue;
+                }
+
+                // Only load the CASes needed for the pairs that are not cached yet
+                var casMap = new LinkedHashMap<String, CAS>();
+                for (var pair : pairs) {
+                    for (var annotator : List.of(pair.getLeft(), pair.getRight())) {
+                        if (!casMap.containsKey(annotator)) {
+                            casMap.put(annotator, loadCas(doc, annotator));
+                        }
                     }
                 }
 
+                // Diff all the annotators at once and then only look at the pairs in the projection
+                var agreement = measure.prepare(casMap);
+
+                // The pairs are independent of each other and only read from the CASes
+                var results = pairs.parallelStream() //
+                        .map(pair -> AgreementSummary.of(agreement
+                                .getAgreement(List.of(pair.getLeft(), pair.getRight())))) //
+                        .toList();
+
+                for (var i = 0; i < pairs.size(); i++) {
+                    var pair = pairs.get(i);
+                    agreementResultCache.put(doc, measure,
+                            pairTimestamps(casTimestamps, pair.getLeft(), pair.getRight()),
+                            results.get(i));
+                    summary.mergeResult(pair.getLeft(), pair.getRight(), results.get(i));
+                }
+
                 progress++;
             }
             catch (Exception e) {
                 LOG.error("Unable to load data", e);
             }
         }
+
+        agreementResultCache.persist(feature.getProject());
+    }
+
+    private static Map<String, Long> pairTimestamps(Map<String, Long> aCasTimestamps,
+            String aAnnotator1, String aAnnotator2)
+    {
+        return Map.of( //
+                aAnnotator1, aCasTimestamps.get(aAnnotator1), //
+                aAnnotator2, aCasTimestamps.get(aAnnotator2));
+    }
+
+    private boolean hasData(SourceDocument aDocument, String aDataOwner)
+    {
+        return allAnnDocs.get(aDocument).stream() //
+                .anyMatch(annDoc -> aDataOwner.equals(annDoc.getUser()));
     }
 
     private CAS loadInitialCas(SourceDocument aDocument) throws IOException
@@ -160,18 +217,10 @@ public class CalculatePairwiseAgreementTask
         return cas;
     }
 
-    private Optional<CAS> loadCas(SourceDocument aDocument, String aDataOwner,
-            Map<SourceDocument, List<AnnotationDocument>> aAllAnnDocs)
-        throws IOException
+    private CAS loadCas(SourceDocument aDocument, String aDataOwner) throws IOException
     {
-        var annDocs = aAllAnnDocs.get(aDocument);
-
-        if (annDocs.stream().noneMatch(annDoc -> aDataOwner.equals(annDoc.getUser()))) {
-            return Optional.empty();
-        }
-
         if (!documentService.existsCas(aDocument, aDataOwner)) {
-            Optional.of(loadInitialCas(aDocument));
+            loadInitialCas(aDocument);
         }
 
         var cas = documentService.readAnnotationCas(aDocument, aDataOwner, AUTO_CAS_UPGRADE,
@@ -183,7 +232,7 @@ public class CalculatePairwiseAgreementTask
         FSUtil.setFeature(dmd, "documentId", aDocument.getName());
         FSUtil.setFeature(dmd, "collectionId", aDocument.getProject().getName());
 
-        return Optional.of(cas);
+        return cas;
     }
 
     public PairwiseAgreementResult getResult()
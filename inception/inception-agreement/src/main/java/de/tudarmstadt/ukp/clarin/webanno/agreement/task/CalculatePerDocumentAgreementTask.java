@@ -38,6 +38,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementSummary;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.PerDocumentAgreementResult;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.cache.AgreementResultCache;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
@@ -58,6 +59,7 @@ public class CalculatePerDocumentAgreementTask
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private @Autowired DocumentService documentService;
+    private @Autowired AgreementResultCache agreementResultCache;
 
     private final Set<String> annotators;
     private final DefaultAgreementTraits traits;
@@ -100,17 +102,31 @@ public class CalculatePerDocumentAgreementTask
                     LogMessage.info(this, doc.getName()));
 
             try (var session = CasStorageSession.openNested()) {
-                var casMap = new LinkedHashMap<String, CAS>();
+                var casTimestamps = new LinkedHashMap<String, Long>();
                 for (var annDoc : allAnnDocs.get(doc)) {
                     var dataOwner = annDoc.getUser();
                     if (!annotators.contains(dataOwner)) {
                         continue;
                     }
-                    casMap.put(dataOwner, loadCas(annDoc.getDocument(), dataOwner));
+                    casTimestamps.put(dataOwner,
+                            agreementResultCache.getCasTimestamp(doc, dataOwner));
+                }
+
+                var cached = agreementResultCache.get(doc, measure, casTimestamps);
+                if (cached.isPresent()) {
+                    summary.mergeResult(doc, cached.get());
+                    progress++;
+                    continue;
+                }
+
+                var casMap = new LinkedHashMap<String, CAS>();
+                for (var dataOwner : casTimestamps.keySet()) {
+                    casMap.put(dataOwner, loadCas(doc, dataOwner));
                 }
 
                 LOG.trace("Calculating agreement on {} for [{}] annotators", doc, casMap.size());
                 var agreementResult = AgreementSummary.of(measure.getAgreement(casMap));
+                agreementResultCache.put(doc, measure, casTimestamps, agreementResult);
                 summary.mergeResult(doc, agreementResult);
 
                 progress++;
@@ -119,6 +135,8 @@ public class CalculatePerDocumentAgreementTask
                 LOG.error("Unable to load data", e);
             }
         }
+
+        agreementResultCache.persist(feature.getProject());
     }
 
     private CAS loadInitialCas(SourceDocument aDocument) throws IOException
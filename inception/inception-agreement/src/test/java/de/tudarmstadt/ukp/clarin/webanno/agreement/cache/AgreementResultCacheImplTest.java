@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.agreement.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementSummary;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure;
+import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class AgreementResultCacheImplTest
+{
+    private @Mock CasStorageService casStorageService;
+    private @Mock AgreementMeasure<?> measure;
+
+    private @TempDir Path repositoryDir;
+
+    private RepositoryPropertiesImpl repositoryProperties;
+    private Project project;
+    private SourceDocument document;
+    private AgreementResultCacheImpl sut;
+
+    @BeforeEach
+    void setup()
+    {
+        repositoryProperties = new RepositoryPropertiesImpl();
+        repositoryProperties.setPath(repositoryDir.toFile());
+
+        project = Project.builder().withId(1l).withName("project").build();
+        document = SourceDocument.builder() //
+                .withId(1l) //
+                .withName("doc") //
+                .withProject(project) //
+                .build();
+
+        var feature = new AnnotationFeature();
+        feature.setId(1l);
+        when(measure.getFeature()).thenReturn(feature);
+        when(measure.getTraits()).thenReturn(new DefaultAgreementTraits());
+
+        sut = new AgreementResultCacheImpl(repositoryProperties, casStorageService);
+    }
+
+    @Test
+    void thatResultIsOnlyReturnedForMatchingTimestamps()
+    {
+        sut.put(document, measure, Map.of("user1", 1l, "user2", 2l), summary());
+
+        assertThat(sut.get(document, measure, Map.of("user2", 2l, "user1", 1l))).isPresent();
+        assertThat(sut.get(document, measure, Map.of("user1", 1l, "user2", 3l))).isEmpty();
+        assertThat(sut.get(document, measure, Map.of("user1", 1l, "user3", 2l))).isEmpty();
+    }
+
+    @Test
+    void thatReturnedResultIsACopy()
+    {
+        sut.put(document, measure, Map.of("user1", 1l, "user2", 2l), summary());
+
+        var first = sut.get(document, measure, Map.of("user1", 1l, "user2", 2l)).get();
+        first.merge(summary());
+
+        var second = sut.get(document, measure, Map.of("user1", 1l, "user2", 2l)).get();
+        assertThat(second.getTotalAgreementsCount()).isEqualTo(1);
+    }
+
+    @Test
+    void thatResultsArePersisted()
+    {
+        sut.put(document, measure, Map.of("user1", 1l, "user2", 2l), summary());
+        sut.persist(project);
+
+        var reloaded = new AgreementResultCacheImpl(repositoryProperties, casStorageService);
+
+        assertThat(reloaded.get(document, measure, Map.of("user1", 1l, "user2", 2l))).isPresent();
+    }
+
+    @Test
+    void thatWritingACasInvalidatesTheResultsOfItsDataOwner()
+    {
+        sut.put(document, measure, Map.of("user1", 1l, "user2", 2l), summary());
+        sut.put(document, measure, Map.of("user2", 2l, "user3", 3l), summary());
+
+        sut.onAfterCasWritten(
+                new AfterCasWrittenEvent(this, new AnnotationDocument("user1", document), null));
+
+        assertThat(sut.get(document, measure, Map.of("user1", 1l, "user2", 2l))).isEmpty();
+        assertThat(sut.get(document, measure, Map.of("user2", 2l, "user3", 3l))).isPresent();
+    }
+
+    @Test
+    void thatLayerConfigurationChangeDiscardsResults()
+    {
+        sut.put(document, measure, Map.of("user1", 1l, "user2", 2l), summary());
+        sut.persist(project);
+
+        sut.onLayerConfigurationChanged(new LayerConfigurationChangedEvent(this, project));
+
+        assertThat(sut.get(document, measure, Map.of("user1", 1l, "user2", 2l))).isEmpty();
+        assertThat(new AgreementResultCacheImpl(repositoryProperties, casStorageService)
+                .get(document, measure, Map.of("user1", 1l, "user2", 2l))).isEmpty();
+    }
+
+    private static AgreementSummary summary()
+    {
+        return AgreementSummary.skipped("type", "feature");
+    }
+}
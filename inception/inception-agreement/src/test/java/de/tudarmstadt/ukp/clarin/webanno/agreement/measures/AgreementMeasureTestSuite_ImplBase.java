@@ -36,6 +36,7 @@ import static org.apache.uima.cas.CAS.TYPE_NAME_STRING;
 import static org.apache.uima.fit.factory.CasFactory.createCas;
 import static org.apache.uima.fit.factory.CasFactory.createText;
 import static org.apache.uima.fit.factory.JCasFactory.createJCas;
+import static org.assertj.core.api.Assertions.assertThat;
 
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -311,4 +312,66 @@ public class AgreementMeasureTestSuite_ImplBase
                 "user1", user1, //
                 "user2", user2));
     }
+
+    public <R extends FullAgreementResult_ImplBase<S>, T extends DefaultAgreementTraits, S extends IAnnotationStudy> //
+    void preparedAgreementMatchesPairwiseAgreement(AgreementMeasureSupport<T, R, S> aSupport,
+            T aTraits)
+        throws Exception
+    {
+        var layer = new AnnotationLayer(POS.class.getName(), POS.class.getSimpleName(),
+                SpanLayerSupport.TYPE, project, false, SINGLE_TOKEN, NO_OVERLAP);
+        layer.setId(1l);
+        layers.add(layer);
+
+        var feature = new AnnotationFeature(project, layer, "PosValue", "PosValue",
+                TYPE_NAME_STRING);
+        feature.setId(1l);
+        features.add(feature);
+
+        var user1 = createText("This is a test.");
+        buildAnnotation(user1, POS.class).at(0, 4).withFeature("PosValue", "A") //
+                .buildAndAddToIndexes();
+        buildAnnotation(user1, POS.class).at(5, 7).withFeature("PosValue", "B") //
+                .buildAndAddToIndexes();
+        buildAnnotation(user1, POS.class).at(10, 14).withFeature("PosValue", "C") //
+                .buildAndAddToIndexes();
+
+        var user2 = createText("This is a test.");
+        buildAnnotation(user2, POS.class).at(0, 4).withFeature("PosValue", "A") //
+                .buildAndAddToIndexes();
+        buildAnnotation(user2, POS.class).at(5, 7).withFeature("PosValue", "C") //
+                .buildAndAddToIndexes();
+
+        var user3 = createText("This is a test.");
+        buildAnnotation(user3, POS.class).at(0, 4).withFeature("PosValue", "B") //
+                .buildAndAddToIndexes();
+        buildAnnotation(user3, POS.class).at(5, 7).withFeature("PosValue", "B") //
+                .buildAndAddToIndexes();
+        buildAnnotation(user3, POS.class).at(10, 14).withFeature("PosValue", "C") //
+                .buildAndAddToIndexes();
+
+        var casByUser = new LinkedHashMap<String, CAS>();
+        casByUser.put("user1", user1);
+        casByUser.put("user2", user2);
+        casByUser.put("user3", user3);
+
+        var measure = aSupport.createMeasure(feature, aTraits);
+
+        var prepared = measure.prepare(casByUser);
+
+        for (var pair : List.of(List.of("user1", "user2"), List.of("user1", "user3"),
+                List.of("user2", "user3"))) {
+            var pairCasMap = new LinkedHashMap<String, CAS>();
+            pair.forEach(user -> pairCasMap.put(user, casByUser.get(user)));
+
+            var expected = measure.getAgreement(pairCasMap);
+            var actual = prepared.getAgreement(pair);
+
+            assertThat(actual.getAgreement()) //
+                    .as("Agreement between %s", pair) //
+                    .isEqualTo(expected.getAgreement());
+            assertThat(actual.getStudy().getRaterCount()) //
+                    .isEqualTo(expected.getStudy().getRaterCount());
+        }
+    }
 }
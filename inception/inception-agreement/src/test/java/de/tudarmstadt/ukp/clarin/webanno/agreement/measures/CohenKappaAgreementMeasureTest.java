@@ -156,4 +156,10 @@ public class CohenKappaAgreementMeasureTest
         assertThat(result.getRelevantSets()).hasSize(1);
         assertEquals(1.0, result.getAgreement(), 0.01);
     }
+
+    @Test
+    public void preparedAgreementMatchesPairwiseAgreement() throws Exception
+    {
+        preparedAgreementMatchesPairwiseAgreement(sut, traits);
+    }
 }
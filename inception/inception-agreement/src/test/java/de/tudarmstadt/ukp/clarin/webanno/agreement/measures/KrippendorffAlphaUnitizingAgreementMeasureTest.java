@@ -95,4 +95,10 @@ public class KrippendorffAlphaUnitizingAgreementMeasureTest
 
         assertEquals(0.4893, result.getAgreement(), 0.001);
     }
+
+    @Test
+    public void preparedAgreementMatchesPairwiseAgreement() throws Exception
+    {
+        preparedAgreementMatchesPairwiseAgreement(sut, traits);
+    }
 }
@@ -64,6 +64,7 @@ import org.springframework.util.ConcurrentReferenceHashMap;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Scheduler;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
@@ -101,6 +102,8 @@ public class CasStorageServiceImpl
     private final AnnotationSchemaService schemaService;
     private final CasStorageCacheProperties casStorageProperties;
 
+    private static final long ESTIMATED_BYTES_PER_FS = 100;
+
     private final int snapshotInterval = 1000;
     private final int warningThreshold = 50;
     private final AtomicLong lastExclusiveAccessPoolSnapshotUpdate = new AtomicLong();
@@ -110,6 +113,7 @@ public class CasStorageServiceImpl
     private final Set<CasHolder> exclusiveAccessHolders = synchronizedSet(
             newSetFromMap(new WeakHashMap<>()));
     private final Cache<CasKey, CasHolder> sharedAccessCache;
+    private final CompressedCasCache compressedCasCache;
 
     private final CasStorageDriver driver;
 
@@ -172,23 +176,78 @@ public class CasStorageServiceImpl
         // We do not have to set maxTotal because the default is already to have no limit (-1)
         exclusiveAccessPool = new GenericKeyedObjectPool<>(new PooledCasHolderFactory(), config);
 
-        sharedAccessCache = Caffeine.newBuilder() //
+        if (casStorageProperties.getCompressedCasCacheSize().toBytes() > 0) {
+            // CASes that drop out of the shared-access cache are idle for a while, so we keep
+            // them around a bit longer in compressed form
+            compressedCasCache = new CompressedCasCache(
+                    casStorageProperties.getCompressedCasCacheSize().toBytes(),
+                    casStorageProperties.getIdleCasEvictionDelay().multipliedBy(4));
+        }
+        else {
+            compressedCasCache = null;
+        }
+
+        var sharedAccessCacheBuilder = Caffeine.newBuilder() //
                 .scheduler(Scheduler.systemScheduler()) //
                 .expireAfterAccess(casStorageProperties.getIdleCasEvictionDelay()) //
-                .maximumSize(casStorageProperties.getSharedCasCacheSize()) //
                 .recordStats() //
-                .evictionListener((key, value, cause) -> {
+                .evictionListener((CasKey key, CasHolder value, RemovalCause cause) -> {
                     LOG.debug("Marked CAS for eviction from shared-access pool: {} [{}]", value,
                             cause);
                 }) //
-                .build();
+                .removalListener((CasKey key, CasHolder value, RemovalCause cause) -> {
+                    // Runs asynchronously - demote evicted CASes to the compressed tier
+                    if (compressedCasCache != null && cause.wasEvicted() && value != null
+                            && value.isCasSet() && !value.isDeleted()) {
+                        compressedCasCache.put(key, value.getCas());
+                    }
+                });
+
+        if (casStorageProperties.getSharedCasCacheHeapSize().toBytes() > 0) {
+            sharedAccessCacheBuilder //
+                    .maximumWeight(casStorageProperties.getSharedCasCacheHeapSize().toKilobytes())
+                    .weigher((CasKey key, CasHolder value) -> estimateHeapSizeKb(value));
+        }
+        else {
+            sharedAccessCacheBuilder.maximumSize(casStorageProperties.getSharedCasCacheSize());
+        }
+
+        sharedAccessCache = sharedAccessCacheBuilder.build();
 
         if (casDoctor == null) {
             LOG.info("CAS doctor not available - unable to check/repair CASes");
         }
 
-        BaseLoggers.BOOT_LOG.info("CAS cache size: {} instances",
-                casStorageProperties.getSharedCasCacheSize());
+        if (casStorageProperties.getSharedCasCacheHeapSize().toBytes() > 0) {
+            BaseLoggers.BOOT_LOG.info("CAS cache size: {}MB (estimated heap size)",
+                    casStorageProperties.getSharedCasCacheHeapSize().toMegabytes());
+        }
+        else {
+            BaseLoggers.BOOT_LOG.info("CAS cache size: {} instances",
+                    casStorageProperties.getSharedCasCacheSize());
+        }
+
+        if (compressedCasCache != null) {
+            BaseLoggers.BOOT_LOG.info("Compressed CAS cache size: {}MB",
+                    casStorageProperties.getCompressedCasCacheSize().toMegabytes());
+        }
+    }
+
+    /**
+     * Rough estimate of the heap occupied by a CAS: the document text plus an average amount of
+     * memory per feature structure.
+     */
+    static int estimateHeapSizeKb(CasHolder aHolder)
+    {
+        if (!aHolder.isCasSet()) {
+            return 1;
+        }
+
+        var cas = (CASImpl) getRealCas(aHolder.getCas());
+        var text = cas.getDocumentText();
+        var bytes = (text != null ? text.length() * 2l : 0l)
+                + cas.getLastUsedFsId() * ESTIMATED_BYTES_PER_FS;
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bytes / 1024));
     }
 
     public long getSharedAccessCacheSize()
@@ -201,6 +260,20 @@ public class CasStorageServiceImpl
         return sharedAccessCache.stats();
     }
 
+    public long getSharedAccessCacheWeight()
+    {
+        return sharedAccessCache.policy().eviction()
+                .map(e -> e.weightedSize().orElse(0)).orElse(0l);
+    }
+
+    /**
+     * @return the second tier of the shared-access cache or {@code null} if it is disabled.
+     */
+    public CompressedCasCache getCompressedCasCache()
+    {
+        return compressedCasCache;
+    }
+
     @Override
     public void writeCas(SourceDocument aDocument, CAS aCas, String aUserName)
         throws IOException, CasSessionException
@@ -269,6 +342,9 @@ public class CasStorageServiceImpl
             // Drop the CAS from the shared CAS it gets re-loaded on the next access - no effect if
             // the CAS is not present in the shared cache
             sharedAccessCache.invalidate(new CasKey(aDocument, aUserName));
+            if (compressedCasCache != null) {
+                compressedCasCache.invalidate(new CasKey(aDocument, aUserName));
+            }
 
             session.getManagedState(aCas).ifPresent(SessionManagedCas::incrementWriteCount);
         }
@@ -416,16 +492,18 @@ public class CasStorageServiceImpl
                 try (var access = new WithExclusiveAccess(aDocument, aUsername)) {
                     // Since we promise to only read the CAS, we don't have to worry about it being
                     // locked to a particular thread...
-                    casHolder = sharedAccessCache
-                            .get(new CasKey(aDocument, aUsername),
-                                    (key) -> CasHolder.of(key,
-                                            () -> getRealCas(readOrCreateUnmanagedCas(aDocument,
-                                                    aUsername, aSupplier, aUpgradeMode,
-                                                    aAccessMode))));
-                    var size = getSharedAccessCacheSize();
-                    var max = casStorageProperties.getSharedCasCacheSize();
-                    if (size > (max * 0.9)) {
-                        LOG.warn("Shared access CAS cache is >= 90% full: {} / {}", size, max);
+                    casHolder = sharedAccessCache.get(new CasKey(aDocument, aUsername),
+                            (key) -> CasHolder.of(key,
+                                    () -> getRealCas(rehydrateOrReadOrCreateUnmanagedCas(
+                                            aDocument, aUsername, aSupplier, aUpgradeMode,
+                                            aAccessMode))));
+                    if (casStorageProperties.getSharedCasCacheHeapSize().toBytes() <= 0) {
+                        var size = getSharedAccessCacheSize();
+                        var max = casStorageProperties.getSharedCasCacheSize();
+                        if (size > (max * 0.9)) {
+                            LOG.warn("Shared access CAS cache is >= 90% full: {} / {}", size,
+                                    max);
+                        }
                     }
                 }
             }
@@ -631,6 +709,35 @@ public class CasStorageServiceImpl
         return cas;
     }
 
+    /**
+     * Tries to rehydrate the CAS from the compressed tier of the shared-access cache before falling
+     * back to {@link #readOrCreateUnmanagedCas}.
+     */
+    private CAS rehydrateOrReadOrCreateUnmanagedCas(SourceDocument aDocument, String aUsername,
+            CasProvider aSupplier, CasUpgradeMode aUpgradeMode, CasAccessMode aAccessMode)
+        throws IOException
+    {
+        if (compressedCasCache != null) {
+            var timestamp = driver.getCasMetadata(aDocument, aUsername)
+                    .map(CasStorageMetadata::getTimestamp);
+            if (timestamp.isPresent()) {
+                var cas = compressedCasCache.rehydrate(new CasKey(aDocument, aUsername),
+                        timestamp.get());
+                if (cas.isPresent()) {
+                    LOG.debug("Rehydrated CAS [{}]@{} from compressed cache", aUsername,
+                            aDocument);
+                    // The layer configuration may have changed since the CAS was compressed
+                    repairAndUpgradeCasIfRequired(aDocument, aUsername, cas.get(), aUpgradeMode,
+                            ISOLATED_SESSION);
+                    return cas.get();
+                }
+            }
+        }
+
+        return readOrCreateUnmanagedCas(aDocument, aUsername, aSupplier, aUpgradeMode,
+                aAccessMode);
+    }
+
     private void addOrUpdateCasMetadata(SourceDocument aDocument, String aUsername, CAS cas)
         throws IOException
     {
@@ -658,6 +765,9 @@ public class CasStorageServiceImpl
                 sharedCasHolder.setDeleted(true);
             }
             sharedAccessCache.invalidate(key);
+            if (compressedCasCache != null) {
+                compressedCasCache.invalidate(key);
+            }
 
             // Drop the CAS from the exclusive access pool. This is done my marking it as deleted
             // and then releasing it (returning it to the pool). Upon return, the deleted flag
@@ -1115,6 +1225,9 @@ public class CasStorageServiceImpl
         // with an updated type system on next access
         sharedAccessCache.asMap().keySet()
                 .removeIf(key -> Objects.equals(key.getProjectId(), aEvent.getProject().getId()));
+        if (compressedCasCache != null) {
+            compressedCasCache.invalidateProject(aEvent.getProject().getId());
+        }
     }
 
     private void realWriteCas(SourceDocument aDocument, String aUserName, CAS aCas)
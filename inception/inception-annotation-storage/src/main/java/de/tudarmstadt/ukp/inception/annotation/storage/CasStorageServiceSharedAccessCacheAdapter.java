@@ -126,4 +126,59 @@ public class CasStorageServiceSharedAccessCacheAdapter
 
         return getActiveCount() / max;
     }
+
+    @ManagedAttribute
+    public long getActiveWeightKb()
+    {
+        return casStorageService.getSharedAccessCacheWeight();
+    }
+
+    @ManagedAttribute
+    public long getCompressedHitCount()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getStats().hitCount() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedMissCount()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getStats().missCount() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedStaleCount()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getStaleCount() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedRehydrationCount()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getRehydrationCount() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedTotalRehydrationTime()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getTotalRehydrationTime() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedActiveCount()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getSize() : 0;
+    }
+
+    @ManagedAttribute
+    public long getCompressedActiveBytes()
+    {
+        var cache = casStorageService.getCompressedCasCache();
+        return cache != null ? cache.getWeight() : 0;
+    }
 }
@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static java.lang.System.currentTimeMillis;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.uima.UIMAException;
+import org.apache.uima.cas.CAS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
+import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
+
+/**
+ * Second tier of the shared-access CAS cache. CASes evicted from the first tier are kept here as
+ * compressed serialized data in direct (off-heap) buffers. Rehydrating a CAS from here avoids
+ * reading it from disk. Each entry remembers the storage timestamp of the CAS it was created from
+ * and is only used if the CAS in the storage still has the same timestamp.
+ */
+public class CompressedCasCache
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Cache<CasKey, CompressedCas> cache;
+    private final LongAdder rehydrationCount = new LongAdder();
+    private final LongAdder rehydrationTime = new LongAdder();
+    private final LongAdder staleCount = new LongAdder();
+
+    public CompressedCasCache(long aMaxBytes, Duration aExpireAfterAccess)
+    {
+        this(aMaxBytes, aExpireAfterAccess, ForkJoinPool.commonPool());
+    }
+
+    CompressedCasCache(long aMaxBytes, Duration aExpireAfterAccess, Executor aExecutor)
+    {
+        cache = Caffeine.newBuilder() //
+                .executor(aExecutor) //
+                .scheduler(Scheduler.systemScheduler()) //
+                .expireAfterAccess(aExpireAfterAccess) //
+                .maximumWeight(aMaxBytes) //
+                .weigher((CasKey key, CompressedCas value) -> value.data().capacity()) //
+                .recordStats() //
+                .build();
+    }
+
+    /**
+     * Stores a compressed copy of the given CAS.
+     * 
+     * @param aKey
+     *            the CAS key.
+     * @param aCas
+     *            the CAS.
+     */
+    public void put(CasKey aKey, CAS aCas)
+    {
+        try {
+            var timestamp = CasMetadataUtils.getLastChanged(aCas);
+            if (timestamp < 0) {
+                return;
+            }
+
+            var bytes = CasPersistenceUtils.writeToCompressedByteArray(aCas);
+            var buffer = ByteBuffer.allocateDirect(bytes.length);
+            buffer.put(bytes);
+            buffer.flip();
+            cache.put(aKey, new CompressedCas(buffer.asReadOnlyBuffer(), timestamp));
+
+            LOG.trace("Compressed CAS {} into {} bytes", aKey, bytes.length);
+        }
+        catch (Exception e) {
+            LOG.debug("Unable to compress CAS {}", aKey, e);
+        }
+    }
+
+    /**
+     * Rehydrates a CAS from its compressed copy.
+     * 
+     * @param aKey
+     *            the CAS key.
+     * @param aExpectedTimestamp
+     *            the current timestamp of the CAS in the storage.
+     * @return the rehydrated CAS if a compressed copy matching the expected timestamp exists.
+     */
+    public Optional<CAS> rehydrate(CasKey aKey, long aExpectedTimestamp)
+    {
+        var entry = cache.getIfPresent(aKey);
+        if (entry == null) {
+            return Optional.empty();
+        }
+
+        if (entry.timestamp() != aExpectedTimestamp) {
+            staleCount.increment();
+            cache.asMap().remove(aKey, entry);
+            return Optional.empty();
+        }
+
+        var start = currentTimeMillis();
+        try {
+            var cas = WebAnnoCasUtil.createCas();
+            CasPersistenceUtils.readFromByteBuffer(cas, entry.data().duplicate());
+            rehydrationCount.increment();
+            return Optional.of(cas);
+        }
+        catch (IOException | UIMAException e) {
+            LOG.debug("Unable to rehydrate CAS {}", aKey, e);
+            cache.invalidate(aKey);
+            return Optional.empty();
+        }
+        finally {
+            rehydrationTime.add(currentTimeMillis() - start);
+        }
+    }
+
+    public void invalidate(CasKey aKey)
+    {
+        cache.invalidate(aKey);
+    }
+
+    public void invalidateProject(long aProjectId)
+    {
+        cache.asMap().keySet().removeIf(key -> Objects.equals(key.getProjectId(), aProjectId));
+    }
+
+    public CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    public long getSize()
+    {
+        return cache.estimatedSize();
+    }
+
+    public long getWeight()
+    {
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0l);
+    }
+
+    /**
+     * @return number of CASes successfully rehydrated.
+     */
+    public long getRehydrationCount()
+    {
+        return rehydrationCount.sum();
+    }
+
+    /**
+     * @return total time spent rehydrating CASes in milliseconds.
+     */
+    public long getTotalRehydrationTime()
+    {
+        return rehydrationTime.sum();
+    }
+
+    /**
+     * @return number of compressed copies that were discarded because the CAS in the storage had
+     *         changed.
+     */
+    public long getStaleCount()
+    {
+        return staleCount.sum();
+    }
+
+    private static record CompressedCas(ByteBuffer data, long timestamp) {}
+}
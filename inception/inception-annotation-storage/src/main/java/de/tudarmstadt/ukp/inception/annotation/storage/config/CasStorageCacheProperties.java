@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.inception.annotation.storage.config;
 
 import java.time.Duration;
 
+import org.springframework.util.unit.DataSize;
+
 public interface CasStorageCacheProperties
 {
     /**
@@ -44,4 +46,19 @@ public interface CasStorageCacheProperties
      * @return number of CAS instances that should be kept in memory for shared-read-only access.
      */
     long getSharedCasCacheSize();
+
+    /**
+     * @return estimated heap size that the CAS instances kept for shared-read-only access may
+     *         occupy. If this is set, it replaces the limit on the number of instances set via
+     *         {@link #getSharedCasCacheSize()}. If it is {@code 0}, only the number of instances is
+     *         limited.
+     */
+    DataSize getSharedCasCacheHeapSize();
+
+    /**
+     * @return size of the off-heap second tier of the shared-read-only cache which keeps CASes
+     *         evicted from the first tier in a compressed form. If it is {@code 0}, the second
+     *         tier is disabled.
+     */
+    DataSize getCompressedCasCacheSize();
 }
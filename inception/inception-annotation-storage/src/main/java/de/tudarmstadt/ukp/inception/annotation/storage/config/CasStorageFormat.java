@@ -0,0 +1,36 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.config;
+
+/**
+ * Format in which the file system CAS storage driver writes annotation files.
+ */
+public enum CasStorageFormat
+{
+    /**
+     * Java-serialized {@code CASCompleteSerializer} including the type system in every file
+     * (optionally Snappy-compressed).
+     */
+    SERIALIZED,
+
+    /**
+     * Compact binary heap data (UIMA Form 6) in every file. The type system is stored only once
+     * per project and referenced from the CAS files via a version hash.
+     */
+    COMPACT;
+}
@@ -19,6 +19,8 @@ package de.tudarmstadt.ukp.inception.annotation.storage.config;
 
 import java.time.Duration;
 
+import org.springframework.util.unit.DataSize;
+
 public interface CasStorageProperties
 {
     boolean isTraceAccess();
@@ -27,5 +29,21 @@ public interface CasStorageProperties
 
     boolean isCompressedCasSerialization();
 
+    CasStorageFormat getFormat();
+
+    DataSize getFullReadThreshold();
+
+    boolean isWriteBehind();
+
+    Duration getWriteBehindDelay();
+
+    int getWriteBehindQueueSize();
+
+    boolean isDeltaLog();
+
+    int getDeltaLogMaxEntries();
+
+    DataSize getDeltaLogMaxSize();
+
     Duration getFileSystemTimestampAccuracy();
 }
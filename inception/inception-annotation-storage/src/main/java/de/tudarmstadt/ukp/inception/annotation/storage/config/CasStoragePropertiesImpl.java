@@ -22,6 +22,7 @@ import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
 import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.util.unit.DataSize;
 
 /**
  * <p>
@@ -36,6 +37,14 @@ public class CasStoragePropertiesImpl
     private boolean compressedCasSerialization = true;
     private boolean paranoidCasSerialization = false;
     private boolean traceAccess = false;
+    private CasStorageFormat format = CasStorageFormat.SERIALIZED;
+    private DataSize fullReadThreshold = DataSize.ofBytes(0);
+    private boolean writeBehind = false;
+    private Duration writeBehindDelay = Duration.ofMillis(500);
+    private int writeBehindQueueSize = 100;
+    private boolean deltaLog = false;
+    private int deltaLogMaxEntries = 100;
+    private DataSize deltaLogMaxSize = DataSize.ofMegabytes(1);
     private Duration fileSystemTimestampAccuracy = Duration.ofMillis(0);
 
     @ManagedAttribute
@@ -75,6 +84,102 @@ public class CasStoragePropertiesImpl
         return compressedCasSerialization;
     }
 
+    public void setFormat(CasStorageFormat aFormat)
+    {
+        format = aFormat;
+    }
+
+    @Override
+    @ManagedAttribute
+    public CasStorageFormat getFormat()
+    {
+        return format;
+    }
+
+    public void setFullReadThreshold(DataSize aFullReadThreshold)
+    {
+        fullReadThreshold = aFullReadThreshold;
+    }
+
+    @Override
+    @ManagedAttribute
+    public DataSize getFullReadThreshold()
+    {
+        return fullReadThreshold;
+    }
+
+    public void setWriteBehind(boolean aWriteBehind)
+    {
+        writeBehind = aWriteBehind;
+    }
+
+    @Override
+    @ManagedAttribute
+    public boolean isWriteBehind()
+    {
+        return writeBehind;
+    }
+
+    public void setWriteBehindDelay(Duration aWriteBehindDelay)
+    {
+        writeBehindDelay = aWriteBehindDelay;
+    }
+
+    @Override
+    @ManagedAttribute
+    public Duration getWriteBehindDelay()
+    {
+        return writeBehindDelay;
+    }
+
+    public void setWriteBehindQueueSize(int aWriteBehindQueueSize)
+    {
+        writeBehindQueueSize = aWriteBehindQueueSize;
+    }
+
+    @Override
+    @ManagedAttribute
+    public int getWriteBehindQueueSize()
+    {
+        return writeBehindQueueSize;
+    }
+
+    public void setDeltaLog(boolean aDeltaLog)
+    {
+        deltaLog = aDeltaLog;
+    }
+
+    @Override
+    @ManagedAttribute
+    public boolean isDeltaLog()
+    {
+        return deltaLog;
+    }
+
+    public void setDeltaLogMaxEntries(int aDeltaLogMaxEntries)
+    {
+        deltaLogMaxEntries = aDeltaLogMaxEntries;
+    }
+
+    @Override
+    @ManagedAttribute
+    public int getDeltaLogMaxEntries()
+    {
+        return deltaLogMaxEntries;
+    }
+
+    public void setDeltaLogMaxSize(DataSize aDeltaLogMaxSize)
+    {
+        deltaLogMaxSize = aDeltaLogMaxSize;
+    }
+
+    @Override
+    @ManagedAttribute
+    public DataSize getDeltaLogMaxSize()
+    {
+        return deltaLogMaxSize;
+    }
+
     @ManagedAttribute
     public void setFileSystemTimestampAccuracy(Duration aFileSystemTimestampAccuracy)
     {
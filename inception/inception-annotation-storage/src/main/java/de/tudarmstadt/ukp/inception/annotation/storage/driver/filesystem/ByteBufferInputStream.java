@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream reading directly from a {@link ByteBuffer} without copying the data into an
+ * intermediate buffer.
+ */
+class ByteBufferInputStream
+    extends InputStream
+{
+    private final ByteBuffer buffer;
+
+    public ByteBufferInputStream(ByteBuffer aBuffer)
+    {
+        buffer = aBuffer;
+    }
+
+    @Override
+    public int read()
+    {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] aBytes, int aOffset, int aLength)
+    {
+        if (aLength == 0) {
+            return 0;
+        }
+
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+
+        var length = Math.min(aLength, buffer.remaining());
+        buffer.get(aBytes, aOffset, length);
+        return length;
+    }
+
+    @Override
+    public long skip(long aCount)
+    {
+        if (aCount <= 0) {
+            return 0;
+        }
+
+        var count = (int) Math.min(aCount, buffer.remaining());
+        buffer.position(buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available()
+    {
+        return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported()
+    {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int aReadLimit)
+    {
+        buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset()
+    {
+        buffer.reset();
+    }
+}
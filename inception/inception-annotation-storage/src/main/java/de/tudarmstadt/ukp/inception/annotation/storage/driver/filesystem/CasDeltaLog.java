@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append-only log of CAS deltas which belongs to a CAS file (the snapshot). The header of the log
+ * records the timestamp and size of the snapshot the deltas are based on. If the snapshot is
+ * replaced (e.g. because the CAS was written in full), the log no longer matches the snapshot and is
+ * ignored.
+ * <p>
+ * Each entry is a delta in UIMA's compressed binary format (form 6) relative to the snapshot. It
+ * contains all changes since the snapshot and thus supersedes the previous entries. These are only
+ * kept so that a crash while appending does not lose the last complete entry.
+ */
+final class CasDeltaLog
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final static byte[] DELTA_MAGIC = new byte[] { 'I', 'N', 'C', 'D' };
+    private final static int DELTA_FORMAT_VERSION = 1;
+    private final static int HEADER_SIZE = DELTA_MAGIC.length + Integer.BYTES + 2 * Long.BYTES;
+
+    private CasDeltaLog()
+    {
+        // No instances
+    }
+
+    /**
+     * Appends an entry to the log. If there is no log yet or if it does not match the current
+     * snapshot, a new log is started.
+     *
+     * @param aDeltaFile
+     *            the delta log.
+     * @param aCasFile
+     *            the snapshot the deltas are based on.
+     * @param aDelta
+     *            the serialized delta.
+     * @return whether a new log was started.
+     * @throws IOException
+     *             if the entry could not be written.
+     */
+    static boolean append(File aDeltaFile, File aCasFile, byte[] aDelta) throws IOException
+    {
+        var newLog = !matchesSnapshot(aDeltaFile, aCasFile);
+
+        var bos = new ByteArrayOutputStream(HEADER_SIZE + Integer.BYTES + aDelta.length);
+        var out = new DataOutputStream(bos);
+        if (newLog) {
+            out.write(DELTA_MAGIC);
+            out.writeInt(DELTA_FORMAT_VERSION);
+            out.writeLong(aCasFile.lastModified());
+            out.writeLong(aCasFile.length());
+        }
+        out.writeInt(aDelta.length);
+        out.write(aDelta);
+        out.flush();
+
+        try (var channel = newLog
+                ? FileChannel.open(aDeltaFile.toPath(), CREATE, WRITE, TRUNCATE_EXISTING)
+                : FileChannel.open(aDeltaFile.toPath(), WRITE, APPEND)) {
+            var previousSize = channel.size();
+            try {
+                var buffer = ByteBuffer.wrap(bos.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // The whole point of the log is that an acknowledged write is on disk
+                channel.force(false);
+            }
+            catch (IOException e) {
+                // Do not leave a partial entry behind, otherwise any further entries would be
+                // unreadable
+                channel.truncate(previousSize);
+                throw e;
+            }
+        }
+
+        return newLog;
+    }
+
+    /**
+     * @param aDeltaFile
+     *            the delta log.
+     * @param aCasFile
+     *            the snapshot the deltas are based on.
+     * @return the entries of the log or an empty list if there is no log or if it does not match
+     *         the snapshot. An incomplete last entry (e.g. due to a crash while appending) is
+     *         ignored.
+     * @throws IOException
+     *             if the log could not be read.
+     */
+    static List<byte[]> read(File aDeltaFile, File aCasFile) throws IOException
+    {
+        var entries = new ArrayList<byte[]>();
+
+        if (!aDeltaFile.exists()) {
+            return entries;
+        }
+
+        try (var is = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(aDeltaFile.toPath())))) {
+            if (!matchesSnapshot(is, aCasFile)) {
+                LOG.debug("Ignoring delta log [{}] which does not match the current snapshot",
+                        aDeltaFile);
+                return entries;
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = is.readInt();
+                }
+                catch (EOFException e) {
+                    break;
+                }
+
+                var data = new byte[length];
+                try {
+                    is.readFully(data);
+                }
+                catch (EOFException e) {
+                    LOG.warn("Ignoring incomplete last entry in delta log [{}]", aDeltaFile);
+                    break;
+                }
+
+                entries.add(data);
+            }
+        }
+
+        return entries;
+    }
+
+    /**
+     * @param aDeltaFile
+     *            the delta log.
+     * @param aCasFile
+     *            the snapshot the deltas are based on.
+     * @return whether the log exists and belongs to the current snapshot.
+     */
+    static boolean matchesSnapshot(File aDeltaFile, File aCasFile)
+    {
+        if (!aDeltaFile.exists() || aDeltaFile.length() < HEADER_SIZE) {
+            return false;
+        }
+
+        try (var is = new DataInputStream(Files.newInputStream(aDeltaFile.toPath()))) {
+            return matchesSnapshot(is, aCasFile);
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean matchesSnapshot(DataInputStream aIs, File aCasFile) throws IOException
+    {
+        var magic = new byte[DELTA_MAGIC.length];
+        try {
+            aIs.readFully(magic);
+            if (!Arrays.equals(DELTA_MAGIC, magic)) {
+                return false;
+            }
+
+            var version = aIs.readInt();
+            if (version != DELTA_FORMAT_VERSION) {
+                throw new IOException("Unsupported delta log version [" + version + "]");
+            }
+
+            var snapshotTimestamp = aIs.readLong();
+            var snapshotSize = aIs.readLong();
+            return snapshotTimestamp == aCasFile.lastModified()
+                    && snapshotSize == aCasFile.length();
+        }
+        catch (EOFException e) {
+            return false;
+        }
+    }
+}
@@ -20,12 +20,18 @@ package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.getRealCas;
 import static java.io.ObjectInputFilter.Config.createFilter;
 import static java.lang.String.join;
+import static org.apache.uima.cas.SerialFormat.COMPRESSED_FILTERED;
 import static org.apache.uima.cas.SerialFormat.XMI;
 import static org.apache.uima.cas.impl.Serialization.deserializeCASComplete;
 import static org.apache.uima.cas.impl.Serialization.serializeCASComplete;
+import static org.apache.uima.cas.impl.Serialization.serializeCASMgr;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -37,13 +43,27 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Optional;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Marker;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.impl.AllowPreexistingFS;
+import org.apache.uima.cas.impl.BinaryCasSerDes6.ReuseInfo;
 import org.apache.uima.cas.impl.CASCompleteSerializer;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.CASMgrSerializer;
 import org.apache.uima.cas.impl.CASSerializer;
+import org.apache.uima.cas.impl.Serialization;
+import org.apache.uima.cas.impl.TypeSystemImpl;
+import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.util.CasIOUtils;
 import org.apache.uima.util.TypeSystemUtil;
 import org.slf4j.Logger;
@@ -68,6 +88,9 @@ public final class CasPersistenceUtils
     private final static byte[] SNAPPY_MAGIC = new byte[] { (byte) 0xff, 0x06, 0x00, 0x00, 0x73,
             0x4e, 0x61, 0x50, 0x70, 0x59, };
 
+    private final static byte[] COMPACT_MAGIC = new byte[] { 'I', 'N', 'C', 'C' };
+    private final static int COMPACT_FORMAT_VERSION = 1;
+
     private CasPersistenceUtils()
     {
         // No instances
@@ -89,6 +112,171 @@ public final class CasPersistenceUtils
         }
     }
 
+    /**
+     * Writes the CAS in the compact format. The file contains only the heap data (UIMA Form 6)
+     * and a reference to the type system which needs to be stored separately (cf.
+     * {@link #writeTypeSystemToByteArray(CAS)}).
+     * 
+     * @param aCas
+     *            the CAS to write.
+     * @param aTypeSystemHash
+     *            the hash of the shared type system the CAS is serialized against.
+     * @param aFile
+     *            the target file.
+     * @throws IOException
+     *             if there was a problem writing the CAS.
+     */
+    static void writeCompactCas(CAS aCas, String aTypeSystemHash, File aFile) throws IOException
+    {
+        FileUtils.forceMkdir(aFile.getParentFile());
+        try (var os = new BufferedOutputStream(new FileOutputStream(aFile))) {
+            writeCompact(os, aCas, aTypeSystemHash);
+        }
+    }
+
+    public static byte[] writeCompactCasToByteArray(CAS aCas, String aTypeSystemHash)
+        throws IOException
+    {
+        try (var bos = new ByteArrayOutputStream()) {
+            writeCompact(bos, aCas, aTypeSystemHash);
+            return bos.toByteArray();
+        }
+    }
+
+    private static void writeCompact(OutputStream aOut, CAS aCas, String aTypeSystemHash)
+        throws IOException
+    {
+        var dos = new DataOutputStream(aOut);
+        dos.write(COMPACT_MAGIC);
+        dos.writeByte(COMPACT_FORMAT_VERSION);
+        dos.writeUTF(aTypeSystemHash);
+        dos.flush();
+        CasIOUtils.save(getRealCas(aCas), aOut, COMPRESSED_FILTERED);
+    }
+
+    /**
+     * Prepares the given CAS for delta serialization. All changes made to the CAS after this call
+     * can be serialized using {@link #writeDeltaToByteArray}. This serializes the whole CAS, so the
+     * delta base should be created once and then be used for any number of deltas.
+     * 
+     * @param aCas
+     *            the CAS.
+     * @return the marker and the information required to relate the delta to the current state of
+     *         the CAS.
+     * @throws IOException
+     *             if the CAS could not be prepared.
+     */
+    static DeltaBase createDeltaBase(CAS aCas) throws IOException
+    {
+        var realCas = (CASImpl) getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (realCas.getBaseCAS()) {
+            try {
+                // The reuse info is only a by-product of the serialization which is why we throw
+                // away the serialized data
+                var reuseInfo = Serialization.serializeWithCompression(realCas,
+                        OutputStream.nullOutputStream(), (TypeSystem) null);
+                return new DeltaBase(realCas.createMarker(), reuseInfo);
+            }
+            catch (ResourceInitializationException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Serializes all changes made to the CAS since the given delta base was created.
+     * 
+     * @param aCas
+     *            the CAS.
+     * @param aBase
+     *            the delta base.
+     * @return the serialized delta.
+     * @throws IOException
+     *             if the delta could not be serialized.
+     */
+    static byte[] writeDeltaToByteArray(CAS aCas, DeltaBase aBase) throws IOException
+    {
+        var realCas = (CASImpl) getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (realCas.getBaseCAS()) {
+            try (var bos = new ByteArrayOutputStream()) {
+                Serialization.serializeWithCompression(realCas, bos, null, aBase.marker(),
+                        aBase.reuseInfo());
+                return bos.toByteArray();
+            }
+            catch (ResourceInitializationException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Applies a delta to the CAS. The CAS must be in the state it was in when the delta base used
+     * to serialize the delta was created. This serializes the whole CAS, so only a single delta
+     * should be applied to a CAS.
+     * 
+     * @param aCas
+     *            the CAS.
+     * @param aDelta
+     *            the serialized delta.
+     * @throws IOException
+     *             if the delta could not be applied.
+     */
+    static void readDelta(CAS aCas, byte[] aDelta) throws IOException
+    {
+        var realCas = (CASImpl) getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (realCas.getBaseCAS()) {
+            try {
+                var reuseInfo = Serialization.serializeWithCompression(realCas,
+                        OutputStream.nullOutputStream(), (TypeSystem) null);
+                Serialization.deserializeCAS(realCas, new ByteArrayInputStream(aDelta), null,
+                        reuseInfo, AllowPreexistingFS.allow);
+            }
+            catch (ResourceInitializationException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    /**
+     * Serializes the type system and index definitions of the given CAS. This is the shared part
+     * which CAS files in the compact format refer to.
+     * 
+     * @param aCas
+     *            the CAS whose type system should be serialized.
+     * @return the serialized type system.
+     * @throws IOException
+     *             if there was a problem serializing the type system.
+     */
+    public static byte[] writeTypeSystemToByteArray(CAS aCas) throws IOException
+    {
+        var casMgrSerializer = serializeCASMgr((CASImpl) getRealCas(aCas));
+        try (var bos = new ByteArrayOutputStream()) {
+            try (var oos = new ObjectOutputStream(bos)) {
+                oos.writeObject(casMgrSerializer);
+            }
+            return bos.toByteArray();
+        }
+    }
+
+    /**
+     * @param aTypeSystem
+     *            a type system serialized using {@link #writeTypeSystemToByteArray(CAS)}.
+     * @return the version hash of the given serialized type system.
+     */
+    public static String getTypeSystemHash(byte[] aTypeSystem)
+    {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(aTypeSystem));
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public static void writeSerializedCasParanoid(CAS aCas, File aFile) throws IOException
     {
         FileUtils.forceMkdir(aFile.getParentFile());
@@ -191,16 +379,67 @@ public final class CasPersistenceUtils
     }
 
     public static void readSerializedCas(CAS aCas, File aFile) throws IOException
+    {
+        readSerializedCas(aCas, aFile, 0);
+    }
+
+    /**
+     * Reads a (possibly compressed) serialized CAS.
+     * 
+     * @param aCas
+     *            the CAS to load the data into.
+     * @param aFile
+     *            the file containing the serialized CAS data.
+     * @param aFullReadThreshold
+     *            files of at least this size (in bytes) are read into memory in a single operation
+     *            and deserialized from there. This is disabled if the threshold is {@code 0} or
+     *            less.
+     * @throws IOException
+     *             if there was a problem reading the CAS.
+     */
+    public static void readSerializedCas(CAS aCas, File aFile, long aFullReadThreshold)
+        throws IOException
     {
         var realCas = getRealCas(aCas);
         // UIMA-6162 Workaround: synchronize CAS during de/serialization
         synchronized (((CASImpl) realCas).getBaseCAS()) {
-            try (var bis = new BufferedInputStream(new FileInputStream(aFile))) {
-                readSerializedCas(realCas, maybeUncompress(bis));
+            try (var is = openCasFile(aFile, aFullReadThreshold)) {
+                readSerializedCas(realCas, maybeUncompress(is));
             }
         }
     }
 
+    /**
+     * Opens a CAS file for reading. The returned stream supports {@link InputStream#mark(int)}.
+     * If the file is at least as large as the given threshold, it is read into memory in a single
+     * operation so that the data does not have to be copied through intermediate buffers. The file
+     * is not memory-mapped because the mapping would only be released on garbage collection and
+     * until then, the file could not be replaced or deleted on some platforms.
+     */
+    static InputStream openCasFile(File aFile, long aFullReadThreshold)
+        throws IOException
+    {
+        if (isReadInFull(aFile, aFullReadThreshold)) {
+            return new ByteBufferInputStream(ByteBuffer.wrap(Files.readAllBytes(aFile.toPath())));
+        }
+
+        return new BufferedInputStream(new FileInputStream(aFile));
+    }
+
+    /**
+     * @param aFile
+     *            a CAS file.
+     * @param aFullReadThreshold
+     *            the memory-mapping threshold.
+     * @return whether the given file would be read into memory in a single operation.
+     */
+    public static boolean isReadInFull(File aFile, long aFullReadThreshold)
+    {
+        var size = aFile.length();
+        return aFullReadThreshold > 0 && size >= aFullReadThreshold
+                && size <= Integer.MAX_VALUE;
+    }
+
     public static void readSerializedCas(CAS aCas, InputStream is) throws IOException
     {
         try (var ois = new ObjectInputStream(is)) {
@@ -208,22 +447,164 @@ public final class CasPersistenceUtils
             var serializer = (CASCompleteSerializer) ois.readObject();
             deserializeCASComplete(serializer, (CASImpl) aCas);
 
-            // Workaround for UIMA adding back deleted DocumentAnnotations
-            // https://issues.apache.org/jira/browse/UIMA-6199
-            // If there is a DocumentMetaData annotation, then we can drop any of the default UIMA
-            // DocumentAnnotation instances (excluding the DocumentMetaData of course)
-            if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
-                aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION).filter(
-                        fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
-                        .forEach(aCas::removeFsFromIndexes);
+            removeSurplusDocumentAnnotations(aCas);
+        }
+        catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Reads a (possibly compressed) serialized CAS from the given buffer, e.g. one created from
+     * {@link #writeToCompressedByteArray(CAS)}.
+     * 
+     * @param aCas
+     *            the CAS to load the data into.
+     * @param aBuffer
+     *            the buffer containing the serialized CAS data.
+     * @throws IOException
+     *             if there was a problem reading the CAS.
+     */
+    public static void readFromByteBuffer(CAS aCas, ByteBuffer aBuffer) throws IOException
+    {
+        var realCas = getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (((CASImpl) realCas).getBaseCAS()) {
+            try (var is = new ByteBufferInputStream(aBuffer)) {
+                readSerializedCas(realCas, maybeUncompress(is));
             }
         }
+    }
+
+    /**
+     * Reads a CAS stored in the compact format. The CAS is re-initialized with the given shared
+     * type system before the heap data is loaded.
+     * 
+     * @param aCas
+     *            the CAS to load the data into.
+     * @param aFile
+     *            the file containing the compact CAS data.
+     * @param aTypeSystem
+     *            the type system serialized using {@link #writeTypeSystemToByteArray(CAS)} whose
+     *            hash is referenced from the file.
+     * @throws IOException
+     *             if there was a problem reading the CAS.
+     */
+    public static void readCompactCas(CAS aCas, File aFile, byte[] aTypeSystem) throws IOException
+    {
+        readCompactCas(aCas, aFile, readTypeSystemFromByteArray(aTypeSystem), 0);
+    }
+
+    /**
+     * Reads a CAS stored in the compact format.
+     * 
+     * @param aCas
+     *            the CAS to load the data into.
+     * @param aFile
+     *            the file containing the compact CAS data.
+     * @param aTypeSystem
+     *            the shared type system referenced from the file.
+     * @param aFullReadThreshold
+     *            files of at least this size (in bytes) are read into memory in a single
+     *            operation. This is disabled if the threshold is {@code 0} or less.
+     * @throws IOException
+     *             if there was a problem reading the CAS.
+     * @see #readCompactCas(CAS, File, byte[])
+     */
+    public static void readCompactCas(CAS aCas, File aFile, CompactTypeSystem aTypeSystem,
+            long aFullReadThreshold)
+        throws IOException
+    {
+        var realCas = (CASImpl) getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (realCas.getBaseCAS()) {
+            try (var is = new DataInputStream(openCasFile(aFile, aFullReadThreshold))) {
+                var hash = readCompactHeader(is);
+                if (hash.isEmpty()) {
+                    throw new IOException("File [" + aFile + "] is not a compact CAS file");
+                }
+
+                realCas.getBinaryCasSerDes().setupCasFromCasMgrSerializer(aTypeSystem.casMgr());
+                CasIOUtils.load(is, realCas, aTypeSystem.typeSystem());
+
+                removeSurplusDocumentAnnotations(realCas);
+            }
+        }
+    }
+
+    /**
+     * Deserializes a shared type system. The result can be used to read any number of CASes
+     * stored in the compact format, so it should be kept instead of deserializing the type system
+     * again for every CAS.
+     * 
+     * @param aTypeSystem
+     *            a type system serialized using {@link #writeTypeSystemToByteArray(CAS)}.
+     * @return the deserialized type system.
+     * @throws IOException
+     *             if the type system could not be deserialized.
+     */
+    public static CompactTypeSystem readTypeSystemFromByteArray(byte[] aTypeSystem)
+        throws IOException
+    {
+        try (var ois = new ObjectInputStream(new ByteArrayInputStream(aTypeSystem))) {
+            ois.setObjectInputFilter(SERIALIZED_CAS_INPUT_FILTER);
+            var casMgr = (CASMgrSerializer) ois.readObject();
+            return new CompactTypeSystem(casMgr, casMgr.getTypeSystem().commit());
+        }
         catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
     }
 
-    private static InputStream maybeUncompress(BufferedInputStream bis) throws IOException
+    /**
+     * @param aFile
+     *            a CAS file.
+     * @return the hash of the shared type system if the file is stored in the compact format or
+     *         an empty result if it is a (possibly compressed) serialized CAS.
+     * @throws IOException
+     *             if there was a problem reading the file.
+     */
+    public static Optional<String> getCompactCasTypeSystemHash(File aFile) throws IOException
+    {
+        try (var is = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)))) {
+            return readCompactHeader(is);
+        }
+    }
+
+    private static Optional<String> readCompactHeader(DataInputStream aIs) throws IOException
+    {
+        var magic = new byte[COMPACT_MAGIC.length];
+        aIs.mark(magic.length);
+        var bytesRead = aIs.readNBytes(magic, 0, magic.length);
+        if (bytesRead < magic.length || !Arrays.equals(magic, COMPACT_MAGIC)) {
+            aIs.reset();
+            return Optional.empty();
+        }
+
+        var version = aIs.readUnsignedByte();
+        if (version != COMPACT_FORMAT_VERSION) {
+            throw new IOException("Unsupported compact CAS format version [" + version + "]");
+        }
+
+        return Optional.of(aIs.readUTF());
+    }
+
+    /**
+     * Workaround for UIMA adding back deleted DocumentAnnotations
+     * https://issues.apache.org/jira/browse/UIMA-6199 If there is a DocumentMetaData annotation,
+     * then we can drop any of the default UIMA DocumentAnnotation instances (excluding the
+     * DocumentMetaData of course)
+     */
+    private static void removeSurplusDocumentAnnotations(CAS aCas)
+    {
+        if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
+            aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION)
+                    .filter(fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
+                    .forEach(aCas::removeFsFromIndexes);
+        }
+    }
+
+    private static InputStream maybeUncompress(InputStream bis) throws IOException
     {
         byte[] buf = new byte[32];
         bis.mark(buf.length);
@@ -251,4 +632,14 @@ public final class CasPersistenceUtils
 
         return true;
     }
+
+    /**
+     * State of a CAS against which a delta can be serialized.
+     */
+    static record DeltaBase(Marker marker, ReuseInfo reuseInfo) {}
+
+    /**
+     * A deserialized shared type system.
+     */
+    public static record CompactTypeSystem(CASMgrSerializer casMgr, TypeSystemImpl typeSystem) {}
 }
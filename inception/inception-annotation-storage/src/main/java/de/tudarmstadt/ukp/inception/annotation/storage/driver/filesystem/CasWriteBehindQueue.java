@@ -0,0 +1,253 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * Queue of serialized CAS snapshots which are written to disk in the background. Repeated writes
+ * to the same CAS file within the configured delay are coalesced such that only the latest
+ * snapshot is written. While a write is pending, the snapshot stands in for the file on disk, i.e.
+ * its timestamp is reported as the timestamp of the CAS. After the snapshot has been written, the
+ * file timestamp is set to the snapshot timestamp.
+ */
+class CasWriteBehindQueue
+    implements AutoCloseable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Map<File, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final long delay;
+    private final int maxPendingWrites;
+    private final SnapshotWriter writer;
+
+    public CasWriteBehindQueue(Duration aDelay, int aMaxPendingWrites, SnapshotWriter aWriter)
+    {
+        delay = aDelay.toMillis();
+        maxPendingWrites = aMaxPendingWrites;
+        writer = aWriter;
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "CAS write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a snapshot for writing.
+     * 
+     * @param aDocument
+     *            the document.
+     * @param aUser
+     *            the user owning the CAS.
+     * @param aCasFile
+     *            the target file.
+     * @param aData
+     *            the serialized CAS.
+     * @return the timestamp assigned to the snapshot.
+     * @throws IOException
+     *             if the queue is full and the write performed synchronously failed.
+     */
+    public long enqueue(SourceDocument aDocument, String aUser, File aCasFile, byte[] aData)
+        throws IOException
+    {
+        var schedule = new AtomicBoolean();
+        var write = pendingWrites.compute(aCasFile, (k, w) -> {
+            var pending = w != null ? w : new PendingWrite(aDocument, aUser, aCasFile);
+            var previous = pending.latest;
+            var previousTimestamp = previous != null ? previous.timestamp() : k.lastModified();
+            // Timestamps must be strictly increasing, otherwise concurrent modification checks
+            // cannot distinguish the snapshots
+            var timestamp = Math.max(currentTimeMillis(), previousTimestamp + 1);
+            pending.latest = new CasSnapshot(aData, timestamp);
+            if (previous == null || pending.failed) {
+                pending.failed = false;
+                schedule.set(true);
+            }
+            return pending;
+        });
+
+        var timestamp = write.latest.timestamp();
+
+        if (pendingWrites.size() > maxPendingWrites) {
+            // Apply back-pressure if the background writer cannot keep up
+            LOG.debug("Write-behind queue is full ({} pending) - writing synchronously",
+                    pendingWrites.size());
+            flush(write);
+        }
+        else if (schedule.get()) {
+            executor.schedule(() -> flushInBackground(write), delay, MILLISECONDS);
+        }
+
+        return timestamp;
+    }
+
+    /**
+     * @param aCasFile
+     *            the CAS file.
+     * @return the snapshot which is pending to be written to the given file, if any.
+     */
+    public Optional<CasSnapshot> getPendingSnapshot(File aCasFile)
+    {
+        var write = pendingWrites.get(aCasFile);
+        if (write == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(write.latest);
+    }
+
+    /**
+     * Writes any pending snapshot for the given file to disk before returning.
+     * 
+     * @param aCasFile
+     *            the CAS file.
+     * @throws IOException
+     *             if the snapshot could not be written.
+     */
+    public void flush(File aCasFile) throws IOException
+    {
+        var write = pendingWrites.get(aCasFile);
+        if (write != null) {
+            flush(write);
+        }
+    }
+
+    /**
+     * Discards any pending snapshot for the given file, e.g. because the CAS is being deleted. If
+     * the snapshot is currently being written, this method waits for the write to complete.
+     * 
+     * @param aCasFile
+     *            the CAS file.
+     */
+    public void cancel(File aCasFile)
+    {
+        var write = pendingWrites.remove(aCasFile);
+        if (write != null) {
+            synchronized (write.ioLock) {
+                write.latest = null;
+            }
+        }
+    }
+
+    public int size()
+    {
+        return pendingWrites.size();
+    }
+
+    private void flushInBackground(PendingWrite aWrite)
+    {
+        try {
+            flush(aWrite);
+        }
+        catch (Exception e) {
+            aWrite.failed = true;
+            LOG.error("Unable to write annotations for user [{}] on document {} in project {} - "
+                    + "will retry on next access", aWrite.user, aWrite.document,
+                    aWrite.document.getProject(), e);
+        }
+    }
+
+    private void flush(PendingWrite aWrite) throws IOException
+    {
+        synchronized (aWrite.ioLock) {
+            var snapshot = aWrite.latest;
+            while (snapshot != null) {
+                writer.write(aWrite.document, aWrite.user, aWrite.casFile, snapshot);
+
+                var written = snapshot;
+                pendingWrites.computeIfPresent(aWrite.casFile, (k, w) -> {
+                    if (w == aWrite && w.latest == written) {
+                        w.latest = null;
+                        return null;
+                    }
+                    return w;
+                });
+
+                // If a new snapshot arrived in the meantime, we write it as well
+                snapshot = aWrite.latest;
+                if (snapshot == written) {
+                    // The write was cancelled or superseded by a new pending write object
+                    break;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+
+        // Make sure that all pending writes are persisted before the application shuts down
+        for (var write : new ArrayList<>(pendingWrites.values())) {
+            try {
+                flush(write);
+            }
+            catch (Exception e) {
+                LOG.error("Unable to write annotations for user [{}] on document {} in project {}",
+                        write.user, write.document, write.document.getProject(), e);
+            }
+        }
+    }
+
+    static record CasSnapshot(byte[] data, long timestamp) {}
+
+    @FunctionalInterface
+    static interface SnapshotWriter
+    {
+        void write(SourceDocument aDocument, String aUser, File aCasFile, CasSnapshot aSnapshot)
+            throws IOException;
+    }
+
+    private static class PendingWrite
+    {
+        private final Object ioLock = new Object();
+        private final SourceDocument document;
+        private final String user;
+        private final File casFile;
+        private volatile CasSnapshot latest;
+        private volatile boolean failed;
+
+        private PendingWrite(SourceDocument aDocument, String aUser, File aCasFile)
+        {
+            document = aDocument;
+            user = aUser;
+            casFile = aCasFile;
+        }
+    }
+}
@@ -17,14 +17,18 @@
  */
 package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 
+import static de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageFormat.COMPACT;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.ANNOTATION_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
 import static de.tudarmstadt.ukp.inception.support.logging.BaseLoggers.BOOT_LOG;
+import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.getRealCas;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.setDocumentId;
 import static java.lang.System.currentTimeMillis;
 import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.synchronizedMap;
 import static java.util.regex.Pattern.compile;
 import static java.util.regex.Pattern.quote;
 import static org.apache.commons.io.comparator.LastModifiedFileComparator.LASTMODIFIED_COMPARATOR;
@@ -36,12 +40,16 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.lang.invoke.MethodHandles;
+import java.lang.management.ManagementFactory;
 import java.nio.file.Files;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.WeakHashMap;
 import java.util.regex.Matcher;
 
 import org.apache.commons.io.FileUtils;
@@ -49,10 +57,14 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.fit.util.FSUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
@@ -64,15 +76,22 @@ import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageMetadata;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.CasStorageDriver;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils.CompactTypeSystem;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils.DeltaBase;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasWriteBehindQueue.CasSnapshot;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
 import de.tudarmstadt.ukp.inception.support.wicket.WicketUtil;
 
 public class FileSystemCasStorageDriver
-    implements CasStorageDriver
+    implements CasStorageDriver, DisposableBean
 {
     public static final String SER_CAS_EXTENSION = ".ser";
     public static final String OLD_EXTENSION = ".old";
+    public static final String MIGRATION_EXTENSION = ".migrating";
+    public static final String TYPE_SYSTEM_FOLDER = "typesystem";
+    public static final String TYPE_SYSTEM_EXTENSION = ".ts";
+    public static final String DELTA_EXTENSION = ".delta";
 
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
@@ -80,6 +99,11 @@ public class FileSystemCasStorageDriver
     private final CasStorageProperties casStorageProperties;
     private final CasStorageBackupProperties backupProperties;
     private final LoadingCache<File, InternalMetadata> metadataCache;
+    private final Cache<String, CompactTypeSystem> typeSystemCache;
+    private final Cache<TypeSystem, SharedTypeSystem> sharedTypeSystems;
+    private final CasWriteBehindQueue writeBehindQueue;
+    private final Map<CAS, DeltaState> deltaStates = synchronizedMap(new WeakHashMap<>());
+    private final Map<File, Object> fileLocks = new ConcurrentReferenceHashMap<>();
 
     public FileSystemCasStorageDriver(RepositoryProperties aRepositoryProperties,
             CasStorageBackupProperties aBackupProperties,
@@ -98,6 +122,34 @@ public class FileSystemCasStorageDriver
             metadataCache = null;
         }
 
+        typeSystemCache = Caffeine.newBuilder() //
+                .maximumSize(100) //
+                .expireAfterAccess(Duration.ofHours(1)) //
+                .build();
+
+        sharedTypeSystems = Caffeine.newBuilder() //
+                .weakKeys() //
+                .build();
+
+        BOOT_LOG.info("CAS storage format: {}", casStorageProperties.getFormat());
+
+        if (casStorageProperties.isWriteBehind()) {
+            writeBehindQueue = new CasWriteBehindQueue(casStorageProperties.getWriteBehindDelay(),
+                    casStorageProperties.getWriteBehindQueueSize(), this::writeSnapshot);
+            BOOT_LOG.info("CAS write-behind enabled - delay: {}ms  queue-size: {}",
+                    casStorageProperties.getWriteBehindDelay().toMillis(),
+                    casStorageProperties.getWriteBehindQueueSize());
+        }
+        else {
+            writeBehindQueue = null;
+        }
+
+        if (isDeltaLogEnabled()) {
+            BOOT_LOG.info("CAS delta log enabled - max-entries: {}  max-size: {}KB",
+                    casStorageProperties.getDeltaLogMaxEntries(),
+                    casStorageProperties.getDeltaLogMaxSize().toKilobytes());
+        }
+
         if (backupProperties.getInterval() > 0) {
             BOOT_LOG.info("CAS backups enabled - interval: {}sec  max-backups: {}  max-age: {}sec",
                     backupProperties.getInterval(), backupProperties.getKeep().getNumber(),
@@ -113,9 +165,14 @@ public class FileSystemCasStorageDriver
     {
         LOG.trace("Reading CAS [{}]@{}", aUser, aDocument);
 
+        var t0 = currentTimeMillis();
+        var allocatedBefore = getCurrentThreadAllocatedBytes();
+
         var casFile = getCasFile(aDocument.getProject().getId(), aDocument.getId(), aUser);
         var oldCasFile = new File(casFile.getPath() + OLD_EXTENSION);
 
+        flushPendingWrite(casFile);
+
         if (metadataCache != null) {
             metadataCache.get(casFile).readAttempt();
         }
@@ -146,10 +203,24 @@ public class FileSystemCasStorageDriver
                     + aDocument.getProject() + "). " + msgOldExists);
         }
 
+        var fullReadThreshold = casStorageProperties.getFullReadThreshold().toBytes();
+        var readInFull = CasPersistenceUtils.isReadInFull(casFile, fullReadThreshold);
         try {
-            CasPersistenceUtils.readSerializedCas(cas, casFile);
+            var content = readCasContent(aDocument, cas, casFile, fullReadThreshold);
+            if (casStorageProperties.getFormat() == COMPACT && !content.compact()
+                    && content.deltas() == 0) {
+                migrateToCompactFormat(aDocument, aUser, cas, casFile, content.timestamp());
+            }
+
+            // Must happen before the CAS metadata is updated, otherwise the update would not be
+            // part of the next delta. Deltas are relative to the snapshot, so a CAS which already
+            // contains a delta cannot be tracked and the next write is a full write.
+            if (isDeltaLogEnabled() && content.deltas() == 0) {
+                trackDeltas(casFile, cas, content.timestamp());
+            }
+
             // Add/update the CAS metadata
-            CasMetadataUtils.addOrUpdateCasMetadata(cas, casFile.lastModified(), aDocument, aUser);
+            CasMetadataUtils.addOrUpdateCasMetadata(cas, content.timestamp(), aDocument, aUser);
         }
         catch (Exception e) {
             throw new IOException("Annotation document of user [" + aUser + "] for source document "
@@ -161,6 +232,25 @@ public class FileSystemCasStorageDriver
             metadataCache.get(casFile).readSuccess();
         }
 
+        var duration = currentTimeMillis() - t0;
+        var allocatedAfter = getCurrentThreadAllocatedBytes();
+        var allocated = (allocatedBefore >= 0 && allocatedAfter >= 0)
+                ? allocatedAfter - allocatedBefore
+                : -1;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Read annotations for user [{}] on document {} in project {} " //
+                    + "{} bytes in {}ms (read in full: {}, heap allocated: {} bytes)", aUser,
+                    aDocument, aDocument.getProject(), casFile.length(), duration, readInFull,
+                    allocated);
+        }
+
+        WicketUtil.serverTiming("realReadCas",
+                "realReadCas (" + (readInFull ? "full" : "stream") + ", "
+                        + casFile.length() / 1024 + "KB"
+                        + (allocated >= 0 ? ", heap " + allocated / 1024 + "KB" : "") + ")",
+                duration);
+
         return cas;
     }
 
@@ -172,45 +262,157 @@ public class FileSystemCasStorageDriver
         LOG.debug("Preparing to update annotations for user [{}] on document {} " //
                 + "in project {}", aUserName, aDocument, aDocument.getProject());
 
-        var annotationFolder = getAnnotationFolder(aDocument);
-        var currentVersion = new File(annotationFolder, aUserName + SER_CAS_EXTENSION);
-        var oldVersion = new File(annotationFolder, aUserName + SER_CAS_EXTENSION + OLD_EXTENSION);
+        var currentVersion = getCasFile(aDocument, aUserName);
 
         if (metadataCache != null) {
             metadataCache.get(currentVersion).writeAttempt();
         }
 
         // Check if there was a concurrent change to the file on disk
-        if (currentVersion.exists()) {
+        if (currentVersion.exists() || getPendingSnapshot(currentVersion).isPresent()) {
             failOnConcurrentModification(aCas, currentVersion, aDocument, aUserName, "writing");
         }
 
-        // Save current version
-        try {
-            // Make a backup of the current version of the file before overwriting
-            if (currentVersion.exists()) {
-                move(currentVersion.toPath(), oldVersion.toPath());
+        setDocumentId(aCas, aUserName);
+
+        // In write-behind mode, we only take a snapshot of the CAS here. Moving the old version
+        // out of the way, writing the new version and managing the backups happens in the
+        // background.
+        if (writeBehindQueue != null && !casStorageProperties.isParanoidCasSerialization()) {
+            var data = writeToByteArray(aDocument, aCas);
+            var timestamp = writeBehindQueue.enqueue(aDocument, aUserName, currentVersion, data);
+
+            CasMetadataUtils.addOrUpdateCasMetadata(aCas, timestamp, aDocument, aUserName);
+
+            var duration = currentTimeMillis() - t0;
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Queued annotations for user [{}] on document {} in project {} " //
+                        + "{} bytes in {}ms (timestamp: {}, format: {}, compression: {})",
+                        aUserName, aDocument, aDocument.getProject(), data.length, duration,
+                        formatTimestamp(timestamp), casStorageProperties.getFormat(),
+                        casStorageProperties.isCompressedCasSerialization());
             }
 
+            WicketUtil.serverTiming("realWriteCas", "realWriteCas (queued)", duration);
+            return;
+        }
+
+        if (isDeltaLogEnabled() && appendDelta(aDocument, aUserName, currentVersion, aCas, t0)) {
+            return;
+        }
+
+        // Save current version
+        replaceCasFile(aDocument, aUserName, currentVersion, file -> {
             // Now write the new version to "<username>.ser" or CURATION_USER.ser
-            setDocumentId(aCas, aUserName);
             if (casStorageProperties.isParanoidCasSerialization()) {
-                CasPersistenceUtils.writeSerializedCasParanoid(aCas, currentVersion);
+                CasPersistenceUtils.writeSerializedCasParanoid(aCas, file);
+            }
+            else if (casStorageProperties.getFormat() == COMPACT) {
+                writeCompactCas(aDocument, aCas, file);
             }
             else if (casStorageProperties.isCompressedCasSerialization()) {
-                CasPersistenceUtils.writeSerializedCasCompressed(aCas, currentVersion);
+                CasPersistenceUtils.writeSerializedCasCompressed(aCas, file);
             }
             else {
-                CasPersistenceUtils.writeSerializedCas(aCas, currentVersion);
+                CasPersistenceUtils.writeSerializedCas(aCas, file);
             }
+        });
+
+        // Update the timestamp in the CAS in case we attempt to save it a second time. This
+        // happens for example in an annotation replacement operation (change layer of existing
+        // annotation) which is implemented as a delete/create operation with an intermediate
+        // save.
+        var lastModified = currentVersion.lastModified();
+        if (isDeltaLogEnabled()) {
+            trackDeltas(currentVersion, aCas, lastModified);
+        }
+        CasMetadataUtils.addOrUpdateCasMetadata(aCas, lastModified, aDocument, aUserName);
+        if (metadataCache != null) {
+            metadataCache.get(currentVersion).writeSuccess(lastModified);
+        }
+
+        manageHistory(currentVersion, aDocument, aUserName);
+
+        var duration = currentTimeMillis() - t0;
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Updated annotations for user [{}] on document {} in project {} " //
+                    + "{} bytes in {}ms (file timestamp: {}, format: {}, compression: {})",
+                    aUserName, aDocument, aDocument.getProject(), currentVersion.length(),
+                    duration, formatTimestamp(lastModified), casStorageProperties.getFormat(),
+                    casStorageProperties.isCompressedCasSerialization());
+        }
+
+        WicketUtil.serverTiming("realWriteCas", duration);
+    }
+
+    /**
+     * Writes a CAS snapshot taken in write-behind mode to disk. Called from the background writer
+     * or synchronously when a pending snapshot needs to be flushed before accessing the file.
+     */
+    private void writeSnapshot(SourceDocument aDocument, String aUserName, File aCasFile,
+            CasSnapshot aSnapshot)
+        throws IOException
+    {
+        var t0 = currentTimeMillis();
+
+        replaceCasFile(aDocument, aUserName, aCasFile, file -> {
+            FileUtils.forceMkdir(file.getParentFile());
+            Files.write(file.toPath(), aSnapshot.data());
+        });
+
+        // The timestamp was already handed out when the snapshot was queued, so the file must
+        // carry the same timestamp
+        aCasFile.setLastModified(aSnapshot.timestamp());
+        if (metadataCache != null) {
+            metadataCache.get(aCasFile).writeSuccess(aSnapshot.timestamp());
+        }
+
+        manageHistory(aCasFile, aDocument, aUserName);
+
+        LOG.debug("Wrote queued annotations for user [{}] on document {} in project {} " //
+                + "{} bytes in {}ms (timestamp: {})", aUserName, aDocument, aDocument.getProject(),
+                aSnapshot.data().length, currentTimeMillis() - t0,
+                formatTimestamp(aSnapshot.timestamp()));
+    }
+
+    /**
+     * Replaces the given CAS file. The current version is moved out of the way and restored if
+     * writing the new version fails. It is only deleted once the new version has been written
+     * successfully. Any delta log belonging to the current version is dropped.
+     */
+    private void replaceCasFile(SourceDocument aDocument, String aUserName, File aCurrentVersion,
+            CasFileWriter aWriter)
+        throws IOException
+    {
+        synchronized (getLock(aCurrentVersion)) {
+            replaceCasFileUnderLock(aDocument, aUserName, aCurrentVersion, aWriter);
+            Files.deleteIfExists(getDeltaFile(aCurrentVersion).toPath());
+        }
+    }
+
+    private void replaceCasFileUnderLock(SourceDocument aDocument, String aUserName,
+            File aCurrentVersion, CasFileWriter aWriter)
+        throws IOException
+    {
+        var oldVersion = new File(aCurrentVersion.getPath() + OLD_EXTENSION);
+
+        try {
+            // Make a backup of the current version of the file before overwriting
+            if (aCurrentVersion.exists()) {
+                move(aCurrentVersion.toPath(), oldVersion.toPath());
+            }
+
+            aWriter.write(aCurrentVersion);
         }
         catch (Exception e) {
-            LOG.error("There was an error while trying to write the CAS to [" + currentVersion
+            LOG.error("There was an error while trying to write the CAS to [" + aCurrentVersion
                     + "] - additional messages follow.");
             // If this is the first version, there is no old version, so do not restore anything
             if (!oldVersion.exists()) {
                 LOG.warn("There is no old version to restore - leaving the current version which "
-                        + "may be corrupt: [{}]", currentVersion);
+                        + "may be corrupt: [{}]", aCurrentVersion);
                 // Now abort anyway
                 throw e;
             }
@@ -219,7 +421,7 @@ public class FileSystemCasStorageDriver
                     + "project {} due exception when trying to write new " + "annotations: [{}]",
                     aUserName, aDocument, aDocument.getProject(), oldVersion);
             try {
-                move(oldVersion.toPath(), currentVersion.toPath(), REPLACE_EXISTING);
+                move(oldVersion.toPath(), aCurrentVersion.toPath(), REPLACE_EXISTING);
             }
             catch (Exception ex) {
                 LOG.error("Unable to restore previous annotations: [{}]", oldVersion, ex);
@@ -229,45 +431,338 @@ public class FileSystemCasStorageDriver
             throw e;
         }
 
-        if (oldVersion.exists() && (currentVersion.length() < (oldVersion.length()
-                * (casStorageProperties.isCompressedCasSerialization() ? 0.95d : 1.0d)))) {
+        var compressed = casStorageProperties.isCompressedCasSerialization()
+                || casStorageProperties.getFormat() == COMPACT;
+        if (oldVersion.exists() && (aCurrentVersion.length() < (oldVersion.length()
+                * (compressed ? 0.95d : 1.0d)))) {
             // If compression is enabled, then it is not so uncommon that the file size may also
             // become smaller at times, so we allow a bit of slip
             LOG.debug(
                     "Annotations shrunk for user [{}] on document {} in project "
                             + "{}: {} -> {} bytes ({} bytes removed)",
                     aUserName, aDocument, aDocument.getProject(), oldVersion.length(),
-                    currentVersion.length(), currentVersion.length() - oldVersion.length());
+                    aCurrentVersion.length(), aCurrentVersion.length() - oldVersion.length());
         }
 
         // If the saving was successful, we delete the old version
         if (oldVersion.exists()) {
             FileUtils.forceDelete(oldVersion);
         }
+    }
 
-        // Update the timestamp in the CAS in case we attempt to save it a second time. This
-        // happens for example in an annotation replacement operation (change layer of existing
-        // annotation) which is implemented as a delete/create operation with an intermediate
-        // save.
-        var lastModified = currentVersion.lastModified();
-        CasMetadataUtils.addOrUpdateCasMetadata(aCas, lastModified, aDocument, aUserName);
-        if (metadataCache != null) {
-            metadataCache.get(currentVersion).writeSuccess(lastModified);
+    private byte[] writeToByteArray(SourceDocument aDocument, CAS aCas) throws IOException
+    {
+        if (casStorageProperties.getFormat() == COMPACT) {
+            var typeSystem = getSharedTypeSystem(aDocument.getProject().getId(), aCas);
+            return CasPersistenceUtils.writeCompactCasToByteArray(aCas, typeSystem.hash());
         }
 
-        manageHistory(currentVersion, aDocument, aUserName);
+        if (casStorageProperties.isCompressedCasSerialization()) {
+            return CasPersistenceUtils.writeToCompressedByteArray(aCas);
+        }
 
-        var duration = currentTimeMillis() - t0;
+        return CasPersistenceUtils.writeToByteArray(aCas);
+    }
 
-        if (LOG.isDebugEnabled()) {
-            LOG.debug("Updated annotations for user [{}] on document {} in project {} " //
-                    + "{} bytes in {}ms (file timestamp: {}, compression: {})", aUserName,
-                    aDocument, aDocument.getProject(), currentVersion.length(), duration,
-                    formatTimestamp(lastModified),
-                    casStorageProperties.isCompressedCasSerialization());
+    private Optional<CasSnapshot> getPendingSnapshot(File aCasFile)
+    {
+        if (writeBehindQueue == null) {
+            return Optional.empty();
         }
 
-        WicketUtil.serverTiming("realWriteCas", duration);
+        return writeBehindQueue.getPendingSnapshot(aCasFile);
+    }
+
+    private void flushPendingWrite(File aCasFile) throws IOException
+    {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.flush(aCasFile);
+        }
+    }
+
+    /**
+     * Loads the snapshot and replays the delta log (if any) into the given CAS.
+     */
+    private CasContent readCasContent(SourceDocument aDocument, CAS aCas, File aCasFile,
+            long aFullReadThreshold)
+        throws IOException
+    {
+        var deltaFile = getDeltaFile(aCasFile);
+
+        // The CAS may be written in full concurrently. This replaces the snapshot before it
+        // deletes the log, so if the snapshot changes while we read it, we simply try again.
+        for (int attempt = 1;; attempt++) {
+            var snapshotTimestamp = aCasFile.lastModified();
+            var snapshotSize = aCasFile.length();
+            var deltaTimestamp = deltaFile.lastModified();
+            var deltas = CasDeltaLog.read(deltaFile, aCasFile);
+
+            var typeSystemHash = CasPersistenceUtils.getCompactCasTypeSystemHash(aCasFile);
+            if (typeSystemHash.isPresent()) {
+                var typeSystem = getCompactTypeSystem(aDocument.getProject().getId(),
+                        typeSystemHash.get());
+                CasPersistenceUtils.readCompactCas(aCas, aCasFile, typeSystem,
+                        aFullReadThreshold);
+            }
+            else {
+                CasPersistenceUtils.readSerializedCas(aCas, aCasFile, aFullReadThreshold);
+            }
+
+            if (aCasFile.lastModified() != snapshotTimestamp || aCasFile.length() != snapshotSize) {
+                if (attempt < 3) {
+                    LOG.debug("Snapshot [{}] changed while reading - retrying", aCasFile);
+                    continue;
+                }
+
+                throw new IOException("Snapshot [" + aCasFile + "] keeps changing while reading");
+            }
+
+            // Each entry contains all changes since the snapshot, so only the last one is needed
+            if (!deltas.isEmpty()) {
+                CasPersistenceUtils.readDelta(aCas, deltas.get(deltas.size() - 1));
+            }
+
+            var timestamp = deltas.isEmpty() ? snapshotTimestamp
+                    : Math.max(snapshotTimestamp, deltaTimestamp);
+            return new CasContent(timestamp, typeSystemHash.isPresent(), deltas.size());
+        }
+    }
+
+    /**
+     * Appends the changes made to the CAS since the snapshot was read or written to the delta log.
+     * The delta base created when the snapshot was read or written is kept for all subsequent
+     * deltas, so appending a delta never requires serializing the whole CAS.
+     * 
+     * @return {@code false} if the changes cannot be written as a delta, e.g. because the CAS was
+     *         not read by this driver, because it was reset (e.g. by a CAS upgrade), because the
+     *         storage does not contain the state the changes are based on or because the delta log
+     *         has reached its maximum size and should be merged into a new snapshot.
+     */
+    private boolean appendDelta(SourceDocument aDocument, String aUserName, File aCasFile,
+            CAS aCas, long aStartTime)
+        throws IOException
+    {
+        var realCas = getRealCas(aCas);
+        var state = deltaStates.get(realCas);
+        if (state == null || !state.casFile().equals(aCasFile)
+                || !state.base().marker().isValid()) {
+            return false;
+        }
+
+        var deltaFile = getDeltaFile(aCasFile);
+        if (state.entries() >= casStorageProperties.getDeltaLogMaxEntries() || deltaFile
+                .length() >= casStorageProperties.getDeltaLogMaxSize().toBytes()) {
+            return false;
+        }
+
+        synchronized (getLock(aCasFile)) {
+            var previousTimestamp = getCasTimestamp(aCasFile);
+            if (!aCasFile.exists() || state.timestamp() != previousTimestamp) {
+                return false;
+            }
+
+            byte[] data;
+            try {
+                data = CasPersistenceUtils.writeDeltaToByteArray(realCas, state.base());
+            }
+            catch (IOException e) {
+                LOG.warn("Unable to serialize delta for user [{}] on document {} in project {} - "
+                        + "writing full CAS", aUserName, aDocument, aDocument.getProject(), e);
+                return false;
+            }
+
+            var newLog = CasDeltaLog.append(deltaFile, aCasFile, data);
+            // Timestamps must be strictly increasing, otherwise concurrent modification checks
+            // cannot distinguish the versions
+            deltaFile.setLastModified(Math.max(currentTimeMillis(), previousTimestamp + 1));
+            var timestamp = getCasTimestamp(aCasFile);
+
+            var entries = newLog ? 1 : state.entries() + 1;
+            deltaStates.put(realCas, new DeltaState(aCasFile, timestamp, state.base(), entries));
+            CasMetadataUtils.addOrUpdateCasMetadata(aCas, timestamp, aDocument, aUserName);
+            if (metadataCache != null) {
+                metadataCache.get(aCasFile).writeSuccess(timestamp);
+            }
+
+            var duration = currentTimeMillis() - aStartTime;
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Appended delta for user [{}] on document {} in project {} " //
+                        + "{} bytes in {}ms (timestamp: {}, entries: {})", aUserName, aDocument,
+                        aDocument.getProject(), data.length, duration, formatTimestamp(timestamp),
+                        entries);
+            }
+
+            WicketUtil.serverTiming("realWriteCas",
+                    "realWriteCas (delta, " + data.length / 1024 + "KB)", duration);
+        }
+
+        return true;
+    }
+
+    /**
+     * Remembers the state of the CAS as it is in the snapshot such that subsequent changes can be
+     * written as a delta.
+     */
+    private void trackDeltas(File aCasFile, CAS aCas, long aTimestamp)
+    {
+        var realCas = getRealCas(aCas);
+        try {
+            deltaStates.put(realCas, new DeltaState(aCasFile, aTimestamp,
+                    CasPersistenceUtils.createDeltaBase(realCas), 0));
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to track changes to [{}] - next write will be a full write", aCasFile,
+                    e);
+            deltaStates.remove(realCas);
+        }
+    }
+
+    private boolean isDeltaLogEnabled()
+    {
+        return casStorageProperties.isDeltaLog() && writeBehindQueue == null
+                && !casStorageProperties.isParanoidCasSerialization();
+    }
+
+    /**
+     * @return the timestamp of the CAS on the storage. If there is a delta log, the CAS was last
+     *         changed when the last delta was written. A stale delta log which does not belong to
+     *         the current snapshot is always older than the snapshot, so we do not need to check
+     *         that here.
+     */
+    private long getCasTimestamp(File aCasFile)
+    {
+        return Math.max(aCasFile.lastModified(), getDeltaFile(aCasFile).lastModified());
+    }
+
+    private Object getLock(File aCasFile)
+    {
+        return fileLocks.computeIfAbsent(aCasFile, k -> new Object());
+    }
+
+    private static File getDeltaFile(File aCasFile)
+    {
+        return new File(aCasFile.getPath() + DELTA_EXTENSION);
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
+    }
+
+    private void writeCompactCas(SourceDocument aDocument, CAS aCas, File aFile) throws IOException
+    {
+        var typeSystem = getSharedTypeSystem(aDocument.getProject().getId(), aCas);
+        CasPersistenceUtils.writeCompactCas(aCas, typeSystem.hash(), aFile);
+    }
+
+    /**
+     * Converts a CAS file from the serialized format to the compact format. The timestamp of the
+     * file is retained so that the conversion does not look like a concurrent modification to
+     * anybody holding the CAS. If the conversion fails, the original file is left untouched.
+     * 
+     * @param aTimestamp
+     *            the timestamp of the file at the time the given CAS was read from it. If the file
+     *            was changed since, the CAS is outdated and the file is not migrated.
+     */
+    private void migrateToCompactFormat(SourceDocument aDocument, String aUser, CAS aCas,
+            File aCasFile, long aTimestamp)
+    {
+        var tempFile = new File(aCasFile.getPath() + MIGRATION_EXTENSION);
+        try {
+            synchronized (getLock(aCasFile)) {
+                // If somebody wrote to the file or started a delta log in the meantime, the CAS
+                // we have is outdated and must not replace the file
+                if (aCasFile.lastModified() != aTimestamp
+                        || CasPersistenceUtils.getCompactCasTypeSystemHash(aCasFile).isPresent()
+                        || CasDeltaLog.matchesSnapshot(getDeltaFile(aCasFile), aCasFile)) {
+                    LOG.debug("Annotations for user [{}] on document {} in project {} changed "
+                            + "while reading - not migrating to compact format", aUser, aDocument,
+                            aDocument.getProject());
+                    return;
+                }
+                writeCompactCas(aDocument, aCas, tempFile);
+                move(tempFile.toPath(), aCasFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+                aCasFile.setLastModified(aTimestamp);
+            }
+            LOG.debug("Migrated annotations for user [{}] on document {} in project {} to "
+                    + "compact format", aUser, aDocument, aDocument.getProject());
+        }
+        catch (Exception e) {
+            LOG.warn("Unable to migrate annotations for user [{}] on document {} in project {} "
+                    + "to compact format - keeping serialized format", aUser, aDocument,
+                    aDocument.getProject(), e);
+            FileUtils.deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Obtains the shared type system for the given CAS and makes sure it is stored in the project.
+     * The serialized type system is remembered per type system instance (which UIMA shares
+     * between all CASes using the same types) so that it does not need to be re-serialized on
+     * every write.
+     */
+    private SharedTypeSystem getSharedTypeSystem(long aProjectId, CAS aCas) throws IOException
+    {
+        var ts = getRealCas(aCas).getTypeSystem();
+        var typeSystem = sharedTypeSystems.getIfPresent(ts);
+        if (typeSystem == null) {
+            var data = CasPersistenceUtils.writeTypeSystemToByteArray(aCas);
+            typeSystem = new SharedTypeSystem(CasPersistenceUtils.getTypeSystemHash(data), data);
+            sharedTypeSystems.put(ts, typeSystem);
+        }
+
+        var typeSystemFile = getTypeSystemFile(aProjectId, typeSystem.hash());
+        if (!typeSystemFile.exists()) {
+            var folder = typeSystemFile.getParentFile();
+            FileUtils.forceMkdir(folder);
+            var tempFile = Files.createTempFile(folder.toPath(), typeSystem.hash(),
+                    MIGRATION_EXTENSION);
+            try {
+                Files.write(tempFile, typeSystem.data());
+                move(tempFile, typeSystemFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+            }
+            finally {
+                Files.deleteIfExists(tempFile);
+            }
+            LOG.debug("Stored new shared type system [{}] in project [{}]", typeSystem.hash(),
+                    aProjectId);
+        }
+
+        return typeSystem;
+    }
+
+    /**
+     * @return the deserialized shared type system with the given hash. The type system is
+     *         identified by its hash alone, so projects with the same type system share the cache
+     *         entry.
+     */
+    private CompactTypeSystem getCompactTypeSystem(long aProjectId, String aHash)
+        throws IOException
+    {
+        try {
+            return typeSystemCache.get(aHash, hash -> {
+                try {
+                    var data = Files.readAllBytes(getTypeSystemFile(aProjectId, hash).toPath());
+                    return CasPersistenceUtils.readTypeSystemFromByteArray(data);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private File getTypeSystemFile(long aProjectId, String aHash)
+    {
+        return new File(repositoryProperties.getPath(), "/" + PROJECT_FOLDER + "/" + aProjectId
+                + "/" + TYPE_SYSTEM_FOLDER + "/" + aHash + TYPE_SYSTEM_EXTENSION);
     }
 
     /**
@@ -401,7 +896,26 @@ public class FileSystemCasStorageDriver
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
-        try (var is = Files.newInputStream(getCasFile(aDocument, aUser).toPath())) {
+        var casFile = getCasFile(aDocument, aUser);
+
+        flushPendingWrite(casFile);
+
+        // Compact CAS files depend on the type system stored in the project folder and deltas
+        // must be merged. Exported files need to be self-contained, so we convert them to the
+        // serialized format.
+        if (CasPersistenceUtils.getCompactCasTypeSystemHash(casFile).isPresent()
+                || CasDeltaLog.matchesSnapshot(getDeltaFile(casFile), casFile)) {
+            var cas = readCas(aDocument, aUser);
+            if (casStorageProperties.isCompressedCasSerialization()) {
+                aStream.write(CasPersistenceUtils.writeToCompressedByteArray(cas));
+            }
+            else {
+                aStream.write(CasPersistenceUtils.writeToByteArray(cas));
+            }
+            return;
+        }
+
+        try (var is = Files.newInputStream(casFile.toPath())) {
             IOUtils.copyLarge(is, aStream);
         }
     }
@@ -413,8 +927,18 @@ public class FileSystemCasStorageDriver
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
-        try (var os = Files.newOutputStream(getCasFile(aDocument, aUser).toPath())) {
-            IOUtils.copyLarge(aStream, os);
+        var casFile = getCasFile(aDocument, aUser);
+
+        // Any pending write is superseded by the imported data
+        if (writeBehindQueue != null) {
+            writeBehindQueue.cancel(casFile);
+        }
+
+        synchronized (getLock(casFile)) {
+            Files.deleteIfExists(getDeltaFile(casFile).toPath());
+            try (var os = Files.newOutputStream(casFile.toPath())) {
+                IOUtils.copyLarge(aStream, os);
+            }
         }
     }
 
@@ -432,21 +956,38 @@ public class FileSystemCasStorageDriver
             metadataCache.invalidate(casFile);
         }
 
-        return casFile.delete();
+        var pendingWriteCancelled = false;
+        if (writeBehindQueue != null) {
+            pendingWriteCancelled = writeBehindQueue.getPendingSnapshot(casFile).isPresent();
+            writeBehindQueue.cancel(casFile);
+        }
+
+        synchronized (getLock(casFile)) {
+            Files.deleteIfExists(getDeltaFile(casFile).toPath());
+            return casFile.delete() || pendingWriteCancelled;
+        }
     }
 
     @Override
     public boolean existsCas(SourceDocument aDocument, String aUser) throws IOException
     {
-        return getCasFile(aDocument, aUser).exists();
+        var casFile = getCasFile(aDocument, aUser);
+        return casFile.exists() || getPendingSnapshot(casFile).isPresent();
     }
 
     @Override
     public Optional<Long> getCasFileSize(SourceDocument aDocument, String aUser) throws IOException
     {
         var file = getCasFile(aDocument, aUser);
+
+        var pending = getPendingSnapshot(file);
+        if (pending.isPresent()) {
+            return Optional.of((long) pending.get().data().length);
+        }
+
         if (file.exists()) {
-            return Optional.of(file.length());
+            var deltaFile = getDeltaFile(file);
+            return Optional.of(file.length() + (deltaFile.exists() ? deltaFile.length() : 0));
         }
 
         return Optional.empty();
@@ -458,11 +999,16 @@ public class FileSystemCasStorageDriver
     {
         var casFile = getCasFile(aDocument, aUser);
 
+        var pending = getPendingSnapshot(casFile);
+        if (pending.isPresent()) {
+            return Optional.of(new Metadata(casFile, pending.get()));
+        }
+
         if (!casFile.exists()) {
             return Optional.empty();
         }
 
-        return Optional.of(new Metadata(casFile));
+        return Optional.of(new Metadata(casFile, getCasTimestamp(casFile)));
     }
 
     @Override
@@ -472,11 +1018,14 @@ public class FileSystemCasStorageDriver
     {
         var casFile = getCasFile(aDocument, aUser);
 
-        if (!casFile.exists()) {
+        var pending = getPendingSnapshot(casFile);
+        if (!casFile.exists() && pending.isEmpty()) {
             return Optional.empty();
         }
 
-        var diskLastModified = casFile.lastModified();
+        // A pending write-behind snapshot stands in for the file on disk
+        var diskLastModified = pending.map(CasSnapshot::timestamp)
+                .orElseGet(() -> getCasTimestamp(casFile));
         if (Math.abs(diskLastModified - aExpectedTimeStamp) > casStorageProperties
                 .getFileSystemTimestampAccuracy().toMillis()) {
             StringBuilder lastWriteMsg = new StringBuilder();
@@ -540,11 +1089,38 @@ public class FileSystemCasStorageDriver
         verifyCasTimestamp(aDocument, aUsername, lastKnownUpdate, aContextAction);
     }
 
+    /**
+     * @return the number of bytes allocated on the heap by the current thread so far or
+     *         {@code -1} if the JVM does not support measuring this.
+     */
+    private static long getCurrentThreadAllocatedBytes()
+    {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()
+                && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+
+        return -1;
+    }
+
     private static String formatTimestamp(long aTime)
     {
         return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(aTime);
     }
 
+    private static record SharedTypeSystem(String hash, byte[] data) {}
+
+    private static record CasContent(long timestamp, boolean compact, int deltas) {}
+
+    private static record DeltaState(File casFile, long timestamp, DeltaBase base, int entries) {}
+
+    @FunctionalInterface
+    private static interface CasFileWriter
+    {
+        void write(File aFile) throws IOException;
+    }
+
     @SuppressWarnings("unused")
     private static class InternalMetadata
     {
@@ -590,6 +1166,20 @@ public class FileSystemCasStorageDriver
             path = aFile.getAbsolutePath();
         }
 
+        Metadata(File aFile, long aTimestamp)
+        {
+            timestamp = aTimestamp;
+            size = aFile.length();
+            path = aFile.getAbsolutePath();
+        }
+
+        Metadata(File aFile, CasSnapshot aPendingSnapshot)
+        {
+            timestamp = aPendingSnapshot.timestamp();
+            size = aPendingSnapshot.data().length;
+            path = aFile.getAbsolutePath();
+        }
+
         @Override
         public long getTimestamp()
         {
@@ -41,6 +41,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -49,6 +50,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
@@ -66,7 +68,9 @@ import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCachePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageFormat;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStoragePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils;
 import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.FileSystemCasStorageDriver;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
@@ -168,6 +172,150 @@ public class CasStorageServiceImplTest
         }
     }
 
+    @Test
+    public void testSerializedCasIsMigratedToCompactFormatOnRead() throws Exception
+    {
+        var doc = makeSourceDocument(4l, 4l, "test");
+        var user = "test";
+        var templateCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        templateCas.setDocumentText("This is a test");
+
+        driver.writeCas(doc, user, templateCas);
+        var casFile = driver.getCasFile(doc, user);
+        var timestamp = casFile.lastModified();
+        assertThat(CasPersistenceUtils.getCompactCasTypeSystemHash(casFile)).isEmpty();
+
+        var compactProperties = new CasStoragePropertiesImpl();
+        compactProperties.setFormat(CasStorageFormat.COMPACT);
+        var compactDriver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), compactProperties);
+
+        var cas = compactDriver.readCas(doc, user);
+        assertThat(cas.getDocumentText()).isEqualTo(templateCas.getDocumentText());
+        assertThat(CasPersistenceUtils.getCompactCasTypeSystemHash(casFile)).isPresent();
+        assertThat(casFile.lastModified()).isEqualTo(timestamp);
+
+        var cas2 = compactDriver.readCas(doc, user);
+        assertThat(cas2.getDocumentText()).isEqualTo(templateCas.getDocumentText());
+    }
+
+    @Test
+    public void testWriteBehind() throws Exception
+    {
+        var properties = new CasStoragePropertiesImpl();
+        properties.setWriteBehind(true);
+        properties.setWriteBehindDelay(Duration.ofMinutes(1));
+        var writeBehindDriver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), properties);
+
+        try {
+            var doc = makeSourceDocument(5l, 5l, "test");
+            var user = "test";
+            var casFile = writeBehindDriver.getCasFile(doc, user);
+
+            var typeSystems = new ArrayList<TypeSystemDescription>();
+            typeSystems.add(createTypeSystemDescription());
+            typeSystems.add(getInternalTypeSystem());
+            var cas = WebAnnoCasUtil.createCas(mergeTypeSystems(typeSystems));
+            cas.setDocumentText("This is a test");
+
+            writeBehindDriver.writeCas(doc, user, cas);
+            var timestamp = writeBehindDriver.getCasMetadata(doc, user).get().getTimestamp();
+
+            // The write is still pending, but the CAS is already reported as existing
+            assertThat(casFile).doesNotExist();
+            assertThat(writeBehindDriver.existsCas(doc, user)).isTrue();
+            assertThat(writeBehindDriver.verifyCasTimestamp(doc, user, timestamp, "test"))
+                    .contains(timestamp);
+
+            // A second write is coalesced with the first one and must not be mistaken for a
+            // concurrent modification
+            cas.setDocumentLanguage("en");
+            writeBehindDriver.writeCas(doc, user, cas);
+            var timestamp2 = writeBehindDriver.getCasMetadata(doc, user).get().getTimestamp();
+            assertThat(timestamp2).isGreaterThan(timestamp);
+
+            // Reading flushes the pending write
+            var cas2 = writeBehindDriver.readCas(doc, user);
+            assertThat(casFile).exists();
+            assertThat(casFile.lastModified()).isEqualTo(timestamp2);
+            assertThat(cas2.getDocumentText()).isEqualTo(cas.getDocumentText());
+            assertThat(cas2.getDocumentLanguage()).isEqualTo("en");
+        }
+        finally {
+            writeBehindDriver.destroy();
+        }
+    }
+
+    @Test
+    public void testDeltaLog() throws Exception
+    {
+        var properties = new CasStoragePropertiesImpl();
+        properties.setDeltaLog(true);
+        properties.setDeltaLogMaxEntries(3);
+        var deltaDriver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), properties);
+
+        try {
+            var doc = makeSourceDocument(6l, 6l, "test");
+            var user = "test";
+            var casFile = deltaDriver.getCasFile(doc, user);
+            var deltaFile = new File(casFile.getPath() + FileSystemCasStorageDriver.DELTA_EXTENSION);
+
+            var typeSystems = new ArrayList<TypeSystemDescription>();
+            typeSystems.add(createTypeSystemDescription());
+            typeSystems.add(getInternalTypeSystem());
+            var templateCas = WebAnnoCasUtil.createCas(mergeTypeSystems(typeSystems));
+            templateCas.setDocumentText("This is a test");
+
+            // A CAS that was not read through the driver is written in full
+            deltaDriver.writeCas(doc, user, templateCas);
+            var snapshotTimestamp = casFile.lastModified();
+            var snapshotSize = casFile.length();
+            assertThat(deltaFile).doesNotExist();
+
+            // Changes to a CAS read through the driver only go to the delta log
+            var cas = deltaDriver.readCas(doc, user);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 0, 4));
+            deltaDriver.writeCas(doc, user, cas);
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 5, 7));
+            deltaDriver.writeCas(doc, user, cas);
+
+            assertThat(deltaFile).exists();
+            assertThat(casFile.lastModified()).isEqualTo(snapshotTimestamp);
+            assertThat(casFile.length()).isEqualTo(snapshotSize);
+            assertThat(deltaDriver.getCasMetadata(doc, user).get().getTimestamp())
+                    .isGreaterThan(snapshotTimestamp);
+
+            // Readers replay the deltas on top of the snapshot
+            var cas2 = new FileSystemCasStorageDriver(repositoryProperties,
+                    new CasStorageBackupProperties(), new CasStoragePropertiesImpl())
+                            .readCas(doc, user);
+            assertThat(cas2.getAnnotationIndex().select().asList()) //
+                    .filteredOn(a -> a.getType().getName().equals(CAS.TYPE_NAME_ANNOTATION)) //
+                    .extracting(AnnotationFS::getCoveredText) //
+                    .containsExactlyInAnyOrder("This", "is");
+
+            // Once the delta log is full, the next write is a full write
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 8, 9));
+            deltaDriver.writeCas(doc, user, cas);
+            assertThat(deltaFile).exists();
+            cas.addFsToIndexes(cas.createAnnotation(cas.getAnnotationType(), 10, 14));
+            deltaDriver.writeCas(doc, user, cas);
+            assertThat(deltaFile).doesNotExist();
+            assertThat(casFile.lastModified()).isGreaterThan(snapshotTimestamp);
+
+            var cas3 = deltaDriver.readCas(doc, user);
+            assertThat(cas3.getAnnotationIndex().select().asList()) //
+                    .filteredOn(a -> a.getType().getName().equals(CAS.TYPE_NAME_ANNOTATION)) //
+                    .extracting(AnnotationFS::getCoveredText) //
+                    .containsExactlyInAnyOrder("This", "is", "a", "test");
+        }
+        finally {
+            deltaDriver.destroy();
+        }
+    }
+
     @Test
     public void testReadOrCreateCas() throws Exception
     {
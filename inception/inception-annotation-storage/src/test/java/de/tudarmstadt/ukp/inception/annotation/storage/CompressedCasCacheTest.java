@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage;
+
+import static de.tudarmstadt.ukp.inception.annotation.storage.CasMetadataUtils.getInternalTypeSystem;
+import static java.util.Arrays.asList;
+import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
+import static org.apache.uima.util.CasCreationUtils.mergeTypeSystems;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.apache.uima.cas.CAS;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil;
+
+public class CompressedCasCacheTest
+{
+    private static final long TIMESTAMP = 1234l;
+
+    @Test
+    public void thatCasSurvivesRoundTrip() throws Exception
+    {
+        var sut = new CompressedCasCache(1024 * 1024, Duration.ofMinutes(5), Runnable::run);
+        var key = new CasKey(1l, 1l, "user");
+        var cas = makeCas(1l, "This is a test.");
+
+        sut.put(key, cas);
+
+        assertThat(sut.getSize()).isEqualTo(1);
+        assertThat(sut.getWeight()).isPositive();
+
+        var rehydrated = sut.rehydrate(key, TIMESTAMP);
+        assertThat(rehydrated).isPresent();
+        assertThat(rehydrated.get().getDocumentText()).isEqualTo(cas.getDocumentText());
+        assertThat(CasMetadataUtils.getLastChanged(rehydrated.get())).isEqualTo(TIMESTAMP);
+        assertThat(sut.getRehydrationCount()).isEqualTo(1);
+
+        // The compressed copy can be rehydrated more than once
+        assertThat(sut.rehydrate(key, TIMESTAMP)).isPresent();
+        assertThat(sut.getRehydrationCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void thatStaleCopyIsDiscarded() throws Exception
+    {
+        var sut = new CompressedCasCache(1024 * 1024, Duration.ofMinutes(5), Runnable::run);
+        var key = new CasKey(1l, 1l, "user");
+
+        sut.put(key, makeCas(1l, "This is a test."));
+
+        assertThat(sut.rehydrate(key, TIMESTAMP + 1)).isEmpty();
+        assertThat(sut.getStaleCount()).isEqualTo(1);
+        assertThat(sut.rehydrate(key, TIMESTAMP)).isEmpty();
+        assertThat(sut.getSize()).isZero();
+    }
+
+    @Test
+    public void thatCasWithoutTimestampIsNotCached() throws Exception
+    {
+        var sut = new CompressedCasCache(1024 * 1024, Duration.ofMinutes(5), Runnable::run);
+        var cas = WebAnnoCasUtil.createCas(
+                mergeTypeSystems(asList(createTypeSystemDescription(), getInternalTypeSystem())));
+        cas.setDocumentText("This is a test.");
+
+        sut.put(new CasKey(1l, 1l, "user"), cas);
+
+        assertThat(sut.getSize()).isZero();
+    }
+
+    @Test
+    public void thatEntriesAreEvictedByWeight() throws Exception
+    {
+        // Storing the same CAS under different keys yields entries of the same weight
+        var cas = makeCas(1l, "This is a test.");
+        var probe = new CompressedCasCache(1024 * 1024, Duration.ofMinutes(5), Runnable::run);
+        probe.put(new CasKey(1l, 1l, "user"), cas);
+        var entryWeight = probe.getWeight();
+
+        var sut = new CompressedCasCache(entryWeight * 2 + entryWeight / 2, Duration.ofMinutes(5),
+                Runnable::run);
+        for (var i = 1l; i <= 5; i++) {
+            sut.put(new CasKey(1l, i, "user"), cas);
+        }
+
+        assertThat(sut.getSize()).isEqualTo(2);
+        assertThat(sut.getWeight()).isLessThanOrEqualTo(entryWeight * 2 + entryWeight / 2);
+        assertThat(sut.getStats().evictionCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatEntriesCanBeInvalidated() throws Exception
+    {
+        var sut = new CompressedCasCache(1024 * 1024, Duration.ofMinutes(5), Runnable::run);
+        var key1 = new CasKey(1l, 1l, "user");
+        var key2 = new CasKey(1l, 2l, "user");
+        var key3 = new CasKey(2l, 3l, "user");
+
+        sut.put(key1, makeCas(1l, "First document."));
+        sut.put(key2, makeCas(2l, "Second document."));
+        sut.put(key3, makeCas(3l, "Third document."));
+
+        sut.invalidate(key1);
+
+        assertThat(sut.rehydrate(key1, TIMESTAMP)).isEmpty();
+        assertThat(sut.rehydrate(key2, TIMESTAMP)).isPresent();
+
+        sut.invalidateProject(1l);
+
+        assertThat(sut.rehydrate(key2, TIMESTAMP)).isEmpty();
+        assertThat(sut.rehydrate(key3, TIMESTAMP)).isPresent();
+        assertThat(sut.getSize()).isEqualTo(1);
+    }
+
+    private CAS makeCas(long aDocumentId, String aText) throws Exception
+    {
+        var project = new Project();
+        project.setId(1l);
+        project.setName("project");
+
+        var doc = new SourceDocument();
+        doc.setProject(project);
+        doc.setId(aDocumentId);
+        doc.setName("doc" + aDocumentId);
+
+        var cas = WebAnnoCasUtil.createCas(
+                mergeTypeSystems(asList(createTypeSystemDescription(), getInternalTypeSystem())));
+        cas.setDocumentText(aText);
+        CasMetadataUtils.addOrUpdateCasMetadata(cas, TIMESTAMP, doc, "user");
+        return cas;
+    }
+}
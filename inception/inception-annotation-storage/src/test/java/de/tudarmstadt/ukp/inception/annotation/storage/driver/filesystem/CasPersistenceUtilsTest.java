@@ -21,6 +21,7 @@ import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTyp
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.apache.uima.cas.CAS;
@@ -116,4 +117,98 @@ public class CasPersistenceUtilsTest
         assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
         assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
     }
+
+    @Test
+    void thatCompactCasCanBeSavedAndLoaded(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        originalCas.setDocumentLanguage("en");
+        byte[] typeSystem = CasPersistenceUtils.writeTypeSystemToByteArray(originalCas);
+        String hash = CasPersistenceUtils.getTypeSystemHash(typeSystem);
+        CasPersistenceUtils.writeCompactCas(originalCas, hash, target);
+
+        assertThat(CasPersistenceUtils.getCompactCasTypeSystemHash(target)).contains(hash);
+
+        CAS actualCas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+        CasPersistenceUtils.readCompactCas(actualCas, target, typeSystem);
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+        assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
+    }
+
+    @Test
+    void thatSerializedCasIsNotDetectedAsCompact(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        CasPersistenceUtils.writeSerializedCasCompressed(originalCas, target);
+
+        assertThat(CasPersistenceUtils.getCompactCasTypeSystemHash(target)).isEmpty();
+    }
+
+    @Test
+    void thatCompressedCasCanBeLoadedInFull(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        originalCas.setDocumentLanguage("en");
+        CasPersistenceUtils.writeSerializedCasCompressed(originalCas, target);
+
+        assertThat(CasPersistenceUtils.isReadInFull(target, 1)).isTrue();
+
+        CAS actualCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        CasPersistenceUtils.readSerializedCas(actualCas, target, 1);
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+        assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
+
+        // The file must not be held open after reading
+        Files.delete(target.toPath());
+    }
+
+    @Test
+    void thatCompactCasCanBeLoadedInFull(@TempDir Path aTempDir) throws Exception
+    {
+        File target = aTempDir.resolve("out.ser").toFile();
+
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        byte[] typeSystem = CasPersistenceUtils.writeTypeSystemToByteArray(originalCas);
+        CasPersistenceUtils.writeCompactCas(originalCas,
+                CasPersistenceUtils.getTypeSystemHash(typeSystem), target);
+
+        CAS actualCas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+        CasPersistenceUtils.readCompactCas(actualCas, target,
+                CasPersistenceUtils.readTypeSystemFromByteArray(typeSystem), 1);
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+    }
+
+    @Test
+    void thatDeserializedTypeSystemCanBeReused(@TempDir Path aTempDir) throws Exception
+    {
+        CAS originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        byte[] typeSystemData = CasPersistenceUtils.writeTypeSystemToByteArray(originalCas);
+        var typeSystemHash = CasPersistenceUtils.getTypeSystemHash(typeSystemData);
+        var typeSystem = CasPersistenceUtils.readTypeSystemFromByteArray(typeSystemData);
+
+        for (var text : new String[] { "First document.", "Second document." }) {
+            File target = aTempDir.resolve(text + ".ser").toFile();
+            originalCas.reset();
+            originalCas.setDocumentText(text);
+            CasPersistenceUtils.writeCompactCas(originalCas, typeSystemHash, target);
+
+            CAS actualCas = CasCreationUtils.createCas((TypeSystemDescription) null, null, null);
+            CasPersistenceUtils.readCompactCas(actualCas, target, typeSystem, 0);
+
+            assertThat(actualCas.getDocumentText()).isEqualTo(text);
+        }
+    }
 }
@@ -126,6 +126,13 @@ public class ColorRenderer
         }
     }
 
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        // Only colors the objects that have already been rendered
+        return true;
+    }
+
     private Optional<AnnotationPreference> getPreferences(RenderRequest aRequest)
     {
         var state = aRequest.getState();
@@ -58,4 +58,11 @@ public class FocusMarkerRenderer
             aVDoc.add(new VAnnotationMarker(VMarker.FOCUS, selectedAnnotation));
         }
     }
+
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        // The focus marker does not depend on the rendered range
+        return true;
+    }
 }
@@ -59,4 +59,11 @@ public class LabelRenderer
             }
         }
     }
+
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        // Only labels the objects that have already been rendered
+        return true;
+    }
 }
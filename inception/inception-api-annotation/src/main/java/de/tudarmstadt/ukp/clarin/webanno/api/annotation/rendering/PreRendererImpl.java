@@ -92,6 +92,26 @@ public class PreRendererImpl
 
     @Override
     public void render(VDocument aResponse, RenderRequest aRequest)
+    {
+        render(aResponse, aRequest, aRequest.getWindowBeginOffset(),
+                aRequest.getWindowEndOffset());
+    }
+
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        return true;
+    }
+
+    @Override
+    public void renderRange(VDocument aResponse, RenderRequest aRequest, int aRangeBegin,
+            int aRangeEnd)
+    {
+        render(aResponse, aRequest, aRangeBegin, aRangeEnd);
+    }
+
+    private void render(VDocument aResponse, RenderRequest aRequest, int aRangeBegin,
+            int aRangeEnd)
     {
         log.trace("Prerenderer.render()");
 
@@ -99,11 +119,16 @@ public class PreRendererImpl
         Validate.notNull(cas, "CAS cannot be null");
 
         String documentText = cas.getDocumentText();
-        int renderBegin = Math.max(0, aRequest.getWindowBeginOffset());
-        int renderEnd = Math.min(documentText.length(), aRequest.getWindowEndOffset());
-        aResponse.setText(documentText.substring(renderBegin, renderEnd));
-        aResponse.setWindowBegin(renderBegin);
-        aResponse.setWindowEnd(renderEnd);
+        int windowBegin = Math.max(0, aRequest.getWindowBeginOffset());
+        int windowEnd = Math.min(documentText.length(), aRequest.getWindowEndOffset());
+        aResponse.setText(documentText.substring(windowBegin, windowEnd));
+        aResponse.setWindowBegin(windowBegin);
+        aResponse.setWindowEnd(windowEnd);
+
+        // Offsets of the rendered annotations are always relative to the window, but when only
+        // rendering a range of the window, we only select the annotations within that range
+        int renderBegin = Math.max(windowBegin, aRangeBegin);
+        int renderEnd = Math.min(windowEnd, aRangeEnd);
 
         if (aRequest.getVisibleLayers().isEmpty()) {
             return;
@@ -62,4 +62,11 @@ public class RenderNotificationRenderStep
                     new RenderAnnotationsEvent(aRequest.getCas(), aRequest, aVDoc));
         });
     }
+
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        // Listeners in the UI expect to see the full window
+        return RequestCycle.get() == null;
+    }
 }
@@ -64,7 +64,7 @@ public abstract class RelationEvent
     {
         return new Range( //
                 Math.min(sourceAnno.getBegin(), targetAnno.getBegin()),
-                Math.min(sourceAnno.getEnd(), targetAnno.getEnd()));
+                Math.max(sourceAnno.getEnd(), targetAnno.getEnd()));
     }
 
     @Override
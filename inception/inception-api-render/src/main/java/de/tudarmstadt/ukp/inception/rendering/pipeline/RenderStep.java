@@ -38,4 +38,37 @@ public interface RenderStep
     }
 
     void render(VDocument aVdoc, RenderRequest aRequest);
+
+    /**
+     * @param aRequest
+     *            the render request.
+     * @return whether the step can render only a range of the window of the given request using
+     *         {@link #renderRange}.
+     */
+    default boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        return false;
+    }
+
+    /**
+     * Renders only the annotations in the given range of the window of the request. The window of
+     * the document remains the window of the request. Annotations are selected as if the range was
+     * the window, i.e. the result must include all annotations that are fully contained in the
+     * range. By default, the step renders as usual, which is suitable for steps which do not depend
+     * on the range, e.g. because they only decorate the objects that have already been rendered.
+     * 
+     * @param aVdoc
+     *            the document to render into.
+     * @param aRequest
+     *            the render request.
+     * @param aRangeBegin
+     *            the begin of the range to render (document offset).
+     * @param aRangeEnd
+     *            the end of the range to render (document offset).
+     */
+    default void renderRange(VDocument aVdoc, RenderRequest aRequest, int aRangeBegin,
+            int aRangeEnd)
+    {
+        render(aVdoc, aRequest);
+    }
 }
@@ -17,10 +17,28 @@
  */
 package de.tudarmstadt.ukp.inception.rendering.pipeline;
 
+import java.util.Optional;
+
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 
 public interface RenderingPipeline
 {
     VDocument render(RenderRequest aRequest);
+
+    /**
+     * Renders only the annotations in the given range of the window of the request. The window of
+     * the resulting document is still the window of the request, so offsets are consistent with a
+     * full rendering of the window.
+     * 
+     * @param aRequest
+     *            the render request.
+     * @param aRangeBegin
+     *            the begin of the range to render (document offset).
+     * @param aRangeEnd
+     *            the end of the range to render (document offset).
+     * @return the partial document or an empty result if any of the render steps applicable to the
+     *         request cannot render a range.
+     */
+    Optional<VDocument> renderRange(RenderRequest aRequest, int aRangeBegin, int aRangeEnd);
 }
@@ -21,6 +21,7 @@ import static de.tudarmstadt.ukp.inception.support.wicket.WicketUtil.serverTimin
 import static java.lang.System.currentTimeMillis;
 
 import java.lang.invoke.MethodHandles;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -63,4 +64,33 @@ public class RenderingPipelineImpl
 
         return vdoc;
     }
+
+    @Override
+    public Optional<VDocument> renderRange(RenderRequest aRequest, int aRangeBegin,
+            int aRangeEnd)
+    {
+        var steps = renderStepExtensionPoint.getExtensions(aRequest);
+
+        var unsupportedStep = steps.stream() //
+                .filter(step -> !step.isRangeRenderingSupported(aRequest)) //
+                .findFirst();
+        if (unsupportedStep.isPresent()) {
+            LOG.trace("Render step [{}] cannot render ranges", unsupportedStep.get().getId());
+            return Optional.empty();
+        }
+
+        LOG.trace("Rendering range [{}-{}] of [{}-{}]", aRangeBegin, aRangeEnd,
+                aRequest.getWindowBeginOffset(), aRequest.getWindowEndOffset());
+
+        var vdoc = new VDocument();
+
+        for (var step : steps) {
+            long start = currentTimeMillis();
+            step.renderRange(vdoc, aRequest, aRangeBegin, aRangeEnd);
+            serverTiming("Rendering", "Rendering (" + step.getId() + ")",
+                    currentTimeMillis() - start);
+        }
+
+        return Optional.of(vdoc);
+    }
 }
@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.rendering.vmodel.serialization;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+
+import de.tudarmstadt.ukp.inception.rendering.vmodel.VID;
+
+/**
+ * Creates JSON Patch (RFC 6902) operations which merge the rendering of a range of the window into
+ * a previous rendering of the full window. This works for formats which render spans and relations
+ * as arrays containing the VID at a fixed position and markers as arrays containing the type
+ * followed by the VIDs or offsets they refer to.
+ * <p>
+ * Objects of the previous rendering are replaced if they are contained in the rendered range or if
+ * they are part of the partial rendering. Relations are removed along with the spans they are
+ * anchored at if these are contained in the rendered range, markers along with the objects they
+ * refer to.
+ * </p>
+ */
+public class RangePatchBuilder
+{
+    public static final String SPANS = "spans";
+    public static final String RELATIONS = "relations";
+    public static final String ANNOTATION_MARKERS = "annotationMarkers";
+    public static final String TEXT_MARKERS = "textMarkers";
+
+    private static final int MARKER_TARGETS = 1;
+    private static final int ARGUMENT_TARGET = 0;
+
+    private final int vidIndex;
+    private final int offsetsIndex;
+    private final int argumentsIndex;
+    private final List<String> mergedFields;
+
+    private RangePatchBuilder(Builder aBuilder)
+    {
+        vidIndex = aBuilder.vidIndex;
+        offsetsIndex = aBuilder.offsetsIndex;
+        argumentsIndex = aBuilder.argumentsIndex;
+        mergedFields = aBuilder.mergedFields;
+    }
+
+    /**
+     * @param aPrevious
+     *            the previous rendering of the full window.
+     * @param aPartial
+     *            the rendering of the range.
+     * @param aRangeBegin
+     *            the begin of the range relative to the window.
+     * @param aRangeEnd
+     *            the end of the range relative to the window.
+     * @return the patch operations.
+     */
+    public ArrayNode build(JsonNode aPrevious, JsonNode aPartial, int aRangeBegin, int aRangeEnd)
+    {
+        var ops = JsonNodeFactory.instance.arrayNode();
+
+        var renderedVids = new HashSet<String>();
+        aPartial.path(SPANS).forEach(span -> renderedVids.add(vid(span)));
+        aPartial.path(RELATIONS).forEach(rel -> renderedVids.add(vid(rel)));
+
+        var removedVids = new HashSet<String>();
+        var coveredVids = new HashSet<String>();
+
+        var spans = aPrevious.path(SPANS);
+        var removedSpans = indicesOf(spans, span -> {
+            if (isInRange(span.path(offsetsIndex), aRangeBegin, aRangeEnd)) {
+                coveredVids.add(vid(span));
+                return true;
+            }
+            return renderedVids.contains(vid(span));
+        });
+        removedSpans.forEach(i -> removedVids.add(vid(spans.get(i))));
+
+        var relations = aPrevious.path(RELATIONS);
+        var removedRelations = indicesOf(relations, rel -> renderedVids.contains(vid(rel))
+                || isDetached(rel, removedVids, renderedVids, coveredVids));
+        removedRelations.forEach(i -> removedVids.add(vid(relations.get(i))));
+
+        var annotationMarkers = aPrevious.path(ANNOTATION_MARKERS);
+        var removedAnnotationMarkers = indicesOf(annotationMarkers, marker -> {
+            for (var vid : marker.path(MARKER_TARGETS)) {
+                if (removedVids.contains(vid.asText())) {
+                    return true;
+                }
+            }
+            return false;
+        });
+
+        var textMarkers = aPrevious.path(TEXT_MARKERS);
+        var removedTextMarkers = indicesOf(textMarkers,
+                marker -> isInRange(marker.path(MARKER_TARGETS), aRangeBegin, aRangeEnd));
+
+        remove(ops, SPANS, removedSpans);
+        remove(ops, RELATIONS, removedRelations);
+        remove(ops, ANNOTATION_MARKERS, removedAnnotationMarkers);
+        remove(ops, TEXT_MARKERS, removedTextMarkers);
+
+        add(ops, aPrevious, aPartial, SPANS, Set.of());
+        add(ops, aPrevious, aPartial, RELATIONS, Set.of());
+        add(ops, aPrevious, aPartial, ANNOTATION_MARKERS,
+                retained(annotationMarkers, removedAnnotationMarkers));
+        add(ops, aPrevious, aPartial, TEXT_MARKERS, retained(textMarkers, removedTextMarkers));
+        for (var field : mergedFields) {
+            add(ops, aPrevious, aPartial, field, retained(aPrevious.path(field), List.of()));
+        }
+
+        return ops;
+    }
+
+    private String vid(JsonNode aObject)
+    {
+        return aObject.path(vidIndex).asText();
+    }
+
+    /**
+     * A relation is detached if it refers to a span that has been removed and not rendered again.
+     * Also, relations are anchored at their target and slot links at the span they belong to. If
+     * the anchor is contained in the range, then the relation or link would have been rendered
+     * again if it still existed. An anchor which is rendered again only because it overlaps the
+     * range does not say anything about the relation since relations are only rendered if they
+     * are contained in the range.
+     */
+    private boolean isDetached(JsonNode aRelation, Set<String> aRemovedVids,
+            Set<String> aRenderedVids, Set<String> aCoveredVids)
+    {
+        var arguments = aRelation.path(argumentsIndex);
+        var source = arguments.path(0).path(ARGUMENT_TARGET).asText();
+        var target = arguments.path(1).path(ARGUMENT_TARGET).asText();
+
+        var anchor = isSlot(vid(aRelation), source) ? source : target;
+        if (aCoveredVids.contains(anchor)) {
+            return true;
+        }
+
+        return (aRemovedVids.contains(source) && !aRenderedVids.contains(source))
+                || (aRemovedVids.contains(target) && !aRenderedVids.contains(target));
+    }
+
+    private static boolean isSlot(String aVid, String aSource)
+    {
+        try {
+            return VID.parse(aVid).getId() == VID.parse(aSource).getId();
+        }
+        catch (RuntimeException e) {
+            // Not a VID of a regular annotation, e.g. of a suggestion
+            return false;
+        }
+    }
+
+    /**
+     * @return whether all the given ranges are fully contained in the given range. Zero-width
+     *         ranges must lie strictly within the range since they may not be considered to overlap
+     *         with a range they touch.
+     */
+    static boolean isInRange(JsonNode aRanges, int aBegin, int aEnd)
+    {
+        if (!aRanges.isArray() || aRanges.isEmpty()) {
+            return false;
+        }
+
+        for (var range : aRanges) {
+            var begin = range.path(0).asInt();
+            var end = range.path(1).asInt();
+
+            if (begin == end) {
+                if (begin <= aBegin || begin >= aEnd) {
+                    return false;
+                }
+            }
+            else if (begin < aBegin || end > aEnd) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static List<Integer> indicesOf(JsonNode aArray, Predicate<JsonNode> aPredicate)
+    {
+        var indices = new ArrayList<Integer>();
+        for (var i = 0; i < aArray.size(); i++) {
+            if (aPredicate.test(aArray.get(i))) {
+                indices.add(i);
+            }
+        }
+        return indices;
+    }
+
+    private static Set<JsonNode> retained(JsonNode aArray, List<Integer> aRemoved)
+    {
+        var retained = new HashSet<JsonNode>();
+        for (var i = 0; i < aArray.size(); i++) {
+            if (!aRemoved.contains(i)) {
+                retained.add(aArray.get(i));
+            }
+        }
+        return retained;
+    }
+
+    private static void remove(ArrayNode aOps, String aField, List<Integer> aIndices)
+    {
+        // Remove from the back so the indices of the remaining elements stay valid
+        for (var i = aIndices.size() - 1; i >= 0; i--) {
+            aOps.addObject() //
+                    .put("op", "remove") //
+                    .put("path", "/" + aField + "/" + aIndices.get(i));
+        }
+    }
+
+    private static void add(ArrayNode aOps, JsonNode aPrevious, JsonNode aPartial, String aField,
+            Set<JsonNode> aExisting)
+    {
+        var added = new LinkedHashSet<JsonNode>();
+        for (var element : aPartial.path(aField)) {
+            if (!aExisting.contains(element)) {
+                added.add(element);
+            }
+        }
+
+        if (added.isEmpty()) {
+            return;
+        }
+
+        // Fields with empty values may be omitted from the previous rendering
+        if (!aPrevious.has(aField)) {
+            var array = aOps.addObject() //
+                    .put("op", "add") //
+                    .put("path", "/" + aField) //
+                    .putArray("value");
+            added.forEach(array::add);
+            return;
+        }
+
+        for (var element : added) {
+            aOps.addObject() //
+                    .put("op", "add") //
+                    .put("path", "/" + aField + "/-") //
+                    .set("value", element);
+        }
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static final class Builder
+    {
+        private int vidIndex = 0;
+        private int offsetsIndex = 1;
+        private int argumentsIndex = 1;
+        private final List<String> mergedFields = new ArrayList<>();
+
+        private Builder()
+        {
+        }
+
+        /**
+         * @param aIndex
+         *            the position of the VID in the arrays representing spans and relations.
+         */
+        public Builder withVidIndex(int aIndex)
+        {
+            vidIndex = aIndex;
+            return this;
+        }
+
+        /**
+         * @param aIndex
+         *            the position of the offsets in the arrays representing spans.
+         */
+        public Builder withOffsetsIndex(int aIndex)
+        {
+            offsetsIndex = aIndex;
+            return this;
+        }
+
+        /**
+         * @param aIndex
+         *            the position of the arguments in the arrays representing relations.
+         */
+        public Builder withArgumentsIndex(int aIndex)
+        {
+            argumentsIndex = aIndex;
+            return this;
+        }
+
+        /**
+         * @param aField
+         *            an array field to which elements of the partial rendering are added unless
+         *            they are already present, e.g. a list of layers.
+         */
+        public Builder withMergedField(String aField)
+        {
+            mergedFields.add(aField);
+            return this;
+        }
+
+        public RangePatchBuilder build()
+        {
+            return new RangePatchBuilder(this);
+        }
+    }
+}
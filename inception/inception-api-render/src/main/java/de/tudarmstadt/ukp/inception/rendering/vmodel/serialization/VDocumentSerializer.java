@@ -17,6 +17,10 @@
  */
 package de.tudarmstadt.ukp.inception.rendering.vmodel.serialization;
 
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 import de.tudarmstadt.ukp.inception.support.extensionpoint.Extension;
@@ -31,4 +35,29 @@ public interface VDocumentSerializer<T>
     }
 
     T render(VDocument aVdoc, RenderRequest aRequest);
+
+    /**
+     * Creates JSON Patch (RFC 6902) operations which update a previous rendering of the window to
+     * reflect the given partial rendering of a range of the window. The partial document must
+     * contain all annotations fully contained in the range. The range must cover all annotations
+     * that were added, changed or deleted since the previous rendering.
+     * 
+     * @param aPrevious
+     *            the JSON representation of the previous rendering of the full window.
+     * @param aPartialVdoc
+     *            the partial rendering of the range as produced by
+     *            {@code RenderingPipeline.renderRange}.
+     * @param aRequest
+     *            the render request.
+     * @param aRangeBegin
+     *            the begin of the range (document offset).
+     * @param aRangeEnd
+     *            the end of the range (document offset).
+     * @return the patch operations or an empty result if the serializer cannot create patches.
+     */
+    default Optional<JsonNode> renderPatch(JsonNode aPrevious, VDocument aPartialVdoc,
+            RenderRequest aRequest, int aRangeBegin, int aRangeEnd)
+    {
+        return Optional.empty();
+    }
 }
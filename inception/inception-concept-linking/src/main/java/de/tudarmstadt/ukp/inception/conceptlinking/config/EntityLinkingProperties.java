@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.inception.conceptlinking.config;
 
+import java.time.Duration;
+
 public interface EntityLinkingProperties
 {
     int getCacheSize();
@@ -28,4 +30,15 @@ public interface EntityLinkingProperties
     int getCandidateDisplayLimit();
 
     int getSignatureQueryLimit();
+
+    /**
+     * @return how long to wait for a knowledge base to generate candidates before continuing
+     *         without its results.
+     */
+    Duration getCandidateGenerationTimeout();
+
+    /**
+     * @return how many knowledge bases can be queried in parallel when generating candidates.
+     */
+    int getCandidateGenerationThreads();
 }
@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.inception.conceptlinking.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -35,6 +37,8 @@ public class EntityLinkingPropertiesImpl
     private int candidateQueryLimit = 2500;
     private int candidateDisplayLimit = 100;
     private int signatureQueryLimit = Integer.MAX_VALUE;
+    private Duration candidateGenerationTimeout = Duration.ofSeconds(5);
+    private int candidateGenerationThreads = 4;
 
     @Override
     public int getCacheSize()
@@ -90,4 +94,26 @@ public class EntityLinkingPropertiesImpl
     {
         this.signatureQueryLimit = signatureQueryLimit;
     }
+
+    @Override
+    public Duration getCandidateGenerationTimeout()
+    {
+        return candidateGenerationTimeout;
+    }
+
+    public void setCandidateGenerationTimeout(Duration candidateGenerationTimeout)
+    {
+        this.candidateGenerationTimeout = candidateGenerationTimeout;
+    }
+
+    @Override
+    public int getCandidateGenerationThreads()
+    {
+        return candidateGenerationThreads;
+    }
+
+    public void setCandidateGenerationThreads(int candidateGenerationThreads)
+    {
+        this.candidateGenerationThreads = candidateGenerationThreads;
+    }
 }
@@ -29,7 +29,7 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Comparator.comparingInt;
-import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toCollection;
 import static org.apache.uima.fit.util.CasUtil.getType;
 import static org.apache.uima.fit.util.CasUtil.select;
@@ -41,19 +41,28 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.util.CasUtil;
 import org.eclipse.rdf4j.common.net.ParsedIRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -89,13 +98,14 @@ import de.tudarmstadt.ukp.inception.support.wicket.WicketUtil;
  * </p>
  */
 public class ConceptLinkingServiceImpl
-    implements InitializingBean, ConceptLinkingService
+    implements InitializingBean, DisposableBean, ConceptLinkingService
 {
     private final static Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private final KnowledgeBaseService kbService;
     private final EntityLinkingProperties properties;
     private final RepositoryProperties repoProperties;
+    private final ExecutorService candidateGenerationExecutor;
 
     private Set<String> stopwords;
 
@@ -114,6 +124,11 @@ public class ConceptLinkingServiceImpl
         properties = aProperties;
         featureGeneratorsProxy = aFeatureGenerators;
         repoProperties = aRepoProperties;
+        candidateGenerationExecutor = Executors.newFixedThreadPool(
+                aProperties.getCandidateGenerationThreads(), new BasicThreadFactory.Builder() //
+                        .namingPattern("entity-linking-%d") //
+                        .daemon(true) //
+                        .build());
     }
 
     @Override
@@ -123,6 +138,12 @@ public class ConceptLinkingServiceImpl
         stopwords = FileUtils.loadStopwordFile(stopwordsFile);
     }
 
+    @Override
+    public void destroy()
+    {
+        candidateGenerationExecutor.shutdownNow();
+    }
+
     @EventListener
     public void onContextRefreshedEvent(ContextRefreshedEvent aEvent)
     {
@@ -290,6 +311,8 @@ public class ConceptLinkingServiceImpl
             query.descendantsOf(aConceptScope);
         }
 
+        kbService.getLabelIndex(aKB).ifPresent(query::withLabelIndex);
+
         if (aKB.isUseFuzzy()) {
             query.withLabelMatchingAnyOf(longLabels);
         }
@@ -332,6 +355,8 @@ public class ConceptLinkingServiceImpl
             query.descendantsOf(aConceptScope);
         }
 
+        kbService.getLabelIndex(aKB).ifPresent(query::withLabelIndex);
+
         // Collect matches starting with the query - this is the main driver for the
         // auto-complete functionality
         query.withLabelStartingWith(aQuery);
@@ -515,14 +540,79 @@ public class ConceptLinkingServiceImpl
 
         // Query the knowledge bases for candidates
         var candidates = new HashSet<KBHandle>();
-        for (var kb : knowledgeBases) {
-            candidates.addAll(generateCandidates(kb, aConceptScope, aValueType, query, aMention));
+        if (knowledgeBases.size() == 1) {
+            candidates.addAll(generateCandidates(knowledgeBases.get(0), aConceptScope, aValueType,
+                    query, aMention));
+        }
+        else {
+            candidates.addAll(generateCandidatesConcurrently(knowledgeBases, aConceptScope,
+                    aValueType, query, aMention));
         }
 
         // Rank the candidates and return them
         return rankCandidates(query, aMention, candidates, aCas, aMentionBeginOffset);
     }
 
+    /**
+     * Queries the given knowledge bases for candidates in parallel. Knowledge bases which do not
+     * respond within the {@link EntityLinkingProperties#getCandidateGenerationTimeout() candidate
+     * generation timeout} or which fail are skipped, i.e. the result may be partial. Queries which
+     * are still running when the timeout expires are cancelled.
+     */
+    private Set<KBHandle> generateCandidatesConcurrently(List<KnowledgeBase> aKBs,
+            String aConceptScope, ConceptFeatureValueType aValueType, String aQuery,
+            String aMention)
+    {
+        var startTime = currentTimeMillis();
+        var deadline = startTime + properties.getCandidateGenerationTimeout().toMillis();
+
+        var pending = new LinkedHashMap<KnowledgeBase, Future<Set<KBHandle>>>();
+        var durations = new ConcurrentHashMap<KnowledgeBase, Long>();
+        for (var kb : aKBs) {
+            pending.put(kb, candidateGenerationExecutor.submit(() -> {
+                var kbStartTime = currentTimeMillis();
+                try {
+                    return generateCandidates(kb, aConceptScope, aValueType, aQuery, aMention);
+                }
+                finally {
+                    durations.put(kb, currentTimeMillis() - kbStartTime);
+                }
+            }));
+        }
+
+        var candidates = new HashSet<KBHandle>();
+        try {
+            for (var entry : pending.entrySet()) {
+                var kb = entry.getKey();
+                try {
+                    var remaining = Math.max(0, deadline - currentTimeMillis());
+                    candidates.addAll(entry.getValue().get(remaining, MILLISECONDS));
+                    WicketUtil.serverTiming("generateCandidates", kb.getName(), durations.get(kb));
+                }
+                catch (TimeoutException e) {
+                    LOG.warn("Generating candidates from {} did not complete within {} - skipping",
+                            kb, properties.getCandidateGenerationTimeout());
+                    WicketUtil.serverTiming("generateCandidates", kb.getName() + " (timeout)",
+                            currentTimeMillis() - startTime);
+                }
+                catch (ExecutionException e) {
+                    LOG.error("Generating candidates from {} failed - skipping", kb, e.getCause());
+                    WicketUtil.serverTiming("generateCandidates", kb.getName() + " (failed)",
+                            durations.getOrDefault(kb, currentTimeMillis() - startTime));
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            // Do not let queries which timed out occupy the executor any longer
+            pending.values().forEach(future -> future.cancel(true));
+        }
+
+        return candidates;
+    }
+
     /**
      * Find KB items (classes and instances) matching the given query.
      */
@@ -20,14 +20,20 @@ package de.tudarmstadt.ukp.inception.conceptlinking.service;
 
 import static de.tudarmstadt.ukp.inception.kb.ConceptFeatureValueType.ANY_OBJECT;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
 import java.io.InputStream;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import javax.persistence.EntityManager;
 
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -45,6 +51,7 @@ import de.tudarmstadt.ukp.inception.conceptlinking.config.EntityLinkingPropertie
 import de.tudarmstadt.ukp.inception.conceptlinking.util.TestFixtures;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.kb.ConceptFeatureValueType;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseServiceImpl;
 import de.tudarmstadt.ukp.inception.kb.config.KnowledgeBaseProperties;
@@ -72,28 +79,37 @@ public class ConceptLinkingServiceImplTest
     @Autowired
     private TestEntityManager testEntityManager;
 
+    private TestFixtures testFixtures;
     private KnowledgeBaseService kbService;
+    private RepositoryProperties repoProps;
     private ConceptLinkingServiceImpl sut;
 
+    private Project project;
     private KnowledgeBase kb;
 
     @BeforeEach
     public void setUp() throws Exception
     {
-        RepositoryProperties repoProps = new RepositoryPropertiesImpl();
+        repoProps = new RepositoryPropertiesImpl();
         KnowledgeBaseProperties kbProperties = new KnowledgeBasePropertiesImpl();
         repoProps.setPath(temporaryFolder);
         EntityManager entityManager = testEntityManager.getEntityManager();
-        TestFixtures testFixtures = new TestFixtures(testEntityManager);
+        testFixtures = new TestFixtures(testEntityManager);
         kbService = new KnowledgeBaseServiceImpl(repoProps, kbProperties, entityManager);
         sut = new ConceptLinkingServiceImpl(kbService, new EntityLinkingPropertiesImpl(), repoProps,
                 emptyList());
         sut.afterPropertiesSet();
         sut.init();
-        Project project = testFixtures.createProject(PROJECT_NAME);
+        project = testFixtures.createProject(PROJECT_NAME);
         kb = testFixtures.buildKnowledgeBase(project, KB_NAME, Reification.NONE);
     }
 
+    @AfterEach
+    public void tearDown()
+    {
+        sut.destroy();
+    }
+
     @Test
     public void thatLuceneSailIndexedConceptIsRetrievableWithFullTextSearch() throws Exception
     {
@@ -127,6 +143,86 @@ public class ConceptLinkingServiceImplTest
         kbService.removeKnowledgeBase(kb);
     }
 
+    @Test
+    public void thatCandidatesFromAllKnowledgeBasesAreRetrieved() throws Exception
+    {
+        kbService.registerKnowledgeBase(kb, kbService.getNativeConfig());
+        importKnowledgeBase("data/pets.ttl");
+
+        var otherKb = testFixtures.buildKnowledgeBase(project, "Other knowledge base",
+                Reification.NONE);
+        kbService.registerKnowledgeBase(otherKb, kbService.getNativeConfig());
+        var concept = new KBConcept();
+        concept.setName("soda");
+        kbService.createConcept(otherKb, concept);
+
+        var handles = sut.getLinkingInstancesInKBScope(null, null, ANY_OBJECT, "so", null, 0,
+                null, project);
+
+        assertThat(handles.stream().map(KBHandle::getName)) //
+                .contains("Socke", "soda");
+
+        kbService.removeKnowledgeBase(otherKb);
+        kbService.removeKnowledgeBase(kb);
+    }
+
+    @Test
+    public void thatSlowKnowledgeBaseIsSkippedAndCancelled() throws Exception
+    {
+        kbService.registerKnowledgeBase(kb, kbService.getNativeConfig());
+        importKnowledgeBase("data/pets.ttl");
+
+        var slowKb = testFixtures.buildKnowledgeBase(project, "Slow knowledge base",
+                Reification.NONE);
+        kbService.registerKnowledgeBase(slowKb, kbService.getNativeConfig());
+
+        var properties = new EntityLinkingPropertiesImpl();
+        properties.setCandidateGenerationTimeout(Duration.ofMillis(500));
+        var slowKbCancelled = new CountDownLatch(1);
+        var slowSut = new ConceptLinkingServiceImpl(kbService, properties, repoProps,
+                emptyList())
+        {
+            @Override
+            public Set<KBHandle> generateCandidates(KnowledgeBase aKB, String aConceptScope,
+                    ConceptFeatureValueType aValueType, String aQuery, String aMention)
+            {
+                if (!Objects.equals(aKB.getRepositoryId(), slowKb.getRepositoryId())) {
+                    return super.generateCandidates(aKB, aConceptScope, aValueType, aQuery,
+                            aMention);
+                }
+
+                try {
+                    Thread.sleep(Duration.ofMinutes(1).toMillis());
+                }
+                catch (InterruptedException e) {
+                    slowKbCancelled.countDown();
+                }
+                return Set.of();
+            }
+        };
+        slowSut.afterPropertiesSet();
+        slowSut.init();
+
+        try {
+            var startTime = System.currentTimeMillis();
+            var handles = slowSut.getLinkingInstancesInKBScope(null, null, ANY_OBJECT, "so", null,
+                    0, null, project);
+
+            assertThat(System.currentTimeMillis() - startTime) //
+                    .isLessThan(Duration.ofSeconds(30).toMillis());
+            assertThat(handles.stream().map(KBHandle::getName)).contains("Socke");
+            assertThat(slowKbCancelled.await(10, SECONDS)) //
+                    .as("Query to slow knowledge base has been cancelled") //
+                    .isTrue();
+        }
+        finally {
+            slowSut.destroy();
+        }
+
+        kbService.removeKnowledgeBase(slowKb);
+        kbService.removeKnowledgeBase(kb);
+    }
+
     private void importKnowledgeBase(String resourceName) throws Exception
     {
         ClassLoader classLoader = getClass().getClassLoader();
@@ -718,6 +718,38 @@ public class CasDiff
         return new DiffResult(this);
     }
 
+    /**
+     * Restrict the diff to the given CAS groups. The result is the same as if the diff had only
+     * been calculated over the CASes of these groups, but the CASes do not need to be processed
+     * again. This allows calculating a diff over many CASes once and then looking at different
+     * subsets of them, e.g. at every pair of annotators.
+     * <p>
+     * The configuration sets of the projected diff are copies, so tags and values added to them do
+     * not affect this diff.
+     * 
+     * @param aCasGroupIds
+     *            the IDs of the CAS groups to retain.
+     * @return the projected diff.
+     */
+    public CasDiff project(Collection<String> aCasGroupIds)
+    {
+        var diff = new CasDiff(begin, end, diffAdapters.values(), linkCompareBehavior);
+        diff.recurseIntoLinkFeatures = recurseIntoLinkFeatures;
+
+        for (var casGroupId : aCasGroupIds) {
+            diff.cases.put(casGroupId, cases.get(casGroupId));
+        }
+
+        for (var e : configSets.entrySet()) {
+            var configSet = e.getValue().project(diff.cases.keySet());
+            if (configSet != null) {
+                diff.configSets.put(e.getKey(), configSet);
+            }
+        }
+
+        return diff;
+    }
+
     // private Set<String> entryTypes = new LinkedHashSet<>();
 
     // /**
@@ -105,6 +105,33 @@ public class Configuration
         add(aCasGroupId, new AID(ICasUtil.getAddr(aFS), aFeature, aSlot));
     }
 
+    /**
+     * @param aCasGroupIds
+     *            the IDs of the CAS groups to retain.
+     * @return a copy of this configuration containing only the given CAS groups or {@code null} if
+     *         the configuration has not been observed in any of them.
+     */
+    Configuration project(Set<String> aCasGroupIds)
+    {
+        var copy = new Configuration(position);
+
+        for (var e : fsAddresses.entrySet()) {
+            if (aCasGroupIds.contains(e.getKey())) {
+                copy.fsAddresses.put(e.getKey(), e.getValue());
+            }
+        }
+
+        if (copy.fsAddresses.isEmpty()) {
+            return null;
+        }
+
+        // The extras are not tracked per CAS group, so we have to retain all of them
+        copy.extras = extras;
+        copy.stacked = stacked;
+
+        return copy;
+    }
+
     public AID getRepresentativeAID()
     {
         var e = fsAddresses.entrySet().iterator().next();
@@ -156,6 +156,37 @@ public class ConfigurationSet
         return configurationsForUser;
     }
 
+    /**
+     * @param aCasGroupIds
+     *            the IDs of the CAS groups to retain.
+     * @return a copy of this set containing only the configurations observed in the given CAS
+     *         groups or {@code null} if the set has not been observed in any of them. Tags and
+     *         values are not copied.
+     */
+    ConfigurationSet project(Set<String> aCasGroupIds)
+    {
+        var copy = new ConfigurationSet(position);
+
+        for (var casGroupId : casGroupIds) {
+            if (aCasGroupIds.contains(casGroupId)) {
+                copy.addCasGroupId(casGroupId);
+            }
+        }
+
+        if (copy.casGroupIds.isEmpty()) {
+            return null;
+        }
+
+        for (var cfg : configurations) {
+            var cfgCopy = cfg.project(aCasGroupIds);
+            if (cfgCopy != null) {
+                copy.addConfiguration(cfgCopy);
+            }
+        }
+
+        return copy;
+    }
+
     /**
      * @return the position of this configuration set.
      */
@@ -271,6 +271,43 @@ public class CasDiffTest
         // assertEquals(0, agreement.getIncompleteSetsByPosition().size());
     }
 
+    @Test
+    public void projectionTest() throws Exception
+    {
+        var casByUser = load( //
+                "casdiff/someDifferences/user1.conll", //
+                "casdiff/someDifferences/user2.conll");
+        var text = casByUser.values().iterator().next().getDocumentText();
+        var user3 = createText(text);
+        buildAnnotation(user3, POS.class).at(0, 1) //
+                .withFeature(POS._FeatName_PosValue, "X") //
+                .buildAndAddToIndexes();
+
+        var allCasByUser = new LinkedHashMap<String, CAS>(casByUser);
+        allCasByUser.put("user3", user3);
+
+        var diffAdapters = asList(POS_DIFF_ADAPTER);
+
+        var fullDiff = doDiff(diffAdapters, LINK_TARGET_AS_LABEL, allCasByUser);
+        var expected = doDiff(diffAdapters, LINK_TARGET_AS_LABEL, casByUser).toResult();
+        var result = fullDiff.project(casByUser.keySet()).toResult();
+
+        assertThat(result.getCasGroupIds()).isEqualTo(expected.getCasGroupIds());
+        assertThat(result.getPositions()).isEqualTo(expected.getPositions());
+        assertThat(result.size()).isEqualTo(26);
+        assertThat(result.getDifferingConfigurationSets()).hasSize(4);
+        assertThat(result.getIncompleteConfigurationSets()).isEmpty();
+        assertThat(calculateState(result)).isEqualTo(DISAGREE);
+
+        for (var pos : expected.getPositions()) {
+            assertThat(result.getConfigurationSet(pos).getConfigurations()) //
+                    .extracting(Configuration::getCasGroupIds) //
+                    .isEqualTo(expected.getConfigurationSet(pos).getConfigurations().stream() //
+                            .map(Configuration::getCasGroupIds) //
+                            .toList());
+        }
+    }
+
     @Test
     public void singleNoDifferencesTest() throws Exception
     {
@@ -34,7 +34,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +51,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectArchive;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportException;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
@@ -199,11 +199,19 @@ public class CuratedDocumentsExporter
         }
     }
 
+    @Override
+    public void importData(ProjectImportRequest aRequest, Project aProject,
+            ExportedProject aExProject, ZipFile aZip)
+        throws Exception
+    {
+        importData(aRequest, aProject, aExProject, new ProjectArchive(aZip));
+    }
+
     /**
      * Copy curation documents from the exported project
      * 
-     * @param aZip
-     *            the ZIP file.
+     * @param aArchive
+     *            the project archive.
      * @param aProject
      *            the project.
      * @throws IOException
@@ -211,25 +219,13 @@ public class CuratedDocumentsExporter
      */
     @Override
     public void importData(ProjectImportRequest aRequest, Project aProject,
-            ExportedProject aExProject, ZipFile aZip)
+            ExportedProject aExProject, ProjectArchive aArchive)
         throws Exception
     {
-        for (Enumeration<? extends ZipEntry> zipEnumerate = aZip.entries(); zipEnumerate
-                .hasMoreElements();) {
-            ZipEntry entry = zipEnumerate.nextElement();
-            if (entry.isDirectory()) {
-                log.trace("Skipping ZIP entry that is a directory: [{}]", entry.getName());
-                continue;
-            }
-
+        for (ZipEntry entry : aArchive.getEntries(CURATION_AS_SERIALISED_CAS)) {
             // Strip leading "/" that we had in ZIP files prior to 2.0.8 (bug #985)
             String entryName = ProjectExporter.normalizeEntryName(entry);
 
-            if (!entryName.startsWith(CURATION_AS_SERIALISED_CAS + "/")) {
-                log.trace("Skipping ZIP entry that is not a curation CAS: [{}]", entry.getName());
-                continue;
-            }
-
             log.trace("Importing curation CAS from: [{}]", entry.getName());
 
             String fileName = entryName.replace(CURATION_AS_SERIALISED_CAS + "/", "");
@@ -253,7 +249,7 @@ public class CuratedDocumentsExporter
             }
             SourceDocument sourceDocument = documentService.getSourceDocument(aProject, fileName);
 
-            try (InputStream is = aZip.getInputStream(entry)) {
+            try (InputStream is = aArchive.getInputStream(entry)) {
                 documentService.importCas(sourceDocument, username, is);
             }
 
@@ -24,10 +24,13 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
@@ -39,7 +42,9 @@ import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VID;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VSpan;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VTextMarker;
+import de.tudarmstadt.ukp.inception.rendering.vmodel.serialization.RangePatchBuilder;
 import de.tudarmstadt.ukp.inception.schema.api.config.AnnotationSchemaProperties;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.support.text.TextUtils;
 
 /**
@@ -55,6 +60,13 @@ public class CompactSerializerV2Impl
 
     public static final String ID = "compact_v2";
 
+    private static final RangePatchBuilder PATCH_BUILDER = RangePatchBuilder.builder() //
+            .withVidIndex(1) //
+            .withOffsetsIndex(2) //
+            .withArgumentsIndex(2) //
+            .withMergedField("layers") //
+            .build();
+
     private final AnnotationSchemaProperties properties;
 
     public CompactSerializerV2Impl(AnnotationSchemaProperties aProperties)
@@ -82,6 +94,17 @@ public class CompactSerializerV2Impl
         return aResponse;
     }
 
+    @Override
+    public Optional<JsonNode> renderPatch(JsonNode aPrevious, VDocument aPartialVdoc,
+            RenderRequest aRequest, int aRangeBegin, int aRangeEnd)
+    {
+        JsonNode partial = JSONUtil.getObjectMapper().valueToTree(render(aPartialVdoc, aRequest));
+
+        return Optional.of(PATCH_BUILDER.build(aPrevious, partial,
+                aRangeBegin - aPartialVdoc.getWindowBegin(),
+                aRangeEnd - aPartialVdoc.getWindowBegin()));
+    }
+
     private void renderLayers(RenderRequest aRequest, CompactAnnotatedText aResponse,
             VDocument aVDoc)
     {
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.diam.model.compactv2;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.contentOf;
 
+import java.util.ArrayList;
 import java.util.Map;
 
 import org.junit.jupiter.api.Test;
@@ -27,6 +28,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.inception.annotation.layer.span.SpanLayerSupport;
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
@@ -97,4 +100,119 @@ public class CompactSerializerV2ImplTest
         assertThat(actual)
                 .isEqualTo(contentOf(getClass().getResource("/compactv2/reference.json")));
     }
+
+    @Test
+    void thatPatchReplacesAnnotationsInRange() throws Exception
+    {
+        var spanLayer = AnnotationLayer.builder() //
+                .withId(1l) //
+                .withUiName("Span") //
+                .withName("custom.Span") //
+                .withType(SpanLayerSupport.TYPE) //
+                .build();
+        var relationLayer = AnnotationLayer.builder() //
+                .withId(2l) //
+                .withUiName("Relation") //
+                .withName("custom.Relation") //
+                .withType(WebAnnoConst.RELATION_TYPE) //
+                .build();
+
+        var vdoc = new VDocument();
+        vdoc.setText("This is a test.");
+        vdoc.setWindowBegin(0);
+        vdoc.setWindowEnd(vdoc.getText().length());
+        var span1 = new VSpan(spanLayer, new VID(1), new VRange(0, 4), Map.of(), null);
+        vdoc.add(span1);
+        var span2 = new VSpan(spanLayer, new VID(2), new VRange(5, 7), Map.of(), null);
+        vdoc.add(span2);
+        var span3 = new VSpan(spanLayer, new VID(3), new VRange(10, 14), Map.of(), null);
+        vdoc.add(span3);
+        vdoc.add(new VArc(relationLayer, new VID(4), span1.getVid(), span2.getVid(), "rel",
+                Map.of(), null));
+        vdoc.add(new VArc(relationLayer, new VID(5), span1.getVid(), span3.getVid(), "rel",
+                Map.of(), null));
+        vdoc.add(new VAnnotationMarker(VMarker.FOCUS, span2.getVid()));
+        vdoc.add(new VTextMarker(VMarker.MATCH, new VRange(10, 14)));
+
+        var req = RenderRequest.builder() //
+                .withWindow(0, Integer.MAX_VALUE) //
+                .build();
+        var sut = new CompactSerializerV2Impl(annotationSchemaProperties);
+        JsonNode previous = JSONUtil.getObjectMapper().valueToTree(sut.render(vdoc, req));
+
+        // Span 2 has been deleted along with the relation pointing to it and a new span was
+        // created in its place
+        var partialVdoc = new VDocument();
+        partialVdoc.setText(vdoc.getText());
+        partialVdoc.setWindowBegin(0);
+        partialVdoc.setWindowEnd(vdoc.getText().length());
+        var span6 = new VSpan(spanLayer, new VID(6), new VRange(5, 7), Map.of(), null);
+        partialVdoc.add(span6);
+
+        var patch = sut.renderPatch(previous, partialVdoc, req, 5, 9).get();
+
+        var ops = new ArrayList<String>();
+        patch.forEach(op -> ops.add(op.get("op").asText() + " " + op.get("path").asText()));
+        assertThat(ops).containsExactly( //
+                "remove /spans/1", //
+                "remove /relations/0", //
+                "remove /annotationMarkers/0", //
+                "add /spans/-");
+        JsonNode expectedSpan = JSONUtil.getObjectMapper()
+                .valueToTree(sut.render(partialVdoc, req)).get("spans").get(0);
+        assertThat(patch.get(3).get("value")).isEqualTo(expectedSpan);
+    }
+
+    @Test
+    void thatPatchKeepsRelationsAnchoredAtSpansPartiallyInRange() throws Exception
+    {
+        var spanLayer = AnnotationLayer.builder() //
+                .withId(1l) //
+                .withUiName("Span") //
+                .withName("custom.Span") //
+                .withType(SpanLayerSupport.TYPE) //
+                .build();
+        var relationLayer = AnnotationLayer.builder() //
+                .withId(2l) //
+                .withUiName("Relation") //
+                .withName("custom.Relation") //
+                .withType(WebAnnoConst.RELATION_TYPE) //
+                .build();
+
+        var vdoc = new VDocument();
+        vdoc.setText("This is a test.");
+        vdoc.setWindowBegin(0);
+        vdoc.setWindowEnd(vdoc.getText().length());
+        var span1 = new VSpan(spanLayer, new VID(1), new VRange(0, 2), Map.of(), null);
+        vdoc.add(span1);
+        var span2 = new VSpan(spanLayer, new VID(2), new VRange(3, 8), Map.of(), null);
+        vdoc.add(span2);
+        vdoc.add(new VArc(relationLayer, new VID(3), span1.getVid(), span2.getVid(), "rel",
+                Map.of(), null));
+
+        var req = RenderRequest.builder() //
+                .withWindow(0, Integer.MAX_VALUE) //
+                .build();
+        var sut = new CompactSerializerV2Impl(annotationSchemaProperties);
+        JsonNode previous = JSONUtil.getObjectMapper().valueToTree(sut.render(vdoc, req));
+
+        // A span was created which overlaps the target of the relation. The target is rendered
+        // again because it overlaps the range, but the relation is not because it is not
+        // contained in the range.
+        var partialVdoc = new VDocument();
+        partialVdoc.setText(vdoc.getText());
+        partialVdoc.setWindowBegin(0);
+        partialVdoc.setWindowEnd(vdoc.getText().length());
+        partialVdoc.add(new VSpan(spanLayer, new VID(2), new VRange(3, 8), Map.of(), null));
+        partialVdoc.add(new VSpan(spanLayer, new VID(4), new VRange(6, 9), Map.of(), null));
+
+        var patch = sut.renderPatch(previous, partialVdoc, req, 5, 9).get();
+
+        var ops = new ArrayList<String>();
+        patch.forEach(op -> ops.add(op.get("op").asText() + " " + op.get("path").asText()));
+        assertThat(ops).containsExactly( //
+                "remove /spans/1", //
+                "add /spans/-", //
+                "add /spans/-");
+    }
 }
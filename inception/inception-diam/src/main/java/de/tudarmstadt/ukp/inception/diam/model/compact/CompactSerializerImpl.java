@@ -21,6 +21,9 @@ import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 
 import java.util.List;
+import java.util.Optional;
+
+import com.fasterxml.jackson.databind.JsonNode;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
@@ -33,7 +36,9 @@ import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VID;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VSpan;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VTextMarker;
+import de.tudarmstadt.ukp.inception.rendering.vmodel.serialization.RangePatchBuilder;
 import de.tudarmstadt.ukp.inception.schema.api.config.AnnotationSchemaProperties;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.support.text.TextUtils;
 
 /**
@@ -46,6 +51,12 @@ public class CompactSerializerImpl
 {
     public static final String ID = "compact";
 
+    private static final RangePatchBuilder PATCH_BUILDER = RangePatchBuilder.builder() //
+            .withVidIndex(0) //
+            .withOffsetsIndex(1) //
+            .withArgumentsIndex(1) //
+            .build();
+
     private final AnnotationSchemaProperties properties;
 
     public CompactSerializerImpl(AnnotationSchemaProperties aProperties)
@@ -73,6 +84,17 @@ public class CompactSerializerImpl
         return aResponse;
     }
 
+    @Override
+    public Optional<JsonNode> renderPatch(JsonNode aPrevious, VDocument aPartialVdoc,
+            RenderRequest aRequest, int aRangeBegin, int aRangeEnd)
+    {
+        JsonNode partial = JSONUtil.getObjectMapper().valueToTree(render(aPartialVdoc, aRequest));
+
+        return Optional.of(PATCH_BUILDER.build(aPrevious, partial,
+                aRangeBegin - aPartialVdoc.getWindowBegin(),
+                aRangeEnd - aPartialVdoc.getWindowBegin()));
+    }
+
     private void renderLayers(CompactAnnotatedText aResponse, VDocument aVDoc)
     {
         for (AnnotationLayer layer : aVDoc.getAnnotationLayers()) {
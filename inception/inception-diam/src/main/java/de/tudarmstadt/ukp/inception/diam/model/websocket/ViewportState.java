@@ -20,7 +20,9 @@ package de.tudarmstadt.ukp.inception.diam.model.websocket;
 import static java.util.Collections.newSetFromMap;
 
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -35,6 +37,8 @@ public class ViewportState
 
     private JsonNode json;
 
+    private CompletableFuture<Void> pendingUpdates = CompletableFuture.completedFuture(null);
+
     public ViewportState(ViewportDefinition aVpd)
     {
         vpd = aVpd;
@@ -55,6 +59,23 @@ public class ViewportState
         return json;
     }
 
+    /**
+     * Schedules an update of the viewport on the given executor. Updates of the same viewport are
+     * run one after the other in the order in which they were scheduled, so each update is computed
+     * against the state left by the previous one.
+     * 
+     * @param aUpdate
+     *            the update.
+     * @param aExecutor
+     *            the executor to run the update on.
+     */
+    public synchronized void scheduleUpdate(Runnable aUpdate, Executor aExecutor)
+    {
+        // A failed update must not block the updates scheduled after it
+        pendingUpdates = pendingUpdates.thenRunAsync(aUpdate, aExecutor) //
+                .exceptionally(e -> null);
+    }
+
     public void removeSubscriber(String aId)
     {
         subscriberSessionIds.removeIf(p -> p.getKey().equals(aId));
@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.diam.service;
 
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.CHAIN_TYPE;
 import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_REPOSITORY_PATH;
 import static de.tudarmstadt.ukp.inception.support.logging.Logging.KEY_USERNAME;
 import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.PARAM_DOCUMENT;
@@ -26,17 +27,30 @@ import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.T
 import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.TOPIC_ELEMENT_PROJECT;
 import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.TOPIC_ELEMENT_USER;
 import static java.lang.Integer.MAX_VALUE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
 import java.security.Principal;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.persistence.NoResultException;
 import javax.servlet.ServletContext;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.wicket.MetaDataKey;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.event.EventListener;
@@ -53,6 +67,8 @@ import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.flipkart.zjsonpatch.JsonDiff;
+import com.flipkart.zjsonpatch.JsonPatch;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
@@ -61,7 +77,13 @@ import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
 import de.tudarmstadt.ukp.clarin.webanno.model.Mode;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.inception.annotation.events.AnnotationEvent;
+import de.tudarmstadt.ukp.inception.annotation.events.FeatureValueUpdatedEvent;
+import de.tudarmstadt.ukp.inception.annotation.layer.relation.RelationEvent;
+import de.tudarmstadt.ukp.inception.annotation.layer.span.SpanEvent;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.diam.messages.MViewportInit;
 import de.tudarmstadt.ukp.inception.diam.messages.MViewportUpdate;
@@ -72,10 +94,16 @@ import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.recommendation.api.event.TransientAnnotationStateChangedEvent;
+import de.tudarmstadt.ukp.inception.rendering.coloring.ColoringStrategyType;
+import de.tudarmstadt.ukp.inception.rendering.coloring.ReadonlyColoringStrategy;
+import de.tudarmstadt.ukp.inception.rendering.editorstate.AnnotationPreference;
+import de.tudarmstadt.ukp.inception.rendering.model.Range;
 import de.tudarmstadt.ukp.inception.rendering.pipeline.RenderingPipeline;
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.serialization.VDocumentSerializerExtensionPoint;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.schema.api.event.TagEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 
 /**
@@ -85,11 +113,16 @@ import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 @ConditionalOnExpression("${websocket.enabled:true}")
 @Controller
 public class DiamWebsocketController
+    implements DisposableBean
 {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     public static final String FORMAT_LEGACY = "legacy";
 
+    private static final int UPDATE_THREADS = Math.max(1,
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int UPDATE_QUEUE_SIZE = 1000;
+
     public static final String PARAM_FROM = "from";
     public static final String PARAM_TO = "to";
     public static final String PARAM_FORMAT = "format";
@@ -117,6 +150,16 @@ public class DiamWebsocketController
     public static final String ANNOTATION_COMMAND_SELECT_TOPIC_TEMPLATE = //
             DOCUMENT_BASE_TOPIC_TEMPLATE + "/select";
 
+    /*
+     * Collects the ranges affected by the annotation changes during this request, so the update
+     * sent when the CAS is written only needs to cover these ranges.
+     */
+    @SuppressWarnings("serial")
+    private static final MetaDataKey<Map<AffectedDocumentKey, Range>> AFFECTED_RANGES = //
+            new MetaDataKey<Map<AffectedDocumentKey, Range>>()
+            {
+            };
+
     private final SimpMessagingTemplate msgTemplate;
     private final RenderingPipeline renderingPipeline;
     private final DocumentService documentService;
@@ -128,6 +171,8 @@ public class DiamWebsocketController
     private final UserPreferencesService userPreferencesService;
 
     private final LoadingCache<ViewportDefinition, ViewportState> activeViewports;
+    private final Cache<RenderKey, JsonNode> renderCache;
+    private final ExecutorService updateExecutor;
 
     public DiamWebsocketController(SimpMessagingTemplate aMsgTemplate,
             RenderingPipeline aRenderingPipeline, DocumentService aDocumentService,
@@ -149,6 +194,26 @@ public class DiamWebsocketController
         activeViewports = Caffeine.newBuilder() //
                 .expireAfterAccess(Duration.ofMinutes(aServletContext.getSessionTimeout())) //
                 .build(this::initState);
+
+        renderCache = Caffeine.newBuilder() //
+                .expireAfterWrite(Duration.ofMinutes(1)) //
+                .maximumSize(1000) //
+                .build();
+
+        // If the queue is full, the update is rendered by the thread sending it. That slows down
+        // the sender instead of dropping updates.
+        updateExecutor = new ThreadPoolExecutor(UPDATE_THREADS, UPDATE_THREADS, 0L, MILLISECONDS,
+                new LinkedBlockingQueue<>(UPDATE_QUEUE_SIZE), new BasicThreadFactory.Builder() //
+                        .namingPattern("diam-update-%d") //
+                        .daemon(true) //
+                        .build(),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void destroy()
+    {
+        updateExecutor.shutdownNow();
     }
 
     @EventListener
@@ -188,19 +253,123 @@ public class DiamWebsocketController
         activeViewports.invalidate(aVpd);
     }
 
+    /*
+     * There can be multiple annotation changes in a single request before the CAS is written. We
+     * only remember the range they affect and send the update once the CAS has been written.
+     */
+    @EventListener
+    public void onAnnotation(AnnotationEvent aEvent)
+    {
+        var requestCycle = RequestCycle.get();
+
+        if (requestCycle == null || aEvent.getDocument() == null) {
+            return;
+        }
+
+        var affectedRanges = requestCycle.getMetaData(AFFECTED_RANGES);
+        if (affectedRanges == null) {
+            affectedRanges = new HashMap<>();
+            requestCycle.setMetaData(AFFECTED_RANGES, affectedRanges);
+        }
+
+        affectedRanges.merge(
+                new AffectedDocumentKey(aEvent.getDocument().getId(), aEvent.getDocumentOwner()),
+                getAffectedRange(aEvent), DiamWebsocketController::union);
+    }
+
     @TransactionalEventListener(fallbackExecution = true)
     public void onAfterCasWritten(AfterCasWrittenEvent aEvent)
     {
-        sendUpdate(aEvent.getDocument());
+        var doc = aEvent.getDocument();
+
+        var range = Range.UNDEFINED;
+        var requestCycle = RequestCycle.get();
+        if (requestCycle != null && requestCycle.getMetaData(AFFECTED_RANGES) != null) {
+            range = requestCycle.getMetaData(AFFECTED_RANGES).remove(
+                    new AffectedDocumentKey(doc.getDocument().getId(), doc.getUser()));
+        }
+
+        // If we do not know which annotations have been changed, e.g. because the CAS was not
+        // changed through the annotation editor, then the entire document needs to be updated
+        if (range == null || Range.UNDEFINED.equals(range)) {
+            sendUpdate(doc);
+        }
+        else {
+            sendUpdate(doc, range.getBegin(), range.getEnd());
+        }
+    }
+
+    /**
+     * @return the range which needs to be rendered again to reflect the change or
+     *         {@link Range#UNDEFINED} if the change may affect the entire document.
+     */
+    private static Range getAffectedRange(AnnotationEvent aEvent)
+    {
+        // Chains connect annotations across the entire document. Other events such as bulk
+        // changes or changes to document metadata do not affect a particular range.
+        if (aEvent.getLayer() == null || CHAIN_TYPE.equals(aEvent.getLayer().getType())
+                || !(aEvent instanceof SpanEvent || aEvent instanceof RelationEvent
+                        || aEvent instanceof FeatureValueUpdatedEvent)) {
+            return Range.UNDEFINED;
+        }
+
+        // Zero-width annotations are not considered to be contained in a range they only touch,
+        // so they would not be replaced by a rendering of their own range
+        var range = aEvent.getAffectedRange();
+        if (range.getBegin() < 0 || range.getBegin() >= range.getEnd()) {
+            return Range.UNDEFINED;
+        }
+
+        return range;
+    }
+
+    private static Range union(Range aRange1, Range aRange2)
+    {
+        if (Range.UNDEFINED.equals(aRange1) || Range.UNDEFINED.equals(aRange2)) {
+            return Range.UNDEFINED;
+        }
+
+        return new Range(Math.min(aRange1.getBegin(), aRange2.getBegin()),
+                Math.max(aRange1.getEnd(), aRange2.getEnd()));
     }
 
     @EventListener
     public void onTransientAnnotationStateChanged(TransientAnnotationStateChangedEvent aEvent)
     {
         var doc = aEvent.getDocument();
+
+        // The transient annotations are not part of the CAS, so the CAS timestamp does not change.
+        // Predictions belong to the session owner, so renderings of other data owners' documents
+        // may be affected as well.
+        renderCache.asMap().keySet().removeIf(key -> key.documentId() == doc.getId()
+                && (key.dataOwner().equals(aEvent.getUser())
+                        || aEvent.getUser().equals(key.sessionOwner())));
+
         sendUpdate(doc.getProject().getId(), doc.getId(), aEvent.getUser(), 0, MAX_VALUE);
     }
 
+    /*
+     * Renderings depend on the layer configuration (e.g. label templates, coloring rules) and on
+     * the tagsets, none of which changes the CAS timestamp.
+     */
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        evictRenderings(aEvent.getProject());
+    }
+
+    @EventListener
+    public void onTagEvent(TagEvent aEvent)
+    {
+        evictRenderings(aEvent.getTag().getTagSet().getProject());
+    }
+
+    private void evictRenderings(Project aProject)
+    {
+        renderCache.asMap().keySet()
+                .removeIf(key -> Objects.equals(key.projectId(), aProject.getId()));
+    }
+
     @SubscribeMapping(DOCUMENT_VIEWPORT_TOPIC_TEMPLATE)
     public JsonNode onSubscribeToAnnotationDocument(SimpMessageHeaderAccessor aHeaderAccessor,
             Principal aPrincipal, //
@@ -228,8 +397,8 @@ public class DiamWebsocketController
             vps.addSubscription(aHeaderAccessor.getSessionId(),
                     aHeaderAccessor.getSubscriptionId());
 
-            var json = render(project, aDocumentId, aDataOwner, aViewportBegin, aViewportEnd,
-                    aFormat);
+            var json = render(project, userRepository.getCurrentUser(), aDocumentId, aDataOwner,
+                    aViewportBegin, aViewportEnd, aFormat);
             vps.setJson(json);
             return json;
         }
@@ -270,31 +439,55 @@ public class DiamWebsocketController
     // }
     // }
 
-    private JsonNode render(Project aProject, long aDocumentId, String aDataOwner,
+    /**
+     * Renders the given viewport. Renderings are cached per CAS version and session owner, since
+     * render steps such as the curation sidebar render differently depending on the session owner.
+     * The visible layers and coloring preferences of the session owner are part of the cache key,
+     * so saving different preferences does not return stale renderings.
+     */
+    JsonNode render(Project aProject, User aSessionOwner, long aDocumentId, String aDataOwner,
             int aViewportBegin, int aViewportEnd, String aFormat)
         throws IOException
     {
         var doc = documentService.getSourceDocument(aProject.getId(), aDocumentId);
-        var sessionOwner = userRepository.getCurrentUsername();
-        var dataOwner = userRepository.getUserOrCurationUser(aDataOwner);
 
-        var cas = documentService.readAnnotationCas(doc, aDataOwner);
+        var prefs = loadPreferences(aProject, aSessionOwner);
+        var layers = listVisibleLayers(aProject, prefs);
+
+        // Obtain the timestamp before reading the CAS. If the CAS changes in between, the newer
+        // rendering is stored under the older timestamp which is harmless.
+        var renderKey = documentService.getAnnotationCasTimestamp(doc, aDataOwner) //
+                .map(timestamp -> new RenderKey(aProject.getId(), aDocumentId, aDataOwner,
+                        aSessionOwner != null ? aSessionOwner.getUsername() : null, timestamp,
+                        aViewportBegin, aViewportEnd, aFormat,
+                        layers.stream().map(AnnotationLayer::getId).toList(),
+                        new HashMap<>(prefs.getColorPerLayer()),
+                        prefs.getReadonlyLayerColoringBehaviour())) //
+                .orElse(null);
+
+        if (renderKey != null) {
+            var cached = renderCache.getIfPresent(renderKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        var prefs = userPreferencesService.loadPreferences(doc.getProject(), sessionOwner,
-                Mode.ANNOTATION);
+        var json = render(aSessionOwner, doc, aDataOwner, layers, aViewportBegin, aViewportEnd,
+                aFormat);
 
-        var layers = schemaService.listSupportedLayers(aProject).stream()
-                .filter(AnnotationLayer::isEnabled) //
-                .filter(l -> !prefs.getHiddenAnnotationLayerIds().contains(l.getId())) //
-                .toList();
+        if (renderKey != null) {
+            renderCache.put(renderKey, json);
+        }
 
-        var request = RenderRequest.builder() //
-                .withSessionOwner(userRepository.getCurrentUser()) //
-                .withDocument(doc, dataOwner) //
-                .withWindow(aViewportBegin, aViewportEnd) //
-                .withCas(cas) //
-                .withVisibleLayers(layers) //
-                .build();
+        return json;
+    }
+
+    private JsonNode render(User aSessionOwner, SourceDocument aDocument, String aDataOwner,
+            List<AnnotationLayer> aLayers, int aViewportBegin, int aViewportEnd, String aFormat)
+        throws IOException
+    {
+        var request = createRenderRequest(aSessionOwner, aDocument, aDataOwner, aLayers,
+                aViewportBegin, aViewportEnd);
 
         var vdoc = renderingPipeline.render(request);
 
@@ -308,6 +501,69 @@ public class DiamWebsocketController
         return JSONUtil.getObjectMapper().valueToTree(serializer.render(vdoc, request));
     }
 
+    /**
+     * Renders only the given range of the viewport and creates patch operations which update the
+     * previous rendering of the viewport accordingly.
+     * 
+     * @return the patch operations or an empty result if the range cannot be rendered on its own,
+     *         e.g. because a render step or the format do not support it.
+     */
+    private Optional<JsonNode> renderPatch(Project aProject, User aSessionOwner,
+            ViewportDefinition aVpd, JsonNode aPrevious, int aRangeBegin, int aRangeEnd)
+        throws IOException
+    {
+        if (FORMAT_LEGACY.equals(aVpd.getFormat())) {
+            return Optional.empty();
+        }
+
+        var serializer = vDocumentSerializerExtensionPoint.getExtension(aVpd.getFormat());
+        if (serializer.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var doc = documentService.getSourceDocument(aProject.getId(), aVpd.getDocumentId());
+        var layers = listVisibleLayers(aProject, loadPreferences(aProject, aSessionOwner));
+        var request = createRenderRequest(aSessionOwner, doc, aVpd.getUser(), layers,
+                aVpd.getBegin(), aVpd.getEnd());
+
+        return renderingPipeline.renderRange(request, aRangeBegin, aRangeEnd) //
+                .flatMap(vdoc -> serializer.get().renderPatch(aPrevious, vdoc, request,
+                        aRangeBegin, aRangeEnd));
+    }
+
+    private AnnotationPreference loadPreferences(Project aProject, User aSessionOwner)
+        throws IOException
+    {
+        return userPreferencesService.loadPreferences(aProject,
+                aSessionOwner != null ? aSessionOwner.getUsername() : null, Mode.ANNOTATION);
+    }
+
+    private List<AnnotationLayer> listVisibleLayers(Project aProject, AnnotationPreference aPrefs)
+    {
+        return schemaService.listSupportedLayers(aProject).stream()
+                .filter(AnnotationLayer::isEnabled) //
+                .filter(l -> !aPrefs.getHiddenAnnotationLayerIds().contains(l.getId())) //
+                .toList();
+    }
+
+    private RenderRequest createRenderRequest(User aSessionOwner, SourceDocument aDocument,
+            String aDataOwner, List<AnnotationLayer> aLayers, int aViewportBegin,
+            int aViewportEnd)
+        throws IOException
+    {
+        var dataOwner = userRepository.getUserOrCurationUser(aDataOwner);
+
+        var cas = documentService.readAnnotationCas(aDocument, aDataOwner);
+
+        return RenderRequest.builder() //
+                .withSessionOwner(aSessionOwner) //
+                .withDocument(aDocument, dataOwner) //
+                .withWindow(aViewportBegin, aViewportEnd) //
+                .withCas(cas) //
+                .withVisibleLayers(aLayers) //
+                .build();
+    }
+
     private ViewportState initState(ViewportDefinition aVpd)
     {
         return new ViewportState(aVpd);
@@ -328,23 +584,48 @@ public class DiamWebsocketController
     private void sendUpdate(long aProjectId, long aDocumentId, String aUser, int aUpdateBegin,
             int aUpdateEnd)
     {
+        // The security context is not available on the update threads
+        var sessionOwner = userRepository.getCurrentUser();
+
         activeViewports.asMap().entrySet().stream() //
                 .filter(e -> e.getKey().matches(aDocumentId, aUser, aUpdateBegin, aUpdateEnd)) //
-                .forEach(e -> sendUpdate(e.getKey(), e.getValue(), aProjectId, aDocumentId, aUser,
-                        aUpdateBegin, aUpdateEnd));
+                .forEach(e -> e.getValue().scheduleUpdate(
+                        () -> sendUpdate(e.getKey(), e.getValue(), sessionOwner, aUpdateBegin,
+                                aUpdateEnd),
+                        updateExecutor));
     }
 
-    private void sendUpdate(ViewportDefinition vpd, ViewportState vps, long aProjectId,
-            long aDocumentId, String aUser, int aUpdateBegin, int aUpdateEnd)
+    private void sendUpdate(ViewportDefinition vpd, ViewportState vps, User aSessionOwner,
+            int aUpdateBegin, int aUpdateEnd)
     {
         // MDC.put(KEY_REPOSITORY_PATH, repositoryProperties.getPath().toString());
 
         try (var session = CasStorageSession.openNested()) {
             var project = projectService.getProject(vpd.getProjectId());
-            var newJson = render(project, vpd.getDocumentId(), vpd.getUser(), vpd.getBegin(),
-                    vpd.getEnd(), vpd.getFormat());
 
-            var diff = JsonDiff.asJson(vps.getJson(), newJson);
+            // If only part of the viewport is affected, try rendering only that part and patching
+            // the previous rendering instead of rendering and diffing the entire viewport
+            var rangeBegin = Math.max(aUpdateBegin, vpd.getBegin());
+            var rangeEnd = Math.min(aUpdateEnd, vpd.getEnd());
+            var partialUpdate = rangeBegin > vpd.getBegin() || rangeEnd < vpd.getEnd();
+            Optional<JsonNode> patch = Optional.empty();
+            if (partialUpdate && vps.getJson() != null) {
+                patch = renderPatch(project, aSessionOwner, vpd, vps.getJson(), rangeBegin,
+                        rangeEnd);
+            }
+
+            JsonNode diff;
+            JsonNode newJson;
+            if (patch.isPresent()) {
+                diff = patch.get();
+                // Rendered JSON may be shared through the render cache - do not patch in place
+                newJson = JsonPatch.apply(diff, vps.getJson());
+            }
+            else {
+                newJson = render(project, aSessionOwner, vpd.getDocumentId(), vpd.getUser(),
+                        vpd.getBegin(), vpd.getEnd(), vpd.getFormat());
+                diff = JsonDiff.asJson(vps.getJson(), newJson);
+            }
 
             vps.setJson(newJson);
 
@@ -381,6 +662,15 @@ public class DiamWebsocketController
         return project;
     }
 
+    private static record AffectedDocumentKey(long documentId, String user)
+    {}
+
+    private static record RenderKey(Long projectId, long documentId, String dataOwner,
+            String sessionOwner, long casTimestamp, int begin, int end, String format,
+            List<Long> visibleLayerIds, Map<Long, ColoringStrategyType> colorPerLayer,
+            ReadonlyColoringStrategy readonlyLayerColoring)
+    {}
+
     private void assertPermission(String aMessage, boolean aHasAccess) throws AccessDeniedException
     {
         if (!aHasAccess) {
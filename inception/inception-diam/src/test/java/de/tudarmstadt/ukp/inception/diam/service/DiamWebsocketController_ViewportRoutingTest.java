@@ -19,14 +19,18 @@ package de.tudarmstadt.ukp.inception.diam.service;
 
 import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.ANNOTATOR;
 import static de.tudarmstadt.ukp.inception.diam.service.DiamWebsocketController.FORMAT_LEGACY;
+import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.SPAN_TYPE;
 import static de.tudarmstadt.ukp.inception.websocket.config.WebsocketConfig.WS_ENDPOINT;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.synchronizedList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.io.IOUtils.toInputStream;
 import static org.apache.tomcat.websocket.Constants.WS_AUTHENTICATION_PASSWORD;
 import static org.apache.tomcat.websocket.Constants.WS_AUTHENTICATION_USER_NAME;
+import static org.apache.uima.fit.factory.CasFactory.createText;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.springframework.security.config.http.SessionCreationPolicy.STATELESS;
 
 import java.io.File;
@@ -36,11 +40,21 @@ import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
 
 import javax.persistence.EntityManager;
 
+import org.apache.uima.cas.CAS;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.request.IExceptionMapper;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.cycle.RequestCycleContext;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -88,24 +102,28 @@ import de.tudarmstadt.ukp.clarin.webanno.security.config.SecurityAutoConfigurati
 import de.tudarmstadt.ukp.clarin.webanno.security.model.Role;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.clarin.webanno.text.config.TextFormatsAutoConfiguration;
+import de.tudarmstadt.ukp.inception.annotation.layer.span.SpanCreatedEvent;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.diam.messages.MViewportInit;
 import de.tudarmstadt.ukp.inception.diam.messages.MViewportUpdate;
 import de.tudarmstadt.ukp.inception.diam.model.websocket.ViewportDefinition;
+import de.tudarmstadt.ukp.inception.diam.model.websocket.ViewportState;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryAutoConfiguration;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.recommendation.api.event.TransientAnnotationStateChangedEvent;
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VID;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VRange;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VSpan;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
-import de.tudarmstadt.ukp.inception.support.findbugs.SuppressFBWarnings;
 import de.tudarmstadt.ukp.inception.support.logging.Logging;
 import de.tudarmstadt.ukp.inception.support.spring.ApplicationContextProvider;
 import de.tudarmstadt.ukp.inception.websocket.config.WebsocketAutoConfiguration;
@@ -143,7 +161,12 @@ public class DiamWebsocketController_ViewportRoutingTest
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private static final String USER = "user";
+    private static final String OTHER_USER = "other";
     private static final String PASS = "pass";
+    private static final String TEXT = "This is a test. ".repeat(10).trim();
+    private static final String FULL_UPDATE = "0-" + Integer.MAX_VALUE;
+
+    private static final Queue<String> RENDERED_WINDOWS = new ConcurrentLinkedQueue<>();
 
     private WebSocketStompClient stompClient;
     private @LocalServerPort int port;
@@ -163,6 +186,9 @@ public class DiamWebsocketController_ViewportRoutingTest
     private static Project testProject;
     private static SourceDocument testDocument;
     private static AnnotationDocument testAnnotationDocument;
+    private static AnnotationDocument otherAnnotationDocument;
+
+    private final List<StompSession> sessions = new ArrayList<>();
 
     @BeforeEach
     public void setup() throws Exception
@@ -193,9 +219,13 @@ public class DiamWebsocketController_ViewportRoutingTest
         user.setPassword(PASS);
         userService.create(user);
 
+        var otherUser = new User(OTHER_USER, Role.ROLE_USER);
+        userService.create(otherUser);
+
         testProject = new Project("test-project");
         projectService.createProject(testProject);
         projectService.assignRole(testProject, user, ANNOTATOR);
+        projectService.assignRole(testProject, otherUser, ANNOTATOR);
 
         testDocument = new SourceDocument("test", testProject, "text");
         documentService.createSourceDocument(testDocument);
@@ -203,71 +233,252 @@ public class DiamWebsocketController_ViewportRoutingTest
         testAnnotationDocument = new AnnotationDocument(USER, testDocument);
         documentService.createAnnotationDocument(testAnnotationDocument);
 
+        otherAnnotationDocument = new AnnotationDocument(OTHER_USER, testDocument);
+        documentService.createAnnotationDocument(otherAnnotationDocument);
+
         try (var session = CasStorageSession.open()) {
-            documentService.uploadSourceDocument(
-                    toInputStream("This is a test. ".repeat(10).trim(), UTF_8),
+            documentService.uploadSourceDocument(toInputStream(TEXT, UTF_8),
                     testAnnotationDocument.getDocument());
+
+            // Renderings are only cached for CASes which have been written
+            for (var annDoc : List.of(testAnnotationDocument, otherAnnotationDocument)) {
+                documentService.writeAnnotationCasSilently(
+                        documentService.readAnnotationCas(annDoc), annDoc, false);
+            }
         }
     }
 
     @AfterEach
     public void tearDown()
     {
+        ThreadContext.detach();
+
+        for (var session : sessions) {
+            try {
+                session.disconnect();
+            }
+            catch (Exception e) {
+                // Ignore exceptions during disconnect
+            }
+        }
+
         entityManager.clear();
     }
 
     @WithMockUser(username = "user", roles = { "USER" })
-    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED")
     @Test
     public void thatViewportBasedMessageRoutingWorks() throws Exception
     {
-        var subscriptionDone = new CountDownLatch(2);
-        var initDone = new CountDownLatch(2);
+        var handlers = connect( //
+                new ViewportDefinition(testAnnotationDocument, 10, 20, FORMAT_LEGACY), //
+                new ViewportDefinition(testAnnotationDocument, 30, 40, FORMAT_LEGACY));
 
-        var vpd1 = new ViewportDefinition(testAnnotationDocument, 10, 20, FORMAT_LEGACY);
-        var vpd2 = new ViewportDefinition(testAnnotationDocument, 30, 40, FORMAT_LEGACY);
+        sut.sendUpdate(testAnnotationDocument, 12, 15);
+        sut.sendUpdate(testAnnotationDocument, 31, 33);
+        sut.sendUpdate(testAnnotationDocument, 15, 35);
 
-        var sessionHandler1 = new SessionHandler(subscriptionDone, initDone, vpd1);
-        var sessionHandler2 = new SessionHandler(subscriptionDone, initDone, vpd2);
+        Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
 
-        // try {
-        var session1 = stompClient.connect(websocketUrl, sessionHandler1).get(1000, SECONDS);
-        var session2 = stompClient.connect(websocketUrl, sessionHandler2).get(1000, SECONDS);
-        // }
-        // catch (Exception e) {
-        // Thread.sleep(Duration.of(3, ChronoUnit.HOURS).toMillis());
-        // }
+        assertThat(handlers.get(0).getRecieved()).containsExactly("12-15", "15-35");
+        assertThat(handlers.get(1).getRecieved()).containsExactly("31-33", "15-35");
+    }
 
-        try {
-            subscriptionDone.await(5, TimeUnit.SECONDS);
-            assertThat(subscriptionDone.getCount()).isEqualTo(0);
+    @WithMockUser(username = "user", roles = { "USER" })
+    @Test
+    public void thatAffectedRangesOfRequestAreSentAsSingleUpdate() throws Exception
+    {
+        var handlers = connect( //
+                new ViewportDefinition(testAnnotationDocument, 10, 20, FORMAT_LEGACY), //
+                new ViewportDefinition(testAnnotationDocument, 30, 40, FORMAT_LEGACY));
 
-            initDone.await(5, TimeUnit.SECONDS);
-            assertThat(initDone.getCount()).isEqualTo(0);
+        var cas = createText(TEXT);
+        attachRequestCycle();
+        sut.onAnnotation(spanCreated(cas, USER, 12, 15));
+        sut.onAnnotation(spanCreated(cas, USER, 14, 18));
+        sut.onAfterCasWritten(new AfterCasWrittenEvent(this, testAnnotationDocument, cas));
 
-            sut.sendUpdate(testAnnotationDocument, 12, 15);
-            sut.sendUpdate(testAnnotationDocument, 31, 33);
-            sut.sendUpdate(testAnnotationDocument, 15, 35);
+        Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
 
-            Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
+        assertThat(handlers.get(0).getRecieved()).containsExactly("12-18");
+        assertThat(handlers.get(1).getRecieved()).isEmpty();
+    }
 
-            assertThat(sessionHandler1.getRecieved()).containsExactly("12-15", "15-35");
-            assertThat(sessionHandler2.getRecieved()).containsExactly("31-33", "15-35");
+    @WithMockUser(username = "user", roles = { "USER" })
+    @Test
+    public void thatUndefinedAffectedRangeTriggersFullUpdate() throws Exception
+    {
+        var handlers = connect( //
+                new ViewportDefinition(testAnnotationDocument, 10, 20, FORMAT_LEGACY), //
+                new ViewportDefinition(testAnnotationDocument, 30, 40, FORMAT_LEGACY));
+
+        var cas = createText(TEXT);
+        attachRequestCycle();
+        sut.onAnnotation(spanCreated(cas, USER, 12, 15));
+        // Zero-width annotations do not have an affected range
+        sut.onAnnotation(spanCreated(cas, USER, 35, 35));
+        sut.onAfterCasWritten(new AfterCasWrittenEvent(this, testAnnotationDocument, cas));
+
+        Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
+
+        assertThat(handlers.get(0).getRecieved()).containsExactly(FULL_UPDATE);
+        assertThat(handlers.get(1).getRecieved()).containsExactly(FULL_UPDATE);
+    }
+
+    @WithMockUser(username = "user", roles = { "USER" })
+    @Test
+    public void thatAffectedRangesAreLookedUpPerDocumentOwner() throws Exception
+    {
+        var handlers = connect( //
+                new ViewportDefinition(testAnnotationDocument, 10, 20, FORMAT_LEGACY), //
+                new ViewportDefinition(testAnnotationDocument, 30, 40, FORMAT_LEGACY));
+
+        var cas = createText(TEXT);
+        attachRequestCycle();
+        sut.onAnnotation(spanCreated(cas, OTHER_USER, 32, 34));
+        sut.onAnnotation(spanCreated(cas, USER, 12, 15));
+        sut.onAfterCasWritten(new AfterCasWrittenEvent(this, testAnnotationDocument, cas));
+        // The range has been consumed by the previous write, so the change is unknown now
+        sut.onAfterCasWritten(new AfterCasWrittenEvent(this, testAnnotationDocument, cas));
+
+        Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
+
+        assertThat(handlers.get(0).getRecieved()).containsExactly("12-15", FULL_UPDATE);
+        assertThat(handlers.get(1).getRecieved()).containsExactly(FULL_UPDATE);
+    }
+
+    @WithMockUser(username = "user", roles = { "USER" })
+    @Test
+    public void thatRenderingsAreCachedUntilEvicted() throws Exception
+    {
+        try (var session = CasStorageSession.open()) {
+            var renderCount = renderCount();
+
+            render(USER);
+            render(USER);
+            assertThat(renderCount() - renderCount).as("cache hit").isEqualTo(1);
+
+            sut.onLayerConfigurationChanged(new LayerConfigurationChangedEvent(this, testProject));
+            render(USER);
+            assertThat(renderCount() - renderCount).as("layers changed").isEqualTo(2);
+
+            // Predictions of the session owner are rendered into the documents of other users
+            render(OTHER_USER);
+            assertThat(renderCount() - renderCount).as("other data owner").isEqualTo(3);
+            sut.onTransientAnnotationStateChanged(transientStateChanged(USER));
+            render(USER);
+            render(OTHER_USER);
+            assertThat(renderCount() - renderCount).as("predictions changed").isEqualTo(5);
         }
-        finally {
-            try {
-                session1.disconnect();
-            }
-            catch (Exception e) {
-                // Ignore exceptions during disconnect
+    }
+
+    @Test
+    public void thatViewportUpdatesRunInOrder() throws Exception
+    {
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var vps = new ViewportState(
+                    new ViewportDefinition(testAnnotationDocument, 0, 10, FORMAT_LEGACY));
+            var order = synchronizedList(new ArrayList<Integer>());
+            var done = new CountDownLatch(10);
+            for (var i = 0; i < 10; i++) {
+                var n = i;
+                vps.scheduleUpdate(() -> {
+                    try {
+                        // Earlier updates take longer, so they would finish last if run in
+                        // parallel
+                        Thread.sleep((10 - n) * 10l);
+                        order.add(n);
+                        if (n == 3) {
+                            throw new IllegalStateException("Failing update");
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    finally {
+                        done.countDown();
+                    }
+                }, executor);
             }
-            try {
-                session2.disconnect();
+
+            assertThat(done.await(5, SECONDS)).isTrue();
+            assertThat(order).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<SessionHandler> connect(ViewportDefinition... aVpds) throws Exception
+    {
+        var subscriptionDone = new CountDownLatch(aVpds.length);
+        var initDone = new CountDownLatch(aVpds.length);
+
+        var handlers = new ArrayList<SessionHandler>();
+        for (var vpd : aVpds) {
+            var handler = new SessionHandler(subscriptionDone, initDone, vpd);
+            sessions.add(stompClient.connect(websocketUrl, handler).get(1000, SECONDS));
+            handlers.add(handler);
+        }
+
+        subscriptionDone.await(5, SECONDS);
+        assertThat(subscriptionDone.getCount()).isEqualTo(0);
+
+        initDone.await(5, SECONDS);
+        assertThat(initDone.getCount()).isEqualTo(0);
+
+        return handlers;
+    }
+
+    private void render(String aDataOwner) throws Exception
+    {
+        sut.render(testProject, user, testDocument.getId(), aDataOwner, 0, 10, FORMAT_LEGACY);
+    }
+
+    /**
+     * @return how often the window used by {@link #render(String)} has been rendered. Updates of
+     *         viewports opened by other tests may still be running, so renderings of other windows
+     *         are not counted.
+     */
+    private static long renderCount()
+    {
+        return RENDERED_WINDOWS.stream().filter("0-10"::equals).count();
+    }
+
+    private static void attachRequestCycle()
+    {
+        ThreadContext.setRequestCycle(new RequestCycle(new RequestCycleContext(
+                mock(Request.class), mock(Response.class), mock(IRequestMapper.class),
+                mock(IExceptionMapper.class))));
+    }
+
+    private SpanCreatedEvent spanCreated(CAS aCas, String aDocumentOwner, int aBegin, int aEnd)
+    {
+        var layer = AnnotationLayer.builder() //
+                .withId(1l) //
+                .withName(CAS.TYPE_NAME_ANNOTATION) //
+                .withType(SPAN_TYPE) //
+                .build();
+        var annotation = aCas.createAnnotation(aCas.getAnnotationType(), aBegin, aEnd);
+        return new SpanCreatedEvent(this, testDocument, aDocumentOwner, layer, annotation);
+    }
+
+    private static TransientAnnotationStateChangedEvent transientStateChanged(String aUser)
+    {
+        return new TransientAnnotationStateChangedEvent()
+        {
+            @Override
+            public SourceDocument getDocument()
+            {
+                return testDocument;
             }
-            catch (Exception e) {
-                // Ignore exceptions during disconnect
+
+            @Override
+            public String getUser()
+            {
+                return aUser;
             }
-        }
+        };
     }
 
     private static class SessionHandler
@@ -360,6 +571,8 @@ public class DiamWebsocketController_ViewportRoutingTest
                 @Override
                 public void render(VDocument aResponse, RenderRequest aRequest)
                 {
+                    RENDERED_WINDOWS.add(aRequest.getWindowBeginOffset() + "-"
+                            + aRequest.getWindowEndOffset());
                     var layer = new AnnotationLayer();
                     layer.setId(1l);
                     aResponse.add(
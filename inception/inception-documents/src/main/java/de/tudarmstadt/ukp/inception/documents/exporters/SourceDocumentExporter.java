@@ -41,6 +41,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectArchive;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportException;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
@@ -150,11 +151,19 @@ public class SourceDocumentExporter
     public void importData(ProjectImportRequest aRequest, Project aProject,
             ExportedProject aExProject, ZipFile aZip)
         throws Exception
+    {
+        importData(aRequest, aProject, aExProject, new ProjectArchive(aZip));
+    }
+
+    @Override
+    public void importData(ProjectImportRequest aRequest, Project aProject,
+            ExportedProject aExProject, ProjectArchive aArchive)
+        throws Exception
     {
         var start = currentTimeMillis();
 
         importSourceDocuments(aExProject, aProject);
-        importSourceDocumentContents(aZip, aProject);
+        importSourceDocumentContents(aArchive, aProject);
 
         LOG.info("Imported [{}] source documents into aProject ({})",
                 aExProject.getSourceDocuments().size(), aProject,
@@ -192,14 +201,15 @@ public class SourceDocumentExporter
     /**
      * copy source document files from the exported source documents
      * 
-     * @param zip
-     *            the ZIP file.
+     * @param aArchive
+     *            the project archive.
      * @param aProject
      *            the project.
      * @throws IOException
      *             if an I/O error occurs.
      */
-    private void importSourceDocumentContents(ZipFile zip, Project aProject) throws IOException
+    private void importSourceDocumentContents(ProjectArchive aArchive, Project aProject)
+        throws IOException
     {
         // Query once for all the documents to avoid hitting the DB in the loop below
         var docs = documentService.listSourceDocuments(aProject).stream()
@@ -217,30 +227,22 @@ public class SourceDocumentExporter
         }
 
         int n = 0;
-        for (var entries = zip.entries(); entries.hasMoreElements();) {
-            var entry = entries.nextElement();
-
-            if (entry.isDirectory()) {
-                continue;
-            }
-
+        for (var entry : aArchive.getEntries(SOURCE_FOLDER)) {
             // Strip leading "/" that we had in ZIP files prior to 2.0.8 (bug #985)
             var entryName = ProjectExporter.normalizeEntryName(entry);
 
-            if (entryName.startsWith(ProjectService.SOURCE_FOLDER)) {
-                var fileName = FilenameUtils.getName(entryName);
-                if (fileName.trim().isEmpty()) {
-                    continue;
-                }
+            var fileName = FilenameUtils.getName(entryName);
+            if (fileName.trim().isEmpty()) {
+                continue;
+            }
 
-                var sourceDocument = docs.get(fileName);
-                documentStorageService.writeSourceDocumentFile(sourceDocument,
-                        zip.getInputStream(entry));
+            var sourceDocument = docs.get(fileName);
+            documentStorageService.writeSourceDocumentFile(sourceDocument,
+                    aArchive.getInputStream(entry));
 
-                n++;
-                LOG.info("Imported content for source document {}/{}: {} in {}", n, docs.size(),
-                        sourceDocument, aProject);
-            }
+            n++;
+            LOG.info("Imported content for source document {}/{}: {} in {}", n, docs.size(),
+                    sourceDocument, aProject);
         }
     }
 }
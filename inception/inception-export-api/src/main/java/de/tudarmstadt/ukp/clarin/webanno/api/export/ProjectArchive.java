@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.api.export;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Index over the entries of a project archive. The central directory of the archive is scanned
+ * only once when the index is created. Importers can then look up the entries they are interested
+ * in by name or by folder without scanning the whole archive again.
+ * <p>
+ * Entry names are normalized using {@link ProjectExporter#normalizeEntryName(ZipEntry)}. Directory
+ * entries are not indexed.
+ * </p>
+ */
+public class ProjectArchive
+{
+    private final ZipFile zipFile;
+    private final NavigableMap<String, ZipEntry> entries;
+
+    public ProjectArchive(ZipFile aZipFile)
+    {
+        zipFile = aZipFile;
+        entries = new TreeMap<>();
+
+        for (var zipEnumerate = aZipFile.entries(); zipEnumerate.hasMoreElements();) {
+            var entry = zipEnumerate.nextElement();
+            if (!entry.isDirectory()) {
+                entries.putIfAbsent(ProjectExporter.normalizeEntryName(entry), entry);
+            }
+        }
+    }
+
+    public ZipFile getZipFile()
+    {
+        return zipFile;
+    }
+
+    /**
+     * @return all file entries in the archive ordered by their normalized name.
+     */
+    public Collection<ZipEntry> getEntries()
+    {
+        return entries.values();
+    }
+
+    /**
+     * @param aName
+     *            the normalized name of the entry.
+     * @return the entry with the given name.
+     */
+    public Optional<ZipEntry> getEntry(String aName)
+    {
+        return Optional.ofNullable(entries.get(aName));
+    }
+
+    /**
+     * @param aFolder
+     *            the normalized name of a folder without trailing slash.
+     * @return all file entries within the given folder or its sub-folders ordered by their
+     *         normalized name.
+     */
+    public List<ZipEntry> getEntries(String aFolder)
+    {
+        var prefix = aFolder + "/";
+        var result = new ArrayList<ZipEntry>();
+        for (var e : entries.tailMap(prefix, true).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(e.getValue());
+        }
+        return result;
+    }
+
+    public InputStream getInputStream(ZipEntry aEntry) throws IOException
+    {
+        return zipFile.getInputStream(aEntry);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
@@ -43,10 +44,65 @@ public interface ProjectExporter
             ExportedProject aExProject, File aStage)
         throws ProjectExportException, IOException, InterruptedException;
 
+    /**
+     * Exports data either into the staging folder or directly into the project archive. Exporters
+     * which produce large amounts of data should override this method and write their data
+     * directly to the archive so it does not have to be staged on disk first. By default, the data
+     * is written to the staging folder.
+     * 
+     * @param aRequest
+     *            the export request.
+     * @param aMonitor
+     *            the export monitor.
+     * @param aExProject
+     *            the exported project.
+     * @param aStage
+     *            the staging folder which is added to the archive after all exporters ran.
+     * @param aZip
+     *            the project archive. Entries written here must not collide with files in the
+     *            staging folder. The exporter must not close the stream.
+     * @throws ProjectExportException
+     *             if the data cannot be exported.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * @throws InterruptedException
+     *             if the export is cancelled.
+     */
+    default void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, File aStage, ZipOutputStream aZip)
+        throws ProjectExportException, IOException, InterruptedException
+    {
+        exportData(aRequest, aMonitor, aExProject, aStage);
+    }
+
     void importData(ProjectImportRequest aRequest, Project aProject, ExportedProject aExProject,
             ZipFile aZip)
         throws Exception;
 
+    /**
+     * Imports data from the project archive. Importers which handle many entries should override
+     * this method and look up their entries in the archive index instead of scanning the whole
+     * archive. By default, the ZIP file underlying the archive is passed to
+     * {@link #importData(ProjectImportRequest, Project, ExportedProject, ZipFile)}.
+     * 
+     * @param aRequest
+     *            the import request.
+     * @param aProject
+     *            the project being imported.
+     * @param aExProject
+     *            the imported project.
+     * @param aArchive
+     *            the index of the project archive.
+     * @throws Exception
+     *             if the data cannot be imported.
+     */
+    default void importData(ProjectImportRequest aRequest, Project aProject,
+            ExportedProject aExProject, ProjectArchive aArchive)
+        throws Exception
+    {
+        importData(aRequest, aProject, aExProject, aArchive.getZipFile());
+    }
+
     static String normalizeEntryName(ZipEntry aEntry)
     {
         // Strip leading "/" that we had in ZIP files prior to 2.0.8 (bug #985)
@@ -126,6 +126,12 @@ public class OpenNlpNerRecommender
         return TrainingCapability.TRAINING_REQUIRED;
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public Range predict(PredictionContext aContext, CAS aCas, int aBegin, int aEnd)
         throws RecommendationException
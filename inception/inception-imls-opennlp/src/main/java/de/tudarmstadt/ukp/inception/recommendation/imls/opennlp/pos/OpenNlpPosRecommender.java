@@ -121,6 +121,12 @@ public class OpenNlpPosRecommender
         return TrainingCapability.TRAINING_REQUIRED;
     }
 
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
+    }
+
     @Override
     public Range predict(PredictionContext aContext, CAS aCas, int aBegin, int aEnd)
         throws RecommendationException
@@ -21,6 +21,7 @@ import static de.tudarmstadt.ukp.clarin.webanno.model.AnchoringMode.CHARACTERS;
 import static de.tudarmstadt.ukp.inception.recommendation.api.evaluation.EvaluationResult.toEvaluationResult;
 import static de.tudarmstadt.ukp.inception.support.uima.WebAnnoCasUtil.selectOverlapping;
 import static java.util.Arrays.asList;
+import static java.util.Comparator.comparing;
 import static java.util.Comparator.comparingInt;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.uima.cas.CAS.TYPE_NAME_STRING_ARRAY;
@@ -32,11 +33,14 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
@@ -60,9 +64,10 @@ import de.tudarmstadt.ukp.inception.recommendation.api.recommender.Recommendatio
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationException;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext.Key;
+import de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingDelta;
 import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.gazeteer.GazeteerService;
 import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.gazeteer.model.GazeteerEntry;
-import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.trie.Trie;
+import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.trie.AhoCorasickAutomaton;
 import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.trie.WhitespaceNormalizingSanitizer;
 import de.tudarmstadt.ukp.inception.rendering.model.Range;
 import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
@@ -73,7 +78,10 @@ public class StringMatchingRecommender
 {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    public static final Key<Trie<DictEntry>> KEY_MODEL = new Key<>("model");
+    public static final Key<AhoCorasickAutomaton<DictEntry>> KEY_MODEL = new Key<>("model");
+    private static final Key<AhoCorasickAutomaton<DictEntry>> KEY_PREVIOUS_MODEL = new Key<>(
+            "previousModel");
+    private static final Key<Boolean> KEY_PRETRAINED = new Key<>("pretrained");
 
     private static final String NO_LABEL = "O";
 
@@ -112,11 +120,12 @@ public class StringMatchingRecommender
                 .orElseThrow(() -> new IOException("No model trained yet."));
 
         var out = new OutputStreamWriter(aOutput);
-        var sortedKeys = dict.keys().stream().sorted().toList();
-        for (var key : sortedKeys) {
-            var value = dict.get(key);
+        var sortedEntries = dict.values().stream() //
+                .sorted(comparing((DictEntry e) -> e.key)) //
+                .toList();
+        for (var value : sortedEntries) {
             for (var i = 0; i < value.labels.length; i++) {
-                out.append(key);
+                out.append(value.key);
                 out.append("\t");
                 out.append(value.labels[i]);
                 out.append("\t");
@@ -129,33 +138,75 @@ public class StringMatchingRecommender
 
     public void pretrain(List<GazeteerEntry> aData, RecommenderContext aContext)
     {
-        var dict = aContext.get(KEY_MODEL).orElseGet(this::createTrie);
+        var dict = createDictionary(aContext);
 
+        pretrain(aData, aContext, dict);
+
+        aContext.put(KEY_MODEL, dict.build());
+    }
+
+    private void pretrain(List<GazeteerEntry> aData, RecommenderContext aContext,
+            AhoCorasickAutomaton.Builder<DictEntry> aDict)
+    {
         if (aData != null) {
             for (var entry : aData) {
-                learn(dict, entry.text, entry.label);
+                learn(aDict, entry.text, entry.label);
             }
 
             aContext.log(LogMessage.info(getRecommender().getName(),
                     "Loaded [%d] entries from gazeteer", aData.size()));
         }
+    }
 
-        aContext.put(KEY_MODEL, dict);
+    private AhoCorasickAutomaton.Builder<DictEntry> createDictionary()
+    {
+        return new AhoCorasickAutomaton.Builder<>(WhitespaceNormalizingSanitizer.factory());
     }
 
-    private <T> Trie<T> createTrie()
+    /**
+     * @return a dictionary builder containing the entries of the model in the given context. The
+     *         model is immutable, so it is rebuilt including the new entries.
+     */
+    private AhoCorasickAutomaton.Builder<DictEntry> createDictionary(RecommenderContext aContext)
     {
-        return new Trie<>(WhitespaceNormalizingSanitizer.factory());
+        var dict = createDictionary();
+        aContext.get(KEY_MODEL).ifPresent(model -> model.values() //
+                .forEach(entry -> dict.put(entry.key, entry.copy())));
+        return dict;
+    }
+
+    @Override
+    public RecommenderContext newContext(RecommenderContext aContext)
+    {
+        var context = new RecommenderContext();
+        // A model including gazeteer entries cannot be updated since the gazeteers may have changed
+        if (!aContext.get(KEY_PRETRAINED).orElse(false)) {
+            aContext.get(KEY_MODEL).ifPresent(model -> context.put(KEY_PREVIOUS_MODEL, model));
+        }
+        return context;
+    }
+
+    @Override
+    public boolean isIncrementalTrainingSupported()
+    {
+        return true;
     }
 
     @Override
     public void train(RecommenderContext aContext, List<CAS> aCasses) throws RecommendationException
     {
+        // Do not keep the previous model alive via the new context
+        aContext.put(KEY_PREVIOUS_MODEL, null);
+
+        var pretrained = aContext.get(KEY_MODEL).isPresent();
+        var dict = createDictionary(aContext);
+
         // Pre-load the gazeteers into the model
         if (gazeteerService != null) {
             for (var gaz : gazeteerService.listGazeteers(recommender)) {
                 try {
-                    pretrain(gazeteerService.readGazeteerFile(gaz), aContext);
+                    pretrain(gazeteerService.readGazeteerFile(gaz), aContext, dict);
+                    pretrained = true;
                 }
                 catch (IOException e) {
                     aContext.log(LogMessage.error(getRecommender().getName(),
@@ -170,34 +221,77 @@ public class StringMatchingRecommender
             }
         }
 
-        var dict = aContext.get(KEY_MODEL).orElseGet(this::createTrie);
-
         for (var cas : aCasses) {
-            var predictedType = getPredictedType(cas);
-            var predictedFeature = getPredictedFeature(cas);
-            var isMultiValue = TYPE_NAME_STRING_ARRAY.equals(predictedFeature.getRange().getName());
-
-            for (var ann : select(cas, predictedType)) {
-                if (isMultiValue) {
-                    var labels = FSUtil.getFeature(ann, predictedFeature, String[].class);
-                    if (labels != null) {
-                        for (var label : labels) {
-                            learn(dict, ann.getCoveredText(), label);
-                        }
-                    }
-                }
-                else {
-                    learn(dict, ann.getCoveredText(),
-                            ann.getFeatureValueAsString(predictedFeature));
-                }
-            }
+            forEachLabel(cas, (text, label) -> learn(dict, text, label));
         }
 
         aContext.log(LogMessage.info(getRecommender().getName(),
                 "Learned dictionary model with %d entries on %d documents", dict.size(),
                 aCasses.size()));
 
-        aContext.put(KEY_MODEL, dict);
+        aContext.put(KEY_PRETRAINED, pretrained);
+        aContext.put(KEY_MODEL, dict.build());
+    }
+
+    @Override
+    public void train(RecommenderContext aContext, List<CAS> aCasses, TrainingDelta aDelta)
+        throws RecommendationException
+    {
+        var previousModel = aContext.get(KEY_PREVIOUS_MODEL);
+        if (previousModel.isEmpty() || (gazeteerService != null
+                && !gazeteerService.listGazeteers(recommender).isEmpty())) {
+            train(aContext, aCasses);
+            return;
+        }
+
+        aContext.put(KEY_PREVIOUS_MODEL, null);
+
+        // The model is immutable, so the entries are copied before updating their counts
+        var dict = createDictionary();
+        previousModel.get().values().forEach(entry -> dict.put(entry.key, entry.copy()));
+
+        for (var cas : aDelta.removedCasses()) {
+            forEachLabel(cas, (text, label) -> unlearn(dict, text, label));
+        }
+
+        for (var cas : aDelta.addedCasses()) {
+            forEachLabel(cas, (text, label) -> learn(dict, text, label));
+        }
+
+        aContext.log(LogMessage.info(getRecommender().getName(),
+                "Updated dictionary model to %d entries on %d added and %d removed documents",
+                dict.size(), aDelta.addedCasses().size(), aDelta.removedCasses().size()));
+
+        aContext.put(KEY_PRETRAINED, false);
+        aContext.put(KEY_MODEL, dict.build());
+    }
+
+    private void forEachLabel(CAS aCas, BiConsumer<String, String> aConsumer)
+    {
+        var predictedType = getPredictedType(aCas);
+        var predictedFeature = getPredictedFeature(aCas);
+        var isMultiValue = TYPE_NAME_STRING_ARRAY.equals(predictedFeature.getRange().getName());
+
+        for (var ann : select(aCas, predictedType)) {
+            if (isMultiValue) {
+                var labels = FSUtil.getFeature(ann, predictedFeature, String[].class);
+                if (labels != null) {
+                    for (var label : labels) {
+                        aConsumer.accept(ann.getCoveredText(), label);
+                    }
+                }
+            }
+            else {
+                aConsumer.accept(ann.getCoveredText(),
+                        ann.getFeatureValueAsString(predictedFeature));
+            }
+        }
+    }
+
+    @Override
+    public boolean isThreadSafe()
+    {
+        return true;
     }
 
     @Override
@@ -234,7 +328,8 @@ public class StringMatchingRecommender
         return Range.rangeCoveringAnnotations(units);
     }
 
-    private List<Sample> predict(CAS aCas, List<AnnotationFS> units, Trie<DictEntry> aDict)
+    private List<Sample> predict(CAS aCas, List<AnnotationFS> units,
+            AhoCorasickAutomaton<DictEntry> aDict)
     {
         var requireEndAtTokenBoundary = !CHARACTERS
                 .equals(getRecommender().getLayer().getAnchoringMode());
@@ -244,36 +339,35 @@ public class StringMatchingRecommender
         var tokenType = getType(aCas, Token.class);
 
         var data = new ArrayList<Sample>();
+        if (units.isEmpty()) {
+            return data;
+        }
+
         var text = aCas.getDocumentText();
         if (traits != null && traits.isIgnoreCase()) {
             text = text.toLowerCase(Locale.ROOT);
         }
 
+        // Matches may end in a later sentence unless the layer requires a single sentence
+        var boundariesBegin = units.get(0).getBegin();
+        var boundariesEnd = requireSingleSentence ? units.get(units.size() - 1).getEnd()
+                : text.length();
+        var boundaries = new TokenBoundaries(boundariesBegin);
+        aCas.<Annotation> select(tokenType).coveredBy(boundariesBegin, boundariesEnd)
+                .forEach(t -> boundaries.add(t.getBegin(), t.getEnd()));
+
         for (var sampleUnit : units) {
             var spans = new ArrayList<Span>();
 
             var tokens = aCas.<Annotation> select(tokenType).coveredBy(sampleUnit).asList();
-            for (var token : tokens) {
-                var match = aDict.getNode(text, token.getBegin());
-                if (match != null) {
-                    var begin = token.getBegin();
-                    var end = begin + match.matchLength;
-
-                    // If the end is not in the same sentence as the start, skip
-                    if (requireSingleSentence && !(end <= sampleUnit.getEnd())) {
-                        continue;
-                    }
-
-                    // Need to check that the match actually ends at a token boundary!
-                    if (requireEndAtTokenBoundary && !aCas.<Annotation> select(tokenType)
-                            .startAt(token).filter(t -> t.getEnd() == end).findAny().isPresent()) {
-                        continue;
-                    }
-
-                    for (var lc : match.node.value.getBest(maxRecommendations)) {
-                        spans.add(new Span(begin, end, aCas.getDocumentText().substring(begin, end),
-                                lc.label(), lc.relFreq()));
-                    }
+            var limit = requireSingleSentence ? sampleUnit.getEnd() : text.length();
+            var matches = findMatches(aDict, text, sampleUnit.getBegin(), sampleUnit.getEnd(),
+                    limit, boundaries, requireEndAtTokenBoundary);
+            for (var match : matches) {
+                for (var lc : match.entry().getBest(maxRecommendations)) {
+                    spans.add(new Span(match.begin(), match.end(),
+                            aCas.getDocumentText().substring(match.begin(), match.end()),
+                            lc.label(), lc.relFreq()));
                 }
             }
 
@@ -283,6 +377,55 @@ public class StringMatchingRecommender
         return data;
     }
 
+    /**
+     * Finds the longest dictionary entry starting at each token begin in the given range. The text
+     * is scanned only once and the token boundaries are looked up in a bitmap.
+     * 
+     * @param aDict
+     *            the dictionary.
+     * @param aText
+     *            the text.
+     * @param aBegin
+     *            the begin of the range in which matches must start.
+     * @param aEnd
+     *            the end of the range in which matches must start.
+     * @param aLimit
+     *            the offset beyond which matches must not end.
+     * @param aBoundaries
+     *            the token boundaries.
+     * @param aRequireEndAtTokenBoundary
+     *            whether matches must end at a token end.
+     * @return the matches sorted by their begin offset.
+     */
+    private List<Match> findMatches(AhoCorasickAutomaton<DictEntry> aDict, String aText,
+            int aBegin, int aEnd, int aLimit, TokenBoundaries aBoundaries,
+            boolean aRequireEndAtTokenBoundary)
+    {
+        var longest = new Match[Math.max(0, aEnd - aBegin)];
+        aDict.match(aText, aBegin, aEnd, (begin, end, entry) -> {
+            if (end > aLimit || !aBoundaries.isTokenBegin(begin)) {
+                return;
+            }
+
+            if (aRequireEndAtTokenBoundary && !aBoundaries.isTokenEnd(end)) {
+                return;
+            }
+
+            var previous = longest[begin - aBegin];
+            if (previous == null || previous.end() < end) {
+                longest[begin - aBegin] = new Match(begin, end, entry);
+            }
+        });
+
+        var matches = new ArrayList<Match>();
+        for (var match : longest) {
+            if (match != null) {
+                matches.add(match);
+            }
+        }
+        return matches;
+    }
+
     @Override
     public int estimateSampleCount(List<CAS> aCasses)
     {
@@ -350,24 +493,38 @@ public class StringMatchingRecommender
                 testSet.size(), samples.size());
 
         // Train
-        Trie<DictEntry> dict = createTrie();
+        var dictBuilder = createDictionary();
         for (var sample : trainingSet) {
             for (var span : sample.getSpans()) {
-                learn(dict, span.text(), span.label());
+                learn(dictBuilder, span.text(), span.label());
             }
         }
+        var dict = dictBuilder.build();
 
         // Predict
         var labelPairs = new ArrayList<LabelPair>();
         for (var sample : testSet) {
-            for (var token : sample.getTokens()) {
-                var match = dict.getNode(sample.getText(), token.begin());
+            var matchesByBegin = new HashMap<Integer, Match>();
+            var tokens = sample.getTokens();
+            if (!tokens.isEmpty()) {
+                var sampleBegin = tokens.get(0).begin();
+                var sampleEnd = tokens.get(tokens.size() - 1).end();
+                var boundaries = new TokenBoundaries(sampleBegin);
+                tokens.forEach(t -> boundaries.add(t.begin(), t.end()));
+                for (var match : findMatches(dict, sample.getText(), sampleBegin, sampleEnd,
+                        sampleEnd, boundaries, true)) {
+                    matchesByBegin.put(match.begin(), match);
+                }
+            }
+
+            for (var token : tokens) {
+                var match = matchesByBegin.get(token.begin());
                 var begin = token.begin();
                 var end = token.end();
 
                 var predictedLabel = NO_LABEL;
-                if (match != null && sample.hasTokenEndingAt(token.begin() + match.matchLength)) {
-                    var labelStats = match.node.value.getBest(1);
+                if (match != null) {
+                    var labelStats = match.entry().getBest(1);
                     if (!labelStats.isEmpty()) {
                         predictedLabel = labelStats.get(0).label();
                     }
@@ -388,7 +545,25 @@ public class StringMatchingRecommender
                 SAMPLE_UNIT.getSimpleName(), trainingSetSize, testSetSize, trainRatio, NO_LABEL));
     }
 
-    private void learn(Trie<DictEntry> aDict, String aText, String aLabel)
+    private void learn(AhoCorasickAutomaton.Builder<DictEntry> aDict, String aText,
+            String aLabel)
+    {
+        if (isBlank(aText)) {
+            return;
+        }
+
+        var label = isBlank(aLabel) ? BLANK_LABEL : aLabel;
+
+        var text = aText;
+        if (traits != null && traits.isIgnoreCase()) {
+            text = text.toLowerCase(Locale.ROOT);
+        }
+
+        aDict.computeIfAbsent(text, DictEntry::new).put(label);
+    }
+
+    private void unlearn(AhoCorasickAutomaton.Builder<DictEntry> aDict, String aText,
+            String aLabel)
     {
         if (isBlank(aText)) {
             return;
@@ -403,11 +578,13 @@ public class StringMatchingRecommender
 
         var entry = aDict.get(text);
         if (entry == null) {
-            entry = new DictEntry(text);
-            aDict.put(text, entry);
+            return;
         }
 
-        entry.put(label);
+        entry.remove(label);
+        if (entry.isEmpty()) {
+            aDict.remove(text);
+        }
     }
 
     private List<Sample> extractSamples(List<CAS> aCasses, String aLayerName, String aFeatureName)
@@ -502,14 +679,44 @@ public class StringMatchingRecommender
         {
             return spans;
         }
+    }
+
+    private static record TokenSpan(int begin, int end) {}
+
+    private static record Match(int begin, int end, DictEntry entry) {}
 
-        public boolean hasTokenEndingAt(int aOffset)
+    /**
+     * Bitmaps of the token begin and end offsets relative to a base offset.
+     */
+    private static class TokenBoundaries
+    {
+        private final int offset;
+        private final BitSet begins = new BitSet();
+        private final BitSet ends = new BitSet();
+
+        TokenBoundaries(int aOffset)
         {
-            return tokens.stream().filter(t -> t.end == aOffset).findAny().isPresent();
+            offset = aOffset;
         }
-    }
 
-    private static record TokenSpan(int begin, int end) {}
+        void add(int aBegin, int aEnd)
+        {
+            if (aBegin >= offset) {
+                begins.set(aBegin - offset);
+                ends.set(aEnd - offset);
+            }
+        }
+
+        boolean isTokenBegin(int aOffset)
+        {
+            return aOffset >= offset && begins.get(aOffset - offset);
+        }
+
+        boolean isTokenEnd(int aOffset)
+        {
+            return aOffset >= offset && ends.get(aOffset - offset);
+        }
+    }
 
     /**
      * @param label
@@ -549,6 +756,16 @@ public class StringMatchingRecommender
             key = aKey;
         }
 
+        private DictEntry copy()
+        {
+            var copy = new DictEntry(key);
+            if (labels != null) {
+                copy.labels = labels.clone();
+                copy.counts = counts.clone();
+            }
+            return copy;
+        }
+
         public void put(String aLabel)
         {
             // No data yet - create it
@@ -580,6 +797,38 @@ public class StringMatchingRecommender
             counts[counts.length - 1] = 1;
         }
 
+        public void remove(String aLabel)
+        {
+            var i = labels != null ? asList(labels).indexOf(aLabel) : -1;
+
+            // Label does not exist
+            if (i == -1) {
+                return;
+            }
+
+            // Label is still observed elsewhere
+            if (counts[i] > 1) {
+                counts[i]--;
+                return;
+            }
+
+            // Label is no longer observed - drop it
+            var newLabels = new String[labels.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            labels = newLabels;
+
+            var newCounts = new int[counts.length - 1];
+            System.arraycopy(counts, 0, newCounts, 0, i);
+            System.arraycopy(counts, i + 1, newCounts, i, counts.length - i - 1);
+            counts = newCounts;
+        }
+
+        public boolean isEmpty()
+        {
+            return labels == null || labels.length == 0;
+        }
+
         public List<LabelStats> getBest(int aN)
         {
             int total = IntStream.of(counts).sum();
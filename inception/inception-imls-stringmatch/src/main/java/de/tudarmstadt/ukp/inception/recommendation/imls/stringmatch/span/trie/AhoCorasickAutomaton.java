@@ -0,0 +1,538 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.trie;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Immutable dictionary which finds all occurrences of its keys in a text in a single pass. The
+ * trie is stored as a double array (a transition from state {@code s} via character code
+ * {@code c} leads to state {@code t = base[s] + c} if {@code check[t] == s}) with Aho-Corasick
+ * failure links. All data is held in primitive arrays, which keeps the memory footprint small even
+ * for large gazeteers.
+ * <p>
+ * Keys and texts are normalized using the {@link KeySanitizer} provided by the factory given to
+ * the {@link Builder}. Zero-length keys are not allowed.
+ *
+ * @param <V>
+ *            the value type.
+ */
+public class AhoCorasickAutomaton<V>
+{
+    private static final int ROOT = 0;
+    private static final int FREE = -1;
+    private static final int NONE = -1;
+
+    private final KeySanitizerFactory sanitizerFactory;
+
+    // Maps characters to dense codes starting at 1 - 0 means the character is not part of any key
+    private final int[] codes;
+
+    // Per state
+    private final int[] base;
+    private final int[] check;
+    private final int[] fail;
+    private final int[] depth;
+    private final int[] output;
+
+    // Per key
+    private final Object[] values;
+    private final int[] lengths;
+    private final int[] nextOutput;
+    private final int maxLength;
+
+    private AhoCorasickAutomaton(KeySanitizerFactory aSanitizerFactory, String[] aKeys,
+            Object[] aValues)
+    {
+        sanitizerFactory = aSanitizerFactory;
+        values = aValues;
+        lengths = new int[aKeys.length];
+        nextOutput = new int[aKeys.length];
+        codes = buildAlphabet(aKeys);
+
+        var maxKeyLength = 0;
+        for (var i = 0; i < aKeys.length; i++) {
+            lengths[i] = aKeys[i].length();
+            maxKeyLength = Math.max(maxKeyLength, lengths[i]);
+        }
+        maxLength = maxKeyLength;
+
+        var states = new StateArrays(Math.max(16, aKeys.length * 2));
+        states.check[ROOT] = ROOT;
+        build(aKeys, states);
+
+        var size = states.used + 1;
+        base = Arrays.copyOf(states.base, size);
+        check = Arrays.copyOf(states.check, size);
+        fail = Arrays.copyOf(states.fail, size);
+        depth = Arrays.copyOf(states.depth, size);
+        output = Arrays.copyOf(states.output, size);
+    }
+
+    private static int[] buildAlphabet(String[] aKeys)
+    {
+        var frequencies = new HashMap<Character, Integer>();
+        var maxChar = 0;
+        for (var key : aKeys) {
+            for (var i = 0; i < key.length(); i++) {
+                var c = key.charAt(i);
+                frequencies.merge(c, 1, Integer::sum);
+                maxChar = Math.max(maxChar, c);
+            }
+        }
+
+        // Frequent characters get small codes which keeps the double array dense
+        var alphabet = new ArrayList<>(frequencies.keySet());
+        alphabet.sort((a, b) -> Integer.compare(frequencies.get(b), frequencies.get(a)));
+
+        var result = new int[maxChar + 1];
+        for (var i = 0; i < alphabet.size(); i++) {
+            result[alphabet.get(i)] = i + 1;
+        }
+        return result;
+    }
+
+    /**
+     * Creates the states breadth-first from the sorted keys. Each node of the trie corresponds to
+     * a range of keys sharing the same prefix. Since parents are processed before their children
+     * and failure links always point to shallower states, the failure links can be computed while
+     * creating the states.
+     */
+    private void build(String[] aKeys, StateArrays aStates)
+    {
+        var queue = new ArrayDeque<int[]>();
+        queue.add(new int[] { ROOT, 0, aKeys.length });
+        aStates.fail[ROOT] = ROOT;
+        aStates.output[ROOT] = NONE;
+
+        var childCodes = new ArrayList<Integer>();
+        var childRanges = new ArrayList<int[]>();
+        while (!queue.isEmpty()) {
+            var node = queue.poll();
+            var state = node[0];
+            var nodeDepth = aStates.depth[state];
+            var from = node[1];
+            var to = node[2];
+
+            // Keys are sorted, so the key ending at this node comes first
+            if (from < to && aKeys[from].length() == nodeDepth) {
+                if (state == ROOT) {
+                    throw new IllegalArgumentException("Zero-length keys are illegal");
+                }
+                nextOutput[from] = aStates.output[aStates.fail[state]];
+                aStates.output[state] = from;
+                from++;
+            }
+            else if (state != ROOT) {
+                aStates.output[state] = aStates.output[aStates.fail[state]];
+            }
+
+            childCodes.clear();
+            childRanges.clear();
+            var i = from;
+            while (i < to) {
+                var c = aKeys[i].charAt(nodeDepth);
+                var j = i + 1;
+                while (j < to && aKeys[j].charAt(nodeDepth) == c) {
+                    j++;
+                }
+                childCodes.add(codes[c]);
+                childRanges.add(new int[] { i, j });
+                i = j;
+            }
+
+            if (childCodes.isEmpty()) {
+                continue;
+            }
+
+            var b = aStates.findBase(childCodes);
+            aStates.base[state] = b;
+            for (var k = 0; k < childCodes.size(); k++) {
+                var code = childCodes.get(k);
+                var child = b + code;
+                aStates.check[child] = state;
+                aStates.depth[child] = nodeDepth + 1;
+                aStates.used = Math.max(aStates.used, child);
+
+                if (state == ROOT) {
+                    aStates.fail[child] = ROOT;
+                }
+                else {
+                    var f = aStates.fail[state];
+                    while (f != ROOT && aStates.transition(f, code) == FREE) {
+                        f = aStates.fail[f];
+                    }
+                    var t = aStates.transition(f, code);
+                    aStates.fail[child] = t != FREE ? t : ROOT;
+                }
+
+                var range = childRanges.get(k);
+                queue.add(new int[] { child, range[0], range[1] });
+            }
+        }
+    }
+
+    /**
+     * @return the number of keys.
+     */
+    public int size()
+    {
+        return values.length;
+    }
+
+    public boolean isEmpty()
+    {
+        return values.length == 0;
+    }
+
+    /**
+     * @return the values of all keys.
+     */
+    @SuppressWarnings("unchecked")
+    public List<V> values()
+    {
+        return (List<V>) (List<?>) unmodifiableList(asList(values));
+    }
+
+    /**
+     * @param aKey
+     *            the key.
+     * @return the value stored under the given key (after sanitizing it) or {@code null}.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(CharSequence aKey)
+    {
+        var key = sanitize(sanitizerFactory, aKey);
+        var state = ROOT;
+        for (var i = 0; i < key.length(); i++) {
+            var c = key.charAt(i);
+            state = c < codes.length && codes[c] != 0 ? transition(state, codes[c]) : FREE;
+            if (state == FREE) {
+                return null;
+            }
+        }
+
+        var o = output[state];
+        return o != NONE && lengths[o] == depth[state] ? (V) values[o] : null;
+    }
+
+    /**
+     * Reports all occurrences of keys which start in the given range of the text. Matches may
+     * extend beyond the end of the range. The text is sanitized as if the sanitizer were started
+     * at the beginning of the range, so it makes no difference if the range is matched in one go
+     * or if every character offset in the range is matched separately.
+     *
+     * @param aText
+     *            the text.
+     * @param aBegin
+     *            the begin of the range (inclusive).
+     * @param aEnd
+     *            the end of the range (exclusive).
+     * @param aHandler
+     *            receives the matches in order of their end offset.
+     */
+    @SuppressWarnings("unchecked")
+    public void match(CharSequence aText, int aBegin, int aEnd, MatchHandler<V> aHandler)
+    {
+        if (isEmpty()) {
+            return;
+        }
+
+        var sanitizer = sanitizerFactory != null ? sanitizerFactory.create() : null;
+
+        // Original offsets of the most recent sanitized characters
+        var origins = new int[maxLength];
+        var n = -1;
+        var nAtEnd = -1;
+        var state = ROOT;
+        for (var i = aBegin; i < aText.length(); i++) {
+            if (i >= aEnd) {
+                if (nAtEnd == -1) {
+                    nAtEnd = n + 1;
+                }
+
+                // Stop once the current partial match started after the range
+                if (n + 1 - depth[state] >= nAtEnd) {
+                    break;
+                }
+            }
+
+            var c = aText.charAt(i);
+            if (sanitizer != null) {
+                c = sanitizer.map(c);
+                if (c == KeySanitizer.SKIP_CHAR) {
+                    continue;
+                }
+            }
+
+            n++;
+            origins[n % maxLength] = i;
+
+            var code = c < codes.length ? codes[c] : 0;
+            if (code == 0) {
+                state = ROOT;
+                continue;
+            }
+
+            while (true) {
+                var t = transition(state, code);
+                if (t != FREE) {
+                    state = t;
+                    break;
+                }
+                if (state == ROOT) {
+                    break;
+                }
+                state = fail[state];
+            }
+
+            for (var o = output[state]; o != NONE; o = nextOutput[o]) {
+                var begin = origins[(n - lengths[o] + 1) % maxLength];
+                if (begin < aEnd) {
+                    aHandler.match(begin, i + 1, (V) values[o]);
+                }
+            }
+        }
+    }
+
+    private int transition(int aState, int aCode)
+    {
+        var t = base[aState] + aCode;
+        return t < check.length && check[t] == aState && t != ROOT ? t : FREE;
+    }
+
+    private static CharSequence sanitize(KeySanitizerFactory aSanitizerFactory, CharSequence aKey)
+    {
+        return aSanitizerFactory != null ? aSanitizerFactory.create().sanitize(aKey) : aKey;
+    }
+
+    @FunctionalInterface
+    public interface MatchHandler<V>
+    {
+        /**
+         * @param aBegin
+         *            the begin offset of the match in the text.
+         * @param aEnd
+         *            the end offset of the match in the text.
+         * @param aValue
+         *            the value of the matched key.
+         */
+        void match(int aBegin, int aEnd, V aValue);
+    }
+
+    /**
+     * Growable state arrays used during construction.
+     */
+    private static class StateArrays
+    {
+        private int[] base;
+        private int[] check;
+        private int[] fail;
+        private int[] depth;
+        private int[] output;
+        private static final int MAX_PROBES = 1024;
+
+        private int used = 0;
+        private int nextCheckPos = 1;
+
+        StateArrays(int aCapacity)
+        {
+            base = new int[aCapacity];
+            check = new int[aCapacity];
+            fail = new int[aCapacity];
+            depth = new int[aCapacity];
+            output = new int[aCapacity];
+            Arrays.fill(check, FREE);
+            Arrays.fill(output, NONE);
+        }
+
+        int transition(int aState, int aCode)
+        {
+            var t = base[aState] + aCode;
+            return t < check.length && check[t] == aState && t != ROOT ? t : FREE;
+        }
+
+        int findBase(List<Integer> aCodes)
+        {
+            var minCode = Integer.MAX_VALUE;
+            var maxCode = 0;
+            for (var code : aCodes) {
+                minCode = Math.min(minCode, code);
+                maxCode = Math.max(maxCode, code);
+            }
+
+            var occupied = 0;
+            var probes = 0;
+            var first = true;
+            var pos = Math.max(nextCheckPos, minCode + 1) - 1;
+            outer: while (true) {
+                pos++;
+
+                // Nodes with many children may not fit into any of the gaps - rather than trying
+                // every gap, move on to the unused space at the end
+                if (++probes > MAX_PROBES && pos <= used) {
+                    pos = used + 1;
+                }
+
+                ensureCapacity(pos + maxCode - minCode + 1);
+
+                if (check[pos] != FREE) {
+                    occupied++;
+                    continue;
+                }
+                else if (first) {
+                    nextCheckPos = pos;
+                    first = false;
+                }
+
+                var b = pos - minCode;
+                for (var code : aCodes) {
+                    if (check[b + code] != FREE) {
+                        continue outer;
+                    }
+                }
+
+                // Skip densely filled regions in future searches
+                if (occupied >= 0.95 * (pos - nextCheckPos + 1)) {
+                    nextCheckPos = pos;
+                }
+
+                return b;
+            }
+        }
+
+        void ensureCapacity(int aSize)
+        {
+            if (aSize < check.length) {
+                return;
+            }
+
+            var oldSize = check.length;
+            var newSize = Math.max(aSize + 1, oldSize + (oldSize >> 1));
+            base = Arrays.copyOf(base, newSize);
+            check = Arrays.copyOf(check, newSize);
+            fail = Arrays.copyOf(fail, newSize);
+            depth = Arrays.copyOf(depth, newSize);
+            output = Arrays.copyOf(output, newSize);
+            Arrays.fill(check, oldSize, newSize, FREE);
+            Arrays.fill(output, oldSize, newSize, NONE);
+        }
+    }
+
+    /**
+     * Collects the entries of an {@link AhoCorasickAutomaton}.
+     *
+     * @param <V>
+     *            the value type.
+     */
+    public static class Builder<V>
+    {
+        private final KeySanitizerFactory sanitizerFactory;
+        private final Map<String, V> entries = new HashMap<>();
+
+        public Builder(KeySanitizerFactory aSanitizerFactory)
+        {
+            sanitizerFactory = aSanitizerFactory;
+        }
+
+        public Builder()
+        {
+            this(null);
+        }
+
+        /**
+         * @param aKey
+         *            the key.
+         * @param aValue
+         *            the value.
+         * @return the old value.
+         */
+        public V put(CharSequence aKey, V aValue)
+        {
+            return entries.put(sanitizeKey(aKey), aValue);
+        }
+
+        /**
+         * @param aKey
+         *            the key.
+         * @param aFactory
+         *            creates the value from the sanitized key if there is no value yet.
+         * @return the value.
+         */
+        public V computeIfAbsent(CharSequence aKey, Function<String, V> aFactory)
+        {
+            return entries.computeIfAbsent(sanitizeKey(aKey), aFactory);
+        }
+
+        /**
+         * @param aKey
+         *            the key.
+         * @return the value or {@code null} if there is no value for the key.
+         */
+        public V get(CharSequence aKey)
+        {
+            return entries.get(sanitizeKey(aKey));
+        }
+
+        /**
+         * @param aKey
+         *            the key.
+         * @return the removed value or {@code null} if there was no value for the key.
+         */
+        public V remove(CharSequence aKey)
+        {
+            return entries.remove(sanitizeKey(aKey));
+        }
+
+        public int size()
+        {
+            return entries.size();
+        }
+
+        public AhoCorasickAutomaton<V> build()
+        {
+            var keys = entries.keySet().toArray(String[]::new);
+            Arrays.sort(keys);
+
+            var values = new Object[keys.length];
+            for (var i = 0; i < keys.length; i++) {
+                values[i] = entries.get(keys[i]);
+            }
+
+            return new AhoCorasickAutomaton<>(sanitizerFactory, keys, values);
+        }
+
+        private String sanitizeKey(CharSequence aKey)
+        {
+            var key = sanitize(sanitizerFactory, aKey).toString();
+            if (key.isEmpty()) {
+                throw new IllegalArgumentException("Zero-length keys are illegal");
+            }
+            return key;
+        }
+    }
+}
@@ -20,6 +20,7 @@ package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span;
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.EXCLUSIVE_WRITE_ACCESS;
 import static de.tudarmstadt.ukp.clarin.webanno.model.AnchoringMode.CHARACTERS;
 import static de.tudarmstadt.ukp.inception.support.test.recommendation.RecommenderTestHelper.getPredictions;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
@@ -28,6 +29,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assumptions.assumeThat;
 import static org.dkpro.core.api.datasets.DatasetValidationPolicy.CONTINUE;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -63,6 +65,7 @@ import de.tudarmstadt.ukp.inception.recommendation.api.evaluation.PercentageBase
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.PredictionContext;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext;
+import de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingDelta;
 import de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.gazeteer.model.GazeteerEntry;
 import de.tudarmstadt.ukp.inception.support.test.recommendation.DkproTestHelper;
 import de.tudarmstadt.ukp.inception.support.test.recommendation.RecommenderTestHelper;
@@ -289,6 +292,30 @@ public class StringMatchingRecommenderTest
                 .anyMatch(prediction -> getScore(prediction) > 0.0 && getScore(prediction) < 1.0);
     }
 
+    @Test
+    public void thatIncrementalTrainingYieldsSameModelAsTrainingFromScratch() throws Exception
+    {
+        var sut = new StringMatchingRecommender(recommender, traits);
+
+        var cas1 = createCas("John Smith visits Berlin .", "John Smith", "PER");
+        var cas2 = createCas("Berlin is big .", "Berlin", "LOC");
+        var cas2Changed = createCas("Berlin is big .", "Berlin", "ORG");
+        var cas3 = createCas("Peter is here .", "Peter", "PER");
+
+        sut.train(context, asList(cas1, cas2));
+
+        var incrementalContext = sut.newContext(context);
+        sut.train(incrementalContext, asList(cas1, cas2Changed, cas3),
+                new TrainingDelta(asList(cas2Changed, cas3), asList(cas2)));
+
+        var scratchContext = new RecommenderContext();
+        sut.train(scratchContext, asList(cas1, cas2Changed, cas3));
+
+        assertThat(exportModel(sut, incrementalContext))
+                .containsExactlyInAnyOrderElementsOf(exportModel(sut, scratchContext))
+                .doesNotContain("Berlin\tLOC\t1");
+    }
+
     @Test
     public void thatEvaluationWorks() throws Exception
     {
@@ -482,6 +509,30 @@ public class StringMatchingRecommenderTest
         return casList;
     }
 
+    private CAS createCas(String aText, String aMention, String aLabel) throws Exception
+    {
+        var jcas = JCasFactory.createJCas();
+        var builder = new TokenBuilder<>(Token.class, Sentence.class);
+        builder.buildTokens(jcas, aText);
+
+        var begin = aText.indexOf(aMention);
+        var ne = new NamedEntity(jcas, begin, begin + aMention.length());
+        ne.setValue(aLabel);
+        ne.addToIndexes();
+
+        casStorageSession.add("cas" + aText + aLabel, EXCLUSIVE_WRITE_ACCESS, jcas.getCas());
+        return jcas.getCas();
+    }
+
+    private static List<String> exportModel(StringMatchingRecommender aRecommender,
+            RecommenderContext aContext)
+        throws IOException
+    {
+        var out = new ByteArrayOutputStream();
+        aRecommender.exportModel(aContext, out);
+        return asList(out.toString(UTF_8).split("\n"));
+    }
+
     private static Recommender buildRecommender()
     {
         var layer = new AnnotationLayer();
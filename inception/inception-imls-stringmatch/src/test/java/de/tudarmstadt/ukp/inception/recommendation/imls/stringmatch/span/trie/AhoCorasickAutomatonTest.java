@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.imls.stringmatch.span.trie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class AhoCorasickAutomatonTest
+{
+    @Test
+    public void thatElementsCanBeAddedAndRetrieved()
+    {
+        var keys = List.of("1", "asf", "asf sadf", "dsjkla sfasd kj92");
+
+        var builder = new AhoCorasickAutomaton.Builder<String>();
+        for (var key : keys) {
+            builder.put(key, key);
+        }
+        var sut = builder.build();
+
+        assertThat(sut.size()).isEqualTo(keys.size());
+        assertThat(sut.values()).containsExactlyInAnyOrderElementsOf(keys);
+
+        for (var key : keys) {
+            assertThat(sut.get(key)).isEqualTo(key);
+        }
+
+        assertThat(sut.get("029332")).isNull();
+        assertThat(sut.get("as")).isNull();
+        assertThat(sut.get("asf sadf x")).isNull();
+    }
+
+    @Test
+    public void thatZeroLengthKeysAreRejected()
+    {
+        var builder = new AhoCorasickAutomaton.Builder<String>(
+                WhitespaceNormalizingSanitizer.factory());
+
+        assertThatThrownBy(() -> builder.put("  ", "blank")) //
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void thatAllOccurrencesAreFound()
+    {
+        var builder = new AhoCorasickAutomaton.Builder<String>();
+        for (var key : List.of("he", "she", "his", "hers")) {
+            builder.put(key, key);
+        }
+        var sut = builder.build();
+
+        var matches = new ArrayList<String>();
+        sut.match("ushers", 0, 6, (b, e, v) -> matches.add(b + "-" + e + ":" + v));
+
+        assertThat(matches).containsExactly("1-4:she", "2-4:he", "2-6:hers");
+    }
+
+    @Test
+    public void thatMatchesStartWithinRange()
+    {
+        var builder = new AhoCorasickAutomaton.Builder<String>();
+        for (var key : List.of("new york", "york", "york times")) {
+            builder.put(key, key);
+        }
+        var sut = builder.build();
+
+        var matches = new ArrayList<String>();
+        sut.match("in new york times", 0, 7, (b, e, v) -> matches.add(b + "-" + e + ":" + v));
+
+        assertThat(matches).containsExactly("3-11:new york");
+    }
+
+    @Test
+    public void thatKeySanitizerWorks()
+    {
+        var builder = new AhoCorasickAutomaton.Builder<String>(
+                WhitespaceNormalizingSanitizer.factory());
+        builder.put("  this is\ta test\n  .", "exists");
+        var sut = builder.build();
+
+        assertThat(sut.get("this is a test .")).isEqualTo("exists");
+        assertThat(sut.get("  this is\ta test  .")).isEqualTo("exists");
+
+        var text = "Yes,  this is\n\na test  . Really";
+        var matches = new ArrayList<String>();
+        sut.match(text, 0, text.length(), (b, e, v) -> matches.add(text.substring(b, e)));
+
+        assertThat(matches).containsExactly("this is\n\na test  .");
+    }
+
+    @Test
+    public void thatMatchingAgreesWithNaiveSearch()
+    {
+        var rnd = new Random(42);
+        var alphabet = "abc";
+
+        var keys = new ArrayList<String>();
+        var builder = new AhoCorasickAutomaton.Builder<String>();
+        for (var i = 0; i < 200; i++) {
+            var key = randomString(rnd, alphabet, 1 + rnd.nextInt(6));
+            keys.add(key);
+            builder.put(key, key);
+        }
+        var sut = builder.build();
+
+        var text = randomString(rnd, alphabet, 2000);
+
+        var expected = new ArrayList<String>();
+        for (var begin = 0; begin < text.length(); begin++) {
+            for (var key : keys.stream().distinct().toList()) {
+                if (text.startsWith(key, begin)) {
+                    expected.add(begin + "-" + (begin + key.length()));
+                }
+            }
+        }
+
+        var actual = new ArrayList<String>();
+        sut.match(text, 0, text.length(), (b, e, v) -> {
+            assertThat(text.substring(b, e)).isEqualTo(v);
+            actual.add(b + "-" + e);
+        });
+
+        assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private static String randomString(Random aRnd, String aAlphabet, int aLength)
+    {
+        var sb = new StringBuilder();
+        for (var i = 0; i < aLength; i++) {
+            sb.append(aAlphabet.charAt(aRnd.nextInt(aAlphabet.length())));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb;
+
+import org.eclipse.rdf4j.common.transaction.IsolationLevels;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+import org.eclipse.rdf4j.sail.SailConnection;
+
+/**
+ * Adds the statements produced by a parser to a sail and commits every given number of statements.
+ * Unlike adding a whole file in a single transaction, this keeps the memory required for the
+ * transaction bounded. Namespaces declared in the data are added unless the sail already defines
+ * the prefix.
+ */
+class BatchingRdfInserter
+    extends AbstractRDFHandler
+{
+    private final SailConnection connection;
+    private final int batchSize;
+
+    private long statementCount = 0;
+    private int uncommittedCount = 0;
+
+    public BatchingRdfInserter(SailConnection aConnection, int aBatchSize)
+    {
+        connection = aConnection;
+        batchSize = aBatchSize;
+    }
+
+    @Override
+    public void startRDF() throws RDFHandlerException
+    {
+        connection.begin(IsolationLevels.NONE);
+    }
+
+    @Override
+    public void handleNamespace(String aPrefix, String aUri) throws RDFHandlerException
+    {
+        if (connection.getNamespace(aPrefix) == null) {
+            connection.setNamespace(aPrefix, aUri);
+        }
+    }
+
+    @Override
+    public void handleStatement(Statement aStatement) throws RDFHandlerException
+    {
+        if (aStatement.getContext() != null) {
+            connection.addStatement(aStatement.getSubject(), aStatement.getPredicate(),
+                    aStatement.getObject(), aStatement.getContext());
+        }
+        else {
+            connection.addStatement(aStatement.getSubject(), aStatement.getPredicate(),
+                    aStatement.getObject());
+        }
+        statementCount++;
+        uncommittedCount++;
+
+        if (batchSize > 0 && uncommittedCount >= batchSize) {
+            connection.commit();
+            connection.begin(IsolationLevels.NONE);
+            uncommittedCount = 0;
+        }
+    }
+
+    @Override
+    public void endRDF() throws RDFHandlerException
+    {
+        connection.commit();
+    }
+
+    public long getStatementCount()
+    {
+        return statementCount;
+    }
+}
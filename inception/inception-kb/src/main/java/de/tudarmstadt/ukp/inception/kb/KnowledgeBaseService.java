@@ -40,6 +40,7 @@ import de.tudarmstadt.ukp.inception.kb.graph.KBObject;
 import de.tudarmstadt.ukp.inception.kb.graph.KBProperty;
 import de.tudarmstadt.ukp.inception.kb.graph.KBQualifier;
 import de.tudarmstadt.ukp.inception.kb.graph.KBStatement;
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 import de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQuery;
 import de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQueryBuilder;
@@ -642,6 +643,18 @@ public interface KnowledgeBaseService
 
     Optional<KBHandle> fetchHandleCaching(KnowledgeBase aKB, SPARQLQuery aQuery, boolean aAll);
 
+    /**
+     * Obtain the label index of the given knowledge base. The index can be passed to
+     * {@link SPARQLQueryBuilder#withLabelIndex} to answer label lookups without relying on the full
+     * text search of the knowledge base.
+     * 
+     * @param aKB
+     *            a knowledge base
+     * @return the label index if the label index is enabled and the index of the given knowledge
+     *         base is available.
+     */
+    Optional<LabelIndex> getLabelIndex(KnowledgeBase aKB);
+
     long getRepositorySize(KnowledgeBase aKB);
 
     long getStatementCount(KnowledgeBase aKB);
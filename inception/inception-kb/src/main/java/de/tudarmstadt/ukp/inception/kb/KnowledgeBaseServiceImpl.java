@@ -23,6 +23,7 @@ import static de.tudarmstadt.ukp.inception.kb.http.PerThreadSslCheckingHttpClien
 import static de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQueryBuilder.DEFAULT_LIMIT;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.withProjectLogger;
 import static de.tudarmstadt.ukp.inception.support.logging.BaseLoggers.BOOT_LOG;
+import static java.lang.System.currentTimeMillis;
 import static java.nio.file.Files.createDirectories;
 import static java.nio.file.Files.move;
 import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
@@ -129,6 +130,8 @@ import de.tudarmstadt.ukp.inception.kb.graph.KBProperty;
 import de.tudarmstadt.ukp.inception.kb.graph.KBQualifier;
 import de.tudarmstadt.ukp.inception.kb.graph.KBStatement;
 import de.tudarmstadt.ukp.inception.kb.http.PerThreadSslCheckingHttpClientUtils;
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndexRegistry;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 import de.tudarmstadt.ukp.inception.kb.model.RemoteRepositoryTraits;
 import de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQuery;
@@ -167,6 +170,7 @@ public class KnowledgeBaseServiceImpl
     private final KnowledgeBaseProperties properties;
 
     private final LoadingCache<QueryKey, List<KBHandle>> queryCache;
+    private final LabelIndexRegistry labelIndexes;
     private final MemoryOAuthSessionRepository<KnowledgeBase> oAuthSessionRepository;
 
     @Autowired
@@ -176,6 +180,8 @@ public class KnowledgeBaseServiceImpl
         properties = aKBProperties;
 
         queryCache = createQueryCache(aKBProperties);
+        labelIndexes = new LabelIndexRegistry(kb -> read(kb,
+                conn -> LabelIndex.load(kb, conn, aKBProperties.getLabelIndexMaxLabels())));
         oAuthSessionRepository = new MemoryOAuthSessionRepository<>();
 
         kbRepositoriesRoot = new File(aRepoProperties.getPath(), "kb");
@@ -424,6 +430,7 @@ public class KnowledgeBaseServiceImpl
         // Drop cached results from the KB being updated
         queryCache.asMap().keySet()
                 .removeIf(key -> Objects.equals(key.kb.getRepositoryId(), aKB.getRepositoryId()));
+        labelIndexes.invalidate(aKB);
 
         updateKnowledgeBase(aKB);
     }
@@ -466,6 +473,7 @@ public class KnowledgeBaseServiceImpl
         assertRegistration(aKB);
 
         oAuthSessionRepository.clear(aKB);
+        labelIndexes.invalidate(aKB);
 
         repoManager.removeRepository(aKB.getRepositoryId());
 
@@ -654,14 +662,25 @@ public class KnowledgeBaseServiceImpl
                 }
             }
 
+            // If the RDF file contains relative URLs, then they probably start with a hash.
+            // To avoid having two hashes here, we drop the hash from the base prefix configured
+            // by the user.
+            String prefix = StringUtils.removeEnd(kb.getBasePrefix(), "#");
+
             // Load files into the repository
-            try (var conn = getConnection(kb)) {
-                conn.setIsolationLevel(IsolationLevels.NONE);
-                // If the RDF file contains relative URLs, then they probably start with a hash.
-                // To avoid having two hashes here, we drop the hash from the base prefix configured
-                // by the user.
-                String prefix = StringUtils.removeEnd(kb.getBasePrefix(), "#");
-                conn.add(is, prefix, format);
+            var repo = repoManager.getRepository(kb.getRepositoryId());
+            if (repo instanceof SailRepository sailRepo) {
+                importDataInBatches(kb, sailRepo, is, prefix, format);
+            }
+            else {
+                try (var conn = getConnection(kb)) {
+                    conn.setIsolationLevel(IsolationLevels.NONE);
+                    conn.add(is, prefix, format);
+                }
+            }
+
+            if (properties.isLabelIndexEnabled()) {
+                labelIndexes.refresh(kb);
             }
         }
         finally {
@@ -671,6 +690,62 @@ public class KnowledgeBaseServiceImpl
         }
     }
 
+    private void importDataInBatches(KnowledgeBase aKB, SailRepository aRepo, InputStream aIS,
+            String aBaseUri, RDFFormat aFormat)
+        throws IOException
+    {
+        var sail = aRepo.getSail();
+
+        // When writing directly to the base sail, the Lucene sail does not see the statements and
+        // we build the full text index in one go at the end. This is much faster than updating the
+        // index for every batch.
+        var deferIndexing = properties.isImportDeferFullTextIndexing()
+                && sail instanceof LuceneSail;
+        if (deferIndexing) {
+            sail = ((LuceneSail) sail).getBaseSail();
+        }
+
+        var startTime = currentTimeMillis();
+        try (var conn = sail.getConnection()) {
+            var inserter = new BatchingRdfInserter(conn, properties.getImportBatchSize());
+            var parser = Rio.createParser(aFormat, sail.getValueFactory());
+            parser.setRDFHandler(inserter);
+            try {
+                parser.parse(aIS, aBaseUri);
+            }
+            finally {
+                if (conn.isActive()) {
+                    conn.rollback();
+                }
+            }
+
+            LOG.info("Imported {} statements into {} in {}ms", inserter.getStatementCount(), aKB,
+                    currentTimeMillis() - startTime);
+        }
+        catch (Exception e) {
+            if (deferIndexing) {
+                // Batches committed before the failure remain in the knowledge base and need to
+                // be indexed as well
+                try {
+                    rebuildFullTextIndex(aKB);
+                }
+                catch (Exception ex) {
+                    e.addSuppressed(ex);
+                }
+            }
+            throw e;
+        }
+
+        if (deferIndexing) {
+            try {
+                rebuildFullTextIndex(aKB);
+            }
+            catch (Exception e) {
+                throw new IOException("Unable to rebuild full text index", e);
+            }
+        }
+    }
+
     private PipedStreamResource transduceOboToOwlFunctionalSyntax(InputStream aIs)
         throws OWLOntologyCreationException
     {
@@ -716,6 +791,7 @@ public class KnowledgeBaseServiceImpl
         try (var conn = getConnection(kb)) {
             conn.clear();
         }
+        labelIndexes.invalidate(kb);
     }
 
     @Override
@@ -1074,6 +1150,8 @@ public class KnowledgeBaseServiceImpl
                 }
             }
         }
+
+        labelIndexes.invalidate(kb);
     }
 
     @Override
@@ -1618,6 +1696,16 @@ public class KnowledgeBaseServiceImpl
         return result;
     }
 
+    @Override
+    public Optional<LabelIndex> getLabelIndex(KnowledgeBase aKB)
+    {
+        if (!properties.isLabelIndexEnabled()) {
+            return Optional.empty();
+        }
+
+        return labelIndexes.get(aKB);
+    }
+
     private List<KBHandle> runQuery(QueryKey aKey)
     {
         return read(aKey.kb, conn -> aKey.query.asHandles(conn, true));
@@ -1636,6 +1724,8 @@ public class KnowledgeBaseServiceImpl
         queryCache.asMap().keySet().stream()
                 .filter(key -> key.kb.getProject().equals(aEvent.getProject()))
                 .forEach(key -> queryCache.invalidate(key));
+
+        getKnowledgeBases(aEvent.getProject()).forEach(labelIndexes::invalidate);
     }
 
     @EventListener
@@ -52,4 +52,28 @@ public interface KnowledgeBaseProperties
     Duration getRenderCacheExpireDelay();
 
     long getRenderCacheSize();
+
+    /**
+     * @return whether to answer label prefix and fuzzy label lookups from an in-memory label index
+     *         instead of the full text search of the knowledge base.
+     */
+    boolean isLabelIndexEnabled();
+
+    /**
+     * @return the maximum number of labels a knowledge base may have to build a label index for
+     *         it.
+     */
+    int getLabelIndexMaxLabels();
+
+    /**
+     * @return the number of statements after which a data import into a local knowledge base is
+     *         committed.
+     */
+    int getImportBatchSize();
+
+    /**
+     * @return whether to update the full text index of a local knowledge base only once after a
+     *         data import instead of while importing.
+     */
+    boolean isImportDeferFullTextIndexing();
 }
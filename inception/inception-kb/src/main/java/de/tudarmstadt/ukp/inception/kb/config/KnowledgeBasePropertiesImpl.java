@@ -49,6 +49,12 @@ public class KnowledgeBasePropertiesImpl
     private @DurationUnit(MINUTES) Duration renderCacheExpireDelay = ofMinutes(10);
     private @DurationUnit(MINUTES) Duration renderCacheRefreshDelay = ofMinutes(1);
 
+    private boolean labelIndexEnabled = false;
+    private int labelIndexMaxLabels = 1_000_000;
+
+    private int importBatchSize = 100_000;
+    private boolean importDeferFullTextIndexing = true;
+
     @Override
     public int getDefaultMaxResults()
     {
@@ -147,4 +153,48 @@ public class KnowledgeBasePropertiesImpl
     {
         renderCacheRefreshDelay = aRenderCacheRefreshDelay;
     }
+
+    @Override
+    public boolean isLabelIndexEnabled()
+    {
+        return labelIndexEnabled;
+    }
+
+    public void setLabelIndexEnabled(boolean aLabelIndexEnabled)
+    {
+        labelIndexEnabled = aLabelIndexEnabled;
+    }
+
+    @Override
+    public int getLabelIndexMaxLabels()
+    {
+        return labelIndexMaxLabels;
+    }
+
+    public void setLabelIndexMaxLabels(int aLabelIndexMaxLabels)
+    {
+        labelIndexMaxLabels = aLabelIndexMaxLabels;
+    }
+
+    @Override
+    public int getImportBatchSize()
+    {
+        return importBatchSize;
+    }
+
+    public void setImportBatchSize(int aImportBatchSize)
+    {
+        importBatchSize = aImportBatchSize;
+    }
+
+    @Override
+    public boolean isImportDeferFullTextIndexing()
+    {
+        return importDeferFullTextIndexing;
+    }
+
+    public void setImportDeferFullTextIndexing(boolean aImportDeferFullTextIndexing)
+    {
+        importDeferFullTextIndexing = aImportDeferFullTextIndexing;
+    }
 }
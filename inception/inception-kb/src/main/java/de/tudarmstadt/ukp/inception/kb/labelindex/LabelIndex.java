@@ -0,0 +1,515 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.labelindex;
+
+import static java.lang.System.currentTimeMillis;
+import static org.eclipse.rdf4j.sparqlbuilder.core.SparqlBuilder.dataset;
+import static org.eclipse.rdf4j.sparqlbuilder.core.SparqlBuilder.from;
+import static org.eclipse.rdf4j.sparqlbuilder.core.SparqlBuilder.var;
+import static org.eclipse.rdf4j.sparqlbuilder.rdf.Rdf.iri;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.rdf4j.model.Literal;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.sparqlbuilder.constraint.Expressions;
+import org.eclipse.rdf4j.sparqlbuilder.constraint.SparqlFunction;
+import org.eclipse.rdf4j.sparqlbuilder.constraint.propertypath.builder.PropertyPathBuilder;
+import org.eclipse.rdf4j.sparqlbuilder.core.query.Queries;
+import org.eclipse.rdf4j.sparqlbuilder.rdf.RdfValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+import de.tudarmstadt.ukp.inception.kb.querybuilder.ValuesPattern;
+
+/**
+ * In-memory index over the labels and additional matching properties (e.g. aliases) of the items
+ * in a knowledge base. It allows answering label prefix and fuzzy label lookups locally instead of
+ * through the full text search of the knowledge base.
+ * <p>
+ * The index consists of two sorted term dictionaries: one over the complete normalized labels
+ * (for prefix lookups) and one over the individual tokens of the labels (for fuzzy lookups). Prefix
+ * lookups locate the range of matching terms using binary search. Fuzzy lookups walk the sorted
+ * tokens like a trie, re-using the Levenshtein rows of the common prefix of consecutive tokens and
+ * skipping all tokens sharing a prefix that can no longer match.
+ * </p>
+ * <p>
+ * Label matching is case-insensitive and treats any sequence of whitespace as a single space. The
+ * index returns the identifiers of candidate items. It does not consider the language of labels or
+ * the type of the items, so results must still be filtered by the actual query.
+ * </p>
+ */
+public class LabelIndex
+{
+    private final static Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final Pattern WHITESPACE = Pattern.compile("[\\p{Space}\\p{Cntrl}]+");
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final String[] subjects;
+    private final TermDictionary labels;
+    private final TermDictionary tokens;
+    private final int labelCount;
+
+    private LabelIndex(String[] aSubjects, TermDictionary aLabels, TermDictionary aTokens,
+            int aLabelCount)
+    {
+        subjects = aSubjects;
+        labels = aLabels;
+        tokens = aTokens;
+        labelCount = aLabelCount;
+    }
+
+    /**
+     * @return the number of labels which were added to the index.
+     */
+    public int getLabelCount()
+    {
+        return labelCount;
+    }
+
+    /**
+     * @return the number of distinct items in the index.
+     */
+    public int getSubjectCount()
+    {
+        return subjects.length;
+    }
+
+    /**
+     * Find items having a label that starts with the given prefix.
+     *
+     * @param aPrefix
+     *            the label prefix.
+     * @param aMaxSubjects
+     *            the maximum number of items to return.
+     * @return the identifiers of the matching items or an empty optional if there are more than
+     *         the given maximum number of matching items.
+     */
+    public Optional<Set<String>> subjectsWithLabelStartingWith(String aPrefix, int aMaxSubjects)
+    {
+        var prefix = normalize(aPrefix);
+        var begin = labels.lowerBound(prefix, 0);
+        var end = labels.endOfPrefix(prefix, begin);
+
+        var matches = new BitSet(subjects.length);
+        var count = 0;
+        for (var term = begin; term < end; term++) {
+            count = labels.collect(term, matches, count);
+            if (count > aMaxSubjects) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(toSubjects(matches));
+    }
+
+    /**
+     * Find items having a label that contains a token within the given edit distance of any of the
+     * given terms.
+     *
+     * @param aTerms
+     *            the terms to match. Each term should be a single token.
+     * @param aMaxEdits
+     *            the maximum edit distance per term.
+     * @param aMaxSubjects
+     *            the maximum number of items to return.
+     * @return the identifiers of the matching items or an empty optional if there are more than
+     *         the given maximum number of matching items.
+     */
+    public Optional<Set<String>> subjectsWithTokenMatching(List<String> aTerms, int[] aMaxEdits,
+            int aMaxSubjects)
+    {
+        var matches = new BitSet(subjects.length);
+        var count = 0;
+        for (var i = 0; i < aTerms.size(); i++) {
+            var term = aTerms.get(i).toLowerCase(Locale.ROOT);
+            count = tokens.collectFuzzy(term, aMaxEdits[i], matches, count, aMaxSubjects);
+            if (count > aMaxSubjects) {
+                return Optional.empty();
+            }
+        }
+
+        return Optional.of(toSubjects(matches));
+    }
+
+    private Set<String> toSubjects(BitSet aMatches)
+    {
+        var result = new LinkedHashSet<String>();
+        for (var i = aMatches.nextSetBit(0); i >= 0; i = aMatches.nextSetBit(i + 1)) {
+            result.add(subjects[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Normalizes a label or query for matching by converting it to lower case and replacing any
+     * sequence of whitespace or control characters with a single space.
+     *
+     * @param aValue
+     *            the value to normalize.
+     * @return the normalized value.
+     */
+    public static String normalize(String aValue)
+    {
+        return WHITESPACE.matcher(aValue.toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    static String[] tokenize(String aNormalizedValue)
+    {
+        return Arrays.stream(TOKEN_SEPARATOR.split(aNormalizedValue)) //
+                .filter(token -> !token.isEmpty()) //
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Loads all labels and additional matching properties of the items in the given knowledge
+     * base into a new label index.
+     *
+     * @param aKB
+     *            the knowledge base.
+     * @param aConnection
+     *            a connection to the knowledge base repository.
+     * @param aMaxLabels
+     *            the maximum number of labels to load.
+     * @return the index or an empty optional if the knowledge base has more than the given maximum
+     *         number of labels.
+     */
+    public static Optional<LabelIndex> load(KnowledgeBase aKB, RepositoryConnection aConnection,
+            int aMaxLabels)
+    {
+        var startTime = currentTimeMillis();
+
+        var labelProperties = new LinkedHashSet<String>();
+        labelProperties.add(aKB.getLabelIri());
+        labelProperties.add(aKB.getPropertyLabelIri());
+        labelProperties.addAll(aKB.getAdditionalMatchingProperties());
+        labelProperties.remove(null);
+
+        var subject = var("s");
+        var label = var("l");
+        var property = var("p");
+        var labelProperty = var("lp");
+
+        var query = Queries.SELECT(subject, label) //
+                .where(new ValuesPattern(labelProperty,
+                        labelProperties.stream().map(iri -> (RdfValue) iri(iri)).toList()), //
+                        property.has(PropertyPathBuilder.of(iri(aKB.getSubPropertyIri()))
+                                .zeroOrMore().build(), labelProperty), //
+                        subject.has(property, label)
+                                .filter(Expressions.function(SparqlFunction.IS_LITERAL, label))) //
+                .limit(aMaxLabels + 1);
+
+        if (aKB.getDefaultDatasetIri() != null) {
+            query.from(dataset(from(iri(aKB.getDefaultDatasetIri()))));
+        }
+
+        var builder = new Builder();
+        var tupleQuery = aConnection.prepareTupleQuery(query.getQueryString());
+        try (var result = tupleQuery.evaluate()) {
+            while (result.hasNext()) {
+                if (builder.labelCount >= aMaxLabels) {
+                    LOG.info("{} has more than [{}] labels - not building a label index", aKB,
+                            aMaxLabels);
+                    return Optional.empty();
+                }
+
+                var bindings = result.next();
+                var value = bindings.getValue(label.getVarName());
+                if (value instanceof Literal) {
+                    builder.add(bindings.getValue(subject.getVarName()).stringValue(),
+                            value.stringValue());
+                }
+            }
+        }
+
+        var index = builder.build();
+
+        LOG.info("Built label index for {} with [{}] labels of [{}] items in {}ms", aKB,
+                index.getLabelCount(), index.getSubjectCount(), currentTimeMillis() - startTime);
+
+        return Optional.of(index);
+    }
+
+    public static class Builder
+    {
+        private final Map<String, Integer> subjectIds = new HashMap<>();
+        private final TermDictionary.Builder labels = new TermDictionary.Builder();
+        private final TermDictionary.Builder tokens = new TermDictionary.Builder();
+        private int labelCount = 0;
+
+        public Builder add(String aSubject, String aLabel)
+        {
+            var label = normalize(aLabel).trim();
+            if (label.isEmpty()) {
+                return this;
+            }
+
+            var subjectId = subjectIds.computeIfAbsent(aSubject, $ -> subjectIds.size());
+            labels.add(label, subjectId);
+            for (var token : tokenize(label)) {
+                tokens.add(token, subjectId);
+            }
+            labelCount++;
+
+            return this;
+        }
+
+        public LabelIndex build()
+        {
+            var subjects = new String[subjectIds.size()];
+            subjectIds.forEach((subject, id) -> subjects[id] = subject);
+            return new LabelIndex(subjects, labels.build(), tokens.build(), labelCount);
+        }
+    }
+
+    /**
+     * Sorted array of distinct terms, each pointing to a sorted list of subject ids.
+     */
+    static final class TermDictionary
+    {
+        private final String[] terms;
+        private final int[] postingsStart;
+        private final int[] postings;
+        private final int maxTermLength;
+
+        private TermDictionary(String[] aTerms, int[] aPostingsStart, int[] aPostings)
+        {
+            terms = aTerms;
+            postingsStart = aPostingsStart;
+            postings = aPostings;
+            maxTermLength = Arrays.stream(aTerms).mapToInt(String::length).max().orElse(0);
+        }
+
+        /**
+         * @return the index of the first term not smaller than the given value, starting the
+         *         search at the given index.
+         */
+        int lowerBound(String aValue, int aFrom)
+        {
+            var lo = aFrom;
+            var hi = terms.length;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (terms[mid].compareTo(aValue) < 0) {
+                    lo = mid + 1;
+                }
+                else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * @return the index of the first term at or after the given index which does not start
+         *         with the given prefix. All terms between the given index and the result start
+         *         with the prefix.
+         */
+        int endOfPrefix(String aPrefix, int aFrom)
+        {
+            var lo = aFrom;
+            var hi = terms.length;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (terms[mid].startsWith(aPrefix)) {
+                    lo = mid + 1;
+                }
+                else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Adds the subjects of the given term to the given set.
+         *
+         * @return the given number of subjects in the set plus the number of newly added ones.
+         */
+        int collect(int aTerm, BitSet aTarget, int aCount)
+        {
+            var count = aCount;
+            for (var i = postingsStart[aTerm]; i < postingsStart[aTerm + 1]; i++) {
+                if (!aTarget.get(postings[i])) {
+                    aTarget.set(postings[i]);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Adds the subjects of all terms within the given edit distance of the given value to the
+         * given set. Stops early once the set has more than the given maximum number of subjects.
+         *
+         * @return the given number of subjects in the set plus the number of newly added ones.
+         */
+        int collectFuzzy(String aValue, int aMaxEdits, BitSet aTarget, int aCount,
+                int aMaxSubjects)
+        {
+            if (aMaxEdits == 0) {
+                var term = lowerBound(aValue, 0);
+                if (term < terms.length && terms[term].equals(aValue)) {
+                    return collect(term, aTarget, aCount);
+                }
+                return aCount;
+            }
+
+            var count = aCount;
+
+            var n = aValue.length();
+
+            // rows[d] holds the edit distances between the first d characters of the current
+            // term and all prefixes of the value
+            var rows = new int[maxTermLength + 1][n + 1];
+            for (var j = 0; j <= n; j++) {
+                rows[0][j] = j;
+            }
+
+            var previous = "";
+            var validRows = 0;
+            var i = 0;
+            nextTerm: while (i < terms.length) {
+                var term = terms[i];
+
+                // Rows for the prefix shared with the previous term can be re-used
+                var depth = Math.min(commonPrefixLength(previous, term), validRows);
+                while (depth < term.length()) {
+                    var c = term.charAt(depth);
+                    var prev = rows[depth];
+                    var row = rows[depth + 1];
+                    row[0] = depth + 1;
+                    var rowMin = row[0];
+                    for (var j = 1; j <= n; j++) {
+                        var cost = aValue.charAt(j - 1) == c ? 0 : 1;
+                        row[j] = Math.min(Math.min(row[j - 1] + 1, prev[j] + 1),
+                                prev[j - 1] + cost);
+                        rowMin = Math.min(rowMin, row[j]);
+                    }
+                    depth++;
+
+                    if (rowMin > aMaxEdits) {
+                        // No term starting with the current prefix can match - skip them all
+                        previous = term;
+                        validRows = depth;
+                        i = endOfPrefix(term.substring(0, depth), i + 1);
+                        continue nextTerm;
+                    }
+                }
+
+                if (rows[term.length()][n] <= aMaxEdits) {
+                    count = collect(i, aTarget, count);
+                    if (count > aMaxSubjects) {
+                        return count;
+                    }
+                }
+
+                previous = term;
+                validRows = term.length();
+                i++;
+            }
+
+            return count;
+        }
+
+        private static int commonPrefixLength(String aA, String aB)
+        {
+            var max = Math.min(aA.length(), aB.length());
+            var i = 0;
+            while (i < max && aA.charAt(i) == aB.charAt(i)) {
+                i++;
+            }
+            return i;
+        }
+
+        static final class Builder
+        {
+            private final Map<String, Integer> termIds = new HashMap<>();
+            private int[] termRefs = new int[1024];
+            private int[] subjectRefs = new int[1024];
+            private int size = 0;
+
+            void add(String aTerm, int aSubjectId)
+            {
+                if (size == termRefs.length) {
+                    termRefs = Arrays.copyOf(termRefs, size * 2);
+                    subjectRefs = Arrays.copyOf(subjectRefs, size * 2);
+                }
+
+                termRefs[size] = termIds.computeIfAbsent(aTerm, $ -> termIds.size());
+                subjectRefs[size] = aSubjectId;
+                size++;
+            }
+
+            TermDictionary build()
+            {
+                var terms = termIds.keySet().toArray(String[]::new);
+                Arrays.sort(terms);
+
+                // Map the insertion-order term ids to the sorted positions
+                var position = new int[terms.length];
+                for (var i = 0; i < terms.length; i++) {
+                    position[termIds.get(terms[i])] = i;
+                }
+
+                // Counting sort of the postings by term position
+                var postingsStart = new int[terms.length + 1];
+                for (var i = 0; i < size; i++) {
+                    postingsStart[position[termRefs[i]] + 1]++;
+                }
+                for (var i = 0; i < terms.length; i++) {
+                    postingsStart[i + 1] += postingsStart[i];
+                }
+
+                var postings = new int[size];
+                var fill = Arrays.copyOf(postingsStart, terms.length);
+                for (var i = 0; i < size; i++) {
+                    postings[fill[position[termRefs[i]]]++] = subjectRefs[i];
+                }
+
+                // Sort and de-duplicate the postings of each term
+                var compactedStart = new int[terms.length + 1];
+                var out = 0;
+                for (var t = 0; t < terms.length; t++) {
+                    Arrays.sort(postings, postingsStart[t], postingsStart[t + 1]);
+                    compactedStart[t] = out;
+                    for (var i = postingsStart[t]; i < postingsStart[t + 1]; i++) {
+                        if (i == postingsStart[t] || postings[i] != postings[i - 1]) {
+                            postings[out++] = postings[i];
+                        }
+                    }
+                }
+                compactedStart[terms.length] = out;
+
+                return new TermDictionary(terms, compactedStart, Arrays.copyOf(postings, out));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.labelindex;
+
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+import java.lang.invoke.MethodHandles;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+
+/**
+ * Keeps the {@link LabelIndex} of every knowledge base. Indexes are built in the background. While
+ * an index is being built or if it could not be built (e.g. because the knowledge base has too
+ * many labels), no index is returned and queries fall back to the full text search of the
+ * knowledge base.
+ */
+public class LabelIndexRegistry
+{
+    private final static Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private final Function<KnowledgeBase, Optional<LabelIndex>> loader;
+    private final ConcurrentMap<String, CompletableFuture<Optional<LabelIndex>>> indexes = //
+            new ConcurrentHashMap<>();
+
+    public LabelIndexRegistry(Function<KnowledgeBase, Optional<LabelIndex>> aLoader)
+    {
+        loader = aLoader;
+    }
+
+    /**
+     * @param aKB
+     *            a knowledge base.
+     * @return the label index of the given knowledge base if it is available. If there is no index
+     *         yet, building it is triggered in the background.
+     */
+    public Optional<LabelIndex> get(KnowledgeBase aKB)
+    {
+        var index = indexes.computeIfAbsent(aKB.getRepositoryId(), $ -> build(aKB));
+
+        try {
+            return index.getNow(Optional.empty());
+        }
+        catch (CompletionException e) {
+            // Already logged by the build - keep using the full text search until the index is
+            // invalidated
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Drops the label index of the given knowledge base. It is rebuilt the next time it is
+     * requested.
+     *
+     * @param aKB
+     *            a knowledge base.
+     */
+    public void invalidate(KnowledgeBase aKB)
+    {
+        indexes.remove(aKB.getRepositoryId());
+    }
+
+    /**
+     * Drops the label index of the given knowledge base and immediately starts rebuilding it in the
+     * background.
+     *
+     * @param aKB
+     *            a knowledge base.
+     */
+    public void refresh(KnowledgeBase aKB)
+    {
+        indexes.put(aKB.getRepositoryId(), build(aKB));
+    }
+
+    private CompletableFuture<Optional<LabelIndex>> build(KnowledgeBase aKB)
+    {
+        return supplyAsync(() -> {
+            try {
+                return loader.apply(aKB);
+            }
+            catch (Exception e) {
+                LOG.error("Unable to build label index for {}", aKB, e);
+                throw e;
+            }
+        });
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.querybuilder;
+
+import static de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQueryBuilder.Priority.PRIMARY;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.eclipse.rdf4j.sparqlbuilder.graphpattern.GraphPatterns.and;
+import static org.eclipse.rdf4j.sparqlbuilder.rdf.Rdf.iri;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.eclipse.rdf4j.sparqlbuilder.constraint.Expression;
+import org.eclipse.rdf4j.sparqlbuilder.rdf.RdfValue;
+
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
+
+/**
+ * Answers label prefix and fuzzy label lookups from a {@link LabelIndex} and restricts the query
+ * to the matching items. If the index cannot answer a lookup (e.g. because too many items match),
+ * the lookup is passed on to the regular adapter of the knowledge base.
+ */
+public class FtsAdapterLabelIndex
+    implements FtsAdapter
+{
+    /**
+     * Maximum number of items to pass from the index to the SPARQL query. If more items match,
+     * the regular full text search is used.
+     */
+    static final int MAX_SUBJECTS = 1_000;
+
+    /**
+     * Characters which {@link SPARQLQueryBuilder#startsWithPattern} treats as wildcards and which
+     * therefore cannot be looked up literally in the index.
+     */
+    private static final Pattern REGEX_METACHARACTERS = Pattern.compile("[{}()\\[\\].+*?^$\\\\|]");
+
+    private final SPARQLQueryBuilder builder;
+    private final LabelIndex index;
+    private final FtsAdapter delegate;
+
+    public FtsAdapterLabelIndex(SPARQLQueryBuilder aBuilder, LabelIndex aIndex,
+            FtsAdapter aDelegate)
+    {
+        builder = aBuilder;
+        index = aIndex;
+        delegate = aDelegate;
+    }
+
+    @Override
+    public void withLabelMatchingExactlyAnyOf(String... aValues)
+    {
+        delegate.withLabelMatchingExactlyAnyOf(aValues);
+    }
+
+    @Override
+    public void withLabelContainingAnyOf(String... aValues)
+    {
+        // The index can only match on token boundaries, but "containing" also matches within
+        // tokens
+        delegate.withLabelContainingAnyOf(aValues);
+    }
+
+    @Override
+    public void withLabelStartingWith(String aPrefixQuery)
+    {
+        if (REGEX_METACHARACTERS.matcher(aPrefixQuery).find()) {
+            delegate.withLabelStartingWith(aPrefixQuery);
+            return;
+        }
+
+        var subjects = index.subjectsWithLabelStartingWith(aPrefixQuery, MAX_SUBJECTS);
+        if (subjects.isEmpty()) {
+            delegate.withLabelStartingWith(aPrefixQuery);
+            return;
+        }
+
+        restrictToSubjects(subjects.get(),
+                builder.startsWithPattern(VAR_MATCH_TERM, aPrefixQuery));
+    }
+
+    @Override
+    public void withLabelMatchingAnyOf(String... aValues)
+    {
+        var subjects = lookupFuzzy(aValues);
+        if (subjects.isEmpty()) {
+            delegate.withLabelMatchingAnyOf(aValues);
+            return;
+        }
+
+        restrictToSubjects(subjects.get(), builder.matchKbLanguage(VAR_MATCH_TERM));
+    }
+
+    /**
+     * Looks up the terms of the given values in the index. This mirrors
+     * {@link SPARQLQueryBuilder#convertToFuzzyMatchingQuery}: terms shorter than three characters
+     * are ignored and longer terms are matched fuzzily (up to two edits) if there are only few
+     * terms.
+     */
+    private Optional<Set<String>> lookupFuzzy(String... aValues)
+    {
+        var terms = new ArrayList<String>();
+        var maxEdits = new ArrayList<Integer>();
+        for (var value : aValues) {
+            var sanitizedValue = SPARQLQueryBuilder.sanitizeQueryString_FTS(value);
+            if (isBlank(sanitizedValue)) {
+                continue;
+            }
+
+            var valueTerms = sanitizedValue.split("\\s");
+            for (var term : valueTerms) {
+                if (term.length() > 4 && valueTerms.length <= 3) {
+                    terms.add(term);
+                    maxEdits.add(2);
+                }
+                else if (term.length() >= 3) {
+                    terms.add(term);
+                    maxEdits.add(0);
+                }
+            }
+        }
+
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return index.subjectsWithTokenMatching(terms,
+                maxEdits.stream().mapToInt(Integer::intValue).toArray(), MAX_SUBJECTS);
+    }
+
+    private void restrictToSubjects(Set<String> aSubjects, Expression<?> aMatchTermFilter)
+    {
+        if (aSubjects.isEmpty()) {
+            builder.setReturnEmptyResult(true);
+            return;
+        }
+
+        var values = aSubjects.stream() //
+                .map(subject -> (RdfValue) iri(subject)) //
+                .toList();
+
+        builder.addPattern(PRIMARY, and( //
+                new ValuesPattern(VAR_SUBJECT, values), //
+                builder.bindMatchTermProperties(VAR_MATCH_TERM_PROPERTY), //
+                VAR_SUBJECT.has(VAR_MATCH_TERM_PROPERTY, VAR_MATCH_TERM)
+                        .filter(aMatchTermFilter)));
+    }
+}
@@ -106,6 +106,7 @@ import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBObject;
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 
 /**
@@ -163,6 +164,8 @@ public class SPARQLQueryBuilder
 
     private Set<String> forceDisableFTS = new LinkedHashSet<>();
 
+    private LabelIndex labelIndex;
+
     /**
      * This flag controls whether we attempt to drop duplicate labels and descriptions on the side
      * of the SPARQL server (true) or whether we try retrieving all labels and descriptions which
@@ -750,7 +753,25 @@ public class SPARQLQueryBuilder
         return this;
     }
 
+    @Override
+    public SPARQLQueryPrimaryConditions withLabelIndex(LabelIndex aIndex)
+    {
+        labelIndex = aIndex;
+        return this;
+    }
+
     private FtsAdapter getAdapter()
+    {
+        var adapter = getFtsAdapter();
+
+        if (labelIndex != null) {
+            return new FtsAdapterLabelIndex(this, labelIndex, adapter);
+        }
+
+        return adapter;
+    }
+
+    private FtsAdapter getFtsAdapter()
     {
         IRI ftsMode = getFtsMode();
 
@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.inception.kb.querybuilder;
 
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
+
 public interface SPARQLQueryPrimaryConditions
     extends SPARQLQuery, SPARQLQueryOptionalElements
 {
@@ -33,6 +35,20 @@ public interface SPARQLQueryPrimaryConditions
      */
     SPARQLQueryPrimaryConditions withIdentifier(String... aIdentifiers);
 
+    /**
+     * Use the given label index to answer label prefix and fuzzy label lookups. The query is then
+     * restricted to the items found in the index instead of using the full text search. If the
+     * index cannot answer a lookup, the full text search is used as usual.
+     * <p>
+     * <b>NOTE:</b> this method must be called before {@link #withLabelStartingWith(String)} or any
+     * other label-matching methods.
+     * 
+     * @param aIndex
+     *            the label index of the knowledge base.
+     * @return the builder (fluent API)
+     */
+    SPARQLQueryPrimaryConditions withLabelIndex(LabelIndex aIndex);
+
     /**
      * Find entries where the label matches exactly one of the given values. The match is
      * case-sensitive if requested and it takes the default language of the KB into consideration.
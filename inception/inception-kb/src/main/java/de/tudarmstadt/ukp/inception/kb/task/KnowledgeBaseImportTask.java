@@ -0,0 +1,222 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.task;
+
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskScope.PROJECT;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskState.FAILED;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskState.RUNNING;
+import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.lang3.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+
+import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
+import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseConfigurationChangedEvent;
+import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
+
+/**
+ * Imports files into a local knowledge base in the background. The task takes ownership of the
+ * files and deletes them once the import is complete.
+ */
+public class KnowledgeBaseImportTask
+    extends Task
+    implements MatchableTask
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String TYPE = "KnowledgeBaseImportTask";
+
+    private static final int MAX_PROGRESS = 100;
+
+    private @Autowired KnowledgeBaseService kbService;
+    private @Autowired ApplicationEventPublisher applicationEventPublisher;
+
+    private final KnowledgeBase knowledgeBase;
+    private final Map<String, File> files;
+
+    private long totalBytes;
+    private long bytesRead;
+
+    public KnowledgeBaseImportTask(Builder<? extends Builder<?>> aBuilder)
+    {
+        super(aBuilder.withType(TYPE).withScope(PROJECT));
+
+        knowledgeBase = aBuilder.knowledgeBase;
+        files = aBuilder.files;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Importing into knowledge base [" + knowledgeBase.getName() + "]...";
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        // Every import must run - never replace or discard a queued import
+        return NO_MATCH;
+    }
+
+    @Override
+    public void execute()
+    {
+        var monitor = getMonitor();
+
+        totalBytes = files.values().stream().mapToLong(File::length).sum();
+        monitor.setStateAndProgress(RUNNING, 0, MAX_PROGRESS);
+
+        var failed = false;
+        try {
+            for (var entry : files.entrySet()) {
+                var name = entry.getKey();
+                var file = entry.getValue();
+
+                try (var is = new ProgressInputStream(new FileInputStream(file))) {
+                    kbService.importData(knowledgeBase, file.getName(), is);
+                    monitor.addMessage(LogMessage.info(this, "Imported [%s]", name));
+                }
+                catch (Exception e) {
+                    failed = true;
+                    monitor.addMessage(LogMessage.error(this, "Failed to import [%s]: %s", name,
+                            getRootCauseMessage(e)));
+                    LOG.error("Failed to import [{}] into {}", name, knowledgeBase, e);
+                }
+                finally {
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+        finally {
+            // Also delete the remaining files if the task is aborted
+            files.values().forEach(FileUtils::deleteQuietly);
+        }
+
+        applicationEventPublisher
+                .publishEvent(new KnowledgeBaseConfigurationChangedEvent(this, getProject()));
+
+        if (failed) {
+            monitor.setState(FAILED);
+        }
+        else {
+            monitor.setStateAndProgress(RUNNING, MAX_PROGRESS, MAX_PROGRESS);
+        }
+    }
+
+    private void bytesRead(int aCount)
+    {
+        var previousProgress = progress();
+        bytesRead += aCount;
+        var progress = progress();
+        if (progress != previousProgress) {
+            getMonitor().setProgress(progress);
+        }
+    }
+
+    private int progress()
+    {
+        if (totalBytes == 0) {
+            return 0;
+        }
+
+        return (int) Math.min(MAX_PROGRESS, bytesRead * MAX_PROGRESS / totalBytes);
+    }
+
+    private class ProgressInputStream
+        extends ProxyInputStream
+    {
+        public ProgressInputStream(InputStream aProxy)
+        {
+            super(aProxy);
+        }
+
+        @Override
+        protected void afterRead(int aCount) throws IOException
+        {
+            if (aCount > 0) {
+                bytesRead(aCount);
+            }
+        }
+    }
+
+    public static Builder<Builder<?>> builder()
+    {
+        return new Builder<>();
+    }
+
+    public static class Builder<T extends Builder<?>>
+        extends Task.Builder<T>
+    {
+        private KnowledgeBase knowledgeBase;
+        private final Map<String, File> files = new LinkedHashMap<>();
+
+        protected Builder()
+        {
+        }
+
+        @SuppressWarnings("unchecked")
+        public T withKnowledgeBase(KnowledgeBase aKnowledgeBase)
+        {
+            knowledgeBase = aKnowledgeBase;
+            return (T) this;
+        }
+
+        /**
+         * @param aName
+         *            the name of the file as shown to the user.
+         * @param aFile
+         *            the file to import. The file name is used to detect the format. The task
+         *            deletes the file once it has been imported.
+         */
+        @SuppressWarnings("unchecked")
+        public T withFile(String aName, File aFile)
+        {
+            files.put(aName, aFile);
+            return (T) this;
+        }
+
+        public KnowledgeBaseImportTask build()
+        {
+            Validate.notNull(knowledgeBase, "KnowledgeBaseImportTask requires a knowledge base");
+
+            if (project == null) {
+                withProject(knowledgeBase.getProject());
+            }
+
+            return new KnowledgeBaseImportTask(this);
+        }
+    }
+}
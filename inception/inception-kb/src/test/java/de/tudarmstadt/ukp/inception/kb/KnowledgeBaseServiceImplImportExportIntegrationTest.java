@@ -22,6 +22,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.util.List;
 import java.util.Objects;
 import java.util.stream.Stream;
 
@@ -31,6 +32,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringBootConfiguration;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -43,10 +46,12 @@ import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
 import de.tudarmstadt.ukp.inception.kb.config.KnowledgeBasePropertiesImpl;
 import de.tudarmstadt.ukp.inception.kb.graph.KBConcept;
+import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
 import de.tudarmstadt.ukp.inception.kb.graph.KBObject;
 import de.tudarmstadt.ukp.inception.kb.graph.KBProperty;
 import de.tudarmstadt.ukp.inception.kb.graph.KBStatement;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+import de.tudarmstadt.ukp.inception.kb.querybuilder.SPARQLQueryBuilder;
 import de.tudarmstadt.ukp.inception.kb.reification.Reification;
 import de.tudarmstadt.ukp.inception.kb.util.TestFixtures;
 import de.tudarmstadt.ukp.inception.kb.yaml.KnowledgeBaseProfile;
@@ -70,6 +75,7 @@ public class KnowledgeBaseServiceImplImportExportIntegrationTest
     private @Autowired TestEntityManager testEntityManager;
     private TestFixtures testFixtures;
 
+    private KnowledgeBasePropertiesImpl kbProperties;
     private KnowledgeBaseServiceImpl sut;
     private Project project;
     private KnowledgeBase kb;
@@ -86,7 +92,7 @@ public class KnowledgeBaseServiceImplImportExportIntegrationTest
         var repoProps = new RepositoryPropertiesImpl();
         repoProps.setPath(temporaryFolder);
 
-        var kbProperties = new KnowledgeBasePropertiesImpl();
+        kbProperties = new KnowledgeBasePropertiesImpl();
         var entityManager = testEntityManager.getEntityManager();
 
         testFixtures = new TestFixtures(testEntityManager);
@@ -160,6 +166,31 @@ public class KnowledgeBaseServiceImplImportExportIntegrationTest
                         "Has biological class");
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = { true, false })
+    public void importData_InSmallBatches_ShouldImportAndIndexAllTriples(boolean aDeferIndexing)
+        throws Exception
+    {
+        kbProperties.setImportBatchSize(3);
+        kbProperties.setImportDeferFullTextIndexing(aDeferIndexing);
+        sut.registerKnowledgeBase(kb, sut.getNativeConfig());
+
+        importKnowledgeBase("data/pets.ttl");
+
+        var conceptLabels = sut.listAllConcepts(kb, false).stream().map(KBObject::getName);
+        assertThat(conceptLabels).as("Check that concepts all have been imported")
+                .containsExactlyInAnyOrder("Animal", "Character", "Cat", "Dog");
+
+        var builder = SPARQLQueryBuilder.forInstances(kb).withLabelStartingWith("Sock");
+        List<KBHandle> results;
+        try (var conn = sut.getConnection(kb)) {
+            results = builder.asHandles(conn, true);
+        }
+        assertThat(results).as("Check that the imported labels have been indexed")
+                .extracting(KBHandle::getIdentifier) //
+                .containsExactly("http://mbugert.de/pets#socke");
+    }
+
     @Test
     public void importData_WithMisTypedStatements_ShouldImportWithoutError() throws Exception
     {
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.kb.labelindex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class LabelIndexTest
+{
+    private LabelIndex sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        sut = new LabelIndex.Builder() //
+                .add("green-goblin", "Green Goblin") //
+                .add("green-goblin", "Grüner Goblin") //
+                .add("lucky-green", "Lucky\tGreen") //
+                .add("red-goblin", "Red Goblin") //
+                .add("blank", "  ") //
+                .build();
+    }
+
+    @Test
+    public void thatLabelsAreCounted()
+    {
+        assertThat(sut.getLabelCount()).isEqualTo(4);
+        assertThat(sut.getSubjectCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatPrefixLookupIsCaseAndWhitespaceInsensitive()
+    {
+        assertThat(sut.subjectsWithLabelStartingWith("gr", 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects)
+                        .containsExactlyInAnyOrder("green-goblin"));
+        assertThat(sut.subjectsWithLabelStartingWith("LUCKY  gr", 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects)
+                        .containsExactlyInAnyOrder("lucky-green"));
+        assertThat(sut.subjectsWithLabelStartingWith("green ", 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects)
+                        .containsExactlyInAnyOrder("green-goblin"));
+        assertThat(sut.subjectsWithLabelStartingWith("blue", 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects).isEmpty());
+    }
+
+    @Test
+    public void thatFuzzyLookupMatchesTokens()
+    {
+        assertThat(sut.subjectsWithTokenMatching(List.of("Gobiln"), new int[] { 2 }, 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects)
+                        .containsExactlyInAnyOrder("green-goblin", "red-goblin"));
+        assertThat(sut.subjectsWithTokenMatching(List.of("Gobiln"), new int[] { 0 }, 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects).isEmpty());
+        assertThat(sut.subjectsWithTokenMatching(List.of("lucky", "red"), new int[] { 0, 0 }, 10)) //
+                .hasValueSatisfying(subjects -> assertThat(subjects)
+                        .containsExactlyInAnyOrder("lucky-green", "red-goblin"));
+    }
+
+    @Test
+    public void thatTooManyMatchesAreNotReturned()
+    {
+        assertThat(sut.subjectsWithLabelStartingWith("", 2)).isEmpty();
+        assertThat(sut.subjectsWithTokenMatching(List.of("green"), new int[] { 1 }, 1)).isEmpty();
+    }
+
+    @Test
+    public void thatFuzzyLookupAgreesWithNaiveSearch()
+    {
+        var rnd = new Random(42);
+        var alphabet = "abcd";
+
+        var builder = new LabelIndex.Builder();
+        var tokens = new HashMap<String, List<String>>();
+        for (var i = 0; i < 2000; i++) {
+            var subject = "s" + rnd.nextInt(1000);
+            var label = randomString(rnd, alphabet, 1 + rnd.nextInt(6)) + " "
+                    + randomString(rnd, alphabet, 1 + rnd.nextInt(6));
+            builder.add(subject, label);
+            tokens.computeIfAbsent(subject, $ -> new ArrayList<>())
+                    .addAll(List.of(LabelIndex.tokenize(label)));
+        }
+        var index = builder.build();
+
+        for (var i = 0; i < 200; i++) {
+            var term = randomString(rnd, alphabet, 1 + rnd.nextInt(5));
+            var maxEdits = rnd.nextInt(3);
+
+            var expected = new TreeSet<String>();
+            tokens.forEach((subject, subjectTokens) -> {
+                if (subjectTokens.stream().anyMatch(t -> distance(t, term) <= maxEdits)) {
+                    expected.add(subject);
+                }
+            });
+
+            assertThat(index.subjectsWithTokenMatching(List.of(term), new int[] { maxEdits },
+                    Integer.MAX_VALUE)) //
+                            .hasValueSatisfying(subjects -> assertThat(subjects)
+                                    .containsExactlyInAnyOrderElementsOf(expected));
+        }
+    }
+
+    private static String randomString(Random aRnd, String aAlphabet, int aLength)
+    {
+        var sb = new StringBuilder();
+        for (var i = 0; i < aLength; i++) {
+            sb.append(aAlphabet.charAt(aRnd.nextInt(aAlphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static int distance(String aA, String aB)
+    {
+        var d = new int[aA.length() + 1][aB.length() + 1];
+        for (var i = 0; i <= aA.length(); i++) {
+            d[i][0] = i;
+        }
+        for (var j = 0; j <= aB.length(); j++) {
+            d[0][j] = j;
+        }
+        for (var i = 1; i <= aA.length(); i++) {
+            for (var j = 1; j <= aB.length(); j++) {
+                var cost = aA.charAt(i - 1) == aB.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1),
+                        d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[aA.length()][aB.length()];
+    }
+}
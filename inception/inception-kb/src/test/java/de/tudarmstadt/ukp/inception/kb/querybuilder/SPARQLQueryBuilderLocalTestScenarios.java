@@ -58,6 +58,7 @@ import org.junit.jupiter.api.TestInfo;
 
 import de.tudarmstadt.ukp.inception.kb.RepositoryType;
 import de.tudarmstadt.ukp.inception.kb.graph.KBHandle;
+import de.tudarmstadt.ukp.inception.kb.labelindex.LabelIndex;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 
 public class SPARQLQueryBuilderLocalTestScenarios
@@ -261,6 +262,10 @@ public class SPARQLQueryBuilderLocalTestScenarios
                         SPARQLQueryBuilderLocalTestScenarios::testWithLabelMatchingAnyOf_withLanguage),
                 new Scenario("testWithLabelMatchingAnyOf_withLanguage_noFTS",
                         SPARQLQueryBuilderLocalTestScenarios::testWithLabelMatchingAnyOf_withLanguage_noFTS),
+                new Scenario("testWithLabelMatchingAnyOf_withLabelIndex",
+                        SPARQLQueryBuilderLocalTestScenarios::testWithLabelMatchingAnyOf_withLabelIndex),
+                new Scenario("testWithLabelStartingWith_withLabelIndex",
+                        SPARQLQueryBuilderLocalTestScenarios::testWithLabelStartingWith_withLabelIndex),
                 new Scenario("testWithLabelStartingWith_withoutLanguage",
                         SPARQLQueryBuilderLocalTestScenarios::testWithLabelStartingWith_withoutLanguage),
                 new Scenario("testWithLabelStartingWith_withoutLanguage_noFTS",
@@ -1017,6 +1022,27 @@ public class SPARQLQueryBuilderLocalTestScenarios
                                 "http://example.org/#green-goblin", "Green Goblin", null, "en"));
     }
 
+    static void testWithLabelMatchingAnyOf_withLabelIndex(Repository aRepository,
+            KnowledgeBase aKB)
+        throws Exception
+    {
+        importDataFromString(aRepository, aKB, TURTLE, TURTLE_PREFIX,
+                DATA_LABELS_AND_DESCRIPTIONS_WITH_LANGUAGE);
+
+        var results = asHandles(aRepository, SPARQLQueryBuilder //
+                .forItems(aKB) //
+                .withLabelIndex(buildLabelIndex(aRepository, aKB)) //
+                .withLabelMatchingAnyOf("Gobli"));
+
+        assertThat(results).extracting(KBHandle::getUiLabel)
+                .allMatch(label -> label.contains("Goblin"));
+        assertThat(results).extracting(KBHandle::getIdentifier).doesNotHaveDuplicates();
+        assertThat(results).usingRecursiveFieldByFieldElementComparatorOnFields("identifier",
+                "name", "language").containsExactlyInAnyOrder(
+                        new KBHandle("http://example.org/#red-goblin", "Red Goblin"), new KBHandle(
+                                "http://example.org/#green-goblin", "Green Goblin", null, "en"));
+    }
+
     static void testWithLabelContainingAnyOf_withLanguage_noFTS(Repository aRepository,
             KnowledgeBase aKB)
         throws Exception
@@ -1132,6 +1158,28 @@ public class SPARQLQueryBuilderLocalTestScenarios
                         new KBHandle("http://example.org/#green-goblin", "Green Goblin"));
     }
 
+    static void testWithLabelStartingWith_withLabelIndex(Repository aRepository,
+            KnowledgeBase aKB)
+        throws Exception
+    {
+        importDataFromString(aRepository, aKB, TURTLE, TURTLE_PREFIX,
+                DATA_LABELS_AND_DESCRIPTIONS_WITH_LANGUAGE);
+
+        var results = asHandles(aRepository, SPARQLQueryBuilder //
+                .forItems(aKB) //
+                .withLabelIndex(buildLabelIndex(aRepository, aKB)) //
+                .withLabelStartingWith("Green  gob"));
+
+        assertThat(results).extracting(KBHandle::getUiLabel)
+                .allMatch(label -> label.startsWith("Green"));
+        assertThat(results).extracting(KBHandle::getIdentifier).doesNotHaveDuplicates();
+        assertThat(results)
+                .usingRecursiveFieldByFieldElementComparatorOnFields("identifier", "name",
+                        "language")
+                .containsExactlyInAnyOrder(new KBHandle("http://example.org/#green-goblin",
+                        "Green Goblin", null, "en"));
+    }
+
     static void testWithLabelStartingWith_withLanguage_noFTS(Repository aRepository,
             KnowledgeBase aKB)
         throws Exception
@@ -1297,6 +1345,13 @@ public class SPARQLQueryBuilderLocalTestScenarios
                 "Lexical domain", "Part of speech", "Phrase type", "Synset");
     }
 
+    static LabelIndex buildLabelIndex(Repository aRepository, KnowledgeBase aKB)
+    {
+        try (var conn = aRepository.getConnection()) {
+            return LabelIndex.load(aKB, conn, 1000).get();
+        }
+    }
+
     static void importDataFromFile(Repository aRepository, KnowledgeBase aKB, String aFilename)
         throws IOException
     {
@@ -163,7 +163,8 @@ public class EventLoggingListener
                     batch.add(queue.pop());
                 }
 
-                // And dump them into the database
+                // And dump them into the database - this also updates the summary and activity
+                // rollups which serve the activity dashboards
                 repo.create(batch.toArray(new LoggedEvent[batch.size()]));
             }
             finally {
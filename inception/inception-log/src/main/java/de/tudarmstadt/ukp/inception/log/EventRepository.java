@@ -90,6 +90,19 @@ public interface EventRepository
     List<LoggedEvent> listLoggedEventsForDetail(Project aProject, String aUsername,
             String aEventType, int aMaxSize, String aDetail);
 
+    /**
+     * @return the latest event for each of the most recently active document/annotator
+     *         combinations. This is served from the activity rollups.
+     * 
+     * @param aProject
+     *            the project to query the events from
+     * @param aUsername
+     *            the user who generated the events
+     * @param aEventTypes
+     *            the types of event to consider
+     * @param aMaxSize
+     *            the maximum number of events to return
+     */
     List<LoggedEvent> listRecentActivity(Project aProject, String aUsername,
             Collection<String> aEventTypes, int aMaxSize);
 
@@ -103,6 +116,19 @@ public interface EventRepository
      */
     List<LoggedEvent> listRecentActivity(String aUsername, int aMaxSize);
 
-    List<SummarizedLoggedEvent> summarizeEvents(String aUsername, Project aProject, Instant aNow,
-            Instant aMinus);
+    /**
+     * @return the number of events per type, document and day. This is served from the daily
+     *         summary rollups, so the range is extended to full days (UTC).
+     * 
+     * @param aUsername
+     *            the user who generated the events
+     * @param aProject
+     *            the project to query the events from
+     * @param aFrom
+     *            the first day to include
+     * @param aTo
+     *            the last day to include
+     */
+    List<SummarizedLoggedEvent> summarizeEvents(String aUsername, Project aProject, Instant aFrom,
+            Instant aTo);
 }
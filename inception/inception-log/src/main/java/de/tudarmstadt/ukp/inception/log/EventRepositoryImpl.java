@@ -18,18 +18,21 @@
 package de.tudarmstadt.ukp.inception.log;
 
 import static java.lang.String.join;
-import static java.time.temporal.ChronoUnit.DAYS;
+import static java.time.ZoneOffset.UTC;
+import static java.util.Collections.emptyList;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
 
 import java.lang.invoke.MethodHandles;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.Objects;
 import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
@@ -47,7 +50,8 @@ import org.springframework.transaction.annotation.Transactional;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.log.config.EventLoggingAutoConfiguration;
 import de.tudarmstadt.ukp.inception.log.model.LoggedEvent;
-import de.tudarmstadt.ukp.inception.log.model.LoggedEvent_;
+import de.tudarmstadt.ukp.inception.log.model.LoggedEventActivity;
+import de.tudarmstadt.ukp.inception.log.model.LoggedEventSummary;
 import de.tudarmstadt.ukp.inception.log.model.SummarizedLoggedEvent;
 
 /**
@@ -59,8 +63,6 @@ import de.tudarmstadt.ukp.inception.log.model.SummarizedLoggedEvent;
 public class EventRepositoryImpl
     implements EventRepository
 {
-    private static final int RECENT_ACTIVITY_HORIZON = 3500;
-
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
     private @PersistenceContext EntityManager entityManager;
@@ -80,6 +82,7 @@ public class EventRepositoryImpl
             LOG.trace("{}", event);
             entityManager.persist(event);
         }
+        updateRollups(aEvents);
         long duration = System.currentTimeMillis() - start;
 
         if (aEvents.length > 0 && !LOG.isTraceEnabled()) {
@@ -87,6 +90,91 @@ public class EventRepositoryImpl
         }
     }
 
+    /**
+     * Updates the daily summaries and the latest activities for the given events. The events are
+     * aggregated first so that the rollups are touched once per key and not once per event.
+     */
+    private void updateRollups(LoggedEvent... aEvents)
+    {
+        var counts = new LinkedHashMap<SummaryKey, Long>();
+        var latest = new LinkedHashMap<ActivityKey, LoggedEvent>();
+        for (var event : aEvents) {
+            var date = LocalDate.ofInstant(event.getCreated().toInstant(), UTC);
+            counts.merge(new SummaryKey(event.getUser(), event.getProject(), event.getDocument(),
+                    event.getEvent(), date), 1L, Long::sum);
+            latest.merge(
+                    new ActivityKey(event.getUser(), event.getProject(), event.getDocument(),
+                            event.getAnnotator(), event.getEvent()),
+                    event, (a, b) -> a.getCreated().after(b.getCreated()) ? a : b);
+        }
+
+        counts.forEach(this::incrementSummary);
+        latest.values().forEach(this::updateActivity);
+    }
+
+    private void incrementSummary(SummaryKey aKey, long aCount)
+    {
+        var query = join("\n", //
+                "UPDATE LoggedEventSummary s", //
+                "SET    s.count = s.count + :count", //
+                "WHERE  s.user = :user", //
+                "  AND  s.project = :project", //
+                "  AND  s.document = :document", //
+                "  AND  s.event = :event", //
+                "  AND  s.date = :date");
+
+        // Incrementing in the database (instead of loading and updating the entity) ensures that
+        // no counts get lost if events are stored concurrently, e.g. during a project import
+        var updated = entityManager.createQuery(query) //
+                .setParameter("count", aCount) //
+                .setParameter("user", aKey.user()) //
+                .setParameter("project", aKey.project()) //
+                .setParameter("document", aKey.document()) //
+                .setParameter("event", aKey.event()) //
+                .setParameter("date", aKey.date()) //
+                .executeUpdate();
+
+        if (updated == 0) {
+            entityManager.persist(new LoggedEventSummary(aKey.user(), aKey.project(),
+                    aKey.document(), aKey.event(), aKey.date(), aCount));
+        }
+    }
+
+    private void updateActivity(LoggedEvent aEvent)
+    {
+        var query = join("\n", //
+                "FROM  LoggedEventActivity", //
+                "WHERE user = :user", //
+                "  AND project = :project", //
+                "  AND document = :document", //
+                "  AND event = :event", //
+                aEvent.getAnnotator() != null //
+                        ? "  AND annotator = :annotator" //
+                        : "  AND annotator IS NULL");
+
+        var typedQuery = entityManager.createQuery(query, LoggedEventActivity.class) //
+                .setParameter("user", aEvent.getUser()) //
+                .setParameter("project", aEvent.getProject()) //
+                .setParameter("document", aEvent.getDocument()) //
+                .setParameter("event", aEvent.getEvent());
+        if (aEvent.getAnnotator() != null) {
+            typedQuery.setParameter("annotator", aEvent.getAnnotator());
+        }
+
+        var activities = typedQuery.getResultList();
+        if (activities.isEmpty()) {
+            entityManager.persist(new LoggedEventActivity(aEvent));
+            return;
+        }
+
+        // Events imported from an older project may be older than the events we already know
+        for (var activity : activities) {
+            if (activity.getCreated().getTime() <= aEvent.getCreated().getTime()) {
+                activity.update(aEvent);
+            }
+        }
+    }
+
     @Override
     @Transactional
     public List<LoggedEvent> listLoggedEventsForRecommender(Project aProject, String aUsername,
@@ -156,38 +244,57 @@ public class EventRepositoryImpl
     public List<LoggedEvent> listRecentActivity(Project aProject, String aUsername,
             Collection<String> aEventTypes, int aMaxSize)
     {
+        if (aEventTypes.isEmpty() || aMaxSize <= 0) {
+            return emptyList();
+        }
+
         var query = join("\n", //
-                "FROM  LoggedEvent", //
+                "FROM  LoggedEventActivity", //
                 "WHERE user = :user", //
                 "  AND project = :project", //
                 "  AND event in (:eventTypes)", //
                 "ORDER BY created DESC");
 
-        var result = entityManager.createQuery(query, LoggedEvent.class) //
+        // There is at most one activity per event type for any document/annotator combination,
+        // so this is sufficient to find the requested number of combinations
+        var activities = entityManager.createQuery(query, LoggedEventActivity.class) //
                 .setParameter("user", aUsername) //
                 .setParameter("project", aProject.getId()) //
                 .setParameter("eventTypes", aEventTypes) //
-                .setMaxResults(RECENT_ACTIVITY_HORIZON) //
+                .setMaxResults(aMaxSize * aEventTypes.size()) //
                 .getResultList();
 
-        var reducedResults = new ArrayList<LoggedEvent>();
+        var eventIds = new ArrayList<Long>();
         var documentsSeen = new HashSet<Pair<Long, String>>();
 
-        var i = result.iterator();
-        while (i.hasNext() && reducedResults.size() < aMaxSize) {
-            LoggedEvent event = i.next();
+        var i = activities.iterator();
+        while (i.hasNext() && eventIds.size() < aMaxSize) {
+            var activity = i.next();
 
             // Check if we already have the latest event of this doc/annotator combination
-            var doc = Pair.of(event.getDocument(), event.getAnnotator());
+            var doc = Pair.of(activity.getDocument(), activity.getAnnotator());
             if (documentsSeen.contains(doc)) {
                 continue;
             }
 
-            reducedResults.add(event);
+            eventIds.add(activity.getLastEvent());
             documentsSeen.add(doc);
         }
 
-        return reducedResults;
+        if (eventIds.isEmpty()) {
+            return emptyList();
+        }
+
+        var events = entityManager
+                .createQuery("FROM LoggedEvent WHERE id IN (:ids)", LoggedEvent.class) //
+                .setParameter("ids", eventIds) //
+                .getResultStream() //
+                .collect(toMap(LoggedEvent::getId, identity()));
+
+        return eventIds.stream() //
+                .map(events::get) //
+                .filter(Objects::nonNull) //
+                .toList();
     }
 
     @Override
@@ -223,39 +330,34 @@ public class EventRepositoryImpl
     }
 
     @Override
+    @Transactional
     public List<SummarizedLoggedEvent> summarizeEvents(String aUsername, Project aProject,
             Instant aFrom, Instant aTo)
     {
-        var cb = entityManager.getCriteriaBuilder();
-        var query = cb.createQuery(Tuple.class);
-        var root = query.from(LoggedEvent.class);
-
-        query //
-                .multiselect( //
-                        root.get(LoggedEvent_.created), //
-                        root.get(LoggedEvent_.document), //
-                        root.get(LoggedEvent_.event))
-                .where( //
-                        cb.equal(root.get(LoggedEvent_.user), aUsername), //
-                        cb.equal(root.get(LoggedEvent_.project), aProject.getId()), //
-                        cb.between(root.get(LoggedEvent_.created), Date.from(aFrom),
-                                Date.from(aTo)));
-
-        var aggregator = new HashMap<SummarizedLoggedEventKey, AtomicLong>();
-
-        entityManager.createQuery(query).getResultStream().forEach(tuple -> {
-            var truncDate = tuple.get(0, Date.class).toInstant().truncatedTo(DAYS);
-            var document = tuple.get(1, Long.class);
-            var event = tuple.get(2, String.class);
-            var key = new SummarizedLoggedEventKey(event, truncDate, document);
-            aggregator.computeIfAbsent(key, $ -> new AtomicLong()).addAndGet(1);
-        });
-
-        return aggregator.entrySet().stream() //
-                .map(e -> new SummarizedLoggedEvent(e.getKey().event(), e.getKey().document(),
-                        e.getKey().date(), e.getValue().get())) //
+        var query = join("\n", //
+                "SELECT s.event, s.document, s.date, SUM(s.count)", //
+                "FROM   LoggedEventSummary s", //
+                "WHERE  s.user = :user", //
+                "  AND  s.project = :project", //
+                "  AND  s.date BETWEEN :from AND :to", //
+                "GROUP BY s.event, s.document, s.date");
+
+        return entityManager.createQuery(query, Tuple.class) //
+                .setParameter("user", aUsername) //
+                .setParameter("project", aProject.getId()) //
+                .setParameter("from", LocalDate.ofInstant(aFrom, UTC)) //
+                .setParameter("to", LocalDate.ofInstant(aTo, UTC)) //
+                .getResultStream() //
+                .map(tuple -> new SummarizedLoggedEvent(tuple.get(0, String.class),
+                        tuple.get(1, Long.class),
+                        tuple.get(2, LocalDate.class).atStartOfDay(UTC).toInstant(),
+                        tuple.get(3, Number.class).longValue())) //
                 .toList();
     }
 
-    private static record SummarizedLoggedEventKey(String event, Instant date, long document) {}
+    private static record SummaryKey(String user, long project, long document, String event,
+            LocalDate date) {}
+
+    private static record ActivityKey(String user, long project, long document, String annotator,
+            String event) {}
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log.model;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+
+/**
+ * Points to the latest event of a given type that a user triggered on a given annotation document.
+ * These rollups are maintained incrementally when events are stored and allow listing the recent
+ * activity of a user without having to scan the raw events.
+ */
+@Entity
+@Table(name = "logged_event_activity")
+public class LoggedEventActivity
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String user;
+
+    @Column(nullable = false)
+    private long project;
+
+    @Column(nullable = false)
+    private long document;
+
+    @Column(nullable = true)
+    private String annotator;
+
+    @Column(nullable = false)
+    private String event;
+
+    /**
+     * The time at which the latest event was created.
+     */
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(nullable = false)
+    private Date created;
+
+    /**
+     * The ID of the latest {@link LoggedEvent}.
+     */
+    @Column(name = "lastEvent", nullable = false)
+    private long lastEvent;
+
+    public LoggedEventActivity()
+    {
+        // Needed by JPA
+    }
+
+    public LoggedEventActivity(LoggedEvent aEvent)
+    {
+        user = aEvent.getUser();
+        project = aEvent.getProject();
+        document = aEvent.getDocument();
+        annotator = aEvent.getAnnotator();
+        event = aEvent.getEvent();
+        created = aEvent.getCreated();
+        lastEvent = aEvent.getId();
+    }
+
+    /**
+     * Makes the given event the latest event of this activity.
+     * 
+     * @param aEvent
+     *            the event.
+     */
+    public void update(LoggedEvent aEvent)
+    {
+        created = aEvent.getCreated();
+        lastEvent = aEvent.getId();
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
+    public long getProject()
+    {
+        return project;
+    }
+
+    public long getDocument()
+    {
+        return document;
+    }
+
+    public String getAnnotator()
+    {
+        return annotator;
+    }
+
+    public String getEvent()
+    {
+        return event;
+    }
+
+    public Date getCreated()
+    {
+        return created;
+    }
+
+    public long getLastEvent()
+    {
+        return lastEvent;
+    }
+}
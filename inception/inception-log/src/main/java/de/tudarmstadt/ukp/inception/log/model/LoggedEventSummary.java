@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log.model;
+
+import java.time.LocalDate;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Number of events of a given type that a user triggered on a given (UTC) day for a given document.
+ * These rollups are maintained incrementally when events are stored and allow summarizing the
+ * activity of a user without having to scan the raw events. There may be more than one row for
+ * the same key, so readers must sum up the counts.
+ */
+@Entity
+@Table(name = "logged_event_summary")
+public class LoggedEventSummary
+{
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String user;
+
+    @Column(nullable = false)
+    private long project;
+
+    @Column(nullable = false)
+    private long document;
+
+    @Column(nullable = false)
+    private String event;
+
+    @Column(name = "eventDate", nullable = false)
+    private LocalDate date;
+
+    @Column(name = "eventCount", nullable = false)
+    private long count;
+
+    public LoggedEventSummary()
+    {
+        // Needed by JPA
+    }
+
+    public LoggedEventSummary(String aUser, long aProject, long aDocument, String aEvent,
+            LocalDate aDate, long aCount)
+    {
+        user = aUser;
+        project = aProject;
+        document = aDocument;
+        event = aEvent;
+        date = aDate;
+        count = aCount;
+    }
+
+    public Long getId()
+    {
+        return id;
+    }
+
+    public String getUser()
+    {
+        return user;
+    }
+
+    public long getProject()
+    {
+        return project;
+    }
+
+    public long getDocument()
+    {
+        return document;
+    }
+
+    public String getEvent()
+    {
+        return event;
+    }
+
+    public LocalDate getDate()
+    {
+        return date;
+    }
+
+    public long getCount()
+    {
+        return count;
+    }
+}
@@ -30,8 +30,10 @@ import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 
 import org.apache.uima.util.CasCreationUtils;
 import org.junit.jupiter.api.AfterEach;
@@ -315,6 +317,57 @@ public class EventRepositoryImplIntegrationTest
                 .containsExactly(tuple("SpanCreatedEvent", 5L));
     }
 
+    @Test
+    void summarizeEvents_WithEventsStoredInSeveralBatches_ShouldSumUpCounts()
+    {
+        var today = LocalDate.now(ZoneOffset.UTC);
+        var noon = Date.from(today.atTime(LocalTime.NOON).atZone(ZoneOffset.UTC).toInstant());
+        var yesterdayNoon = Date.from(
+                today.minusDays(1).atTime(LocalTime.NOON).atZone(ZoneOffset.UTC).toInstant());
+
+        sut.create(buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, noon, 1, null),
+                buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, noon, 1, null),
+                buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, yesterdayNoon, 1, null));
+        sut.create(buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, noon, 1, null),
+                buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, noon, 2, null));
+
+        var begin = today.minusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        var end = today.atTime(LocalTime.MAX).atZone(ZoneOffset.UTC).toInstant();
+
+        assertThat(sut.summarizeEvents(USERNAME, project, begin, end)) //
+                .extracting(SummarizedLoggedEvent::getDocument, SummarizedLoggedEvent::getDate,
+                        SummarizedLoggedEvent::getCount) //
+                .containsExactlyInAnyOrder( //
+                        tuple(1L, today.atStartOfDay(ZoneOffset.UTC).toInstant(), 3L), //
+                        tuple(1L, begin, 1L), //
+                        tuple(2L, today.atStartOfDay(ZoneOffset.UTC).toInstant(), 1L));
+
+        assertThat(sut.summarizeEvents(USERNAME, project, end, end)) //
+                .extracting(SummarizedLoggedEvent::getCount) //
+                .containsExactlyInAnyOrder(3L, 1L);
+    }
+
+    @Test
+    void listRecentActivity_ShouldReturnLatestEventPerDocumentAndAnnotator()
+    {
+        var e1 = buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, new Date(1000), 1, null);
+        e1.setAnnotator(USERNAME);
+        var e2 = buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, new Date(3000), 1, null);
+        e2.setAnnotator(USERNAME);
+        var e3 = buildLoggedEvent(project, USERNAME, SPAN_CREATED_EVENT, new Date(2000), 2, null);
+        e3.setAnnotator(USERNAME);
+        var e4 = buildLoggedEvent(project, USERNAME, EVENT_TYPE_AFTER_ANNO_EVENT, new Date(4000),
+                3, null);
+        e4.setAnnotator(USERNAME);
+        sut.create(e1, e3);
+        sut.create(e2, e4);
+
+        assertThat(sut.listRecentActivity(project, USERNAME, List.of(SPAN_CREATED_EVENT), 10)) //
+                .containsExactly(e2, e3);
+        assertThat(sut.listRecentActivity(project, USERNAME, List.of(SPAN_CREATED_EVENT), 1)) //
+                .containsExactly(e2);
+    }
+
     // Helper
     private Project createProject(String aName)
     {
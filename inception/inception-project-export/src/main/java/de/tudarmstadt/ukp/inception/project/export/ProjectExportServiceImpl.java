@@ -28,12 +28,12 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationWords;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Deque;
-import java.util.Enumeration;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -47,6 +47,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.io.FileUtils;
@@ -67,6 +68,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ConcurrentReferenceHashMap;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectArchive;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportException;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportRequest_ImplBase;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskHandle;
@@ -203,14 +205,17 @@ public class ProjectExportServiceImpl
             exportTempDir.delete();
             exportTempDir.mkdirs();
 
-            ExportedProject exProjekt = exportProjectToPath(aRequest, aMonitor, exportTempDir);
+            // Exporters may write large data directly into the archive - everything else is
+            // staged in the temporary directory and added to the archive at the end
+            try (var zip = new ZipOutputStream(new FileOutputStream(projectZipFile))) {
+                ExportedProject exProjekt = exportProjectToPath(aRequest, aMonitor, exportTempDir,
+                        zip);
 
-            // all metadata and project settings data from the database as JSON file
-            File projectSettings = new File(exportTempDir, EXPORTED_PROJECT + ".json");
-            JSONUtil.generatePrettyJson(exProjekt, projectSettings);
+                // all metadata and project settings data from the database as JSON file
+                File projectSettings = new File(exportTempDir, EXPORTED_PROJECT + ".json");
+                JSONUtil.generatePrettyJson(exProjekt, projectSettings);
 
-            try {
-                ZipUtils.zipFolder(exportTempDir, projectZipFile);
+                ZipUtils.zipFolder(exportTempDir, zip);
             }
             finally {
                 System.gc();
@@ -220,7 +225,7 @@ public class ProjectExportServiceImpl
             success = true;
         }
         finally {
-            if (!success && exportTempDir != null) {
+            if (!success && exportTempDir != null && exportTempDir.exists()) {
                 try {
                     FileUtils.forceDelete(exportTempDir);
                 }
@@ -234,7 +239,7 @@ public class ProjectExportServiceImpl
     }
 
     private ExportedProject exportProjectToPath(FullProjectExportRequest aRequest,
-            ProjectExportTaskMonitor aMonitor, File aStage)
+            ProjectExportTaskMonitor aMonitor, File aStage, ZipOutputStream aZip)
         throws ProjectExportException, IOException, InterruptedException
     {
         Deque<ProjectExporter> deque = new LinkedList<>(exporters);
@@ -255,7 +260,7 @@ public class ProjectExportServiceImpl
 
                 if (exportersSeen.containsAll(exporter.getExportDependencies())) {
                     log.debug("Applying project exporter: {}", exporter);
-                    exporter.exportData(aRequest, aMonitor, exProject, aStage);
+                    exporter.exportData(aRequest, aMonitor, exProject, aStage, aZip);
                     exportersSeen.add(exporter.getClass());
                     exportersDeferred.clear();
                 }
@@ -297,7 +302,10 @@ public class ProjectExportServiceImpl
         Project project = new Project();
 
         try {
-            ExportedProject exProject = loadExportedProject(aZip);
+            // Scan the archive only once - the importers look up their entries in the index
+            var archive = new ProjectArchive(aZip);
+
+            ExportedProject exProject = loadExportedProject(archive);
 
             project.setName(exProject.getName());
 
@@ -324,7 +332,7 @@ public class ProjectExportServiceImpl
 
                 if (initsSeen.containsAll(importer.getImportDependencies())) {
                     log.debug("Applying project importer: {}", importer);
-                    importer.importData(aRequest, project, exProject, aZip);
+                    importer.importData(aRequest, project, exProject, archive);
                     initsSeen.add(importer.getClass());
                     initsDeferred.clear();
                 }
@@ -348,12 +356,15 @@ public class ProjectExportServiceImpl
     }
 
     public static ExportedProject loadExportedProject(ZipFile aZip) throws IOException
+    {
+        return loadExportedProject(new ProjectArchive(aZip));
+    }
+
+    public static ExportedProject loadExportedProject(ProjectArchive aArchive) throws IOException
     {
         // Locate the project model in the ZIP file
         ZipEntry projectSettingsEntry = null;
-        for (Enumeration<? extends ZipEntry> zipEnumerate = aZip.entries(); zipEnumerate
-                .hasMoreElements();) {
-            ZipEntry entry = (ZipEntry) zipEnumerate.nextElement();
+        for (var entry : aArchive.getEntries()) {
             if (entry.toString().replace("/", "").startsWith(EXPORTED_PROJECT)
                     && entry.toString().replace("/", "").endsWith(".json")) {
                 projectSettingsEntry = entry;
@@ -367,7 +378,7 @@ public class ProjectExportServiceImpl
 
         // Load the project model from the JSON file
         String text;
-        try (InputStream is = aZip.getInputStream(projectSettingsEntry)) {
+        try (InputStream is = aArchive.getInputStream(projectSettingsEntry)) {
             text = IOUtils.toString(is, "UTF-8");
         }
         ExportedProject exProject = JSONUtil.getObjectMapper().readValue(text,
@@ -18,16 +18,25 @@
 package de.tudarmstadt.ukp.inception.project.export;
 
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.list;
 import static org.apache.commons.io.FilenameUtils.removeExtension;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.junit.jupiter.api.BeforeEach;
@@ -38,13 +47,20 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectArchive;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectImportRequest;
 import de.tudarmstadt.ukp.clarin.webanno.diag.ChecksRegistry;
 import de.tudarmstadt.ukp.clarin.webanno.diag.RepairsRegistry;
 import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
 import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedSourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceImpl;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
 import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCachePropertiesImpl;
@@ -70,6 +86,7 @@ public class AnnotationDocumentsExporterTest
     private CasStorageServiceImpl casStorageService;
 
     private @Mock DocumentService documentService;
+    private @Mock UserDao userRepository;
     private @Mock AnnotationSchemaService schemaService;
     private @Mock ChecksRegistry checksRegistry;
     private @Mock RepairsRegistry repairsRegistry;
@@ -104,7 +121,7 @@ public class AnnotationDocumentsExporterTest
                 casStorageService, schemaService, properties, checksRegistry, repairsRegistry,
                 xmiFormatSupport);
 
-        sut = new AnnotationDocumentExporter(documentService, null, importExportSerivce,
+        sut = new AnnotationDocumentExporter(documentService, userRepository, importExportSerivce,
                 repositoryProperties);
     }
 
@@ -122,6 +139,105 @@ public class AnnotationDocumentsExporterTest
                 .containsExactlyInAnyOrder(INITIAL_CAS_PSEUDO_USER, "admin");
     }
 
+    @Test
+    public void thatAnnotationDocumentsAreWrittenToArchiveInDocumentOrder() throws Exception
+    {
+        var docs = new ArrayList<SourceDocument>();
+        var annDocs = new ArrayList<AnnotationDocument>();
+        for (long i = 1; i <= 25; i++) {
+            var doc = new SourceDocument("doc" + i + ".txt", project, "text");
+            doc.setId(i);
+            docs.add(doc);
+
+            var annDoc = new AnnotationDocument("anno", doc);
+            annDoc.setState(AnnotationDocumentState.IN_PROGRESS);
+            annDocs.add(annDoc);
+        }
+
+        when(documentService.listSourceDocuments(project)).thenReturn(docs);
+        when(documentService.listAnnotationDocuments(project)).thenReturn(annDocs);
+        when(documentService.existsInitialCas(any())).thenReturn(true);
+        when(documentService.existsCas(any(AnnotationDocument.class))).thenReturn(true);
+        when(userRepository.get("anno")).thenReturn(new User("anno"));
+        doAnswer(call -> {
+            SourceDocument doc = call.getArgument(0);
+            OutputStream os = call.getArgument(2);
+            os.write((doc.getName() + "/" + call.getArgument(1)).getBytes(UTF_8));
+            return null;
+        }).when(documentService).exportCas(any(), anyString(), any());
+
+        var request = new FullProjectExportRequest(project, null, true);
+        var monitor = new ProjectExportTaskMonitor(project, null, "test");
+        var exProject = new ExportedProject();
+        var stage = new File(workFolder, "stage");
+        var archive = new File(workFolder, "export.zip");
+
+        try (var zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            sut.exportData(request, monitor, exProject, stage, zip);
+        }
+
+        var expectedEntries = new ArrayList<String>();
+        for (var doc : docs) {
+            expectedEntries.add("annotation_ser/" + doc.getName() + "/" + INITIAL_CAS_PSEUDO_USER
+                    + ".ser");
+            expectedEntries.add("annotation_ser/" + doc.getName() + "/anno.ser");
+        }
+
+        try (var zip = new ZipFile(archive)) {
+            assertThat(list(zip.entries())) //
+                    .extracting(ZipEntry::getName) //
+                    .containsExactlyElementsOf(expectedEntries);
+
+            var entry = zip.getEntry("annotation_ser/doc7.txt/anno.ser");
+            assertThat(new String(zip.getInputStream(entry).readAllBytes(), UTF_8)) //
+                    .isEqualTo("doc7.txt/anno");
+        }
+
+        assertThat(exProject.getAnnotationDocuments()).hasSize(annDocs.size());
+        assertThat(stage).doesNotExist();
+    }
+
+    @Test
+    public void thatStoredAndCompressedEntriesAreImported() throws Exception
+    {
+        var docs = new ArrayList<SourceDocument>();
+        for (long i = 1; i <= 10; i++) {
+            var doc = new SourceDocument("doc" + i + ".txt", project, "text");
+            doc.setId(i);
+            docs.add(doc);
+        }
+
+        when(documentService.listSourceDocuments(project)).thenReturn(docs);
+
+        var archive = new File(workFolder, "import.zip");
+        try (var zip = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (var doc : docs) {
+                var data = (doc.getName() + "/anno").getBytes(UTF_8);
+                var entry = new ZipEntry("annotation_ser/" + doc.getName() + "/anno.ser");
+                if (doc.getId() % 2 == 0) {
+                    var crc = new CRC32();
+                    crc.update(data);
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(data.length);
+                    entry.setCrc(crc.getValue());
+                }
+                zip.putNextEntry(entry);
+                zip.write(data);
+                zip.closeEntry();
+            }
+        }
+
+        try (var zip = new ZipFile(archive)) {
+            sut.importData(new ProjectImportRequest(true), project, new ExportedProject(),
+                    new ProjectArchive(zip));
+        }
+
+        for (var doc : docs) {
+            var serFile = new File(driver.getAnnotationFolder(doc), "anno.ser");
+            assertThat(serFile).hasContent(doc.getName() + "/anno");
+        }
+    }
+
     private List<Pair<SourceDocument, String>> runImportAndFetchDocuments(ZipFile aZipFile)
         throws Exception
     {
@@ -317,6 +317,26 @@ public interface RecommendationService
      */
     long countEnabledRecommenders();
 
+    /**
+     * Records that a writer had to wait for another writer on a {@link Predictions} instance.
+     * 
+     * @param aWaitTimeNanos
+     *            the time the writer had to wait in nanoseconds.
+     */
+    void recordPredictionsLockContention(long aWaitTimeNanos);
+
+    /**
+     * @return the total time writers had to wait for other writers on any {@link Predictions}
+     *         instance in milliseconds. Readers never wait.
+     */
+    long getPredictionsLockWaitTimeTotal();
+
+    /**
+     * @return the total number of times writers had to wait for other writers on any
+     *         {@link Predictions} instance.
+     */
+    long getPredictionsLockContentionTotal();
+
     Progress getProgressTowardsNextEvaluation(User aSessionOwner, Project aProject);
 
     boolean isSuspended(String aUser, Project aProject);
@@ -0,0 +1,300 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Comparator.comparingInt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.apache.uima.cas.text.AnnotationPredicates;
+
+/**
+ * Immutable snapshot of the suggestions of a single document. In addition to the lookup by ID, the
+ * suggestions are indexed by layer and offsets so that window and offset queries do not need to
+ * look at all suggestions of the document. Modifications create a new snapshot. The offset indexes
+ * are built lazily on the first query. Since the snapshot is immutable, concurrent readers may at
+ * worst build the same index twice, so no locking is required.
+ */
+class DocumentPredictions
+    implements Serializable
+{
+    private static final long serialVersionUID = 6479124137455924217L;
+
+    static final DocumentPredictions EMPTY = new DocumentPredictions(emptyMap());
+
+    private final Map<ExtendedId, AnnotationSuggestion> suggestions;
+
+    // Derived data
+    private transient volatile OffsetIndex allLayersIndex;
+    private transient volatile Map<Long, OffsetIndex> layerIndexes;
+
+    private DocumentPredictions(Map<ExtendedId, AnnotationSuggestion> aSuggestions)
+    {
+        suggestions = aSuggestions;
+    }
+
+    /**
+     * @return a new snapshot containing the suggestions of this snapshot and the given suggestions.
+     *         Suggestions with the same ID replace the existing ones.
+     */
+    DocumentPredictions with(Map<ExtendedId, AnnotationSuggestion> aSuggestions)
+    {
+        if (aSuggestions.isEmpty()) {
+            return this;
+        }
+
+        var newSuggestions = new HashMap<ExtendedId, AnnotationSuggestion>(suggestions);
+        newSuggestions.putAll(aSuggestions);
+        return new DocumentPredictions(unmodifiableMap(newSuggestions));
+    }
+
+    /**
+     * @return a new snapshot without the suggestions matching the given filter or this snapshot if
+     *         no suggestion matches.
+     */
+    DocumentPredictions without(Predicate<ExtendedId> aFilter)
+    {
+        if (suggestions.keySet().stream().noneMatch(aFilter)) {
+            return this;
+        }
+
+        var newSuggestions = new HashMap<ExtendedId, AnnotationSuggestion>(suggestions);
+        newSuggestions.keySet().removeIf(aFilter);
+        return new DocumentPredictions(unmodifiableMap(newSuggestions));
+    }
+
+    boolean isEmpty()
+    {
+        return suggestions.isEmpty();
+    }
+
+    int size()
+    {
+        return suggestions.size();
+    }
+
+    Collection<AnnotationSuggestion> values()
+    {
+        return suggestions.values();
+    }
+
+    Collection<Map.Entry<ExtendedId, AnnotationSuggestion>> entries()
+    {
+        return suggestions.entrySet();
+    }
+
+    /**
+     * @return the suggestions on the given layer overlapping with the given window sorted by their
+     *         window begin.
+     */
+    List<AnnotationSuggestion> overlapping(long aLayerId, int aWindowBegin, int aWindowEnd)
+    {
+        var index = getLayerIndex(aLayerId);
+        if (index == null) {
+            return emptyList();
+        }
+
+        return index.overlapping(aWindowBegin, aWindowEnd);
+    }
+
+    /**
+     * @return the suggestions on any layer overlapping with the given window sorted by their
+     *         window begin.
+     */
+    List<AnnotationSuggestion> overlapping(int aWindowBegin, int aWindowEnd)
+    {
+        var index = allLayersIndex;
+        if (index == null) {
+            index = new OffsetIndex(suggestions.values());
+            allLayersIndex = index;
+        }
+
+        return index.overlapping(aWindowBegin, aWindowEnd);
+    }
+
+    /**
+     * @return the span suggestions on the given layer located exactly at the given offsets.
+     */
+    List<SpanSuggestion> spansAt(long aLayerId, int aBegin, int aEnd)
+    {
+        var index = getLayerIndex(aLayerId);
+        if (index == null) {
+            return emptyList();
+        }
+
+        return index.spansAt(aBegin, aEnd);
+    }
+
+    private OffsetIndex getLayerIndex(long aLayerId)
+    {
+        var indexes = layerIndexes;
+        if (indexes == null) {
+            var byLayer = new HashMap<Long, List<AnnotationSuggestion>>();
+            for (var suggestion : suggestions.values()) {
+                byLayer.computeIfAbsent(suggestion.getLayerId(), $ -> new ArrayList<>())
+                        .add(suggestion);
+            }
+
+            indexes = new HashMap<>();
+            for (var entry : byLayer.entrySet()) {
+                indexes.put(entry.getKey(), new OffsetIndex(entry.getValue()));
+            }
+            layerIndexes = indexes;
+        }
+
+        return indexes.get(aLayerId);
+    }
+
+    /**
+     * Suggestions sorted by their window begin together with the running maximum of the window
+     * ends. The latter is non-decreasing, so the first suggestion which may overlap with a given
+     * window can be found by binary search. Span suggestions are additionally sorted by their
+     * begin and end offsets for exact lookups.
+     */
+    private static class OffsetIndex
+    {
+        private final AnnotationSuggestion[] byWindow;
+        private final int[] windowBegins;
+        private final int[] maxWindowEnds;
+
+        private final SpanSuggestion[] spans;
+        private final long[] spanKeys;
+
+        OffsetIndex(Collection<AnnotationSuggestion> aSuggestions)
+        {
+            byWindow = aSuggestions.toArray(AnnotationSuggestion[]::new);
+            Arrays.sort(byWindow, comparingInt(AnnotationSuggestion::getWindowBegin));
+
+            windowBegins = new int[byWindow.length];
+            maxWindowEnds = new int[byWindow.length];
+            var maxEnd = Integer.MIN_VALUE;
+            for (var i = 0; i < byWindow.length; i++) {
+                windowBegins[i] = byWindow[i].getWindowBegin();
+                maxEnd = Math.max(maxEnd, byWindow[i].getWindowEnd());
+                maxWindowEnds[i] = maxEnd;
+            }
+
+            spans = aSuggestions.stream() //
+                    .filter(s -> s instanceof SpanSuggestion) //
+                    .map(s -> (SpanSuggestion) s) //
+                    .sorted(comparingInt(SpanSuggestion::getBegin) //
+                            .thenComparingInt(SpanSuggestion::getEnd)) //
+                    .toArray(SpanSuggestion[]::new);
+            spanKeys = new long[spans.length];
+            for (var i = 0; i < spans.length; i++) {
+                spanKeys[i] = key(spans[i].getBegin(), spans[i].getEnd());
+            }
+        }
+
+        List<AnnotationSuggestion> overlapping(int aWindowBegin, int aWindowEnd)
+        {
+            // Suggestions before this point end before the window starts
+            var from = firstAtLeast(maxWindowEnds, aWindowBegin);
+            // Suggestions after this point start after the window ends
+            var to = firstGreaterThan(windowBegins, Math.max(aWindowBegin, aWindowEnd));
+
+            var result = new ArrayList<AnnotationSuggestion>();
+            for (var i = from; i < to; i++) {
+                var suggestion = byWindow[i];
+                if (AnnotationPredicates.overlapping(suggestion.getWindowBegin(),
+                        suggestion.getWindowEnd(), aWindowBegin, aWindowEnd)) {
+                    result.add(suggestion);
+                }
+            }
+            return result;
+        }
+
+        List<SpanSuggestion> spansAt(int aBegin, int aEnd)
+        {
+            var key = key(aBegin, aEnd);
+            var i = firstAtLeast(spanKeys, key);
+            if (i == spanKeys.length || spanKeys[i] != key) {
+                return emptyList();
+            }
+
+            var result = new ArrayList<SpanSuggestion>();
+            for (; i < spanKeys.length && spanKeys[i] == key; i++) {
+                result.add(spans[i]);
+            }
+            return result;
+        }
+
+        private static long key(int aBegin, int aEnd)
+        {
+            return ((long) aBegin << 32) | (aEnd & 0xFFFFFFFFL);
+        }
+
+        private static int firstAtLeast(int[] aSorted, int aValue)
+        {
+            var low = 0;
+            var high = aSorted.length;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (aSorted[mid] < aValue) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int firstAtLeast(long[] aSorted, long aValue)
+        {
+            var low = 0;
+            var high = aSorted.length;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (aSorted[mid] < aValue) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int firstGreaterThan(int[] aSorted, int aValue)
+        {
+            var low = 0;
+            var high = aSorted.length;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (aSorted[mid] <= aValue) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
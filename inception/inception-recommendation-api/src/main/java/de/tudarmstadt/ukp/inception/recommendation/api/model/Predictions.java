@@ -18,9 +18,11 @@
 package de.tudarmstadt.ukp.inception.recommendation.api.model;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
-import static java.util.Comparator.comparingInt;
 
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
@@ -29,12 +31,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongConsumer;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.uima.cas.text.AnnotationPredicates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,9 +65,19 @@ public class Predictions
     private final User sessionOwner;
     private final String dataOwner;
 
-    private final Map<String, Map<ExtendedId, AnnotationSuggestion>> idxDocuments = new HashMap<>();
+    /**
+     * Notified with the wait time in nanoseconds whenever a writer had to wait for another writer.
+     */
+    private final transient LongConsumer lockContentionListener;
+
+    /**
+     * Immutable snapshots of the suggestions per document. Readers access the current snapshot
+     * without locking. Writers serialize on the {@link #writeLock}, create new snapshots for the
+     * affected documents and publish them by replacing the map.
+     */
+    private volatile Map<String, DocumentPredictions> idxDocuments = emptyMap();
 
-    private final Object predictionsLock = new Object();
+    private final ReentrantLock writeLock = new ReentrantLock();
     private final Set<String> seenDocumentsForPrediction = new HashSet<>();
     private final List<LogMessage> log = new ArrayList<>();
 
@@ -78,6 +90,23 @@ public class Predictions
     private int removedSuggestionCount = 0;
 
     public Predictions(User aSessionOwner, String aDataOwner, Project aProject)
+    {
+        this(aSessionOwner, aDataOwner, aProject, null);
+    }
+
+    /**
+     * @param aSessionOwner
+     *            the user owning the session.
+     * @param aDataOwner
+     *            the user owning the annotations.
+     * @param aProject
+     *            the project.
+     * @param aLockContentionListener
+     *            notified with the wait time in nanoseconds whenever a writer had to wait for
+     *            another writer. May be {@code null}. Successors inherit the listener.
+     */
+    public Predictions(User aSessionOwner, String aDataOwner, Project aProject,
+            LongConsumer aLockContentionListener)
     {
         Validate.notNull(aProject, "Project must be specified");
         Validate.notNull(aSessionOwner, "Session owner must be specified");
@@ -86,6 +115,7 @@ public class Predictions
         project = aProject;
         sessionOwner = aSessionOwner;
         dataOwner = aDataOwner;
+        lockContentionListener = aLockContentionListener;
         nextId = 0;
         generation = 1;
     }
@@ -95,6 +125,7 @@ public class Predictions
         project = aPredecessor.project;
         sessionOwner = aPredecessor.sessionOwner;
         dataOwner = aPredecessor.dataOwner;
+        lockContentionListener = aPredecessor.lockContentionListener;
         nextId = aPredecessor.nextId;
         generation = aPredecessor.generation + 1;
     }
@@ -174,25 +205,21 @@ public class Predictions
      * 
      * TODO #176 use the document Id once it it available in the CAS
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     private <T extends AnnotationSuggestion> List<T> getFlattenedPredictions(Class<T> type,
             String aDocumentName, AnnotationLayer aLayer, int aWindowBegin, int aWindowEnd)
     {
         var windowBegin = aWindowBegin == -1 ? 0 : aWindowBegin;
         var windowEnd = aWindowEnd == -1 ? Integer.MAX_VALUE : aWindowEnd;
 
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> type.isInstance(f.getValue())) //
-                    .map(f -> (Entry<ExtendedId, T>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aLayer.getId()) //
-                    .filter(f -> AnnotationPredicates.overlapping(f.getValue().getWindowBegin(),
-                            f.getValue().getWindowEnd(), windowBegin, windowEnd))
-                    .sorted(comparingInt(e2 -> e2.getValue().getWindowBegin())) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        var byDocument = idxDocuments.get(aDocumentName);
+        if (byDocument == null) {
+            return emptyList();
         }
+
+        return byDocument.overlapping(aLayer.getId(), windowBegin, windowEnd).stream() //
+                .filter(type::isInstance) //
+                .map(type::cast) //
+                .toList();
     }
 
     /**
@@ -205,24 +232,28 @@ public class Predictions
      */
     public Optional<AnnotationSuggestion> getPredictionByVID(SourceDocument aDocument, VID aVID)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocument.getName(), emptyMap());
-            return byDocument.values().stream() //
-                    .filter(suggestion -> suggestion.getId() == aVID.getSubId()) //
-                    .filter(suggestion -> suggestion.getRecommenderId() == aVID.getId()) //
-                    .findFirst();
+        var byDocument = idxDocuments.get(aDocument.getName());
+        if (byDocument == null) {
+            return Optional.empty();
         }
+
+        return byDocument.values().stream() //
+                .filter(suggestion -> suggestion.getId() == aVID.getSubId()) //
+                .filter(suggestion -> suggestion.getRecommenderId() == aVID.getId()) //
+                .findFirst();
     }
 
     public void putSuggestions(int aAdded, int aRemoved, int aAged,
             List<AnnotationSuggestion> aSuggestions)
     {
-        synchronized (predictionsLock) {
+        lockForWriting();
+        try {
             addedSuggestionCount += aAdded;
             agedSuggestionCount += aAged;
             removedSuggestionCount += aRemoved;
 
             var ageZeroSuggestions = 0;
+            var additions = new HashMap<String, Map<ExtendedId, AnnotationSuggestion>>();
             for (var suggestion : aSuggestions) {
                 // Assign ID to predictions that do not have an ID yet
                 if (suggestion.getId() == AnnotationSuggestion.NEW_ID) {
@@ -234,37 +265,76 @@ public class Predictions
                     }
                 }
 
-                var xid = new ExtendedId(suggestion);
-                var byDocument = idxDocuments.computeIfAbsent(suggestion.getDocumentName(),
-                        $ -> new HashMap<>());
-                byDocument.put(xid, suggestion);
+                additions.computeIfAbsent(suggestion.getDocumentName(), $ -> new HashMap<>())
+                        .put(new ExtendedId(suggestion), suggestion);
 
                 if (suggestion.getAge() == 0) {
                     ageZeroSuggestions++;
                 }
             }
 
+            publish(additions);
+
             if (aAdded != ageZeroSuggestions) {
                 LOG.warn("Expected [{}] age-zero suggestions but found [{}]", aAdded,
                         ageZeroSuggestions);
             }
         }
+        finally {
+            writeLock.unlock();
+        }
     }
 
     public void inheritSuggestions(List<AnnotationSuggestion> aPredictions)
     {
-        synchronized (predictionsLock) {
-            for (var prediction : aPredictions) {
-                if (prediction.getId() == AnnotationSuggestion.NEW_ID) {
-                    throw new IllegalStateException(
-                            "Inherited suggestions must already have an ID");
-                }
-
-                var xid = new ExtendedId(prediction);
-                var byDocument = idxDocuments.computeIfAbsent(prediction.getDocumentName(),
-                        $ -> new HashMap<>());
-                byDocument.put(xid, prediction);
+        var additions = new HashMap<String, Map<ExtendedId, AnnotationSuggestion>>();
+        for (var prediction : aPredictions) {
+            if (prediction.getId() == AnnotationSuggestion.NEW_ID) {
+                throw new IllegalStateException("Inherited suggestions must already have an ID");
             }
+
+            additions.computeIfAbsent(prediction.getDocumentName(), $ -> new HashMap<>())
+                    .put(new ExtendedId(prediction), prediction);
+        }
+
+        lockForWriting();
+        try {
+            publish(additions);
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Creates new snapshots for the documents affected by the given additions and publishes them.
+     * Must be called while holding the {@link #writeLock}.
+     */
+    private void publish(Map<String, Map<ExtendedId, AnnotationSuggestion>> aAdditions)
+    {
+        if (aAdditions.isEmpty()) {
+            return;
+        }
+
+        var newIdxDocuments = new HashMap<String, DocumentPredictions>(idxDocuments);
+        for (var entry : aAdditions.entrySet()) {
+            var byDocument = newIdxDocuments.getOrDefault(entry.getKey(),
+                    DocumentPredictions.EMPTY);
+            newIdxDocuments.put(entry.getKey(), byDocument.with(entry.getValue()));
+        }
+        idxDocuments = unmodifiableMap(newIdxDocuments);
+    }
+
+    private void lockForWriting()
+    {
+        if (writeLock.tryLock()) {
+            return;
+        }
+
+        var start = System.nanoTime();
+        writeLock.lock();
+        if (lockContentionListener != null) {
+            lockContentionListener.accept(System.nanoTime() - start);
         }
     }
 
@@ -275,9 +345,7 @@ public class Predictions
 
     public boolean isEmpty()
     {
-        synchronized (predictionsLock) {
-            return idxDocuments.values().stream().allMatch(Map::isEmpty);
-        }
+        return idxDocuments.values().stream().allMatch(DocumentPredictions::isEmpty);
     }
 
     public boolean hasNewSuggestions()
@@ -292,34 +360,29 @@ public class Predictions
 
     public int size()
     {
-        synchronized (predictionsLock) {
-            return idxDocuments.values().stream().mapToInt(Map::size).sum();
-        }
+        return idxDocuments.values().stream().mapToInt(DocumentPredictions::size).sum();
     }
 
     public void removePredictions(Long recommenderId)
     {
-        synchronized (predictionsLock) {
-            idxDocuments.values().forEach(docGroup -> docGroup.entrySet() //
-                    .removeIf((p) -> p.getKey().getRecommenderId() == recommenderId));
+        lockForWriting();
+        try {
+            var newIdxDocuments = new HashMap<String, DocumentPredictions>();
+            for (var entry : idxDocuments.entrySet()) {
+                newIdxDocuments.put(entry.getKey(), entry.getValue()
+                        .without(xid -> xid.getRecommenderId() == recommenderId));
+            }
+            idxDocuments = unmodifiableMap(newIdxDocuments);
+        }
+        finally {
+            writeLock.unlock();
         }
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public List<SpanSuggestion> getAlternativeSuggestions(SpanSuggestion aSuggestion)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aSuggestion.getDocumentName(), emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> f.getValue() instanceof SpanSuggestion) //
-                    .map(f -> (Entry<ExtendedId, SpanSuggestion>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aSuggestion.getLayerId()) //
-                    .filter(f -> f.getValue().getBegin() == aSuggestion.getBegin()) //
-                    .filter(f -> f.getValue().getEnd() == aSuggestion.getEnd()) //
-                    .filter(f -> f.getValue().getFeature().equals(aSuggestion.getFeature())) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
-        }
+        return getSpansAt(aSuggestion.getDocumentName(), aSuggestion.getLayerId(),
+                aSuggestion.getBegin(), aSuggestion.getEnd(), aSuggestion.getFeature());
     }
 
     /**
@@ -339,34 +402,37 @@ public class Predictions
      * @return the annotation suggestions
      */
     // TODO #176 use the document Id once it it available in the CAS
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public List<SpanSuggestion> getPredictionsByTokenAndFeature(String aDocumentName,
             AnnotationLayer aLayer, int aBegin, int aEnd, String aFeature)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> f.getValue() instanceof SpanSuggestion) //
-                    .map(f -> (Entry<ExtendedId, SpanSuggestion>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aLayer.getId()) //
-                    .filter(f -> f.getValue().getBegin() == aBegin) //
-                    .filter(f -> f.getValue().getEnd() == aEnd) //
-                    .filter(f -> f.getValue().getFeature().equals(aFeature)) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        return getSpansAt(aDocumentName, aLayer.getId(), aBegin, aEnd, aFeature);
+    }
+
+    private List<SpanSuggestion> getSpansAt(String aDocumentName, long aLayerId, int aBegin,
+            int aEnd, String aFeature)
+    {
+        var byDocument = idxDocuments.get(aDocumentName);
+        if (byDocument == null) {
+            return emptyList();
         }
+
+        return byDocument.spansAt(aLayerId, aBegin, aEnd).stream() //
+                .filter(s -> s.getFeature().equals(aFeature)) //
+                .toList();
     }
 
     public List<AnnotationSuggestion> getPredictionsByRecommenderAndDocument(
             Recommender aRecommender, String aDocumentName)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> f.getKey().getRecommenderId() == (long) aRecommender.getId())
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        var byDocument = idxDocuments.get(aDocumentName);
+        if (byDocument == null) {
+            return emptyList();
         }
+
+        return byDocument.entries().stream() //
+                .filter(f -> f.getKey().getRecommenderId() == (long) aRecommender.getId())
+                .map(Map.Entry::getValue) //
+                .toList();
     }
 
     public List<AnnotationSuggestion> getPredictionsByDocument(SourceDocument aDocument)
@@ -376,26 +442,23 @@ public class Predictions
 
     public List<AnnotationSuggestion> getPredictionsByDocument(String aDocumentName)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        var byDocument = idxDocuments.get(aDocumentName);
+        if (byDocument == null) {
+            return emptyList();
         }
+
+        return byDocument.values().stream().toList();
     }
 
     public List<AnnotationSuggestion> getPredictionsByDocument(String aDocumentName,
             int aWindowBegin, int aWindowEnd)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> AnnotationPredicates.overlapping(f.getValue().getWindowBegin(),
-                            f.getValue().getWindowEnd(), aWindowBegin, aWindowEnd))
-                    .sorted(comparingInt(e2 -> e2.getValue().getWindowBegin())) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        var byDocument = idxDocuments.get(aDocumentName);
+        if (byDocument == null) {
+            return emptyList();
         }
+
+        return unmodifiableList(byDocument.overlapping(aWindowBegin, aWindowEnd));
     }
 
     public void markDocumentAsPredictionCompleted(SourceDocument aDocument)
@@ -74,6 +74,29 @@ public abstract class RecommendationEngine
     public abstract void train(RecommenderContext aContext, List<CAS> aCasses)
         throws RecommendationException;
 
+    /**
+     * Given training data in {@code aCasses} and the changes to it since the previous training run
+     * in {@code aDelta}, update the model. The context has been obtained via {@link #newContext}
+     * from the context of the previous training run. This method is only called if
+     * {@link #isIncrementalTrainingSupported()} returns {@code true} and if the changes are known.
+     * By default, the model is trained from scratch. This method must not mutate {@code aCasses}
+     * or the CASes in {@code aDelta} in any way.
+     *
+     * @param aContext
+     *            The context of the recommender
+     * @param aCasses
+     *            The training data
+     * @param aDelta
+     *            The changes to the training data since the previous training run
+     * @throws RecommendationException
+     *             if there was a problem during training
+     */
+    public void train(RecommenderContext aContext, List<CAS> aCasses, TrainingDelta aDelta)
+        throws RecommendationException
+    {
+        train(aContext, aCasses);
+    }
+
     /**
      * Given text in a {@link CAS}, predict target annotations. These should be written into
      * {@link CAS}. In order to restore data from e.g. previous training, the
@@ -163,6 +186,17 @@ public abstract class RecommendationEngine
         return TrainingCapability.TRAINING_SUPPORTED;
     }
 
+    /**
+     * @return whether the engine can update the model salvaged from the previous context (cf.
+     *         {@link #newContext}) using only the changes to the training data. If this is the
+     *         case, {@link #train(RecommenderContext, List, TrainingDelta)} is called instead of
+     *         {@link #train(RecommenderContext, List)} whenever the changes are known.
+     */
+    public boolean isIncrementalTrainingSupported()
+    {
+        return false;
+    }
+
     /**
      * @return which prediction capabilities this engine has. If a recommender uses annotations and
      *         not only the text, then this method should be overwritten to return
@@ -173,6 +207,17 @@ public abstract class RecommendationEngine
         return PredictionCapability.PREDICTION_USES_TEXT_ONLY;
     }
 
+    /**
+     * @return whether {@link #predict} may be called concurrently for different CASes using the same
+     *         context. This allows predicting on multiple documents in parallel. Engines should only
+     *         return {@code true} if they do not modify the model stored in the context while
+     *         predicting and do not share other mutable state between calls.
+     */
+    public boolean isThreadSafe()
+    {
+        return false;
+    }
+
     /**
      * @param aContext
      *            previous context
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.recommender;
+
+import java.util.List;
+
+import org.apache.uima.cas.CAS;
+
+/**
+ * Changes to the training data of a recommender since the training run that produced the model in
+ * the previous recommender context.
+ *
+ * @param addedCasses
+ *            documents which were not part of the previous training data and the current versions
+ *            of documents which have changed.
+ * @param removedCasses
+ *            documents which are no longer part of the training data and the previous versions of
+ *            documents which have changed.
+ */
+public record TrainingDelta(List<CAS> addedCasses, List<CAS> removedCasses)
+{
+    public boolean isEmpty()
+    {
+        return addedCasses.isEmpty() && removedCasses.isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+
+/**
+ * Benchmarks the lookups used while rendering suggestions. Not run as part of the test suite - run
+ * the {@link #main} method to execute.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PredictionsBenchmark
+{
+    private static final String DOCUMENT = "doc";
+    private static final int DOCUMENT_LENGTH = 1_000_000;
+    private static final int WINDOW_SIZE = 5_000;
+
+    @Param({ "1000", "100000" })
+    public int suggestionsPerRecommender;
+
+    @Param({ "3" })
+    public int recommenders;
+
+    private AnnotationLayer layer;
+    private Predictions predictions;
+    private SpanSuggestion[] probes;
+    private Random rng;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        var project = Project.builder().withId(1l).withName("Project").build();
+        var user = User.builder().withUsername("user").build();
+        layer = AnnotationLayer.builder().withId(1l).withName("Entity").build();
+        var doc = SourceDocument.builder().withId(1l).withName(DOCUMENT).build();
+
+        rng = new Random(1234l);
+        var suggestions = new ArrayList<AnnotationSuggestion>();
+        for (var recId = 0l; recId < recommenders; recId++) {
+            var feature = AnnotationFeature.builder().withId(recId).withName("value").build();
+            var rec = Recommender.builder().withId(recId).withName("rec" + recId)
+                    .withLayer(layer).withFeature(feature).build();
+            for (int annId = 0; annId < suggestionsPerRecommender; annId++) {
+                var begin = rng.nextInt(DOCUMENT_LENGTH);
+                suggestions.add(SpanSuggestion.builder() //
+                        .withId(annId) //
+                        .withDocument(doc) //
+                        .withRecommender(rec) //
+                        .withLabel("PER") //
+                        .withUiLabel("PER") //
+                        .withPosition(new Offset(begin, begin + 1 + rng.nextInt(20))) //
+                        .build());
+            }
+        }
+
+        predictions = new Predictions(user, user.getUsername(), project);
+        predictions.inheritSuggestions(suggestions);
+
+        probes = suggestions.stream() //
+                .limit(1000) //
+                .map(s -> (SpanSuggestion) s) //
+                .toArray(SpanSuggestion[]::new);
+
+        // Build the indexes outside the measurement
+        predictions.getPredictionsByDocument(DOCUMENT, 0, DOCUMENT_LENGTH);
+        predictions.getAlternativeSuggestions(probes[0]);
+    }
+
+    @Benchmark
+    public Object windowQuery()
+    {
+        var begin = rng.nextInt(DOCUMENT_LENGTH - WINDOW_SIZE);
+        return predictions.getGroupedPredictions(SpanSuggestion.class, DOCUMENT, layer, begin,
+                begin + WINDOW_SIZE);
+    }
+
+    @Benchmark
+    public Object windowQueryAllLayers()
+    {
+        var begin = rng.nextInt(DOCUMENT_LENGTH - WINDOW_SIZE);
+        return predictions.getPredictionsByDocument(DOCUMENT, begin, begin + WINDOW_SIZE);
+    }
+
+    @Benchmark
+    public Object exactOffsetQuery()
+    {
+        var probe = probes[rng.nextInt(probes.length)];
+        return predictions.getPredictionsByTokenAndFeature(DOCUMENT, layer, probe.getBegin(),
+                probe.getEnd(), probe.getFeature());
+    }
+
+    @Benchmark
+    public Object alternativeSuggestions()
+    {
+        return predictions.getAlternativeSuggestions(probes[rng.nextInt(probes.length)]);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        new Runner(new OptionsBuilder() //
+                .include(PredictionsBenchmark.class.getSimpleName()) //
+                .build()).run();
+    }
+}
@@ -19,9 +19,11 @@ package de.tudarmstadt.ukp.inception.recommendation.api.model;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Comparator.comparingInt;
 import static java.util.stream.Collectors.toList;
 import static org.apache.uima.fit.factory.CasFactory.createText;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.contentOf;
 
 import java.lang.invoke.MethodHandles;
@@ -30,6 +32,7 @@ import java.util.List;
 import java.util.Random;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.text.AnnotationPredicates;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -111,6 +114,71 @@ class PredictionsTest
         }
     }
 
+    @Test
+    void thatIndexedLookupsMatchLinearScan() throws Exception
+    {
+        var generatedPredictions = generatePredictions(2, 3, 1_000);
+        sut.inheritSuggestions(generatedPredictions);
+
+        var rng = new Random(1234l);
+        var textLength = cas.getDocumentText().length();
+        for (int i = 0; i < 100; i++) {
+            var winBegin = rng.nextInt(textLength);
+            var winEnd = winBegin + rng.nextInt(textLength - winBegin + 1);
+
+            var expected = generatedPredictions.stream() //
+                    .filter(s -> s.getDocumentName().equals("doc1")) //
+                    .filter(s -> AnnotationPredicates.overlapping(s.getWindowBegin(),
+                            s.getWindowEnd(), winBegin, winEnd)) //
+                    .toList();
+            assertThat(sut.getPredictionsByDocument("doc1", winBegin, winEnd)) //
+                    .containsExactlyInAnyOrderElementsOf(expected) //
+                    .isSortedAccordingTo(comparingInt(AnnotationSuggestion::getWindowBegin));
+            assertThat(sut.getGroupedPredictions(SpanSuggestion.class, "doc1", layer, winBegin,
+                    winEnd).stream().flatMap(SuggestionGroup::stream).toList()) //
+                            .containsExactlyInAnyOrderElementsOf(expected);
+        }
+
+        for (var suggestion : generatedPredictions.subList(0, 100)) {
+            var probe = (SpanSuggestion) suggestion;
+            var expected = generatedPredictions.stream() //
+                    .map(s -> (SpanSuggestion) s) //
+                    .filter(s -> s.getDocumentName().equals(probe.getDocumentName())) //
+                    .filter(s -> s.getBegin() == probe.getBegin() && s.getEnd() == probe.getEnd()) //
+                    .filter(s -> s.getFeature().equals(probe.getFeature())) //
+                    .toList();
+            assertThat(sut.getAlternativeSuggestions(probe)) //
+                    .containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(sut.getPredictionsByTokenAndFeature(probe.getDocumentName(), layer,
+                    probe.getBegin(), probe.getEnd(), probe.getFeature())) //
+                            .containsExactlyInAnyOrderElementsOf(expected);
+        }
+
+        sut.removePredictions(0l);
+        assertThat(sut.getPredictionsByDocument("doc1", 0, textLength)) //
+                .extracting(AnnotationSuggestion::getRecommenderId) //
+                .containsOnly(1l, 2l);
+    }
+
+    @Test
+    void thatPredictionsInWindowCannotBeModified() throws Exception
+    {
+        var doc = SourceDocument.builder().withName("doc").build();
+        sut = new Predictions(user, user.getUsername(), project);
+        sut.putSuggestions(1, 0, 0, asList( //
+                SpanSuggestion.builder() //
+                        .withId(AnnotationSuggestion.NEW_ID) //
+                        .withDocument(doc) //
+                        .withPosition(0, 1) //
+                        .build()));
+
+        var predictions = sut.getPredictionsByDocument(doc.getName(), 0, 1);
+
+        assertThat(predictions).hasSize(1);
+        assertThatExceptionOfType(UnsupportedOperationException.class) //
+                .isThrownBy(() -> predictions.clear());
+    }
+
     @Test
     void thatIdsAreAssigned() throws Exception
     {
@@ -22,4 +22,10 @@ public interface RecommenderProperties
     boolean isActionButtonsEnabled();
 
     boolean isEnabled();
+
+    /**
+     * @return number of documents processed concurrently when generating predictions for all
+     *         documents of a project. Each thread uses its own prediction CAS.
+     */
+    int getPredictionThreads();
 }
@@ -32,6 +32,7 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.security.core.session.SessionRegistry;
 
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
@@ -62,6 +63,7 @@ import de.tudarmstadt.ukp.inception.recommendation.service.RecommenderFactoryReg
 import de.tudarmstadt.ukp.inception.recommendation.service.SuggestionSupportRegistryImpl;
 import de.tudarmstadt.ukp.inception.recommendation.sidebar.RecommendationSidebarFactory;
 import de.tudarmstadt.ukp.inception.recommendation.span.SpanSuggestionSupport;
+import de.tudarmstadt.ukp.inception.recommendation.tasks.TrainingCorpusCache;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
@@ -198,6 +200,13 @@ public class RecommenderServiceAutoConfiguration
                 aPreferencesService, aUserService);
     }
 
+    @Bean
+    public TrainingCorpusCache trainingCorpusCache(DocumentService aDocumentService,
+            CasStorageService aCasStorageService)
+    {
+        return new TrainingCorpusCache(aDocumentService, aCasStorageService);
+    }
+
     @Bean
     public RecommenderActionBarExtension recommenderActionBarExtension(
             RecommendationService aRecommendationService)
@@ -23,4 +23,16 @@ public interface RecommendationMetrics
      * @return the total number of currently enabled recommenders
      */
     public long getEnabledRecommendersTotal();
+
+    /**
+     * @return the total time in milliseconds that updates of predictions had to wait for other
+     *         updates of the same predictions
+     */
+    public long getPredictionsLockWaitTimeTotal();
+
+    /**
+     * @return the total number of times that updates of predictions had to wait for other updates
+     *         of the same predictions
+     */
+    public long getPredictionsLockContentionTotal();
 }
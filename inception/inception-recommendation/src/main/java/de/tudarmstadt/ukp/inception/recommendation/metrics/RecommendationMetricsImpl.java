@@ -47,4 +47,18 @@ public class RecommendationMetricsImpl
     {
         return recService.countEnabledRecommenders();
     }
+
+    @Override
+    @ManagedAttribute
+    public long getPredictionsLockWaitTimeTotal()
+    {
+        return recService.getPredictionsLockWaitTimeTotal();
+    }
+
+    @Override
+    @ManagedAttribute
+    public long getPredictionsLockContentionTotal()
+    {
+        return recService.getPredictionsLockContentionTotal();
+    }
 }
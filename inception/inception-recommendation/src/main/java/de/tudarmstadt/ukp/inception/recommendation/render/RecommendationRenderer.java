@@ -109,6 +109,24 @@ public class RecommendationRenderer
 
     @Override
     public void render(VDocument aVDoc, RenderRequest aRequest)
+    {
+        render(aVDoc, aRequest, aRequest.getWindowBeginOffset(), aRequest.getWindowEndOffset());
+    }
+
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        return true;
+    }
+
+    @Override
+    public void renderRange(VDocument aVDoc, RenderRequest aRequest, int aRangeBegin,
+            int aRangeEnd)
+    {
+        render(aVDoc, aRequest, aRangeBegin, aRangeEnd);
+    }
+
+    private void render(VDocument aVDoc, RenderRequest aRequest, int aBegin, int aEnd)
     {
         var cas = aRequest.getCas();
 
@@ -123,8 +141,7 @@ public class RecommendationRenderer
         }
 
         var suggestions = predictions.getPredictionsByDocument(
-                aRequest.getSourceDocument().getName(), aRequest.getWindowBeginOffset(),
-                aRequest.getWindowEndOffset());
+                aRequest.getSourceDocument().getName(), aBegin, aEnd);
         var suggestionsByLayer = suggestions.stream()
                 .collect(groupingBy(AnnotationSuggestion::getLayerId));
 
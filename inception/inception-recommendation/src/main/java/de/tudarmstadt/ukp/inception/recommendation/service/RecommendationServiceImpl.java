@@ -23,6 +23,7 @@ import static de.tudarmstadt.ukp.inception.recommendation.api.model.LearningReco
 import static de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction.CORRECTED;
 import static de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction.REJECTED;
 import static de.tudarmstadt.ukp.inception.recommendation.api.model.LearningRecordUserAction.SKIPPED;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
 
@@ -42,6 +43,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -162,6 +164,9 @@ public class RecommendationServiceImpl
     private final ConcurrentMap<RecommendationStateKey, AtomicInteger> trainingTaskCounter;
     private final ConcurrentMap<RecommendationStateKey, RecommendationState> states;
 
+    private final LongAdder predictionsLockWaitTime = new LongAdder();
+    private final LongAdder predictionsLockContentionCount = new LongAdder();
+
     /*
      * Marks users/projects to which annotations were added during this request.
      */
@@ -1741,6 +1746,25 @@ public class RecommendationServiceImpl
                 .count();
     }
 
+    @Override
+    public void recordPredictionsLockContention(long aWaitTimeNanos)
+    {
+        predictionsLockWaitTime.add(aWaitTimeNanos);
+        predictionsLockContentionCount.increment();
+    }
+
+    @Override
+    public long getPredictionsLockWaitTimeTotal()
+    {
+        return NANOSECONDS.toMillis(predictionsLockWaitTime.sum());
+    }
+
+    @Override
+    public long getPredictionsLockContentionTotal()
+    {
+        return predictionsLockContentionCount.sum();
+    }
+
     @Override
     public Progress getProgressTowardsNextEvaluation(User aUser, Project aProject)
     {
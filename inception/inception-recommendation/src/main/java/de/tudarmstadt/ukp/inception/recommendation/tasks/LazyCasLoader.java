@@ -17,19 +17,9 @@
  */
 package de.tudarmstadt.ukp.inception.recommendation.tasks;
 
-import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.SHARED_READ_ONLY_ACCESS;
-import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AUTO_CAS_UPGRADE;
-import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.NEW;
-
-import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Objects;
 
-import org.apache.commons.lang3.builder.ToStringBuilder;
-import org.apache.commons.lang3.builder.ToStringStyle;
 import org.apache.commons.lang3.concurrent.ConcurrentException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Type;
@@ -37,75 +27,67 @@ import org.apache.uima.fit.util.CasUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
-import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
-import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
+import de.tudarmstadt.ukp.inception.recommendation.tasks.TrainingCorpus.TrainingData;
+import de.tudarmstadt.ukp.inception.recommendation.tasks.TrainingCorpus.TrainingDocument;
 
 public class LazyCasLoader
 {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private final DocumentService documentService;
+    private final TrainingCorpus corpus;
     private final Project project;
-    private final String dataOwner;
 
-    private List<TrainingDocument> candidates;
+    private TrainingCorpus.Snapshot snapshot;
 
-    public LazyCasLoader(DocumentService aDocumentService, Project aProject, String aDataOwner)
+    public LazyCasLoader(TrainingCorpus aCorpus, Project aProject)
     {
-        documentService = aDocumentService;
+        corpus = aCorpus;
         project = aProject;
-        dataOwner = aDataOwner;
     }
 
-    public List<CAS> getRelevantCasses(Recommender aRecommender) throws ConcurrentException
+    public TrainingData getTrainingData(Recommender aRecommender) throws ConcurrentException
     {
-        return get().stream() //
-                .filter(e -> isStateAllowingForTraining(aRecommender, e)) //
-                .map(e -> e.getCas()) //
-                .filter(Objects::nonNull) //
-                .filter(cas -> containsTargetTypeAndFeature(aRecommender, cas)) //
-                .toList();
+        var documents = new ArrayList<TrainingDocument>();
+        var casses = new ArrayList<CAS>();
+        for (var document : get().getDocuments()) {
+            if (!isStateAllowingForTraining(aRecommender, document)) {
+                continue;
+            }
+
+            var cas = document.getCas();
+            if (cas == null || !containsTargetTypeAndFeature(aRecommender, cas)) {
+                continue;
+            }
+
+            documents.add(document);
+            casses.add(cas);
+        }
+
+        return get().trainingData(documents, casses);
     }
 
     private boolean isStateAllowingForTraining(Recommender aRecommender, TrainingDocument e)
     {
-        var result = !aRecommender.getStatesIgnoredForTraining().contains(e.state);
+        var result = !aRecommender.getStatesIgnoredForTraining().contains(e.getState());
         LOG.trace("{} -> {} ({})", e,
                 result ? "state acceptabled for training" : "state not acceptable for training",
-                e.state);
+                e.getState());
         return result;
     }
 
-    private Collection<TrainingDocument> get()
+    private TrainingCorpus.Snapshot get()
     {
-        if (candidates == null) {
-            candidates = readCasses();
+        if (snapshot == null) {
+            snapshot = corpus.refresh(project);
         }
-        return candidates;
-    }
-
-    private List<TrainingDocument> readCasses()
-    {
-        var casses = new ArrayList<TrainingDocument>();
-
-        var allDocuments = documentService.listAllDocuments(project, dataOwner);
-        for (var entry : allDocuments.entrySet()) {
-            var sourceDocument = entry.getKey();
-            var annotationDocument = entry.getValue();
-            var state = annotationDocument != null ? annotationDocument.getState() : NEW;
-
-            casses.add(new TrainingDocument(sourceDocument, dataOwner, state));
-        }
-
-        return casses;
+        return snapshot;
     }
 
     public int size()
     {
-        return get().size();
+        return get().getDocuments().size();
     }
 
     private boolean containsTargetTypeAndFeature(Recommender aRecommender, CAS aCas)
@@ -132,50 +114,4 @@ public class LazyCasLoader
         LOG.trace("CAS contains no annotations of type {}", type.getName());
         return result;
     }
-
-    private class TrainingDocument
-    {
-        private final SourceDocument document;
-        private final String user;
-        private final AnnotationDocumentState state;
-
-        private boolean attemptedLoading = false;
-        private CAS _cas;
-
-        TrainingDocument(SourceDocument aDocument, String aAnnotator,
-                AnnotationDocumentState aState)
-        {
-            document = aDocument;
-            user = aAnnotator;
-            state = aState;
-        }
-
-        private CAS getCas()
-        {
-            if (attemptedLoading) {
-                return _cas;
-            }
-
-            attemptedLoading = true;
-            try {
-                // During training, we should not have to modify the CASes... right? Fingers
-                // crossed.
-                _cas = documentService.readAnnotationCas(document, user, AUTO_CAS_UPGRADE,
-                        SHARED_READ_ONLY_ACCESS);
-            }
-            catch (IOException e) {
-                LOG.error("Unable to load CAS to train recommender", e);
-            }
-
-            return _cas;
-        }
-
-        @Override
-        public String toString()
-        {
-            return new ToStringBuilder(this, ToStringStyle.SIMPLE_STYLE)
-                    .append("document", document).append("user", user).append("state", state)
-                    .toString();
-        }
-    }
 }
@@ -25,20 +25,34 @@ import static de.tudarmstadt.ukp.inception.recommendation.api.recommender.Traini
 import static de.tudarmstadt.ukp.inception.rendering.model.Range.rangeCoveringDocument;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
 import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 
 import javax.persistence.NoResultException;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.function.FailableConsumer;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.resource.ResourceInitializationException;
@@ -65,6 +79,7 @@ import de.tudarmstadt.ukp.inception.recommendation.api.recommender.PredictionCon
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationEngine;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationException;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext;
+import de.tudarmstadt.ukp.inception.recommendation.config.RecommenderProperties;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommenderTaskNotificationEvent;
 import de.tudarmstadt.ukp.inception.rendering.model.Range;
 import de.tudarmstadt.ukp.inception.scheduling.TaskMonitor;
@@ -88,6 +103,7 @@ public class PredictionTask
     private @Autowired DocumentService documentService;
     private @Autowired ApplicationEventPublisher appEventPublisher;
     private @Autowired SuggestionSupportRegistry suggestionSupportRegistry;
+    private @Autowired RecommenderProperties recommenderProperties;
 
     private final SourceDocument currentDocument;
     private final int predictionBegin;
@@ -216,7 +232,14 @@ public class PredictionTask
         var activePredictions = isolated ? null
                 : recommendationService.getPredictions(sessionOwner, project);
         var incomingPredictions = activePredictions != null ? new Predictions(activePredictions)
-                : new Predictions(sessionOwner, dataOwner, project);
+                : new Predictions(sessionOwner, dataOwner, project,
+                        recommendationService::recordPredictionsLockContention);
+
+        var threads = Math.min(recommenderProperties.getPredictionThreads(), aDocuments.size());
+        if (threads > 1 && isParallelPredictionSupported()) {
+            return generatePredictionsOnAllDocumentsInParallel(aDocuments, activePredictions,
+                    incomingPredictions, threads);
+        }
 
         var maxProgress = aDocuments.size();
         var progress = 0;
@@ -241,6 +264,169 @@ public class PredictionTask
         }
     }
 
+    /**
+     * Generate predictions for all documents using multiple threads. Each thread uses its own CAS
+     * storage session and prediction CAS and takes documents from a shared queue until the queue is
+     * exhausted or the task is cancelled. The suggestions are merged into the incoming predictions
+     * which can safely be updated concurrently.
+     */
+    private Predictions generatePredictionsOnAllDocumentsInParallel(
+            List<SourceDocument> aDocuments, Predictions aActivePredictions,
+            Predictions aIncomingPredictions, int aThreads)
+    {
+        var monitor = getMonitor();
+        var maxProgress = aDocuments.size();
+        var progress = new AtomicInteger();
+
+        var threadFactory = new BasicThreadFactory.Builder() //
+                .namingPattern("prediction-" + getId() + "-%d") //
+                .daemon(true) //
+                .build();
+
+        try {
+            processInParallel(aDocuments, aThreads, threadFactory, monitor::isCancelled,
+                    nextDocument -> {
+                        try (var session = CasStorageSession.open();
+                                var casHolder = new PredictionCasHolder()) {
+                            SourceDocument document;
+                            while ((document = nextDocument.get()) != null) {
+                                applyAllRecommendersToDocument(aActivePredictions,
+                                        aIncomingPredictions, casHolder.cas, document, -1, -1);
+                                monitor.setProgressWithMessage(progress.incrementAndGet(),
+                                        maxProgress,
+                                        LogMessage.info(this, "%s", document.getName()));
+                            }
+                        }
+                    });
+
+            monitor.setProgressWithMessage(progress.get(), maxProgress,
+                    LogMessage.info(this, "%d documents processed", progress.get()));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof ResourceInitializationException) {
+                logErrorCreationPredictionCas(aIncomingPredictions);
+            }
+            else {
+                LOG.error("Error generating predictions", e.getCause());
+                aIncomingPredictions.log(LogMessage.error(this, "Error generating predictions: %s",
+                        e.getCause().getMessage()));
+            }
+        }
+
+        return aIncomingPredictions;
+    }
+
+    /**
+     * Processes the given items using multiple threads. Each worker is invoked once per thread and
+     * obtains items from a shared queue until the supplier returns {@code null}. This happens when
+     * the queue is exhausted, when the task is cancelled or when another worker has failed. In the
+     * latter case, the remaining workers stop after their current item.
+     * <p>
+     * The method only returns after all workers have terminated, so their results can safely be
+     * published afterwards - also if a worker failed or the calling thread was interrupted.
+     *
+     * @throws ExecutionException
+     *             the failure of the first worker that failed.
+     * @throws InterruptedException
+     *             if the calling thread was interrupted while waiting for the workers.
+     */
+    static <T> void processInParallel(Collection<T> aItems, int aThreads,
+            ThreadFactory aThreadFactory, BooleanSupplier aCancelled,
+            FailableConsumer<Supplier<T>, Exception> aWorker)
+        throws InterruptedException, ExecutionException
+    {
+        var queue = new ConcurrentLinkedQueue<T>(aItems);
+        var stop = new AtomicBoolean(false);
+        Supplier<T> nextItem = () -> stop.get() || aCancelled.getAsBoolean() ? null : queue.poll();
+
+        var executor = Executors.newFixedThreadPool(aThreads, aThreadFactory);
+        try {
+            var workers = new ArrayList<Future<?>>();
+            for (var i = 0; i < aThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    try {
+                        aWorker.accept(nextItem);
+                    }
+                    catch (Throwable e) {
+                        stop.set(true);
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+
+            ExecutionException failure = null;
+            for (var worker : workers) {
+                try {
+                    worker.get();
+                }
+                catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        finally {
+            // Workers are stopped cooperatively instead of being interrupted because interrupting
+            // them may leave CAS storage or recommender resources in an inconsistent state
+            stop.set(true);
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    private static void awaitTermination(ExecutorService aExecutor)
+    {
+        var interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (aExecutor.awaitTermination(1, MINUTES)) {
+                        return;
+                    }
+                    LOG.debug("Still waiting for prediction workers to terminate");
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return whether the engines of all active recommenders declare that they can predict on
+     *         multiple documents concurrently.
+     */
+    private boolean isParallelPredictionSupported()
+    {
+        var activeRecommenders = recommendationService.getActiveRecommenders(getSessionOwner(),
+                getProject());
+        for (var activeRecommender : activeRecommenders) {
+            var rec = activeRecommender.getRecommender();
+            var factory = recommendationService.getRecommenderFactory(rec);
+            if (factory.isEmpty() || !factory.get().build(rec).isThreadSafe()) {
+                LOG.debug("Predicting sequentially because recommender {} is not thread-safe",
+                        rec);
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * Generate predictions for a single document. Any predictions available for other documents are
      * inherited.
@@ -259,7 +445,8 @@ public class PredictionTask
         var activePredictions = isolated ? null
                 : recommendationService.getPredictions(sessionOwner, project);
         var incomingPredictions = activePredictions != null ? new Predictions(activePredictions)
-                : new Predictions(sessionOwner, dataOwner, project);
+                : new Predictions(sessionOwner, dataOwner, project,
+                        recommendationService::recordPredictionsLockContention);
 
         aMonitor.setMaxProgress(1);
 
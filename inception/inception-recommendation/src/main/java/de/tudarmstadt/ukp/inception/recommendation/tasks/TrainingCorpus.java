@@ -0,0 +1,453 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.SHARED_READ_ONLY_ACCESS;
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AUTO_CAS_UPGRADE;
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.NEW;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.toUnmodifiableSet;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+import org.apache.uima.cas.CAS;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext.Key;
+import de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingDelta;
+
+/**
+ * The documents of a data owner in a project which serve as training data. The corpus is kept
+ * across training runs. On every {@link #refresh}, the CAS timestamps and document states are
+ * compared to the ones seen before and only the CASes of changed documents need to be loaded again.
+ * Every refresh which finds changes starts a new generation of the corpus. A recommender context
+ * records the {@link Version} of the training data its model was trained on, which allows
+ * determining the changes since then.
+ * <p>
+ * The CASes are only held via soft references, so they may be dropped under memory pressure. The
+ * current version of a document is then simply loaded again. Previous versions of changed
+ * documents cannot be loaded again though - if they have been dropped, the changes since the
+ * generation in which they were valid are unknown and recommenders need to train from scratch.
+ */
+public class TrainingCorpus
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final Key<Version> KEY_TRAINING_DATA_VERSION = new Key<>("trainingDataVersion");
+
+    private static final long NO_CAS = -1;
+    private static final long UNKNOWN_TIMESTAMP = Long.MIN_VALUE;
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final long id = NEXT_ID.incrementAndGet();
+    private final DocumentService documentService;
+    private final CasStorageService casStorageService;
+    private final String dataOwner;
+
+    private Snapshot snapshot = new Snapshot(0, emptyMap(), emptyMap());
+
+    public TrainingCorpus(DocumentService aDocumentService, CasStorageService aCasStorageService,
+            String aDataOwner)
+    {
+        documentService = aDocumentService;
+        casStorageService = aCasStorageService;
+        dataOwner = aDataOwner;
+    }
+
+    /**
+     * Compares the documents of the data owner to the ones seen before and starts a new
+     * generation if anything has changed.
+     *
+     * @param aProject
+     *            the project the corpus belongs to.
+     * @return a snapshot of the current state of the corpus.
+     */
+    public synchronized Snapshot refresh(Project aProject)
+    {
+        var previous = snapshot.documents;
+        var nextGeneration = snapshot.generation + 1;
+
+        var documents = new LinkedHashMap<Long, TrainingDocument>();
+        var changed = 0;
+        for (var entry : documentService.listAllDocuments(aProject, dataOwner).entrySet()) {
+            var sourceDocument = entry.getKey();
+            var annotationDocument = entry.getValue();
+            var state = annotationDocument != null ? annotationDocument.getState() : NEW;
+            var timestamp = getCasTimestamp(sourceDocument);
+
+            var known = previous.get(sourceDocument.getId());
+            if (known != null && timestamp != UNKNOWN_TIMESTAMP && known.timestamp == timestamp) {
+                known.cas.clearFailure();
+                documents.put(sourceDocument.getId(),
+                        known.state == state ? known : known.withState(state));
+                continue;
+            }
+
+            var previousVersion = known != null ? known.detach() : null;
+            documents.put(sourceDocument.getId(), new TrainingDocument(sourceDocument, state,
+                    timestamp, nextGeneration, new CasSlot(), previousVersion));
+            changed++;
+        }
+
+        var retired = new LinkedHashMap<Long, TrainingDocument>();
+        for (var known : previous.values()) {
+            if (!documents.containsKey(known.getId())) {
+                retired.put(known.getId(), known.detach());
+            }
+        }
+
+        if (changed == 0 && retired.isEmpty()) {
+            LOG.trace("[{}]: Training data unchanged at generation [{}]", dataOwner,
+                    snapshot.generation);
+            return snapshot;
+        }
+
+        LOG.debug("[{}]: Training data generation [{}]: [{}] of [{}] documents new or changed, [{}] "
+                + "removed", dataOwner, nextGeneration, changed, documents.size(), retired.size());
+
+        snapshot = new Snapshot(nextGeneration, unmodifiableMap(documents),
+                unmodifiableMap(retired));
+        return snapshot;
+    }
+
+    /**
+     * Drops the given document from the corpus, releasing its CAS. This does not start a new
+     * generation since the next {@link #refresh} would not find the document anymore anyway. Since
+     * the previous version of the document is dropped as well, recommenders which were trained on
+     * it need to train from scratch.
+     *
+     * @param aDocumentId
+     *            the ID of the source document.
+     */
+    public synchronized void removeDocument(long aDocumentId)
+    {
+        if (!snapshot.documents.containsKey(aDocumentId)
+                && !snapshot.retired.containsKey(aDocumentId)) {
+            return;
+        }
+
+        var documents = new LinkedHashMap<Long, TrainingDocument>(snapshot.documents);
+        documents.remove(aDocumentId);
+        var retired = new LinkedHashMap<Long, TrainingDocument>(snapshot.retired);
+        retired.remove(aDocumentId);
+        snapshot = new Snapshot(snapshot.generation, unmodifiableMap(documents),
+                unmodifiableMap(retired));
+    }
+
+    private long getCasTimestamp(SourceDocument aDocument)
+    {
+        try {
+            return casStorageService.getCasTimestamp(aDocument, dataOwner).orElse(NO_CAS);
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to determine CAS timestamp of {} for [{}] - reloading", aDocument,
+                    dataOwner, e);
+            return UNKNOWN_TIMESTAMP;
+        }
+    }
+
+    /**
+     * Identifies the training data a model has been trained on.
+     *
+     * @param corpusId
+     *            the corpus the training data was taken from.
+     * @param generation
+     *            the generation of the corpus.
+     * @param documentIds
+     *            the IDs of the documents used for training.
+     */
+    public record Version(long corpusId, long generation, Set<Long> documentIds)
+    {}
+
+    /**
+     * An immutable state of the corpus.
+     */
+    public class Snapshot
+    {
+        private final long generation;
+        private final Map<Long, TrainingDocument> documents;
+        private final Map<Long, TrainingDocument> retired;
+
+        private Snapshot(long aGeneration, Map<Long, TrainingDocument> aDocuments,
+                Map<Long, TrainingDocument> aRetired)
+        {
+            generation = aGeneration;
+            documents = aDocuments;
+            retired = aRetired;
+        }
+
+        public long getGeneration()
+        {
+            return generation;
+        }
+
+        public Collection<TrainingDocument> getDocuments()
+        {
+            return documents.values();
+        }
+
+        /**
+         * @param aDocuments
+         *            the documents selected for training.
+         * @param aCasses
+         *            the CASes of the selected documents in the same order.
+         * @return the training data.
+         */
+        public TrainingData trainingData(List<TrainingDocument> aDocuments, List<CAS> aCasses)
+        {
+            return new TrainingData(this, aDocuments, aCasses);
+        }
+
+        private TrainingDocument getDocument(long aId)
+        {
+            var document = documents.get(aId);
+            return document != null ? document : retired.get(aId);
+        }
+    }
+
+    /**
+     * The documents and CASes selected from a snapshot for training a particular recommender.
+     */
+    public class TrainingData
+    {
+        private final Snapshot snapshot;
+        private final List<TrainingDocument> documents;
+        private final List<CAS> casses;
+
+        private TrainingData(Snapshot aSnapshot, List<TrainingDocument> aDocuments,
+                List<CAS> aCasses)
+        {
+            snapshot = aSnapshot;
+            documents = aDocuments;
+            casses = aCasses;
+        }
+
+        public List<CAS> getCasses()
+        {
+            return casses;
+        }
+
+        public Version getVersion()
+        {
+            return new Version(id, snapshot.generation, documents.stream() //
+                    .map(TrainingDocument::getId) //
+                    .collect(toUnmodifiableSet()));
+        }
+
+        /**
+         * @param aPrevious
+         *            the training data version a model was trained on.
+         * @return the changes from the given version to this training data or nothing if they are
+         *         unknown, e.g. because the version stems from a different corpus or because the
+         *         previous version of a changed document is no longer available.
+         */
+        public Optional<TrainingDelta> getDeltaSince(Version aPrevious)
+        {
+            if (aPrevious.corpusId() != id || aPrevious.generation() > snapshot.generation) {
+                return Optional.empty();
+            }
+
+            var added = new ArrayList<CAS>();
+            var removed = new ArrayList<CAS>();
+
+            var selectedIds = new HashSet<Long>();
+            for (var i = 0; i < documents.size(); i++) {
+                var document = documents.get(i);
+                selectedIds.add(document.getId());
+
+                if (!aPrevious.documentIds().contains(document.getId())) {
+                    added.add(casses.get(i));
+                    continue;
+                }
+
+                if (document.since <= aPrevious.generation()) {
+                    continue;
+                }
+
+                var previousCas = document.getCasAsOf(aPrevious.generation());
+                if (previousCas == null) {
+                    return Optional.empty();
+                }
+
+                removed.add(previousCas);
+                added.add(casses.get(i));
+            }
+
+            for (var documentId : aPrevious.documentIds()) {
+                if (selectedIds.contains(documentId)) {
+                    continue;
+                }
+
+                var document = snapshot.getDocument(documentId);
+                var previousCas = document != null ? document.getCasAsOf(aPrevious.generation())
+                        : null;
+                if (previousCas == null) {
+                    return Optional.empty();
+                }
+
+                removed.add(previousCas);
+            }
+
+            return Optional.of(new TrainingDelta(added, removed));
+        }
+    }
+
+    public class TrainingDocument
+    {
+        private final SourceDocument document;
+        private final AnnotationDocumentState state;
+        private final long timestamp;
+        private final long since;
+        private final CasSlot cas;
+        private final TrainingDocument previous;
+        private final boolean current;
+
+        private TrainingDocument(SourceDocument aDocument, AnnotationDocumentState aState,
+                long aTimestamp, long aSince, CasSlot aCas, TrainingDocument aPrevious)
+        {
+            this(aDocument, aState, aTimestamp, aSince, aCas, aPrevious, true);
+        }
+
+        private TrainingDocument(SourceDocument aDocument, AnnotationDocumentState aState,
+                long aTimestamp, long aSince, CasSlot aCas, TrainingDocument aPrevious,
+                boolean aCurrent)
+        {
+            document = aDocument;
+            state = aState;
+            timestamp = aTimestamp;
+            since = aSince;
+            cas = aCas;
+            previous = aPrevious;
+            current = aCurrent;
+        }
+
+        public long getId()
+        {
+            return document.getId();
+        }
+
+        public AnnotationDocumentState getState()
+        {
+            return state;
+        }
+
+        /**
+         * @return the CAS of the document or {@code null} if it could not be loaded.
+         */
+        public CAS getCas()
+        {
+            return cas.get(this);
+        }
+
+        private TrainingDocument withState(AnnotationDocumentState aState)
+        {
+            // The state is not part of the CAS, so the CAS and its version remain the same
+            return new TrainingDocument(document, aState, timestamp, since, cas, previous);
+        }
+
+        /**
+         * @return a copy of this document which is no longer current and thus does not load its
+         *         CAS anymore. The copy does not link to its own previous version, so only a single
+         *         previous version is kept per document.
+         */
+        private TrainingDocument detach()
+        {
+            return new TrainingDocument(document, state, timestamp, since, cas, null, false);
+        }
+
+        private CAS getCasAsOf(long aGeneration)
+        {
+            if (since <= aGeneration) {
+                return current ? getCas() : cas.getIfPresent();
+            }
+
+            return previous != null ? previous.getCasAsOf(aGeneration) : null;
+        }
+
+        @Override
+        public String toString()
+        {
+            return new ToStringBuilder(this, ToStringStyle.SIMPLE_STYLE)
+                    .append("document", document).append("user", dataOwner)
+                    .append("state", state).append("since", since).toString();
+        }
+    }
+
+    /**
+     * Holds the CAS of a particular version of a document. The slot is shared between documents
+     * which only differ in their state.
+     */
+    private class CasSlot
+    {
+        private SoftReference<CAS> ref;
+        private boolean failed = false;
+
+        synchronized CAS getIfPresent()
+        {
+            return ref != null ? ref.get() : null;
+        }
+
+        synchronized CAS get(TrainingDocument aDocument)
+        {
+            var cas = getIfPresent();
+            if (cas != null || failed) {
+                return cas;
+            }
+
+            try {
+                // During training, we should not have to modify the CASes... right? Fingers
+                // crossed.
+                cas = documentService.readAnnotationCas(aDocument.document, dataOwner,
+                        AUTO_CAS_UPGRADE, SHARED_READ_ONLY_ACCESS);
+                ref = new SoftReference<>(cas);
+            }
+            catch (IOException e) {
+                failed = true;
+                LOG.error("Unable to load CAS to train recommender", e);
+            }
+
+            return cas;
+        }
+
+        synchronized void clearFailure()
+        {
+            failed = false;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.tasks;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import org.springframework.context.event.EventListener;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.ProjectPermissionsChangedEvent;
+import de.tudarmstadt.ukp.inception.recommendation.config.RecommenderServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+
+/**
+ * Keeps the {@link TrainingCorpus} of recently trained data owners across training runs. Corpora
+ * which have not been used for a while are dropped, as are the oldest ones if there are too many.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link RecommenderServiceAutoConfiguration#trainingCorpusCache}.
+ * </p>
+ */
+public class TrainingCorpusCache
+{
+    private static final long DEFAULT_MAXIMUM_SIZE = 100;
+    private static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofMinutes(30);
+
+    private final DocumentService documentService;
+    private final CasStorageService casStorageService;
+
+    private final Cache<CorpusKey, TrainingCorpus> corpora;
+
+    public TrainingCorpusCache(DocumentService aDocumentService,
+            CasStorageService aCasStorageService)
+    {
+        this(aDocumentService, aCasStorageService, DEFAULT_MAXIMUM_SIZE,
+                DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
+
+    TrainingCorpusCache(DocumentService aDocumentService, CasStorageService aCasStorageService,
+            long aMaximumSize, Duration aExpireAfterAccess)
+    {
+        documentService = aDocumentService;
+        casStorageService = aCasStorageService;
+        corpora = Caffeine.newBuilder() //
+                .maximumSize(aMaximumSize) //
+                .expireAfterAccess(aExpireAfterAccess) //
+                .executor(Runnable::run) //
+                .build();
+    }
+
+    public TrainingCorpus get(Project aProject, String aDataOwner)
+    {
+        return corpora.get(new CorpusKey(aProject.getId(), aDataOwner),
+                $ -> new TrainingCorpus(documentService, casStorageService, aDataOwner));
+    }
+
+    long size()
+    {
+        corpora.cleanUp();
+        return corpora.estimatedSize();
+    }
+
+    @EventListener
+    public void onBeforeProjectRemoved(BeforeProjectRemovedEvent aEvent)
+    {
+        var projectId = aEvent.getProject().getId();
+        corpora.asMap().keySet().removeIf(key -> Objects.equals(key.projectId(), projectId));
+    }
+
+    @EventListener
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        // Changing the layers does not change the CAS timestamps, but the CASes need to be loaded
+        // again to be upgraded to the new type system
+        var projectId = aEvent.getProject().getId();
+        corpora.asMap().keySet().removeIf(key -> Objects.equals(key.projectId(), projectId));
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemoved(BeforeDocumentRemovedEvent aEvent)
+    {
+        var document = aEvent.getDocument();
+        var projectId = document.getProject().getId();
+        corpora.asMap().forEach((key, corpus) -> {
+            if (Objects.equals(key.projectId(), projectId)) {
+                corpus.removeDocument(document.getId());
+            }
+        });
+    }
+
+    @EventListener
+    public void onProjectPermissionsChanged(ProjectPermissionsChangedEvent aEvent)
+    {
+        // If a user loses access to the project, the corpus is dropped. If the user still has
+        // access, it is simply rebuilt on the next training run.
+        var projectId = aEvent.getProject().getId();
+        for (var permission : aEvent.getRemovedPermissions()) {
+            corpora.invalidate(new CorpusKey(projectId, permission.getUser()));
+        }
+    }
+
+    private record CorpusKey(Long projectId, String dataOwner)
+    {}
+}
@@ -19,11 +19,13 @@ package de.tudarmstadt.ukp.inception.recommendation.tasks;
 
 import static de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingCapability.TRAINING_NOT_SUPPORTED;
 import static de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingCapability.TRAINING_REQUIRED;
+import static de.tudarmstadt.ukp.inception.recommendation.tasks.TrainingCorpus.KEY_TRAINING_DATA_VERSION;
 import static java.lang.System.currentTimeMillis;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
 
 import java.lang.invoke.MethodHandles;
 import java.util.List;
+import java.util.Optional;
 
 import javax.persistence.NoResultException;
 
@@ -38,12 +40,12 @@ import org.springframework.context.ApplicationEventPublisher;
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
-import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.EvaluatedRecommender;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Recommender;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationException;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext;
+import de.tudarmstadt.ukp.inception.recommendation.api.recommender.TrainingDelta;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommenderTaskNotificationEvent;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.WebAnnoConst;
@@ -56,10 +58,10 @@ public class TrainingTask
 
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
-    private @Autowired DocumentService documentService;
     private @Autowired RecommendationService recommenderService;
     private @Autowired SchedulingService schedulingService;
     private @Autowired ApplicationEventPublisher appEventPublisher;
+    private @Autowired TrainingCorpusCache trainingCorpusCache;
 
     private final SourceDocument currentDocument;
     private final String dataOwner;
@@ -112,8 +114,10 @@ public class TrainingTask
 
         // Read the CASes only when they are accessed the first time. This allows us to skip
         // reading the CASes in case that no layer / recommender is available or if no
-        // recommender requires evaluation.
-        var casLoader = new LazyCasLoader(documentService, getProject(), dataOwner);
+        // recommender requires evaluation. The corpus is kept across training runs, so only
+        // documents which changed since the last run need to be read again.
+        var casLoader = new LazyCasLoader(trainingCorpusCache.get(getProject(), dataOwner),
+                getProject());
 
         getMonitor().setMaxProgress(activeRecommenders.size());
         for (var activeRecommender : activeRecommenders) {
@@ -185,9 +189,9 @@ public class TrainingTask
         }
 
         var engine = factory.build(aRecommender);
-        var ctx = engine
-                .newContext(recommenderService.getContext(sessionOwner.getUsername(), aRecommender)
-                        .orElse(RecommenderContext.emptyContext()));
+        var previousCtx = recommenderService.getContext(sessionOwner.getUsername(), aRecommender)
+                .orElse(RecommenderContext.emptyContext());
+        var ctx = engine.newContext(previousCtx);
         ctx.setUser(sessionOwner);
 
         // If engine does not support training, mark engine ready and skip to
@@ -199,7 +203,8 @@ public class TrainingTask
             return;
         }
 
-        var trainingCasses = casLoader.getRelevantCasses(aRecommender);
+        var trainingData = casLoader.getTrainingData(aRecommender);
+        var trainingCasses = trainingData.getCasses();
 
         // If no data for training is available, but the engine requires training,
         // do not mark as ready
@@ -215,7 +220,20 @@ public class TrainingTask
 
         logTrainingRecommenderStart(casLoader, aRecommender, trainingCasses);
 
-        engine.train(ctx, trainingCasses);
+        var delta = Optional.<TrainingDelta> empty();
+        if (engine.isIncrementalTrainingSupported()) {
+            delta = previousCtx.get(KEY_TRAINING_DATA_VERSION)
+                    .flatMap(trainingData::getDeltaSince);
+        }
+
+        if (delta.isPresent()) {
+            logIncrementalTraining(aRecommender, delta.get());
+            engine.train(ctx, trainingCasses, delta.get());
+        }
+        else {
+            engine.train(ctx, trainingCasses);
+        }
+        ctx.put(KEY_TRAINING_DATA_VERSION, trainingData.getVersion());
         inheritLog(ctx.getMessages());
 
         var duration = currentTimeMillis() - startTime;
@@ -377,6 +395,13 @@ public class TrainingTask
                 cassesForTraining.size(), casses.size(), duration));
     }
 
+    private void logIncrementalTraining(Recommender recommender, TrainingDelta aDelta)
+    {
+        LOG.debug("[{}][{}][{}]: Training incrementally on [{}] added and [{}] removed documents",
+                getId(), getSessionOwner().getUsername(), recommender.getName(),
+                aDelta.addedCasses().size(), aDelta.removedCasses().size());
+    }
+
     private void logTrainingOverallStart()
     {
         LOG.debug(
@@ -25,12 +25,18 @@ import static java.util.Arrays.asList;
 import static org.apache.uima.fit.factory.JCasFactory.createText;
 import static org.apache.uima.util.TypeSystemUtil.typeSystem2TypeSystemDescription;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.when;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Feature;
@@ -171,4 +177,71 @@ class PredictionTaskTest
                         AnnotationSuggestion::getAge) //
                 .containsExactlyInAnyOrder(tuple(0, "aged", 1), tuple(3, "added", 0));
     }
+
+    @Test
+    void thatParallelProcessingVisitsAllItems() throws Exception
+    {
+        var items = IntStream.range(0, 100).boxed().toList();
+        var visited = ConcurrentHashMap.<Integer> newKeySet();
+
+        PredictionTask.processInParallel(items, 4, Executors.defaultThreadFactory(), () -> false,
+                nextItem -> {
+                    Integer item;
+                    while ((item = nextItem.get()) != null) {
+                        visited.add(item);
+                    }
+                });
+
+        assertThat(visited).containsExactlyInAnyOrderElementsOf(items);
+    }
+
+    @Test
+    void thatFailureStopsAndAwaitsAllWorkers() throws Exception
+    {
+        var items = IntStream.range(0, 100).boxed().toList();
+        var processed = new AtomicInteger();
+        var running = new AtomicInteger();
+
+        assertThatExceptionOfType(ExecutionException.class) //
+                .isThrownBy(() -> PredictionTask.processInParallel(items, 4,
+                        Executors.defaultThreadFactory(), () -> false, nextItem -> {
+                            running.incrementAndGet();
+                            try {
+                                Integer item;
+                                while ((item = nextItem.get()) != null) {
+                                    if (item == 0) {
+                                        throw new IllegalStateException("boom");
+                                    }
+                                    Thread.sleep(10);
+                                    processed.incrementAndGet();
+                                }
+                            }
+                            finally {
+                                running.decrementAndGet();
+                            }
+                        })) //
+                .withCauseInstanceOf(IllegalStateException.class);
+
+        // All workers have terminated before the method returned and stopped taking new items
+        // after the failure
+        assertThat(running.get()).isZero();
+        assertThat(processed.get()).isLessThan(items.size() - 1);
+    }
+
+    @Test
+    void thatCancellationStopsWorkers() throws Exception
+    {
+        var items = IntStream.range(0, 100).boxed().toList();
+        var processed = new AtomicInteger();
+
+        PredictionTask.processInParallel(items, 4, Executors.defaultThreadFactory(),
+                () -> processed.get() >= 10, nextItem -> {
+                    while (nextItem.get() != null) {
+                        processed.incrementAndGet();
+                    }
+                });
+
+        // Each worker may have taken one item before noticing the cancellation
+        assertThat(processed.get()).isBetween(10, 10 + 4);
+    }
 }
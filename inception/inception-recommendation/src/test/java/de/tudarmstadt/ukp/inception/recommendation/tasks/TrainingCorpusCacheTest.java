@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.SHARED_READ_ONLY_ACCESS;
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AUTO_CAS_UPGRADE;
+import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.ANNOTATOR;
+import static java.util.Collections.emptyList;
+import static org.apache.uima.fit.factory.CasFactory.createText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.uima.cas.CAS;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.ProjectPermission;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.project.api.event.ProjectPermissionsChangedEvent;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingCorpusCacheTest
+{
+    private @Mock DocumentService documentService;
+    private @Mock CasStorageService casStorageService;
+
+    private Project project1;
+    private Project project2;
+
+    private TrainingCorpusCache sut;
+
+    @BeforeEach
+    void setup()
+    {
+        project1 = Project.builder().withId(1l).build();
+        project2 = Project.builder().withId(2l).build();
+
+        sut = new TrainingCorpusCache(documentService, casStorageService, 3,
+                Duration.ofMinutes(5));
+    }
+
+    @Test
+    void thatCorpusIsKeptAcrossCalls()
+    {
+        var corpus = sut.get(project1, "user");
+
+        assertThat(sut.get(project1, "user")).isSameAs(corpus);
+        assertThat(sut.get(project1, "other")).isNotSameAs(corpus);
+        assertThat(sut.get(project2, "user")).isNotSameAs(corpus);
+    }
+
+    @Test
+    void thatCacheIsBounded()
+    {
+        for (var i = 0; i < 10; i++) {
+            sut.get(project1, "user" + i);
+        }
+
+        assertThat(sut.size()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void thatCorporaAreDroppedWithProject()
+    {
+        var corpus1 = sut.get(project1, "user");
+        var corpus2 = sut.get(project2, "user");
+
+        sut.onBeforeProjectRemoved(new BeforeProjectRemovedEvent(this, project1));
+
+        assertThat(sut.get(project1, "user")).isNotSameAs(corpus1);
+        assertThat(sut.get(project2, "user")).isSameAs(corpus2);
+    }
+
+    @Test
+    void thatCorpusIsDroppedWhenUserLosesPermission()
+    {
+        var corpus = sut.get(project1, "user");
+        var otherCorpus = sut.get(project1, "other");
+
+        sut.onProjectPermissionsChanged(new ProjectPermissionsChangedEvent(this, project1,
+                emptyList(), List.of(new ProjectPermission(project1, "user", ANNOTATOR))));
+
+        assertThat(sut.get(project1, "user")).isNotSameAs(corpus);
+        assertThat(sut.get(project1, "other")).isSameAs(otherCorpus);
+    }
+
+    @Test
+    void thatCorpusIsReloadedWhenLayerConfigurationChanges() throws Exception
+    {
+        var doc = SourceDocument.builder().withId(1l).withName("doc").withProject(project1)
+                .build();
+        var documents = new LinkedHashMap<SourceDocument, AnnotationDocument>();
+        documents.put(doc, null);
+        var cas = createText("text");
+        var upgradedCas = createText("text");
+        when(documentService.listAllDocuments(project1, "user")).thenReturn(documents);
+        when(casStorageService.getCasTimestamp(doc, "user")).thenReturn(Optional.of(1l));
+        when(documentService.readAnnotationCas(doc, "user", AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas, upgradedCas);
+        var otherProjectCorpus = sut.get(project2, "user");
+
+        assertThat(casses(sut.get(project1, "user").refresh(project1))).containsExactly(cas);
+        assertThat(casses(sut.get(project1, "user").refresh(project1))).containsExactly(cas);
+
+        sut.onLayerConfigurationChanged(new LayerConfigurationChangedEvent(this, project1));
+
+        assertThat(casses(sut.get(project1, "user").refresh(project1)))
+                .containsExactly(upgradedCas);
+        assertThat(sut.get(project2, "user")).isSameAs(otherProjectCorpus);
+        verify(documentService, times(2)).readAnnotationCas(doc, "user", AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS);
+    }
+
+    private List<CAS> casses(TrainingCorpus.Snapshot aSnapshot)
+    {
+        var casses = new ArrayList<CAS>();
+        for (var document : aSnapshot.getDocuments()) {
+            casses.add(document.getCas());
+        }
+        return casses;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.SHARED_READ_ONLY_ACCESS;
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AUTO_CAS_UPGRADE;
+import static org.apache.uima.fit.factory.CasFactory.createText;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+
+import org.apache.uima.cas.CAS;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+
+@ExtendWith(MockitoExtension.class)
+class TrainingCorpusTest
+{
+    private static final String DATA_OWNER = "user";
+
+    private @Mock DocumentService documentService;
+    private @Mock CasStorageService casStorageService;
+
+    private Project project;
+    private SourceDocument doc1;
+    private SourceDocument doc2;
+    private LinkedHashMap<SourceDocument, AnnotationDocument> documents;
+
+    private TrainingCorpus sut;
+
+    @BeforeEach
+    void setup()
+    {
+        project = Project.builder().withId(1l).build();
+        doc1 = SourceDocument.builder().withId(1l).withName("doc1").withProject(project).build();
+        doc2 = SourceDocument.builder().withId(2l).withName("doc2").withProject(project).build();
+
+        documents = new LinkedHashMap<>();
+        documents.put(doc1, null);
+        documents.put(doc2, null);
+        when(documentService.listAllDocuments(project, DATA_OWNER)).thenReturn(documents);
+
+        sut = new TrainingCorpus(documentService, casStorageService, DATA_OWNER);
+    }
+
+    @Test
+    void thatOnlyChangedDocumentsAreReloaded() throws Exception
+    {
+        var cas1 = createText("one");
+        var cas2 = createText("two");
+        var cas2Changed = createText("two changed");
+        when(casStorageService.getCasTimestamp(doc1, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(casStorageService.getCasTimestamp(doc2, DATA_OWNER)) //
+                .thenReturn(Optional.of(1l), Optional.of(1l), Optional.of(2l));
+        when(documentService.readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas1);
+        when(documentService.readAnnotationCas(doc2, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas2, cas2Changed);
+
+        var first = trainingData(sut.refresh(project));
+        assertThat(first.getCasses()).containsExactly(cas1, cas2);
+
+        var unchanged = sut.refresh(project);
+        assertThat(unchanged.getGeneration()).isEqualTo(1);
+        assertThat(casses(unchanged)).containsExactly(cas1, cas2);
+        assertThat(trainingData(unchanged).getDeltaSince(first.getVersion())) //
+                .hasValueSatisfying(delta -> assertThat(delta.isEmpty()).isTrue());
+
+        var changed = sut.refresh(project);
+        assertThat(changed.getGeneration()).isEqualTo(2);
+        var second = trainingData(changed);
+        assertThat(second.getCasses()).containsExactly(cas1, cas2Changed);
+        assertThat(second.getDeltaSince(first.getVersion())).hasValueSatisfying(delta -> {
+            assertThat(delta.addedCasses()).containsExactly(cas2Changed);
+            assertThat(delta.removedCasses()).containsExactly(cas2);
+        });
+
+        verify(documentService, times(1)).readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS);
+    }
+
+    @Test
+    void thatRemovedDocumentsAreDropped() throws Exception
+    {
+        var cas1 = createText("one");
+        var cas2 = createText("two");
+        when(casStorageService.getCasTimestamp(doc1, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(casStorageService.getCasTimestamp(doc2, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(documentService.readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas1);
+        when(documentService.readAnnotationCas(doc2, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas2);
+
+        assertThat(casses(sut.refresh(project))).containsExactly(cas1, cas2);
+
+        sut.removeDocument(doc1.getId());
+        documents.remove(doc1);
+
+        var second = sut.refresh(project);
+        assertThat(second.getGeneration()).isEqualTo(1);
+        assertThat(casses(second)).containsExactly(cas2);
+    }
+
+    @Test
+    void thatDocumentsNoLongerListedArePartOfTheDelta() throws Exception
+    {
+        var cas1 = createText("one");
+        var cas2 = createText("two");
+        when(casStorageService.getCasTimestamp(doc1, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(casStorageService.getCasTimestamp(doc2, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(documentService.readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas1);
+        when(documentService.readAnnotationCas(doc2, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(cas2);
+
+        var first = trainingData(sut.refresh(project));
+
+        documents.remove(doc1);
+
+        var second = trainingData(sut.refresh(project));
+        assertThat(second.getCasses()).containsExactly(cas2);
+        assertThat(second.getDeltaSince(first.getVersion())).hasValueSatisfying(delta -> {
+            assertThat(delta.addedCasses()).isEmpty();
+            assertThat(delta.removedCasses()).containsExactly(cas1);
+        });
+    }
+
+    @Test
+    void thatDeltaIsUnknownAfterDocumentWasRemoved() throws Exception
+    {
+        when(casStorageService.getCasTimestamp(doc1, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(casStorageService.getCasTimestamp(doc2, DATA_OWNER)).thenReturn(Optional.of(1l));
+        when(documentService.readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(createText("one"));
+        when(documentService.readAnnotationCas(doc2, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(createText("two"));
+
+        var first = trainingData(sut.refresh(project));
+
+        sut.removeDocument(doc1.getId());
+        documents.remove(doc1);
+
+        assertThat(trainingData(sut.refresh(project)).getDeltaSince(first.getVersion())).isEmpty();
+    }
+
+    @Test
+    void thatDeltaIsUnknownForOtherCorpus() throws Exception
+    {
+        when(casStorageService.getCasTimestamp(doc1, DATA_OWNER)).thenReturn(Optional.empty());
+        when(casStorageService.getCasTimestamp(doc2, DATA_OWNER)).thenReturn(Optional.empty());
+        when(documentService.readAnnotationCas(doc1, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(createText("one"));
+        when(documentService.readAnnotationCas(doc2, DATA_OWNER, AUTO_CAS_UPGRADE,
+                SHARED_READ_ONLY_ACCESS)).thenReturn(createText("two"));
+
+        var other = new TrainingCorpus(documentService, casStorageService, DATA_OWNER);
+        var otherVersion = trainingData(other.refresh(project)).getVersion();
+
+        assertThat(trainingData(sut.refresh(project)).getDeltaSince(otherVersion)).isEmpty();
+    }
+
+    private TrainingCorpus.TrainingData trainingData(TrainingCorpus.Snapshot aSnapshot)
+    {
+        var selected = new ArrayList<TrainingCorpus.TrainingDocument>();
+        var casses = new ArrayList<CAS>();
+        for (var document : aSnapshot.getDocuments()) {
+            selected.add(document);
+            casses.add(document.getCas());
+        }
+        return aSnapshot.trainingData(selected, casses);
+    }
+
+    private List<CAS> casses(TrainingCorpus.Snapshot aSnapshot)
+    {
+        var casses = new ArrayList<CAS>();
+        for (var document : aSnapshot.getDocuments()) {
+            casses.add(document.getCas());
+        }
+        return casses;
+    }
+}
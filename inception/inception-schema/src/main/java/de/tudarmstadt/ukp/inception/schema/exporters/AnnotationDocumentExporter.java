@@ -23,37 +23,48 @@ import static de.tudarmstadt.ukp.clarin.webanno.security.UserDaoImpl.RESERVED_US
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.ANNOTATION_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.withProjectLogger;
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.INITIAL_CAS_PSEUDO_USER;
-import static de.tudarmstadt.ukp.inception.support.io.FastIOUtils.copy;
 import static java.lang.Math.ceil;
 import static java.lang.System.currentTimeMillis;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static org.apache.commons.io.FileUtils.copyFileToDirectory;
-import static org.apache.commons.io.FileUtils.forceDelete;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
 import static org.apache.commons.io.FileUtils.forceMkdir;
+import static org.apache.commons.io.FileUtils.moveFile;
 import static org.apache.commons.io.FilenameUtils.getExtension;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -70,6 +81,7 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectArchive;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportException;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
@@ -99,9 +111,14 @@ import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 public class AnnotationDocumentExporter
     implements ProjectExporter
 {
-    private static final String ANNOTATION_ORIGINAL_FOLDER = "/annotation/";
+    private static final String ANNOTATION_ORIGINAL = "annotation";
     private static final String ANNOTATION_AS_SERIALISED_CAS = "annotation_ser";
-    private static final String ANNOTATION_CAS_FOLDER = "/" + ANNOTATION_AS_SERIALISED_CAS + "/";
+
+    private static final int WORKER_THREADS = Math.max(1,
+            Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    // Number of documents that may be converted ahead of the document being written
+    private static final int MAX_PENDING_DOCUMENTS = 2 * WORKER_THREADS;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -139,7 +156,18 @@ public class AnnotationDocumentExporter
         throws IOException, InterruptedException, ProjectExportException
     {
         exportAnnotationDocuments(aMonitor, aRequest.getProject(), aExProject);
-        exportAnnotationDocumentContents(aRequest, aMonitor, aExProject, aStage);
+        exportAnnotationDocumentContents(aRequest, aMonitor,
+                (name, file) -> moveToStage(aStage, name, file));
+    }
+
+    @Override
+    public void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, File aStage, ZipOutputStream aZip)
+        throws IOException, InterruptedException, ProjectExportException
+    {
+        exportAnnotationDocuments(aMonitor, aRequest.getProject(), aExProject);
+        exportAnnotationDocumentContents(aRequest, aMonitor,
+                (name, file) -> writeToZip(aZip, name, file));
     }
 
     private void exportAnnotationDocuments(ProjectExportTaskMonitor aMonitor, Project aProject,
@@ -164,15 +192,23 @@ public class AnnotationDocumentExporter
         aExProject.setAnnotationDocuments(annotationDocuments);
     }
 
+    /**
+     * Converts the documents on a bounded worker pool and hands the results to the given writer in
+     * document order. Only a limited number of documents is converted ahead of the document that is
+     * currently being written, so the temporary disk space required does not depend on the size of
+     * the project. Temporary files that have not been written when the export ends, e.g. because it
+     * failed or was cancelled, are deleted once all workers have terminated.
+     */
     private void exportAnnotationDocumentContents(FullProjectExportRequest aRequest,
-            ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, File aStage)
+            ProjectExportTaskMonitor aMonitor, EntryWriter aWriter)
         throws IOException, InterruptedException, ProjectExportException
     {
         Project project = aRequest.getProject();
 
         // The export process may store project-related information in this context to ensure it
-        // is looked up only once during the bulk operation and the DB is not hit too often.
-        Map<Pair<Project, String>, Object> bulkOperationContext = new HashMap<>();
+        // is looked up only once during the bulk operation and the DB is not hit too often. The
+        // context is shared by the workers.
+        Map<Pair<Project, String>, Object> bulkOperationContext = new ConcurrentHashMap<>();
 
         List<SourceDocument> documents = documentService.listSourceDocuments(project);
         int i = 1;
@@ -189,146 +225,301 @@ public class AnnotationDocumentExporter
         LoadingCache<String, User> usersCache = Caffeine.newBuilder()
                 .build(key -> userRepository.get(key));
 
-        for (SourceDocument srcDoc : documents) {
-            // check if the export has been cancelled
-            if (Thread.interrupted()) {
-                throw new InterruptedException();
-            }
-
-            try (CasStorageSession session = CasStorageSession.openNested()) {
-                FormatSupport format = null;
-                if (aRequest.getFormat() != null) {
-                    // Determine which format to use for export
-                    String formatId = FORMAT_AUTO.equals(aRequest.getFormat()) ? srcDoc.getFormat()
-                            : aRequest.getFormat();
-
-                    format = importExportService.getWritableFormatById(formatId).orElseGet(() -> {
-                        FormatSupport fallbackFormat = importExportService.getFallbackFormat();
-                        aMonitor.addMessage(LogMessage.warn(this, "Annotation: [%s] No writer "
-                                + "found for format [%s] - falling back to exporting as [%s] "
-                                + "instead.", srcDoc.getName(), formatId,
-                                fallbackFormat.getName()));
-                        return fallbackFormat;
-                    });
+        var executor = Executors.newFixedThreadPool(WORKER_THREADS);
+        var pending = new ArrayDeque<Future<List<ExportedEntry>>>();
+        var tempFiles = ConcurrentHashMap.<File> newKeySet();
+        try {
+            for (SourceDocument srcDoc : documents) {
+                // check if the export has been cancelled
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
                 }
 
-                //
-                // Export initial CASes
-                //
+                var format = getExportFormat(aRequest, aMonitor, srcDoc);
+                var annDocs = srcToAnnIdx.getOrDefault(srcDoc, emptyList());
+                pending.add(executor.submit(() -> exportDocumentContents(project, srcDoc,
+                        annDocs, format, usersCache, bulkOperationContext, tempFiles)));
 
-                // The initial CAS must always be exported to ensure that the converted source
-                // document will *always* have the state it had at the time of the initial import.
-                // We we do have a reliably initial CAS and instead lazily convert whenever an
-                // annotator starts annotating, then we could end up with two annotators having two
-                // different versions of their CAS e.g. if there was a code change in the reader
-                // component that affects its output.
-
-                // If the initial CAS does not exist yet, it must be created before export.
-                if (!documentService.existsInitialCas(srcDoc)) {
-                    documentService.createOrReadInitialCas(srcDoc);
+                if (pending.size() >= MAX_PENDING_DOCUMENTS) {
+                    writeEntries(pending.pop(), aWriter, tempFiles);
+                    aMonitor.setProgress(
+                            initProgress + (int) ceil(((double) i) / documents.size() * 80.0));
+                    i++;
                 }
+            }
 
-                File targetDir = new File(aStage, ANNOTATION_CAS_FOLDER + srcDoc.getName());
-                forceMkdir(targetDir);
+            while (!pending.isEmpty()) {
+                writeEntries(pending.pop(), aWriter, tempFiles);
+                aMonitor.setProgress(
+                        initProgress + (int) ceil(((double) i) / documents.size() * 80.0));
+                i++;
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            try {
+                awaitTermination(executor);
+            }
+            finally {
+                tempFiles.forEach(FileUtils::deleteQuietly);
+            }
+        }
+    }
 
-                try (OutputStream os = new FileOutputStream(
-                        new File(targetDir, INITIAL_CAS_PSEUDO_USER + ".ser"))) {
-                    documentService.exportCas(srcDoc, INITIAL_CAS_PSEUDO_USER, os);
+    private void awaitTermination(ExecutorService aExecutor)
+    {
+        var interrupted = false;
+        try {
+            while (true) {
+                try {
+                    if (aExecutor.awaitTermination(1, MINUTES)) {
+                        return;
+                    }
+                    log.debug("Still waiting for annotation document workers to terminate");
                 }
-
-                if (format != null) {
-                    exportAdditionalFormat(aStage, bulkOperationContext, srcDoc, format,
-                            INITIAL_CAS_PSEUDO_USER);
+                catch (InterruptedException e) {
+                    interrupted = true;
                 }
+            }
+        }
+        finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private FormatSupport getExportFormat(FullProjectExportRequest aRequest,
+            ProjectExportTaskMonitor aMonitor, SourceDocument aSrcDoc)
+    {
+        if (aRequest.getFormat() == null) {
+            return null;
+        }
+
+        // Determine which format to use for export
+        String formatId = FORMAT_AUTO.equals(aRequest.getFormat()) ? aSrcDoc.getFormat()
+                : aRequest.getFormat();
+
+        return importExportService.getWritableFormatById(formatId).orElseGet(() -> {
+            FormatSupport fallbackFormat = importExportService.getFallbackFormat();
+            aMonitor.addMessage(LogMessage.warn(this, "Annotation: [%s] No writer "
+                    + "found for format [%s] - falling back to exporting as [%s] " + "instead.",
+                    aSrcDoc.getName(), formatId, fallbackFormat.getName()));
+            return fallbackFormat;
+        });
+    }
 
-                log.info("Exported annotation document content for user [{}] for source document "
-                        + "{} in project {}", INITIAL_CAS_PSEUDO_USER, srcDoc, project);
+    /**
+     * Exports the initial CAS and the annotator CASes of a source document into temporary files.
+     * Runs on a worker thread. On success, the temporary files are registered in the given set so
+     * they can be cleaned up if they are never written.
+     */
+    private List<ExportedEntry> exportDocumentContents(Project aProject, SourceDocument aSrcDoc,
+            List<AnnotationDocument> aAnnDocs, FormatSupport aFormat,
+            LoadingCache<String, User> aUsersCache,
+            Map<Pair<Project, String>, Object> aBulkOperationContext, Set<File> aTempFiles)
+        throws IOException, InterruptedException, ProjectExportException
+    {
+        var entries = new ArrayList<ExportedEntry>();
+        var success = false;
+        try (var logCtx = withProjectLogger(aProject);
+                var session = CasStorageSession.openNested()) {
+            //
+            // Export initial CASes
+            //
+
+            // The initial CAS must always be exported to ensure that the converted source
+            // document will *always* have the state it had at the time of the initial import.
+            // We we do have a reliably initial CAS and instead lazily convert whenever an
+            // annotator starts annotating, then we could end up with two annotators having two
+            // different versions of their CAS e.g. if there was a code change in the reader
+            // component that affects its output.
+
+            // If the initial CAS does not exist yet, it must be created before export.
+            if (!documentService.existsInitialCas(aSrcDoc)) {
+                documentService.createOrReadInitialCas(aSrcDoc);
+            }
+
+            entries.add(exportSerializedCas(aSrcDoc, INITIAL_CAS_PSEUDO_USER));
+
+            if (aFormat != null) {
+                entries.add(exportAdditionalFormat(aBulkOperationContext, aSrcDoc, aFormat,
+                        INITIAL_CAS_PSEUDO_USER));
+            }
 
-                //
-                // Export per-user annotation document
-                //
+            log.info("Exported annotation document content for user [{}] for source document "
+                    + "{} in project {}", INITIAL_CAS_PSEUDO_USER, aSrcDoc, aProject);
 
-                // Export annotations from regular users
-                for (AnnotationDocument annDoc : srcToAnnIdx.computeIfAbsent(srcDoc,
-                        key -> emptyList())) {
+            //
+            // Export per-user annotation document
+            //
 
-                    // copy annotation document only for existing users and the state of the
-                    // annotation document is not NEW/IGNORE
-                    if (usersCache.get(annDoc.getUser()) != null
-                            && documentService.existsCas(annDoc)
-                            && !annDoc.getState().equals(AnnotationDocumentState.NEW)
-                            && !annDoc.getState().equals(AnnotationDocumentState.IGNORE)) {
+            // Export annotations from regular users
+            for (AnnotationDocument annDoc : aAnnDocs) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
 
-                        exportSerializedCas(aStage, srcDoc, annDoc);
+                // copy annotation document only for existing users and the state of the
+                // annotation document is not NEW/IGNORE
+                if (aUsersCache.get(annDoc.getUser()) != null
+                        && documentService.existsCas(annDoc)
+                        && !annDoc.getState().equals(AnnotationDocumentState.NEW)
+                        && !annDoc.getState().equals(AnnotationDocumentState.IGNORE)) {
 
-                        if (format != null) {
-                            exportAdditionalFormat(aStage, bulkOperationContext, srcDoc, format,
-                                    annDoc.getUser());
-                        }
+                    entries.add(exportSerializedCas(aSrcDoc, annDoc.getUser()));
 
-                        log.info("Exported annotation document content for user [{}] for " //
-                                + "source document {} in project {}", annDoc.getUser(), srcDoc,
-                                project);
+                    if (aFormat != null) {
+                        entries.add(exportAdditionalFormat(aBulkOperationContext, aSrcDoc,
+                                aFormat, annDoc.getUser()));
                     }
+
+                    log.info("Exported annotation document content for user [{}] for " //
+                            + "source document {} in project {}", annDoc.getUser(), aSrcDoc,
+                            aProject);
                 }
             }
 
-            aMonitor.setProgress(initProgress + (int) ceil(((double) i) / documents.size() * 80.0));
-            i++;
+            success = true;
+            return entries;
+        }
+        finally {
+            if (success) {
+                entries.forEach(entry -> aTempFiles.add(entry.file()));
+            }
+            else {
+                // If the export failed or was cancelled, nobody else is going to clean up
+                entries.forEach(entry -> deleteQuietly(entry.file()));
+            }
+        }
+    }
+
+    private void writeEntries(Future<List<ExportedEntry>> aFuture, EntryWriter aWriter,
+            Set<File> aTempFiles)
+        throws IOException, InterruptedException, ProjectExportException
+    {
+        List<ExportedEntry> entries;
+        try {
+            entries = aFuture.get();
+        }
+        catch (ExecutionException e) {
+            var cause = e.getCause();
+            if (cause instanceof ProjectExportException exportException) {
+                throw exportException;
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof InterruptedException interruptedException) {
+                throw interruptedException;
+            }
+            throw new ProjectExportException("Error exporting annotation documents: "
+                    + ExceptionUtils.getRootCauseMessage(cause), cause);
+        }
+
+        try {
+            for (var entry : entries) {
+                aWriter.write(entry.name(), entry.file());
+            }
+        }
+        finally {
+            for (var entry : entries) {
+                deleteQuietly(entry.file());
+                aTempFiles.remove(entry.file());
+            }
         }
     }
 
-    private void exportSerializedCas(File aStage, SourceDocument srcDoc, AnnotationDocument annDoc)
-        throws IOException, FileNotFoundException
+    private ExportedEntry exportSerializedCas(SourceDocument aSrcDoc, String aUsername)
+        throws IOException
     {
-        File annSerDir = new File(
-                aStage.getAbsolutePath() + ANNOTATION_CAS_FOLDER + srcDoc.getName());
-        forceMkdir(annSerDir);
-        try (OutputStream os = new FileOutputStream(
-                new File(annSerDir, annDoc.getUser() + ".ser"))) {
-            documentService.exportCas(srcDoc, annDoc.getUser(), os);
+        var file = File.createTempFile("inception-export", ".ser");
+        try (OutputStream os = new FileOutputStream(file)) {
+            documentService.exportCas(aSrcDoc, aUsername, os);
         }
+        catch (IOException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+
+        return new ExportedEntry(
+                ANNOTATION_AS_SERIALISED_CAS + "/" + aSrcDoc.getName() + "/" + aUsername + ".ser",
+                file);
     }
 
-    private void exportAdditionalFormat(File aStage,
+    private ExportedEntry exportAdditionalFormat(
             Map<Pair<Project, String>, Object> bulkOperationContext, SourceDocument srcDoc,
             FormatSupport format, String aUsername)
         throws IOException, ProjectExportException
     {
-        File annDocDir = new File(
-                aStage.getAbsolutePath() + ANNOTATION_ORIGINAL_FOLDER + srcDoc.getName());
-        File annFile = null;
+        File annFile;
         try {
             annFile = importExportService.exportAnnotationDocument(srcDoc, aUsername, format,
                     aUsername, ANNOTATION, false, bulkOperationContext);
-            forceMkdir(annDocDir);
-
-            if (userRepository.isValidUsername(aUsername)
-                    || RESERVED_USERNAMES.contains(aUsername)) {
-                // Safe-guard for legacy instances where user name validity has not been checked.
-                var filename = aUsername + "." + getExtension(annFile.getName());
-                FileUtils.copyFile(annFile, new File(annDocDir, filename));
-            }
-            else {
-                copyFileToDirectory(annFile, annDocDir);
-            }
         }
         catch (UIMAException e) {
             throw new ProjectExportException("Error exporting annotations of " + srcDoc.getName()
                     + " for user [" + aUsername + "] as [" + format.getName() + "]: "
                     + ExceptionUtils.getRootCauseMessage(e), e);
         }
-        finally {
-            if (annFile != null) {
-                forceDelete(annFile);
-            }
+
+        String filename;
+        if (userRepository.isValidUsername(aUsername) || RESERVED_USERNAMES.contains(aUsername)) {
+            filename = aUsername + "." + getExtension(annFile.getName());
+        }
+        else {
+            // Safe-guard for legacy instances where user name validity has not been checked.
+            filename = annFile.getName();
         }
+
+        return new ExportedEntry(ANNOTATION_ORIGINAL + "/" + srcDoc.getName() + "/" + filename,
+                annFile);
+    }
+
+    private static void moveToStage(File aStage, String aName, File aFile) throws IOException
+    {
+        var target = new File(aStage, aName);
+        forceMkdir(target.getParentFile());
+        moveFile(aFile, target);
+    }
+
+    private static void writeToZip(ZipOutputStream aZip, String aName, File aFile)
+        throws IOException
+    {
+        aZip.putNextEntry(new ZipEntry(aName));
+        Files.copy(aFile.toPath(), aZip);
+        aZip.closeEntry();
+    }
+
+    /**
+     * A file produced by the export which is to be added to the project archive.
+     */
+    private static record ExportedEntry(String name, File file) {}
+
+    @FunctionalInterface
+    private static interface EntryWriter
+    {
+        /**
+         * @param aName
+         *            the path of the entry in the project archive.
+         * @param aFile
+         *            the file containing the entry data. The file is deleted after the call.
+         */
+        void write(String aName, File aFile) throws IOException;
     }
 
     @Override
     public void importData(ProjectImportRequest aRequest, Project aProject,
             ExportedProject aExProject, ZipFile aZip)
         throws Exception
+    {
+        importData(aRequest, aProject, aExProject, new ProjectArchive(aZip));
+    }
+
+    @Override
+    public void importData(ProjectImportRequest aRequest, Project aProject,
+            ExportedProject aExProject, ProjectArchive aArchive)
+        throws Exception
     {
         long start = currentTimeMillis();
 
@@ -336,7 +527,7 @@ public class AnnotationDocumentExporter
                 .stream().collect(toMap(SourceDocument::getName, identity()));
 
         importAnnotationDocuments(aExProject, aProject, nameToDoc);
-        importAnnotationDocumentContents(aZip, aProject, nameToDoc);
+        importAnnotationDocumentContents(aArchive, aProject, nameToDoc);
 
         log.info("Imported [{}] annotation documents for project [{}] ({})",
                 aExProject.getSourceDocuments().size(), aExProject.getName(),
@@ -377,37 +568,36 @@ public class AnnotationDocumentExporter
     }
 
     /**
-     * copy annotation documents (serialized CASs) from the exported project
+     * copy annotation documents (serialized CASs) from the exported project. The target files are
+     * determined up-front, then the entries are extracted and validated in parallel.
      * 
-     * @param zip
-     *            the ZIP file.
+     * @param aArchive
+     *            the project archive.
      * @param aProject
      *            the project.
      * @throws IOException
      *             if an I/O error occurs.
+     * @throws InterruptedException
+     *             if the import is cancelled.
      */
-    @SuppressWarnings("rawtypes")
-    private void importAnnotationDocumentContents(ZipFile zip, Project aProject,
+    private void importAnnotationDocumentContents(ProjectArchive aArchive, Project aProject,
             Map<String, SourceDocument> aNameToDoc)
-        throws IOException
+        throws IOException, InterruptedException
     {
-        int n = 0;
-
         // NOTE: we resort to internal knowledge about the CasStorageService here, but
         // it makes the import quite a bit faster than using DocumentService.getCasFile(...)
         Path docRoot = repositoryProperties.getPath().toPath().resolve(PROJECT_FOLDER)
                 .resolve(aProject.getId().toString()).resolve(DOCUMENT_FOLDER);
 
         Set<SourceDocument> annotationFolderInitialized = new HashSet<>();
+        List<Callable<Void>> copyTasks = new ArrayList<>();
+        AtomicInteger n = new AtomicInteger();
 
-        for (Enumeration zipEnumerate = zip.entries(); zipEnumerate.hasMoreElements();) {
-            ZipEntry entry = (ZipEntry) zipEnumerate.nextElement();
-
+        for (ZipEntry entry : aArchive.getEntries(ANNOTATION_AS_SERIALISED_CAS)) {
             // Strip leading "/" that we had in ZIP files prior to 2.0.8 (bug #985)
             String entryName = ProjectExporter.normalizeEntryName(entry);
 
-            if (!entryName.startsWith(ANNOTATION_AS_SERIALISED_CAS + "/")
-                    || !entryName.endsWith(".ser")) {
+            if (!entryName.endsWith(".ser")) {
                 continue;
             }
 
@@ -423,6 +613,10 @@ public class AnnotationDocumentExporter
             // name of the annotation document
             fileName = fileName.replace(FilenameUtils.getName(fileName), "").replace("/", "");
             SourceDocument sourceDocument = aNameToDoc.get(fileName);
+            if (sourceDocument == null) {
+                throw new IOException("Archive entry [" + entryName
+                        + "] refers to unknown source document [" + fileName + "]");
+            }
 
             Path annFolder = docRoot.resolve(sourceDocument.getId().toString())
                     .resolve(ANNOTATION_FOLDER);
@@ -434,13 +628,56 @@ public class AnnotationDocumentExporter
                 annotationFolderInitialized.add(sourceDocument);
             }
 
-            copy(zip.getInputStream(entry), annFolder.resolve(username + ".ser").toFile());
+            Path target = annFolder.resolve(username + ".ser");
+            copyTasks.add(() -> {
+                copyEntry(aArchive, entry, target);
+                log.info("Imported content for annotation document {}: user [{}] for [{}]({}) "
+                        + "in project [{}]({})", n.incrementAndGet(), username,
+                        sourceDocument.getName(), sourceDocument.getId(), aProject.getName(),
+                        aProject.getId());
+                return null;
+            });
+        }
+
+        var executor = Executors.newFixedThreadPool(WORKER_THREADS);
+        try {
+            var completionService = new ExecutorCompletionService<Void>(executor);
+            copyTasks.forEach(completionService::submit);
+            for (int i = 0; i < copyTasks.size(); i++) {
+                try {
+                    completionService.take().get();
+                }
+                catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException ioException) {
+                        throw ioException;
+                    }
+                    throw new IOException(e.getCause());
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+        }
+    }
+
+    /**
+     * Extracts the given entry to the target file and validates the extracted data against the
+     * size and checksum recorded in the archive.
+     */
+    private static void copyEntry(ProjectArchive aArchive, ZipEntry aEntry, Path aTarget)
+        throws IOException
+    {
+        var crc = new CRC32();
+        long size;
+        try (var is = new CheckedInputStream(aArchive.getInputStream(aEntry), crc)) {
+            size = Files.copy(is, aTarget, REPLACE_EXISTING);
+        }
 
-            n++;
-            log.info(
-                    "Imported content for annotation document {}: user [{}] for [{}]({}) in project [{}]({})",
-                    n, username, sourceDocument.getName(), sourceDocument.getId(),
-                    aProject.getName(), aProject.getId());
+        if ((aEntry.getSize() >= 0 && size != aEntry.getSize())
+                || (aEntry.getCrc() >= 0 && crc.getValue() != aEntry.getCrc())) {
+            Files.deleteIfExists(aTarget);
+            throw new IOException("Archive entry [" + aEntry.getName() + "] is corrupt");
         }
     }
 }
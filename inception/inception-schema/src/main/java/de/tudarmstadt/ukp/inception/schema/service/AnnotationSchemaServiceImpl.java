@@ -54,6 +54,9 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -64,6 +67,7 @@ import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.Type;
 import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.impl.CASCompleteSerializer;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.TypeSystemUtils;
 import org.apache.uima.cas.text.AnnotationFS;
@@ -81,8 +85,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
@@ -109,11 +116,13 @@ import de.tudarmstadt.ukp.inception.annotation.layer.relation.RelationAdapter;
 import de.tudarmstadt.ukp.inception.annotation.layer.span.SpanAdapter;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasMetadataUtils;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.api.AttachedAnnotation;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.IllegalFeatureValueException;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.TypeAdapter;
 import de.tudarmstadt.ukp.inception.schema.api.config.AnnotationSchemaProperties;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagCreatedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagDeletedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagUpdatedEvent;
@@ -140,6 +149,8 @@ public class AnnotationSchemaServiceImpl
     private final LayerSupportRegistry layerSupportRegistry;
     private final FeatureSupportRegistry featureSupportRegistry;
     private final LoadingCache<TagSet, List<ImmutableTag>> immutableTagsCache;
+    private final Cache<Long, ProjectTypeSystem> projectTypeSystemCache;
+    private final ConcurrentMap<Long, AtomicLong> layerConfigurationVersions;
     private final TypeSystemDescription builtInTypes;
     private final AnnotationSchemaProperties annotationEditorProperties;
 
@@ -165,6 +176,12 @@ public class AnnotationSchemaServiceImpl
                 .maximumSize(10 * 1024) //
                 .build(this::loadImmutableTags);
 
+        projectTypeSystemCache = Caffeine.newBuilder() //
+                .expireAfterAccess(30, MINUTES) //
+                .maximumSize(100) //
+                .build();
+        layerConfigurationVersions = new ConcurrentHashMap<>();
+
         try {
             builtInTypes = createTypeSystemDescription();
         }
@@ -319,6 +336,8 @@ public class AnnotationSchemaServiceImpl
                 entityManager.merge(aLayer);
                 log.info("Updated layer {} in project {}", aLayer, aLayer.getProject());
             }
+
+            invalidateProjectTypeSystem(aLayer.getProject());
         }
     }
 
@@ -335,6 +354,8 @@ public class AnnotationSchemaServiceImpl
                 entityManager.merge(aFeature);
                 log.info("Updated feature {} in project {}", aFeature, aFeature.getProject());
             }
+
+            invalidateProjectTypeSystem(aFeature.getProject());
         }
     }
 
@@ -991,6 +1012,8 @@ public class AnnotationSchemaServiceImpl
             entityManager.remove(
                     entityManager.contains(aFeature) ? aFeature : entityManager.merge(aFeature));
 
+            invalidateProjectTypeSystem(aFeature.getProject());
+
             log.info("Removed feature {} from project {}", aFeature, aFeature.getProject());
         }
     }
@@ -1018,6 +1041,8 @@ public class AnnotationSchemaServiceImpl
 
             entityManager.remove(layer);
 
+            invalidateProjectTypeSystem(aLayer.getProject());
+
             log.info("Removed layer {} from project {}", aLayer, aLayer.getProject());
         }
     }
@@ -1180,6 +1205,18 @@ public class AnnotationSchemaServiceImpl
     public TypeSystemDescription getFullProjectTypeSystem(Project aProject,
             boolean aIncludeInternalTypes)
         throws ResourceInitializationException
+    {
+        if (!aIncludeInternalTypes) {
+            return buildFullProjectTypeSystem(aProject, false);
+        }
+
+        // Callers may modify the returned type system, so we must not hand out the cached one
+        return (TypeSystemDescription) getProjectTypeSystem(aProject).description().clone();
+    }
+
+    private TypeSystemDescription buildFullProjectTypeSystem(Project aProject,
+            boolean aIncludeInternalTypes)
+        throws ResourceInitializationException
     {
         var typeSystems = new ArrayList<TypeSystemDescription>();
 
@@ -1199,6 +1236,66 @@ public class AnnotationSchemaServiceImpl
         return mergeTypeSystems(typeSystems);
     }
 
+    /**
+     * @return the full type system of the given project including the internal types. The type
+     *         system is cached until the layer configuration of the project changes.
+     */
+    private ProjectTypeSystem getProjectTypeSystem(Project aProject)
+        throws ResourceInitializationException
+    {
+        if (aProject.getId() == null) {
+            return ProjectTypeSystem.of(-1, buildFullProjectTypeSystem(aProject, true));
+        }
+
+        // Fetch the version before building the type system. If the layer configuration changes
+        // while we build, the entry is already outdated when we put it and is rebuilt on next
+        // access.
+        var version = getLayerConfigurationVersion(aProject);
+
+        var cached = projectTypeSystemCache.getIfPresent(aProject.getId());
+        if (cached != null && cached.version() == version) {
+            return cached;
+        }
+
+        var projectTypeSystem = ProjectTypeSystem.of(version,
+                buildFullProjectTypeSystem(aProject, true));
+        projectTypeSystemCache.put(aProject.getId(), projectTypeSystem);
+        return projectTypeSystem;
+    }
+
+    private long getLayerConfigurationVersion(Project aProject)
+    {
+        return layerConfigurationVersions
+                .computeIfAbsent(aProject.getId(), $ -> new AtomicLong()).get();
+    }
+
+    private void invalidateProjectTypeSystem(Project aProject)
+    {
+        if (aProject == null || aProject.getId() == null) {
+            return;
+        }
+
+        layerConfigurationVersions.computeIfAbsent(aProject.getId(), $ -> new AtomicLong())
+                .incrementAndGet();
+        projectTypeSystemCache.invalidate(aProject.getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        // The layer and feature changes have been committed by now. Invalidate again in case the
+        // type system has been rebuilt from the uncommitted state in the meantime.
+        invalidateProjectTypeSystem(aEvent.getProject());
+    }
+
+    @EventListener
+    public void onBeforeProjectRemoved(BeforeProjectRemovedEvent aEvent)
+    {
+        var projectId = aEvent.getProject().getId();
+        projectTypeSystemCache.invalidate(projectId);
+        layerConfigurationVersions.remove(projectId);
+    }
+
     @Override
     public void upgradeCas(CAS aCas, AnnotationDocument aAnnotationDocument)
         throws UIMAException, IOException
@@ -1246,8 +1343,11 @@ public class AnnotationSchemaServiceImpl
     @Override
     public void upgradeCas(CAS aCas, Project aProject) throws UIMAException, IOException
     {
-        TypeSystemDescription ts = getFullProjectTypeSystem(aProject);
-        upgradeCas(aCas, ts);
+        var projectTypeSystem = getProjectTypeSystem(aProject);
+
+        CasStorageSession.get().assertWritingPermitted(aCas);
+
+        _upgradeCas(aCas, aCas, projectTypeSystem.template());
     }
 
     @Override
@@ -1268,7 +1368,7 @@ public class AnnotationSchemaServiceImpl
     public boolean upgradeCasIfRequired(Iterable<CAS> aCasIter, Project aProject)
         throws UIMAException, IOException
     {
-        TypeSystemDescription ts = getFullProjectTypeSystem(aProject);
+        var projectTypeSystem = getProjectTypeSystem(aProject);
 
         // Check if the current CAS already contains the required type system
         boolean upgradePerformed = false;
@@ -1281,8 +1381,14 @@ public class AnnotationSchemaServiceImpl
             // eventually figure out that no upgrade is required.
             CasStorageSession.get().assertWritingPermitted(cas);
 
-            if (isUpgradeRequired(cas, ts)) {
-                upgradeCas(cas, ts);
+            // UIMA consolidates equal committed type systems into a single instance, so a CAS
+            // which is already using the current project type system can be detected quickly
+            if (cas.getTypeSystem() == projectTypeSystem.typeSystem()) {
+                continue nextCas;
+            }
+
+            if (isUpgradeRequired(cas, projectTypeSystem.description())) {
+                _upgradeCas(cas, cas, projectTypeSystem.template());
                 upgradePerformed = true;
             }
         }
@@ -1316,6 +1422,17 @@ public class AnnotationSchemaServiceImpl
     public static void _upgradeCas(CAS aSourceCas, CAS aTargetCas,
             TypeSystemDescription aTargetTypeSystem)
         throws IOException, ResourceInitializationException
+    {
+        var tempCas = CasFactory.createCas(aTargetTypeSystem);
+        _upgradeCas(aSourceCas, aTargetCas, serializeCASComplete((CASImpl) tempCas));
+    }
+
+    /**
+     * Upgrade the source CAS to the type system of the given empty CAS template.
+     */
+    private static void _upgradeCas(CAS aSourceCas, CAS aTargetCas,
+            CASCompleteSerializer aTargetTemplate)
+        throws IOException
     {
         // Save source CAS type system (do this early since we might do an in-place upgrade)
         var sourceTypeSystem = aSourceCas.getTypeSystem();
@@ -1335,9 +1452,7 @@ public class AnnotationSchemaServiceImpl
         CAS realTargetCas = getRealCas(aTargetCas);
         // UIMA-6162 Workaround: synchronize CAS during de/serialization
         synchronized (((CASImpl) realTargetCas).getBaseCAS()) {
-            var tempCas = CasFactory.createCas(aTargetTypeSystem);
-            var serializer = serializeCASComplete((CASImpl) tempCas);
-            deserializeCASComplete(serializer, (CASImpl) realTargetCas);
+            deserializeCASComplete(aTargetTemplate, (CASImpl) realTargetCas);
 
             // Leniently load the source CAS contents into the target CAS
             CasIOUtils.load(new ByteArrayInputStream(serializedCasContents.toByteArray()),
@@ -1766,4 +1881,29 @@ public class AnnotationSchemaServiceImpl
         }
         return true;
     }
+
+    /**
+     * The full type system of a project for a given layer configuration version.
+     * 
+     * @param version
+     *            the layer configuration version the type system has been built for.
+     * @param description
+     *            the type system description - must not be modified.
+     * @param typeSystem
+     *            the committed type system.
+     * @param template
+     *            an empty CAS using the committed type system from which new CASes can be
+     *            initialized without having to commit the type system again.
+     */
+    private static record ProjectTypeSystem(long version, TypeSystemDescription description,
+            TypeSystem typeSystem, CASCompleteSerializer template)
+    {
+        static ProjectTypeSystem of(long aVersion, TypeSystemDescription aDescription)
+            throws ResourceInitializationException
+        {
+            var cas = (CASImpl) CasFactory.createCas(aDescription);
+            return new ProjectTypeSystem(aVersion, aDescription, cas.getTypeSystem(),
+                    serializeCASComplete(cas));
+        }
+    }
 }
@@ -27,6 +27,7 @@ import java.io.File;
 import java.util.LinkedHashSet;
 
 import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.util.CasCreationUtils;
@@ -170,6 +171,37 @@ class AnnotationSchemaServiceImplTest
         }
     }
 
+    @Test
+    void thatProjectTypeSystemIsRefreshedWhenLayersChange() throws Exception
+    {
+        sut.createOrUpdateLayer(AnnotationLayer.builder() //
+                .withProject(project) //
+                .withName("custom.A") //
+                .withUiName("A") //
+                .withType(SpanLayerSupport.TYPE) //
+                .build());
+
+        var tsd1 = sut.getFullProjectTypeSystem(project);
+        assertThat(tsd1.getType("custom.A")).isNotNull();
+        assertThat(tsd1.getType("custom.B")).isNull();
+
+        var tsd2 = sut.getFullProjectTypeSystem(project);
+        assertThat(tsd2) //
+                .as("Callers get their own copy of the cached type system") //
+                .isNotSameAs(tsd1);
+        tsd2.addType("custom.Modified", "", CAS.TYPE_NAME_ANNOTATION);
+        assertThat(sut.getFullProjectTypeSystem(project).getType("custom.Modified")).isNull();
+
+        sut.createOrUpdateLayer(AnnotationLayer.builder() //
+                .withProject(project) //
+                .withName("custom.B") //
+                .withUiName("B") //
+                .withType(SpanLayerSupport.TYPE) //
+                .build());
+
+        assertThat(sut.getFullProjectTypeSystem(project).getType("custom.B")).isNotNull();
+    }
+
     @Test
     void testDocumentNameValidationErrorMessages()
     {
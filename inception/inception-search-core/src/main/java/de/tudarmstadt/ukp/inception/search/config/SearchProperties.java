@@ -22,4 +22,10 @@ public interface SearchProperties
     long[] getPageSizes();
 
     void setPageSizes(String[] aPagesSizes);
+
+    /**
+     * @return number of threads used to process the segments of an index in parallel when
+     *         executing a query. A value of {@code 1} or less processes the segments sequentially.
+     */
+    int getQueryThreads();
 }
@@ -34,6 +34,8 @@ public class SearchPropertiesImpl
 
     long[] pagesSizes = { 10, 20, 50, 100, 500, 1000 };
 
+    private int queryThreads = 1;
+
     @Override
     public long[] getPageSizes()
     {
@@ -46,4 +48,15 @@ public class SearchPropertiesImpl
         pagesSizes = Arrays.stream(aPageSizes)
                 .mapToLong(value -> ALL.equals(value) ? MAX_VALUE : parseLong(value)).toArray();
     }
+
+    @Override
+    public int getQueryThreads()
+    {
+        return queryThreads;
+    }
+
+    public void setQueryThreads(int aQueryThreads)
+    {
+        queryThreads = aQueryThreads;
+    }
 }
@@ -30,6 +30,8 @@ import static de.tudarmstadt.ukp.inception.search.Metrics.VIRTUAL_LAYER_SEGMENTA
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.PARAM_PROJECT_ID;
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParser.getIndexedName;
 import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUtils.decodeFSAddress;
+import static de.tudarmstadt.ukp.inception.support.wicket.WicketUtil.serverTiming;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Comparator.comparingLong;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
@@ -38,10 +40,14 @@ import static mtas.analysis.util.MtasTokenizerFactory.ARGUMENT_PARSER_ARGS;
 import static mtas.codec.MtasCodec.MTAS_CODEC_NAME;
 import static org.apache.commons.io.FileUtils.deleteDirectory;
 import static org.apache.commons.lang3.StringUtils.toRootLowerCase;
+import static org.apache.lucene.search.BooleanClause.Occur.FILTER;
+import static org.apache.lucene.search.BooleanClause.Occur.SHOULD;
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
 import static org.apache.lucene.search.ScoreMode.COMPLETE_NO_SCORES;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.Reader;
 import java.io.StringReader;
 import java.lang.reflect.InvocationTargetException;
@@ -56,9 +62,12 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 import org.apache.commons.io.FileUtils;
@@ -73,25 +82,36 @@ import org.apache.lucene.codecs.Codec;
 import org.apache.lucene.document.DateTools;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
 import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.SortedDocValues;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.SearcherFactory;
 import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.search.spans.SpanWeight;
 import org.apache.lucene.search.spans.Spans;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -172,6 +192,15 @@ public class MtasDocumentIndex
     /** The Constant FIELD_TIMESTAMP. */
     private static final String FIELD_TIMESTAMP = "timestamp";
 
+    /**
+     * Key in the commit user data carrying the version of the index layout. Indexes written with a
+     * different layout version (e.g. lacking the doc values used to access the metadata of search
+     * hits) must be rebuilt.
+     */
+    private static final String INDEX_LAYOUT_VERSION_KEY = "inceptionIndexLayoutVersion";
+
+    private static final String INDEX_LAYOUT_VERSION = "2";
+
     // Default prefix for CQL queries
     private static final String DEFAULT_PREFIX = "Token";
 
@@ -187,6 +216,7 @@ public class MtasDocumentIndex
     private final Project project;
     private final File repositoryDir;
     private final ScheduledExecutorService schedulerService;
+    private final ExecutorService queryExecutor;
 
     private IndexWriter _indexWriter;
     private ReferenceManager<IndexSearcher> _searcherManager;
@@ -195,8 +225,22 @@ public class MtasDocumentIndex
     public MtasDocumentIndex(Project aProject, DocumentService aDocumentService, String aDir,
             FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
             FeatureSupportRegistry aFeatureSupportRegistry)
+    {
+        this(aProject, aDocumentService, aDir, aFeatureIndexingSupportRegistry,
+                aFeatureSupportRegistry, null);
+    }
+
+    /**
+     * @param aQueryExecutor
+     *            executor used to process the segments of the index in parallel when executing
+     *            queries. If this is {@code null}, the segments are processed sequentially.
+     */
+    public MtasDocumentIndex(Project aProject, DocumentService aDocumentService, String aDir,
+            FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
+            FeatureSupportRegistry aFeatureSupportRegistry, ExecutorService aQueryExecutor)
     {
         documentService = aDocumentService;
+        queryExecutor = aQueryExecutor;
         project = aProject;
         featureIndexingSupportRegistry = aFeatureIndexingSupportRegistry;
         featureSupportRegistry = aFeatureSupportRegistry;
@@ -266,6 +310,7 @@ public class MtasDocumentIndex
 
         // Initialize the index
         try {
+            checkIndexLayoutVersion(indexWriter);
             indexWriter.commit();
         }
         catch (IOException e) {
@@ -282,6 +327,31 @@ public class MtasDocumentIndex
         return indexWriter;
     }
 
+    private void checkIndexLayoutVersion(IndexWriter aIndexWriter) throws IOException
+    {
+        String version = null;
+        var commitData = aIndexWriter.getLiveCommitData();
+        if (commitData != null) {
+            for (var entry : commitData) {
+                if (INDEX_LAYOUT_VERSION_KEY.equals(entry.getKey())) {
+                    version = entry.getValue();
+                }
+            }
+        }
+
+        if (INDEX_LAYOUT_VERSION.equals(version)) {
+            return;
+        }
+
+        if (aIndexWriter.getDocStats().maxDoc > 0) {
+            throw new IOException("Index layout version [" + version
+                    + "] does not match expected version [" + INDEX_LAYOUT_VERSION + "]");
+        }
+
+        aIndexWriter.setLiveCommitData(
+                Map.of(INDEX_LAYOUT_VERSION_KEY, INDEX_LAYOUT_VERSION).entrySet());
+    }
+
     private void ensureAllIsCommitted()
     {
         if (_commitFuture != null && !_commitFuture.isDone()) {
@@ -481,9 +551,6 @@ public class MtasDocumentIndex
         IndexSearcher searcher = null;
         var sourceAnnotationDocPairs = documentService
                 .listAnnotatableDocuments(aRequest.getProject(), aRequest.getUser());
-        var sourceDocumentIndex = new HashMap<Long, SourceDocument>();
-        sourceAnnotationDocPairs.entrySet().stream()
-                .forEach(e -> sourceDocumentIndex.put(e.getKey().getId(), e.getKey()));
 
         var fullDocSet = new ArrayList<Integer>();
 
@@ -491,28 +558,17 @@ public class MtasDocumentIndex
             searcher = getSearcherManager().acquire();
             var reader = searcher.getIndexReader();
 
-            for (int i = 0; i < reader.maxDoc(); i++) {
-                var rawSourceDocumentId = reader.document(i).get(FIELD_SOURCE_DOCUMENT_ID);
-                var sourceDocumentId = Long.valueOf(rawSourceDocumentId);
-                var sourceDocument = sourceDocumentIndex.get(sourceDocumentId);
-                if (sourceDocument == null) {
-                    // Document is not annotatable by this user, so we skip this result
+            var accessFilter = createAccessFilterWeight(searcher, aRequest.getUser().getUsername(),
+                    sourceAnnotationDocPairs, Optional.empty());
+
+            for (var leafReaderContext : reader.leaves()) {
+                var accessibleDocs = getAccessibleDocs(accessFilter, leafReaderContext);
+                if (accessibleDocs == null) {
                     continue;
                 }
 
-                var rawAnnotationDocumentId = reader.document(i).get(FIELD_ANNOTATION_DOCUMENT_ID);
-                var annotationDocumentId = Long.valueOf(rawAnnotationDocumentId);
-                var matchInSourceDocument = annotationDocumentId == -1L;
-                var documentOwner = reader.document(i).get(FIELD_USER);
-
-                var annotationDocument = sourceAnnotationDocPairs.get(sourceDocument);
-                // If there is no annotation document or the annotation document is NEW, we use the
-                // source document
-                if (matchInSourceDocument && !isAnnotationDocumentIndexed(annotationDocument)) {
-                    fullDocSet.add(i);
-                }
-                else if (documentOwner.equals(aRequest.getUser().getUsername())) {
-                    fullDocSet.add(i);
+                while (accessibleDocs.nextDoc() != NO_MORE_DOCS) {
+                    fullDocSet.add(leafReaderContext.docBase + accessibleDocs.docID());
                 }
             }
         }
@@ -534,6 +590,84 @@ public class MtasDocumentIndex
                 && annotationDocument.getState() != AnnotationDocumentState.NEW;
     }
 
+    /**
+     * Creates a filter which only matches the index documents the given user may see: the user's
+     * own annotation documents and the source documents for which the user does not have an
+     * indexed annotation document. The filter is intersected with the span query so that stored
+     * fields are only loaded for documents that can actually contribute results.
+     */
+    private Weight createAccessFilterWeight(IndexSearcher aSearcher, String aUser,
+            Map<SourceDocument, AnnotationDocument> aAnnotatableDocuments,
+            Optional<SourceDocument> aLimitedToDocument)
+        throws IOException
+    {
+        var annotationDocumentSourceIds = new ArrayList<BytesRef>();
+        var sourceDocumentIds = new ArrayList<BytesRef>();
+        for (var entry : aAnnotatableDocuments.entrySet()) {
+            var sourceDocument = entry.getKey();
+            if (aLimitedToDocument.isPresent()
+                    && !Objects.equals(aLimitedToDocument.get().getId(), sourceDocument.getId())) {
+                continue;
+            }
+
+            var id = new BytesRef(String.valueOf(sourceDocument.getId()));
+            annotationDocumentSourceIds.add(id);
+            if (!isAnnotationDocumentIndexed(entry.getValue())) {
+                sourceDocumentIds.add(id);
+            }
+        }
+
+        var ownAnnotationDocuments = new BooleanQuery.Builder() //
+                .add(new TermQuery(new Term(FIELD_USER, aUser)), FILTER) //
+                .add(new TermInSetQuery(FIELD_SOURCE_DOCUMENT_ID, annotationDocumentSourceIds),
+                        FILTER) //
+                .build();
+
+        var unannotatedSourceDocuments = new BooleanQuery.Builder() //
+                .add(new TermQuery(new Term(FIELD_ANNOTATION_DOCUMENT_ID, "-1")), FILTER) //
+                .add(new TermInSetQuery(FIELD_SOURCE_DOCUMENT_ID, sourceDocumentIds), FILTER) //
+                .build();
+
+        var filter = new BooleanQuery.Builder() //
+                .add(ownAnnotationDocuments, SHOULD) //
+                .add(unannotatedSourceDocuments, SHOULD) //
+                .build();
+
+        return aSearcher.createWeight(aSearcher.rewrite(filter), COMPLETE_NO_SCORES, 1);
+    }
+
+    /**
+     * @return iterator over the documents in the given segment which pass the access filter or
+     *         {@code null} if there are none.
+     */
+    private DocIdSetIterator getAccessibleDocs(Weight aAccessFilter,
+            LeafReaderContext aLeafReaderContext)
+        throws IOException
+    {
+        var scorer = aAccessFilter.scorer(aLeafReaderContext);
+        return scorer != null ? scorer.iterator() : null;
+    }
+
+    /**
+     * Advances the spans to the next document which also passes the access filter.
+     */
+    private static int nextAccessibleDoc(Spans aSpans, DocIdSetIterator aAccessibleDocs)
+        throws IOException
+    {
+        var doc = aSpans.nextDoc();
+        while (doc != NO_MORE_DOCS) {
+            var accessibleDoc = aAccessibleDocs.docID() < doc ? aAccessibleDocs.advance(doc)
+                    : aAccessibleDocs.docID();
+            if (accessibleDoc == doc || accessibleDoc == NO_MORE_DOCS) {
+                return accessibleDoc;
+            }
+
+            doc = aSpans.advance(accessibleDoc);
+        }
+
+        return doc;
+    }
+
     private MtasSpanQuery parseQuery(String aQuery, AnnotationSearchState aPrefs)
         throws ExecutionException, IOException
     {
@@ -719,9 +853,20 @@ public class MtasDocumentIndex
         }
 
         IndexSearcher searcher = null;
+        var startTime = currentTimeMillis();
         try {
             searcher = getSearcherManager().acquire();
-            return aRunner.run(searcher, aRequest, mtasSpanQuery);
+            var result = aRunner.run(searcher, aRequest, mtasSpanQuery);
+
+            var duration = currentTimeMillis() - startTime;
+            var segments = searcher.getIndexReader().leaves().size();
+            var mode = isParallel(searcher.getIndexReader().leaves()) ? "parallel" : "sequential";
+            log.debug("Executed query [{}] on {} segments ({}) in {}ms", aRequest.getQuery(),
+                    segments, mode, duration);
+            serverTiming("searchQuery",
+                    "searchQuery (" + segments + " segments, " + mode + ")", duration);
+
+            return result;
         }
         catch (Exception e) {
             throw new ExecutionException("Unable to execute query [" + aRequest.getQuery() + "]",
@@ -784,114 +929,135 @@ public class MtasDocumentIndex
             MtasSpanQuery q)
         throws IOException
     {
-        var leafReaderContextIterator = searcher.getIndexReader().leaves().listIterator();
-
-        var annotatableDocuments = documentService.listAnnotatableDocuments(aRequest.getProject(),
-                aRequest.getUser());
-        var sourceDocumentIndex = new HashMap<Long, SourceDocument>();
-        annotatableDocuments.entrySet().stream()
-                .forEach(e -> sourceDocumentIndex.put(e.getKey().getId(), e.getKey()));
-
-        final float boost = 0;
-        var spanweight = q.rewrite(searcher.getIndexReader()).createWeight(searcher,
-                COMPLETE_NO_SCORES, boost);
+        var leaves = searcher.getIndexReader().leaves();
+        var context = createQueryContext(searcher, aRequest, q);
 
         long numResults = 0;
-        var limitedToDocument = aRequest.getLimitedToDocument();
+        if (isParallel(leaves)) {
+            var futures = new ArrayList<Future<Long>>();
+            for (var leafReaderContext : leaves) {
+                futures.add(queryExecutor.submit(() -> countMatches(context, leafReaderContext)));
+            }
 
-        while (leafReaderContextIterator.hasNext()) {
-            LeafReaderContext leafReaderContext = leafReaderContextIterator.next();
-            try {
-                var spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
-                var segmentReader = (SegmentReader) leafReaderContext.reader();
-                if (spans == null) {
-                    continue;
+            for (var future : futures) {
+                var leafResults = getLeafResult(future);
+                if (leafResults == null || leafResults < 0) {
+                    numResults = -1;
                 }
+                else if (numResults >= 0) {
+                    numResults += leafResults;
+                }
+            }
+        }
+        else {
+            for (var leafReaderContext : leaves) {
+                var leafResults = countMatches(context, leafReaderContext);
+                if (leafResults < 0) {
+                    numResults = -1;
+                }
+                else if (numResults >= 0) {
+                    numResults += leafResults;
+                }
+            }
+        }
 
-                while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
-                    if (segmentReader.numDocs() == segmentReader.maxDoc()
-                            || segmentReader.getLiveDocs().get(spans.docID())) {
-                        var document = segmentReader.document(spans.docID());
-
-                        // Retrieve user
-                        var user = document.get(FIELD_USER);
-
-                        // Retrieve source and annotation document ids
-                        var rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
-                        var rawAnnotationDocumentId = document.get(FIELD_ANNOTATION_DOCUMENT_ID);
-                        if (!validSourceAndDocumentIds(rawSourceDocumentId,
-                                rawAnnotationDocumentId)) {
-                            continue;
-                        }
-
-                        var sourceDocumentId = Long.valueOf(rawSourceDocumentId);
-                        var annotationDocumentId = Long.valueOf(rawAnnotationDocumentId);
-                        var sourceDocument = sourceDocumentIndex.get(sourceDocumentId);
-                        var annotationDocument = annotatableDocuments.get(sourceDocument);
-
-                        if (sourceDocument == null) {
-                            // Document is not annotatable by this user, so we skip this result
-                            continue;
-                        }
-
-                        if (annotationDocument != null && IGNORE == annotationDocument.getState()) {
-                            log.trace("Skipping results from ignored document {}", sourceDocument);
-                        }
+        return numResults;
+    }
 
-                        if (!isWithinDocumentScope(limitedToDocument, sourceDocument)) {
-                            continue;
-                        }
+    private long countMatches(QueryContext aContext, LeafReaderContext aLeafReaderContext)
+    {
+        long numResults = 0;
+        try {
+            var spans = aContext.spanWeight().getSpans(aLeafReaderContext,
+                    SpanWeight.Postings.POSITIONS);
+            if (spans == null) {
+                return 0;
+            }
 
-                        var matchInSourceDocument = annotationDocumentId == -1L;
-                        if (matchInSourceDocument
-                                && isAnnotationDocumentIndexed(annotationDocument)) {
-                            // Exclude result if the retrieved document is a sourcedocument
-                            // (that is, has annotationDocument = -1) AND it has a
-                            // corresponding annotation document for this user
-                            log.trace("Skipping results from indexed source document {} in"
-                                    + "favor of results from the corresponding annotation "
-                                    + "document", sourceDocument);
-                            continue;
-                        }
+            var accessibleDocs = getAccessibleDocs(aContext.accessFilter(), aLeafReaderContext);
+            if (accessibleDocs == null) {
+                return 0;
+            }
 
-                        if (!matchInSourceDocument
-                                && !aRequest.getUser().getUsername().equals(user)) {
-                            // Exclude result if the retrieved document is an annotation
-                            // document (that is, annotationDocument != -1 and its username
-                            // is different from the querying user
-                            log.trace(
-                                    "Skipping results from annotation document for user [{}] "
-                                            + "which does not match the requested user [{}]",
-                                    user, aRequest.getUser().getUsername());
-                            continue;
-                        }
+            var segmentReader = (SegmentReader) aLeafReaderContext.reader();
+            var metadata = new HitMetadata(segmentReader);
+            while (nextAccessibleDoc(spans, accessibleDocs) != Spans.NO_MORE_DOCS) {
+                if (segmentReader.numDocs() == segmentReader.maxDoc()
+                        || segmentReader.getLiveDocs().get(spans.docID())) {
+                    if (resolveAccessibleDocument(aContext, metadata, spans.docID()).isEmpty()) {
+                        continue;
+                    }
 
-                        while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
-                            numResults++;
-                        }
+                    while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
+                        numResults++;
                     }
                 }
             }
-            catch (Exception e) {
-                log.error("Unable to process query results", e);
-                numResults = -1;
-            }
         }
+        catch (Exception e) {
+            log.error("Unable to process query results", e);
+            return -1;
+        }
+
         return numResults;
     }
 
-    private boolean validSourceAndDocumentIds(String aRawSourceDocumentId,
-            String aRawAnnotationDocumentId)
+    /**
+     * Checks if the given index document may contribute results to the query and if so, returns
+     * the source document and the annotation document the index document belongs to.
+     */
+    private Optional<Pair<SourceDocument, AnnotationDocument>> resolveAccessibleDocument(
+            QueryContext aContext, HitMetadata aMetadata, int aDocId)
+        throws IOException
     {
-        if (aRawSourceDocumentId == null || aRawAnnotationDocumentId == null) {
-            log.trace(
-                    "Indexed document lacks source/annotation document IDs"
-                            + " - source: {}, annotation: {}",
-                    aRawSourceDocumentId, aRawAnnotationDocumentId);
-            return false;
+        if (!aMetadata.advanceExact(aDocId)) {
+            log.trace("Indexed document [{}] lacks source/annotation document IDs", aDocId);
+            return Optional.empty();
         }
 
-        return true;
+        var user = aMetadata.user();
+        var sourceDocumentId = aMetadata.sourceDocumentId();
+        var annotationDocumentId = aMetadata.annotationDocumentId();
+        var matchInSourceDocument = annotationDocumentId == -1;
+
+        var sourceDocument = aContext.sourceDocumentIndex().get(sourceDocumentId);
+        if (sourceDocument == null) {
+            // Document is not annotatable by this user, so we skip this result
+            return Optional.empty();
+        }
+
+        var annotationDocument = aContext.annotatableDocuments().get(sourceDocument);
+
+        if (annotationDocument != null && IGNORE == annotationDocument.getState()) {
+            log.trace("Skipping results from ignored document {}", sourceDocument);
+        }
+
+        var request = aContext.request();
+        if (!isWithinDocumentScope(request.getLimitedToDocument(), sourceDocument)) {
+            return Optional.empty();
+        }
+
+        if (matchInSourceDocument && isAnnotationDocumentIndexed(annotationDocument)) {
+            // Exclude result if the retrieved document is a sourcedocument
+            // (that is, has annotationDocument = -1) AND it has a
+            // corresponding annotation document for this user
+            log.trace("Skipping results from indexed source document {} in"
+                    + "favor of results from the corresponding annotation " + "document",
+                    sourceDocument);
+            return Optional.empty();
+        }
+
+        if (!matchInSourceDocument && !request.getUser().getUsername().equals(user)) {
+            // Exclude result if the retrieved document is an annotation
+            // document (that is, annotationDocument != -1 and its username
+            // is different from the querying user
+            log.trace("Skipping results from annotation document for user [{}] "
+                    + "which does not match the requested user [{}]", user,
+                    request.getUser().getUsername());
+            return Optional.empty();
+        }
+
+        return Optional.of(Pair.of(sourceDocument, annotationDocument));
     }
 
     private boolean isWithinDocumentScope(Optional<SourceDocument> limitedToDocument,
@@ -911,7 +1077,7 @@ public class MtasDocumentIndex
     }
 
     private List<LeafReaderContext> sortLeaves(List<LeafReaderContext> aLeaves,
-            IndexSearcher aSearcher, MtasSpanQuery aQuery)
+            IndexSearcher aSearcher, MtasSpanQuery aQuery, Weight aAccessFilter)
         throws IOException
     { // This method sorts the LeafReaderContexts according to the document ids
       // they contain. If one does not contain a document for this search, then
@@ -928,25 +1094,25 @@ public class MtasDocumentIndex
         for (LeafReaderContext leafReaderContext : aLeaves) {
             Spans spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
             SegmentReader segmentReader = (SegmentReader) leafReaderContext.reader();
+            var sourceDocumentIds = DocValues.getNumeric(segmentReader, FIELD_SOURCE_DOCUMENT_ID);
             LongList idList = new LongArrayList();
+            DocIdSetIterator accessibleDocs = spans != null
+                    ? getAccessibleDocs(aAccessFilter, leafReaderContext)
+                    : null;
             // no spans -> no docs
-            if (spans != null) {
+            if (spans != null && accessibleDocs != null) {
                 // go through the docs in iterator span
-                while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
+                while (nextAccessibleDoc(spans, accessibleDocs) != Spans.NO_MORE_DOCS) {
                     // don't know why this if is needed, just copy/pasted it from method doQuery
                     // below
                     if (segmentReader.numDocs() == segmentReader.maxDoc()
                             || segmentReader.getLiveDocs().get(spans.docID())) {
-                        // get a document
-                        Document document = segmentReader.document(spans.docID());
-
-                        String rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
                         // go to the next document if the docId is not set
-                        if (rawSourceDocumentId == null) {
+                        if (!sourceDocumentIds.advanceExact(spans.docID())) {
                             continue;
                         }
                         // add id to the list of ids for this leafReaderContext
-                        idList.add(Long.parseLong(rawSourceDocumentId));
+                        idList.add(sourceDocumentIds.longValue());
                     }
                 }
             }
@@ -968,224 +1134,275 @@ public class MtasDocumentIndex
     {
         var results = new LinkedHashMap<String, List<SearchResult>>();
 
-        var leafReaderContextIterator = sortLeaves(searcher.getIndexReader().leaves(), searcher, q)
-                .listIterator();
-
-        var sourceAnnotationDocPairs = documentService
-                .listAnnotatableDocuments(aRequest.getProject(), aRequest.getUser());
-        var sourceDocumentIndex = new HashMap<Long, SourceDocument>();
-        sourceAnnotationDocPairs.entrySet().stream()
-                .forEach(e -> sourceDocumentIndex.put(e.getKey().getId(), e.getKey()));
+        var context = createQueryContext(searcher, aRequest, q);
 
-        final float boost = 0;
-        var spanweight = q.rewrite(searcher.getIndexReader()).createWeight(searcher,
-                COMPLETE_NO_SCORES, boost);
+        var leaves = sortLeaves(searcher.getIndexReader().leaves(), searcher, q,
+                context.accessFilter());
 
         var offset = aRequest.getOffset();
         var count = aRequest.getCount();
-        var current = 0;
-        var limitedToDocument = aRequest.getLimitedToDocument();
-
-        resultIteration: while (leafReaderContextIterator.hasNext()) {
-            LeafReaderContext leafReaderContext = leafReaderContextIterator.next();
+        // Number of matches (including the skipped ones) required to fill the requested page
+        var limit = offset > Long.MAX_VALUE - count ? Long.MAX_VALUE : offset + count;
+        var current = 0l;
+
+        if (isParallel(leaves)) {
+            // Every segment may have to contribute the whole page, so each of them collects up
+            // to the limit. The partial results are then merged in the order of the sorted leaves.
+            var stop = new AtomicBoolean(false);
+            var futures = new ArrayList<Future<List<LeafMatch>>>();
+            for (var leafReaderContext : leaves) {
+                futures.add(queryExecutor
+                        .submit(() -> collectMatches(context, leafReaderContext, limit, stop)));
+            }
 
             try {
-                var spans = spanweight.getSpans(leafReaderContext, SpanWeight.Postings.POSITIONS);
-                if (spans == null) {
-                    continue;
-                }
-
-                var segmentReader = (SegmentReader) leafReaderContext.reader();
-                var terms = segmentReader.terms(FIELD_CONTENT);
-                var mtasCodecInfo = CodecInfo.getCodecInfoFromTerms(terms);
-                while (spans.nextDoc() != Spans.NO_MORE_DOCS) {
-                    if (segmentReader.numDocs() == segmentReader.maxDoc()
-                            || segmentReader.getLiveDocs().get(spans.docID())) {
-                        var document = segmentReader.document(spans.docID());
+                resultIteration: for (var future : futures) {
+                    var matches = getLeafResult(future);
+                    if (matches == null) {
+                        continue;
+                    }
 
-                        // Retrieve user
-                        var user = document.get(FIELD_USER);
+                    for (var match : matches) {
+                        if (current >= limit) {
+                            break resultIteration;
+                        }
 
-                        // Retrieve source and annotation document ids
-                        var rawSourceDocumentId = document.get(FIELD_SOURCE_DOCUMENT_ID);
-                        var rawAnnotationDocumentId = document.get(FIELD_ANNOTATION_DOCUMENT_ID);
-                        if (!validSourceAndDocumentIds(rawSourceDocumentId,
-                                rawAnnotationDocumentId)) {
+                        if (current++ < offset) {
                             continue;
                         }
 
-                        var sourceDocumentId = Long.valueOf(rawSourceDocumentId);
-                        var annotationDocumentId = Long.valueOf(rawAnnotationDocumentId);
-                        var matchInSourceDocument = annotationDocumentId == -1;
+                        match.addTo(results);
+                    }
+                }
+            }
+            finally {
+                // Workers must not be interrupted - an interrupt during IO closes the file channels
+                // of the index which are shared with all other readers
+                stop.set(true);
+                futures.forEach(f -> f.cancel(false));
+            }
+        }
+        else {
+            resultIteration: for (var leafReaderContext : leaves) {
+                for (var match : collectMatches(context, leafReaderContext, limit - current,
+                        null)) {
+                    if (current >= limit) {
+                        break resultIteration;
+                    }
 
-                        var sourceDocument = sourceDocumentIndex.get(sourceDocumentId);
-                        if (sourceDocument == null) {
-                            // Document is not annotatable by this user, so we skip this result
-                            continue;
-                        }
+                    if (current++ < offset) {
+                        continue;
+                    }
 
-                        var annotationDocument = sourceAnnotationDocPairs.get(sourceDocument);
+                    match.addTo(results);
+                }
+            }
+        }
 
-                        if (annotationDocument != null && IGNORE == annotationDocument.getState()) {
-                            log.trace("Skipping results from ignored document {}", sourceDocument);
-                        }
+        var sortedResults = new LinkedHashMap<String, List<SearchResult>>();
+        var sortedKeys = results.keySet().stream().sorted().collect(toList());
+        for (var key : sortedKeys) {
+            sortedResults.put(key, results.get(key));
+        }
 
-                        if (!isWithinDocumentScope(limitedToDocument, sourceDocument)) {
-                            continue;
-                        }
+        return sortedResults;
+    }
 
-                        if (matchInSourceDocument
-                                && isAnnotationDocumentIndexed(annotationDocument)) {
-                            log.trace("Skipping results from indexed source document {} in"
-                                    + "favor of results from the corresponding annotation "
-                                    + "document", sourceDocument);
-                            continue;
-                        }
+    /**
+     * Collects the matches from a single segment.
+     * 
+     * @param aLimit
+     *            maximum number of matches to collect. Matches which are skipped due to paging
+     *            also count against this limit.
+     * @param aStop
+     *            flag indicating that the matches are no longer needed. May be {@code null}.
+     */
+    private List<LeafMatch> collectMatches(QueryContext aContext,
+            LeafReaderContext aLeafReaderContext, long aLimit, AtomicBoolean aStop)
+    {
+        var matches = new ArrayList<LeafMatch>();
+        var request = aContext.request();
 
-                        if (!matchInSourceDocument
-                                && !aRequest.getUser().getUsername().equals(user)) {
-                            log.trace(
-                                    "Skipping results from annotation document for user {} "
-                                            + "which does not match the requested user {}",
-                                    user, aRequest.getUser().getUsername());
-                            continue;
+        try {
+            var spans = aContext.spanWeight().getSpans(aLeafReaderContext,
+                    SpanWeight.Postings.POSITIONS);
+            if (spans == null) {
+                return matches;
+            }
+
+            var accessibleDocs = getAccessibleDocs(aContext.accessFilter(), aLeafReaderContext);
+            if (accessibleDocs == null) {
+                return matches;
+            }
+
+            var segmentReader = (SegmentReader) aLeafReaderContext.reader();
+            var terms = segmentReader.terms(FIELD_CONTENT);
+            var mtasCodecInfo = CodecInfo.getCodecInfoFromTerms(terms);
+            var metadata = new HitMetadata(segmentReader);
+            resultIteration: while (nextAccessibleDoc(spans,
+                    accessibleDocs) != Spans.NO_MORE_DOCS) {
+                if (segmentReader.numDocs() == segmentReader.maxDoc()
+                        || segmentReader.getLiveDocs().get(spans.docID())) {
+                    var documents = resolveAccessibleDocument(aContext, metadata, spans.docID());
+                    if (documents.isEmpty()) {
+                        continue;
+                    }
+
+                    var sourceDocument = documents.get().getKey();
+                    var annotationDocument = documents.get().getValue();
+
+                    // Retrieve document title
+                    String documentTitle = metadata.title();
+
+                    while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
+                        if (aStop != null && aStop.get()) {
+                            // Merging the results no longer needs this segment
+                            break resultIteration;
                         }
 
-                        // Retrieve document title
-                        String documentTitle = document.get(FIELD_TITLE);
+                        if (matches.size() >= aLimit) {
+                            break resultIteration;
+                        }
 
-                        // String idValue = segmentReader.document(spans.docID())
-                        // .getField(FIELD_ID).stringValue();
-                        // log.debug("******** New doc {}-{}", + spans.docID(), idValue);
+                        int matchStart = spans.startPosition();
+                        int matchEnd = spans.endPosition();
 
-                        while (spans.nextStartPosition() != Spans.NO_MORE_POSITIONS) {
-                            if (current < offset) {
-                                current++;
-                                continue;
-                            }
-                            if (current - offset + 1 > count) {
-                                break resultIteration;
-                            }
-                            current++;
-                            int matchStart = spans.startPosition();
-                            int matchEnd = spans.endPosition();
+                        int windowStart = Math.max(matchStart - RESULT_WINDOW_SIZE, 0);
+                        int windowEnd = matchEnd + RESULT_WINDOW_SIZE - 1;
 
-                            int windowStart = Math.max(matchStart - RESULT_WINDOW_SIZE, 0);
-                            int windowEnd = matchEnd + RESULT_WINDOW_SIZE - 1;
+                        // Retrieve all indexed objects within the matching range
+                        List<MtasTokenString> tokens = mtasCodecInfo.getObjectsByPositions(
+                                FIELD_CONTENT, spans.docID(), windowStart, windowEnd);
 
-                            // Retrieve all indexed objects within the matching range
-                            List<MtasTokenString> tokens = mtasCodecInfo.getObjectsByPositions(
-                                    FIELD_CONTENT, spans.docID(), windowStart, windowEnd);
+                        tokens.sort(Comparator.comparing(MtasTokenString::getOffsetStart));
 
-                            tokens.sort(Comparator.comparing(MtasTokenString::getOffsetStart));
+                        if (tokens.isEmpty()) {
+                            // Counts for paging even though there is nothing to show
+                            matches.add(new LeafMatch(null, List.of()));
+                            continue;
+                        }
 
-                            if (tokens.isEmpty()) {
+                        SearchResult result = new SearchResult();
+                        StringBuilder resultText = new StringBuilder();
+                        StringBuilder leftContext = new StringBuilder();
+                        StringBuilder rightContext = new StringBuilder();
+                        result.setDocumentId(sourceDocument.getId());
+                        result.setDocumentTitle(documentTitle);
+                        result.setOffsetStart(tokens.stream()
+                                .filter(t -> t.getPositionStart() >= matchStart
+                                        && t.getPositionEnd() < matchEnd)
+                                .mapToInt(MtasTokenString::getOffsetStart).min()
+                                .orElse(matchStart));
+                        result.setOffsetEnd(tokens.stream()
+                                .filter(t -> t.getPositionStart() >= matchStart
+                                        && t.getPositionEnd() < matchEnd)
+                                .mapToInt(MtasTokenString::getOffsetEnd).max().orElse(matchEnd));
+                        result.setTokenStart(matchStart);
+                        result.setTokenLength(matchEnd - matchStart);
+                        result.setReadOnly(annotationDocument != null
+                                && FINISHED.equals(annotationDocument.getState()));
+                        result.setSelectedForAnnotation(!result.isReadOnly());
+
+                        MtasTokenString prevToken = null;
+                        for (MtasTokenString token : tokens) {
+                            if (!token.getPrefix().equals(DEFAULT_PREFIX)) {
                                 continue;
                             }
 
-                            SearchResult result = new SearchResult();
-                            StringBuilder resultText = new StringBuilder();
-                            StringBuilder leftContext = new StringBuilder();
-                            StringBuilder rightContext = new StringBuilder();
-                            result.setDocumentId(sourceDocumentId);
-                            result.setDocumentTitle(documentTitle);
-                            result.setOffsetStart(tokens.stream()
-                                    .filter(t -> t.getPositionStart() >= matchStart
-                                            && t.getPositionEnd() < matchEnd)
-                                    .mapToInt(MtasTokenString::getOffsetStart).min()
-                                    .orElse(matchStart));
-                            result.setOffsetEnd(tokens.stream()
-                                    .filter(t -> t.getPositionStart() >= matchStart
-                                            && t.getPositionEnd() < matchEnd)
-                                    .mapToInt(MtasTokenString::getOffsetEnd).max()
-                                    .orElse(matchEnd));
-                            result.setTokenStart(matchStart);
-                            result.setTokenLength(matchEnd - matchStart);
-                            result.setReadOnly(annotationDocument != null
-                                    && FINISHED.equals(annotationDocument.getState()));
-                            result.setSelectedForAnnotation(!result.isReadOnly());
-
-                            MtasTokenString prevToken = null;
-                            for (MtasTokenString token : tokens) {
-                                if (!token.getPrefix().equals(DEFAULT_PREFIX)) {
-                                    continue;
-                                }
-
-                                // When searching for an annotation, we don't get the matching
-                                // text back... not sure why...
-                                String tokenText = CodecUtil.termValue(token.getValue());
-                                if (tokenText == null) {
-                                    continue;
-                                }
+                            // When searching for an annotation, we don't get the matching
+                            // text back... not sure why...
+                            String tokenText = CodecUtil.termValue(token.getValue());
+                            if (tokenText == null) {
+                                continue;
+                            }
 
-                                if (token.getPositionStart() < matchStart) {
-                                    fill(leftContext, prevToken, token);
-                                    leftContext.append(tokenText);
-                                }
-                                else if (token.getPositionStart() >= matchEnd) {
-                                    fill(rightContext, prevToken, token);
-                                    rightContext.append(tokenText);
-                                }
-                                else {
-                                    // Only add the whitespace to the match if we already have
-                                    // added any text to the match - otherwise consider the
-                                    // whitespace to be part of the left context
-                                    if (resultText.length() > 0) {
-                                        fill(resultText, prevToken, token);
-                                    }
-                                    else {
-                                        fill(leftContext, prevToken, token);
-                                    }
-                                    resultText.append(tokenText);
-                                }
-                                prevToken = token;
+                            if (token.getPositionStart() < matchStart) {
+                                fill(leftContext, prevToken, token);
+                                leftContext.append(tokenText);
                             }
-                            result.setText(resultText.toString());
-                            result.setLeftContext(leftContext.toString());
-                            result.setRightContext(rightContext.toString());
-
-                            var groupingLayer = aRequest.getAnnoationLayer();
-                            var groupingFeature = aRequest.getAnnotationFeature();
-
-                            if (groupingLayer != null && groupingFeature != null) {
-                                var featureValues = featureValuesAtMatch(tokens, matchStart,
-                                        matchEnd, groupingLayer, groupingFeature);
-                                for (String featureValue : featureValues) {
-                                    addToResults(results, featureValue, result);
-                                }
+                            else if (token.getPositionStart() >= matchEnd) {
+                                fill(rightContext, prevToken, token);
+                                rightContext.append(tokenText);
                             }
                             else {
-                                // if no annotation feature is specified group by document title
-                                addToResults(results, result.getDocumentTitle(), result);
+                                // Only add the whitespace to the match if we already have
+                                // added any text to the match - otherwise consider the
+                                // whitespace to be part of the left context
+                                if (resultText.length() > 0) {
+                                    fill(resultText, prevToken, token);
+                                }
+                                else {
+                                    fill(leftContext, prevToken, token);
+                                }
+                                resultText.append(tokenText);
                             }
+                            prevToken = token;
+                        }
+                        result.setText(resultText.toString());
+                        result.setLeftContext(leftContext.toString());
+                        result.setRightContext(rightContext.toString());
+
+                        var groupingLayer = request.getAnnoationLayer();
+                        var groupingFeature = request.getAnnotationFeature();
+
+                        if (groupingLayer != null && groupingFeature != null) {
+                            var featureValues = featureValuesAtMatch(tokens, matchStart, matchEnd,
+                                    groupingLayer, groupingFeature);
+                            matches.add(new LeafMatch(result, featureValues));
+                        }
+                        else {
+                            // if no annotation feature is specified group by document title
+                            matches.add(new LeafMatch(result, List.of(result.getDocumentTitle())));
                         }
                     }
                 }
             }
-            catch (Exception e) {
-                log.error("Unable to process query results", e);
-            }
         }
-
-        var sortedResults = new LinkedHashMap<String, List<SearchResult>>();
-        var sortedKeys = results.keySet().stream().sorted().collect(toList());
-        for (var key : sortedKeys) {
-            sortedResults.put(key, results.get(key));
+        catch (Exception e) {
+            log.error("Unable to process query results", e);
         }
 
-        return sortedResults;
+        return matches;
+    }
+
+    private QueryContext createQueryContext(IndexSearcher aSearcher, SearchQueryRequest aRequest,
+            MtasSpanQuery aQuery)
+        throws IOException
+    {
+        var annotatableDocuments = documentService.listAnnotatableDocuments(aRequest.getProject(),
+                aRequest.getUser());
+        var sourceDocumentIndex = new HashMap<Long, SourceDocument>();
+        annotatableDocuments.entrySet().stream()
+                .forEach(e -> sourceDocumentIndex.put(e.getKey().getId(), e.getKey()));
+
+        var accessFilter = createAccessFilterWeight(aSearcher, aRequest.getUser().getUsername(),
+                annotatableDocuments, aRequest.getLimitedToDocument());
+
+        final float boost = 0;
+        var spanWeight = aQuery.rewrite(aSearcher.getIndexReader()).createWeight(aSearcher,
+                COMPLETE_NO_SCORES, boost);
+
+        return new QueryContext(aRequest, spanWeight, accessFilter, sourceDocumentIndex,
+                annotatableDocuments);
     }
 
-    private void addToResults(Map<String, List<SearchResult>> aResultsMap, String aKey,
-            SearchResult aSearchResult)
+    private boolean isParallel(List<LeafReaderContext> aLeaves)
     {
-        if (aResultsMap.containsKey(aKey)) {
-            aResultsMap.get(aKey).add(aSearchResult);
+        return queryExecutor != null && aLeaves.size() > 1;
+    }
+
+    private <T> T getLeafResult(Future<T> aFuture) throws IOException
+    {
+        try {
+            return aFuture.get();
         }
-        else {
-            List<SearchResult> searchResultsForKey = new ArrayList<>();
-            searchResultsForKey.add(aSearchResult);
-            aResultsMap.put(aKey, searchResultsForKey);
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for query results");
+        }
+        catch (java.util.concurrent.ExecutionException e) {
+            log.error("Unable to process query results", e.getCause());
+            return null;
         }
     }
 
@@ -1281,6 +1498,14 @@ public class MtasDocumentIndex
         doc.add(new StringField(FIELD_TIMESTAMP, timestamp, Field.Store.YES));
         doc.add(new TextField(FIELD_CONTENT, encodedCAS, Field.Store.NO));
 
+        // Add doc values for the metadata needed when processing search hits - these can be
+        // accessed much faster than the stored fields
+        doc.add(new NumericDocValuesField(FIELD_SOURCE_DOCUMENT_ID, aSourceDocumentId));
+        doc.add(new NumericDocValuesField(FIELD_ANNOTATION_DOCUMENT_ID, aAnnotationDocumentId));
+        doc.add(new SortedDocValuesField(FIELD_TITLE, new BytesRef(aDocumentTitle)));
+        doc.add(new SortedDocValuesField(FIELD_USER, new BytesRef(aUser)));
+        doc.add(new SortedDocValuesField(FIELD_TIMESTAMP, new BytesRef(timestamp)));
+
         // Add document to the Lucene index
         indexWriter.addDocument(doc);
 
@@ -1490,13 +1715,17 @@ public class MtasDocumentIndex
 
             if (docs.scoreDocs.length > 0) {
                 // If there are results, retrieve first document, since all results should come
-                // from the same document
-                Document document = indexSearcher.doc(docs.scoreDocs[0].doc);
+                // from the same document. The timestamp is read from the doc values of the
+                // segment containing the document instead of loading its stored fields.
+                var leaves = indexSearcher.getIndexReader().leaves();
+                var docId = docs.scoreDocs[0].doc;
+                var leaf = leaves.get(ReaderUtil.subIndex(docId, leaves));
+                var timestamps = DocValues.getSorted(leaf.reader(), FIELD_TIMESTAMP);
 
                 // Retrieve the timestamp field if it exists
-                if (document.getField(FIELD_TIMESTAMP) != null) {
-                    result = Optional.ofNullable(StringUtils
-                            .trimToNull(document.getField(FIELD_TIMESTAMP).stringValue()));
+                if (timestamps.advanceExact(docId - leaf.docBase)) {
+                    result = Optional.ofNullable(StringUtils.trimToNull(
+                            timestamps.lookupOrd(timestamps.ordValue()).utf8ToString()));
                 }
             }
         }
@@ -1521,6 +1750,75 @@ public class MtasDocumentIndex
                 .toString();
     }
 
+    /**
+     * Column-wise access to the metadata of the index documents in a segment. The documents must be
+     * visited in increasing order.
+     */
+    private static class HitMetadata
+    {
+        private final NumericDocValues sourceDocumentIds;
+        private final NumericDocValues annotationDocumentIds;
+        private final SortedDocValues titles;
+        private final SortedDocValues users;
+
+        HitMetadata(LeafReader aReader) throws IOException
+        {
+            sourceDocumentIds = DocValues.getNumeric(aReader, FIELD_SOURCE_DOCUMENT_ID);
+            annotationDocumentIds = DocValues.getNumeric(aReader, FIELD_ANNOTATION_DOCUMENT_ID);
+            titles = DocValues.getSorted(aReader, FIELD_TITLE);
+            users = DocValues.getSorted(aReader, FIELD_USER);
+        }
+
+        boolean advanceExact(int aDocId) throws IOException
+        {
+            return sourceDocumentIds.advanceExact(aDocId)
+                    && annotationDocumentIds.advanceExact(aDocId) && titles.advanceExact(aDocId)
+                    && users.advanceExact(aDocId);
+        }
+
+        long sourceDocumentId() throws IOException
+        {
+            return sourceDocumentIds.longValue();
+        }
+
+        long annotationDocumentId() throws IOException
+        {
+            return annotationDocumentIds.longValue();
+        }
+
+        String title() throws IOException
+        {
+            return titles.lookupOrd(titles.ordValue()).utf8ToString();
+        }
+
+        String user() throws IOException
+        {
+            return users.lookupOrd(users.ordValue()).utf8ToString();
+        }
+    }
+
+    private record QueryContext(SearchQueryRequest request, SpanWeight spanWeight,
+            Weight accessFilter, Map<Long, SourceDocument> sourceDocumentIndex,
+            Map<SourceDocument, AnnotationDocument> annotatableDocuments) {}
+
+    /**
+     * A match collected from a single segment. The result is {@code null} if the match does not
+     * produce a visible result but still counts for paging.
+     */
+    private record LeafMatch(SearchResult result, List<String> groupKeys)
+    {
+        void addTo(Map<String, List<SearchResult>> aResults)
+        {
+            if (result == null) {
+                return;
+            }
+
+            for (var key : groupKeys) {
+                aResults.computeIfAbsent(key, k -> new ArrayList<>()).add(result);
+            }
+        }
+    }
+
     @FunctionalInterface
     private interface QueryRunner<T>
     {
@@ -21,6 +21,12 @@
  */
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
+import static java.util.concurrent.Executors.newFixedThreadPool;
+
+import java.util.concurrent.ExecutorService;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
@@ -28,6 +34,7 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
 import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
+import de.tudarmstadt.ukp.inception.search.config.SearchProperties;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndex;
 import de.tudarmstadt.ukp.inception.search.index.PhysicalIndexFactoryImplBase;
 import de.tudarmstadt.ukp.inception.search.index.mtas.config.MtasDocumentIndexAutoConfiguration;
@@ -41,22 +48,45 @@ import de.tudarmstadt.ukp.inception.search.index.mtas.config.MtasDocumentIndexAu
  */
 public class MtasDocumentIndexFactory
     extends PhysicalIndexFactoryImplBase
+    implements DisposableBean
 {
     private final DocumentService documentService;
     private final RepositoryProperties repositoryProperties;
     private final FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
     private final FeatureSupportRegistry featureSupportRegistry;
+    private final ExecutorService queryExecutor;
 
     @Autowired
     public MtasDocumentIndexFactory(DocumentService aDocumentService,
             RepositoryProperties aRepositoryProperties,
             FeatureIndexingSupportRegistry aFeatureIndexingSupportRegistry,
-            FeatureSupportRegistry aFeatureSupportRegistry)
+            FeatureSupportRegistry aFeatureSupportRegistry, SearchProperties aSearchProperties)
     {
         documentService = aDocumentService;
         repositoryProperties = aRepositoryProperties;
         featureIndexingSupportRegistry = aFeatureIndexingSupportRegistry;
         featureSupportRegistry = aFeatureSupportRegistry;
+
+        // The executor is shared by the indexes of all projects so that the number of threads
+        // processing queries does not grow with the number of projects
+        if (aSearchProperties.getQueryThreads() > 1) {
+            queryExecutor = newFixedThreadPool(aSearchProperties.getQueryThreads(),
+                    new BasicThreadFactory.Builder() //
+                            .daemon(true) //
+                            .namingPattern("mtas-query-%d") //
+                            .build());
+        }
+        else {
+            queryExecutor = null;
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -70,6 +100,6 @@ public class MtasDocumentIndexFactory
     {
         return new MtasDocumentIndex(aProject, documentService,
                 repositoryProperties.getPath().getAbsolutePath(), featureIndexingSupportRegistry,
-                featureSupportRegistry);
+                featureSupportRegistry, queryExecutor);
     }
 }
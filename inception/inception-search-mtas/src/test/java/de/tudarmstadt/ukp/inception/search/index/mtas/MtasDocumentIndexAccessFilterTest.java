@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParserLuceneTest.createBinaryCasDocument;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.lucene.document.DateTools;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tudarmstadt.ukp.clarin.webanno.diag.config.CasDoctorAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.project.config.ProjectServiceAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.config.SecurityAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.clarin.webanno.text.TextFormatSupport;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.io.xmi.XmiFormatSupport;
+import de.tudarmstadt.ukp.inception.io.xmi.config.UimaFormatsPropertiesImpl.XmiFormatProperties;
+import de.tudarmstadt.ukp.inception.preferences.config.PreferencesServiceAutoConfig;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
+import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
+import de.tudarmstadt.ukp.inception.search.SearchQueryRequest;
+import de.tudarmstadt.ukp.inception.search.SearchResult;
+import de.tudarmstadt.ukp.inception.search.config.SearchServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.support.spring.ApplicationContextProvider;
+
+@Transactional
+@DataJpaTest( //
+        showSql = false, //
+        properties = { //
+                "spring.main.banner-mode=off", //
+                "debug.cas-doctor.force-release-behavior=true", //
+                "document-import.run-cas-doctor-on-import=OFF" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@EnableAutoConfiguration
+@ImportAutoConfiguration( //
+        classes = { //
+                PreferencesServiceAutoConfig.class, //
+                ProjectServiceAutoConfiguration.class, //
+                AnnotationSchemaServiceAutoConfiguration.class, //
+                CasDoctorAutoConfiguration.class, //
+                DocumentServiceAutoConfiguration.class, //
+                CasStorageServiceAutoConfiguration.class, //
+                DocumentImportExportServiceAutoConfiguration.class, //
+                SchedulingServiceAutoConfiguration.class, //
+                SecurityAutoConfiguration.class, //
+                SearchServiceAutoConfiguration.class }, //
+        exclude = LiquibaseAutoConfiguration.class)
+@EntityScan({ //
+        "de.tudarmstadt.ukp.clarin.webanno.security.model", //
+        "de.tudarmstadt.ukp.inception.preferences.model", //
+        "de.tudarmstadt.ukp.inception.kb.model", //
+        "de.tudarmstadt.ukp.clarin.webanno.model" })
+public class MtasDocumentIndexAccessFilterTest
+{
+    static final String WORK_DIR = "target/test-output/MtasDocumentIndexAccessFilterTest";
+
+    @Autowired
+    ProjectService projectService;
+
+    @Autowired
+    DocumentService documentService;
+
+    @Autowired
+    RepositoryProperties repositoryProperties;
+
+    @Autowired
+    FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
+
+    @Autowired
+    FeatureSupportRegistry featureSupportRegistry;
+
+    Project project;
+    SourceDocument annotatedDoc;
+    SourceDocument unannotatedDoc;
+    AnnotationDocument aliceDoc;
+    AnnotationDocument bobDoc;
+    Date indexingStart;
+    Date indexingEnd;
+    MtasDocumentIndex index;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        deleteQuietly(new File(WORK_DIR));
+
+        project = new Project("test");
+        projectService.createProject(project);
+
+        annotatedDoc = new SourceDocument("annotated.txt", project, TextFormatSupport.ID);
+        documentService.createSourceDocument(annotatedDoc);
+        unannotatedDoc = new SourceDocument("unannotated.txt", project, TextFormatSupport.ID);
+        documentService.createSourceDocument(unannotatedDoc);
+
+        aliceDoc = createAnnotationDocument("alice", annotatedDoc);
+        bobDoc = createAnnotationDocument("bob", annotatedDoc);
+
+        indexingStart = new Date();
+        var writer = new MtasDocumentIndex(project, documentService,
+                repositoryProperties.getPath().getAbsolutePath(), featureIndexingSupportRegistry,
+                featureSupportRegistry);
+        try {
+            writer.indexDocument(annotatedDoc, createBinaryCasDocument(0, annotatedDoc.getName(),
+                    "This is the original text ."));
+            writer.indexDocument(unannotatedDoc, createBinaryCasDocument(1,
+                    unannotatedDoc.getName(), "This is another original text ."));
+            writer.indexDocument(aliceDoc, createBinaryCasDocument(2, annotatedDoc.getName(),
+                    "This is the text of alice ."));
+            writer.indexDocument(bobDoc, createBinaryCasDocument(3, annotatedDoc.getName(),
+                    "This is the text of bob ."));
+        }
+        finally {
+            writer.close();
+        }
+        indexingEnd = new Date();
+
+        index = new MtasDocumentIndex(project, documentService,
+                repositoryProperties.getPath().getAbsolutePath(), featureIndexingSupportRegistry,
+                featureSupportRegistry);
+    }
+
+    @AfterEach
+    void teardown() throws Exception
+    {
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    @Test
+    void thatUserOnlySeesOwnAnnotationDocuments() throws Exception
+    {
+        assertThat(query("alice", "alice", null)) //
+                .extracting(SearchResult::getDocumentId, SearchResult::getDocumentTitle) //
+                .containsExactly(tuple(annotatedDoc.getId(), annotatedDoc.getName()));
+        assertThat(query("alice", "bob", null)).isEmpty();
+        assertThat(count("alice", "bob", null)).isZero();
+    }
+
+    @Test
+    void thatSourceDocumentIsHiddenByIndexedAnnotationDocument() throws Exception
+    {
+        // Alice has an indexed annotation document for the annotated document, so its source
+        // document must not contribute results
+        assertThat(query("alice", "original", null)) //
+                .extracting(SearchResult::getDocumentId, SearchResult::getDocumentTitle) //
+                .containsExactly(tuple(unannotatedDoc.getId(), unannotatedDoc.getName()));
+        assertThat(count("alice", "original", null)).isEqualTo(1);
+
+        // Carol has no annotation documents, so she sees all the source documents
+        assertThat(query("carol", "original", null)) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactlyInAnyOrder(annotatedDoc.getId(), unannotatedDoc.getId());
+        assertThat(query("carol", "alice", null)).isEmpty();
+    }
+
+    @Test
+    void thatResultsAreLimitedToDocument() throws Exception
+    {
+        assertThat(query("carol", "original", unannotatedDoc)) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactly(unannotatedDoc.getId());
+        assertThat(count("carol", "original", unannotatedDoc)).isEqualTo(1);
+
+        assertThat(query("alice", "original", annotatedDoc)).isEmpty();
+        assertThat(query("alice", "text", annotatedDoc)) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactly(annotatedDoc.getId());
+    }
+
+    @Test
+    void thatTimestampIsReadFromIndex() throws Exception
+    {
+        var timestamp = index.getTimestamp(annotatedDoc.getId(), aliceDoc.getId());
+
+        assertThat(timestamp).isPresent();
+        assertThat(DateTools.stringToDate(timestamp.get())) //
+                .isBetween(indexingStart, indexingEnd, true, true);
+
+        assertThat(index.getTimestamp(unannotatedDoc.getId(), -1)).isEmpty();
+        assertThat(index.getTimestamp(unannotatedDoc.getId(), aliceDoc.getId())).isEmpty();
+    }
+
+    private AnnotationDocument createAnnotationDocument(String aUser, SourceDocument aDocument)
+    {
+        var annDoc = new AnnotationDocument(aUser, aDocument);
+        annDoc.setState(AnnotationDocumentState.IN_PROGRESS);
+        return documentService.createAnnotationDocument(annDoc);
+    }
+
+    private List<SearchResult> query(String aUser, String aQuery, SourceDocument aDocument)
+        throws Exception
+    {
+        var request = new SearchQueryRequest(project, new User(aUser), aQuery, aDocument,
+                new AnnotationSearchState());
+
+        return index.executeQuery(request).values().stream() //
+                .flatMap(List::stream) //
+                .toList();
+    }
+
+    private long count(String aUser, String aQuery, SourceDocument aDocument) throws Exception
+    {
+        var request = new SearchQueryRequest(project, new User(aUser), aQuery, aDocument,
+                new AnnotationSearchState());
+
+        return index.numberOfQueryResults(request);
+    }
+
+    @SpringBootConfiguration
+    public static class SpringConfig
+    {
+        @Bean
+        ApplicationContextProvider applicationContextProvider()
+        {
+            return new ApplicationContextProvider();
+        }
+
+        @Bean
+        RepositoryProperties repositoryProperties()
+        {
+            var props = new RepositoryPropertiesImpl();
+            props.setPath(new File(WORK_DIR));
+            return props;
+        }
+
+        @Bean
+        public XmiFormatSupport xmiFormatSupport()
+        {
+            return new XmiFormatSupport(new XmiFormatProperties());
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import static de.tudarmstadt.ukp.inception.search.index.mtas.MtasUimaParserLuceneTest.createBinaryCasDocument;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.transaction.annotation.Transactional;
+
+import de.tudarmstadt.ukp.clarin.webanno.diag.config.CasDoctorAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.clarin.webanno.project.config.ProjectServiceAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.config.SecurityAutoConfiguration;
+import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
+import de.tudarmstadt.ukp.clarin.webanno.text.TextFormatSupport;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryPropertiesImpl;
+import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.io.xmi.XmiFormatSupport;
+import de.tudarmstadt.ukp.inception.io.xmi.config.UimaFormatsPropertiesImpl.XmiFormatProperties;
+import de.tudarmstadt.ukp.inception.preferences.config.PreferencesServiceAutoConfig;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.schema.api.feature.FeatureSupportRegistry;
+import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.FeatureIndexingSupportRegistry;
+import de.tudarmstadt.ukp.inception.search.SearchQueryRequest;
+import de.tudarmstadt.ukp.inception.search.SearchResult;
+import de.tudarmstadt.ukp.inception.search.config.SearchServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState;
+import de.tudarmstadt.ukp.inception.support.spring.ApplicationContextProvider;
+
+@Transactional
+@DataJpaTest( //
+        showSql = false, //
+        properties = { //
+                "spring.main.banner-mode=off", //
+                "debug.cas-doctor.force-release-behavior=true", //
+                "document-import.run-cas-doctor-on-import=OFF" })
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+@EnableAutoConfiguration
+@ImportAutoConfiguration( //
+        classes = { //
+                PreferencesServiceAutoConfig.class, //
+                ProjectServiceAutoConfiguration.class, //
+                AnnotationSchemaServiceAutoConfiguration.class, //
+                CasDoctorAutoConfiguration.class, //
+                DocumentServiceAutoConfiguration.class, //
+                CasStorageServiceAutoConfiguration.class, //
+                DocumentImportExportServiceAutoConfiguration.class, //
+                SchedulingServiceAutoConfiguration.class, //
+                SecurityAutoConfiguration.class, //
+                SearchServiceAutoConfiguration.class }, //
+        exclude = LiquibaseAutoConfiguration.class)
+@EntityScan({ //
+        "de.tudarmstadt.ukp.clarin.webanno.security.model", //
+        "de.tudarmstadt.ukp.inception.preferences.model", //
+        "de.tudarmstadt.ukp.inception.kb.model", //
+        "de.tudarmstadt.ukp.clarin.webanno.model" })
+public class MtasDocumentIndexParallelQueryTest
+{
+    static final String WORK_DIR = "target/test-output/MtasDocumentIndexParallelQueryTest";
+
+    private static final int DOCUMENTS = 4;
+
+    @Autowired
+    ProjectService projectService;
+
+    @Autowired
+    DocumentService documentService;
+
+    @Autowired
+    RepositoryProperties repositoryProperties;
+
+    @Autowired
+    FeatureIndexingSupportRegistry featureIndexingSupportRegistry;
+
+    @Autowired
+    FeatureSupportRegistry featureSupportRegistry;
+
+    Project project;
+    List<SourceDocument> documents;
+    AtomicInteger executedTasks;
+    AtomicBoolean interrupted;
+    ThreadPoolExecutor queryExecutor;
+    MtasDocumentIndex index;
+
+    @BeforeEach
+    void setup() throws Exception
+    {
+        deleteQuietly(new File(WORK_DIR));
+
+        project = new Project("test");
+        projectService.createProject(project);
+
+        // Every document is indexed and committed separately such that each of them ends up in a
+        // segment of its own
+        documents = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTS; i++) {
+            var doc = new SourceDocument("doc" + i + ".txt", project, TextFormatSupport.ID);
+            documentService.createSourceDocument(doc);
+            documents.add(doc);
+
+            var writer = new MtasDocumentIndex(project, documentService,
+                    repositoryProperties.getPath().getAbsolutePath(),
+                    featureIndexingSupportRegistry, featureSupportRegistry);
+            try {
+                writer.indexDocument(doc, createBinaryCasDocument(i, doc.getName(),
+                        "This is document " + i + " . It is a test ."));
+            }
+            finally {
+                writer.close();
+            }
+        }
+
+        executedTasks = new AtomicInteger();
+        interrupted = new AtomicBoolean();
+        queryExecutor = new ThreadPoolExecutor(DOCUMENTS, DOCUMENTS, 0, MILLISECONDS,
+                new LinkedBlockingQueue<>())
+        {
+            @Override
+            protected void beforeExecute(Thread aThread, Runnable aTask)
+            {
+                executedTasks.incrementAndGet();
+            }
+
+            @Override
+            protected void afterExecute(Runnable aTask, Throwable aThrowable)
+            {
+                if (Thread.currentThread().isInterrupted()) {
+                    interrupted.set(true);
+                }
+            }
+        };
+
+        index = new MtasDocumentIndex(project, documentService,
+                repositoryProperties.getPath().getAbsolutePath(), featureIndexingSupportRegistry,
+                featureSupportRegistry, queryExecutor);
+    }
+
+    @AfterEach
+    void teardown() throws Exception
+    {
+        if (index != null) {
+            index.close();
+        }
+
+        if (queryExecutor != null) {
+            queryExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void thatAllSegmentsContributeToResults() throws Exception
+    {
+        var results = query("is", 0, Integer.MAX_VALUE);
+
+        assertThat(executedTasks.get()).isGreaterThan(1);
+        assertThat(results) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactlyInAnyOrderElementsOf(documents.stream() //
+                        .flatMap(d -> List.of(d.getId(), d.getId()).stream()) //
+                        .toList());
+    }
+
+    @Test
+    void thatPagingStopsWorkersWithoutInterrupting() throws Exception
+    {
+        // The first page can be filled from the first segment, so the remaining workers are
+        // stopped early
+        var firstPage = query("is", 0, 1);
+
+        assertThat(executedTasks.get()).isGreaterThan(1);
+        assertThat(firstPage) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactly(documents.get(0).getId());
+
+        var secondPage = query("is", 1, 2);
+        assertThat(secondPage) //
+                .extracting(SearchResult::getDocumentId) //
+                .containsExactly(documents.get(0).getId(), documents.get(1).getId());
+
+        // Stopping the workers must leave the index usable
+        assertThat(query("is", 0, Integer.MAX_VALUE)).hasSize(2 * DOCUMENTS);
+        assertThat(interrupted.get()).isFalse();
+    }
+
+    private List<SearchResult> query(String aQuery, long aOffset, long aCount) throws Exception
+    {
+        var request = new SearchQueryRequest(project, new User("user"), aQuery, null, null, null,
+                aOffset, aCount, new AnnotationSearchState());
+
+        return index.executeQuery(request).values().stream() //
+                .flatMap(List::stream) //
+                .sorted((a, b) -> {
+                    var byDocument = Long.compare(a.getDocumentId(), b.getDocumentId());
+                    return byDocument != 0 ? byDocument
+                            : Integer.compare(a.getTokenStart(), b.getTokenStart());
+                }) //
+                .toList();
+    }
+
+    @SpringBootConfiguration
+    public static class SpringConfig
+    {
+        @Bean
+        ApplicationContextProvider applicationContextProvider()
+        {
+            return new ApplicationContextProvider();
+        }
+
+        @Bean
+        RepositoryProperties repositoryProperties()
+        {
+            var props = new RepositoryPropertiesImpl();
+            props.setPath(new File(WORK_DIR));
+            return props;
+        }
+
+        @Bean
+        public XmiFormatSupport xmiFormatSupport()
+        {
+            return new XmiFormatSupport(new XmiFormatProperties());
+        }
+    }
+}
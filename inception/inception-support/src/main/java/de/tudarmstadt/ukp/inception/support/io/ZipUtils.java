@@ -87,11 +87,26 @@ public class ZipUtils
     public static void zipFolder(File srcFolder, File destZipFile) throws IOException
     {
         try (var zip = new ZipOutputStream(new FileOutputStream(destZipFile));) {
-            for (File file : srcFolder.getAbsoluteFile().listFiles()) {
-                addToZip(zip, srcFolder.getAbsoluteFile(), file);
-            }
-            zip.flush();
+            zipFolder(srcFolder, zip);
+        }
+    }
+
+    /**
+     * Adds the contents of the given folder to a ZIP stream. The stream is not closed.
+     * 
+     * @param srcFolder
+     *            source folder.
+     * @param aZip
+     *            target ZIP stream.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static void zipFolder(File srcFolder, ZipOutputStream aZip) throws IOException
+    {
+        for (File file : srcFolder.getAbsoluteFile().listFiles()) {
+            addToZip(aZip, srcFolder.getAbsoluteFile(), file);
         }
+        aZip.flush();
     }
 
     private static void addToZip(ZipOutputStream zip, File aBasePath, File aPath) throws IOException
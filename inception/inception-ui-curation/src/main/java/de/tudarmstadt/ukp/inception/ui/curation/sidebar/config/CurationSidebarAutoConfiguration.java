@@ -86,10 +86,10 @@ public class CurationSidebarAutoConfiguration
     @Bean
     public CurationSidebarRenderer curationSidebarRenderer(CurationSidebarService aCurationService,
             LayerSupportRegistry aLayerSupportRegistry, DocumentService aDocumentService,
-            UserDao aUserRepository, AnnotationSchemaService aAnnotationService)
+            AnnotationSchemaService aAnnotationService)
     {
         return new CurationSidebarRenderer(aCurationService, aLayerSupportRegistry,
-                aDocumentService, aUserRepository, aAnnotationService);
+                aDocumentService, aAnnotationService);
     }
 
     @Bean
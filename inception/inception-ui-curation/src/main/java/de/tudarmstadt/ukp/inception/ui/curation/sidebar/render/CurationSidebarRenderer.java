@@ -44,7 +44,6 @@ import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.Position;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.internal.AID;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.span.SpanPosition;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
-import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.rendering.pipeline.RenderStep;
@@ -79,17 +78,15 @@ public class CurationSidebarRenderer
     private final CurationSidebarService curationService;
     private final LayerSupportRegistry layerSupportRegistry;
     private final DocumentService documentService;
-    private final UserDao userRepository;
     private final AnnotationSchemaService annotationService;
 
     public CurationSidebarRenderer(CurationSidebarService aCurationService,
             LayerSupportRegistry aLayerSupportRegistry, DocumentService aDocumentService,
-            UserDao aUserRepository, AnnotationSchemaService aAnnotationService)
+            AnnotationSchemaService aAnnotationService)
     {
         curationService = aCurationService;
         layerSupportRegistry = aLayerSupportRegistry;
         documentService = aDocumentService;
-        userRepository = aUserRepository;
         annotationService = aAnnotationService;
     }
 
@@ -116,10 +113,21 @@ public class CurationSidebarRenderer
         return true;
     }
 
+    @Override
+    public boolean isRangeRenderingSupported(RenderRequest aRequest)
+    {
+        // The diff always covers the full window, but without a curation session there is
+        // nothing to render anyway
+        return !curationService.existsSession(aRequest.getSessionOwner().getUsername(),
+                aRequest.getProject().getId());
+    }
+
     @Override
     public void render(VDocument aVdoc, RenderRequest aRequest)
     {
-        var sessionOwner = userRepository.getCurrentUsername();
+        // The rendering may run on a thread without a security context, so the session owner
+        // must be taken from the request
+        var sessionOwner = aRequest.getSessionOwner().getUsername();
         var project = aRequest.getProject();
 
         if (!curationService.existsSession(sessionOwner, project.getId())) {
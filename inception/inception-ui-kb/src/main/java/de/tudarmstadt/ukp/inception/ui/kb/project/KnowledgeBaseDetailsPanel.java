@@ -23,8 +23,6 @@ import static de.tudarmstadt.ukp.inception.support.lambda.LambdaBehavior.visible
 import static java.util.Collections.emptyMap;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
 
-import java.io.FileInputStream;
-
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.feedback.IFeedback;
 import org.apache.wicket.markup.html.form.Form;
@@ -42,11 +40,14 @@ import org.eclipse.rdf4j.repository.sparql.config.SPARQLRepositoryConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.inception.bootstrap.BootstrapModalDialog;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
 import de.tudarmstadt.ukp.inception.kb.config.KnowledgeBaseProperties;
 import de.tudarmstadt.ukp.inception.kb.event.KnowledgeBaseConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+import de.tudarmstadt.ukp.inception.kb.task.KnowledgeBaseImportTask;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxButton;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxLink;
@@ -69,6 +70,8 @@ public class KnowledgeBaseDetailsPanel
     private @SpringBean ApplicationEventPublisherHolder applicationEventPublisherHolder;
     private @SpringBean KnowledgeBaseService kbService;
     private @SpringBean KnowledgeBaseProperties kbProperties;
+    private @SpringBean SchedulingService schedulingService;
+    private @SpringBean UserDao userService;
 
     private final IModel<KnowledgeBase> kbModel;
     private final CompoundPropertyModel<KnowledgeBaseWrapper> kbwModel;
@@ -164,14 +167,19 @@ public class KnowledgeBaseDetailsPanel
 
             if (kb.getType() == LOCAL) {
                 kbService.defineBaseProperties(kb);
-                for (var f : kbw.getFiles()) {
-                    try (var is = new FileInputStream(f.getValue())) {
-                        kbService.importData(kb, f.getValue().getName(), is);
-                        success("Imported: " + f.getKey());
+                if (!kbw.getFiles().isEmpty()) {
+                    try {
+                        var importTask = KnowledgeBaseImportTask.builder() //
+                                .withSessionOwner(userService.getCurrentUser()) //
+                                .withKnowledgeBase(kb) //
+                                .withTrigger("Knowledge base settings saved");
+                        kbw.handOverFiles(importTask);
+                        schedulingService.enqueue(importTask.build());
+                        success("Import started in the background");
                     }
                     catch (Exception e) {
-                        error("Failed to import [" + f.getKey() + "]: " + getRootCauseMessage(e));
-                        LOG.error("Failed to import [{}]: ", f.getKey(), e);
+                        error("Failed to start import: " + getRootCauseMessage(e));
+                        LOG.error("Failed to start import: ", e);
                     }
                 }
             }
@@ -18,10 +18,12 @@
 package de.tudarmstadt.ukp.inception.ui.kb.project;
 
 import static de.tudarmstadt.ukp.inception.support.json.JSONUtil.fromJsonString;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +34,7 @@ import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
 import de.tudarmstadt.ukp.inception.kb.model.RemoteRepositoryTraits;
+import de.tudarmstadt.ukp.inception.kb.task.KnowledgeBaseImportTask;
 import de.tudarmstadt.ukp.inception.security.client.auth.AuthenticationType;
 
 /**
@@ -160,4 +163,27 @@ public class KnowledgeBaseWrapper
     {
         files.clear();
     }
+
+    /**
+     * Hands the recorded files over to an import task and forgets them. The recorded files are
+     * deleted once the form they were added through is gone, so they are moved to new temporary
+     * files which are owned by the task.
+     * 
+     * @param aBuilder
+     *            the builder of the import task.
+     * @throws IOException
+     *             if a file cannot be moved.
+     */
+    public void handOverFiles(KnowledgeBaseImportTask.Builder<?> aBuilder) throws IOException
+    {
+        for (var f : files) {
+            var file = f.getValue();
+            // Keep the original file name as suffix so the import can detect the format
+            var ownedFile = File.createTempFile("kb-import-", "-" + file.getName());
+            Files.move(file.toPath(), ownedFile.toPath(), REPLACE_EXISTING);
+            aBuilder.withFile(f.getKey(), ownedFile);
+        }
+
+        files.clear();
+    }
 }
@@ -22,14 +22,10 @@ import static de.tudarmstadt.ukp.inception.kb.IriConstants.FTS_RDF4J_LUCENE;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.toMap;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AjaxEventBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -50,12 +46,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.inception.bootstrap.BootstrapWizard;
 import de.tudarmstadt.ukp.inception.bootstrap.BootstrapWizardButtonBar;
 import de.tudarmstadt.ukp.inception.kb.KnowledgeBaseService;
 import de.tudarmstadt.ukp.inception.kb.config.KnowledgeBaseProperties;
 import de.tudarmstadt.ukp.inception.kb.model.KnowledgeBase;
+import de.tudarmstadt.ukp.inception.kb.task.KnowledgeBaseImportTask;
 import de.tudarmstadt.ukp.inception.kb.yaml.KnowledgeBaseProfile;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.ui.kb.project.AccessSettingsPanel;
 import de.tudarmstadt.ukp.inception.ui.kb.project.AccessSpecificSettingsPanel;
@@ -88,6 +87,8 @@ public class KnowledgeBaseCreationWizard
 
     private @SpringBean KnowledgeBaseService kbService;
     private @SpringBean KnowledgeBaseProperties kbProperties;
+    private @SpringBean SchedulingService schedulingService;
+    private @SpringBean UserDao userService;
 
     private final IModel<Project> projectModel;
     private final DynamicWizardModel wizardModel;
@@ -296,13 +297,19 @@ public class KnowledgeBaseCreationWizard
 
             kbService.defineBaseProperties(kb);
 
-            for (Pair<String, File> f : wrapper.getFiles()) {
-                try (InputStream is = new FileInputStream(f.getValue())) {
-                    kbService.importData(kb, f.getValue().getName(), is);
-                    success("Imported: " + f.getKey());
+            if (!wrapper.getFiles().isEmpty()) {
+                try {
+                    var importTask = KnowledgeBaseImportTask.builder() //
+                            .withSessionOwner(userService.getCurrentUser()) //
+                            .withKnowledgeBase(kb) //
+                            .withTrigger("Knowledge base created");
+                    wrapper.handOverFiles(importTask);
+                    schedulingService.enqueue(importTask.build());
+                    success("Import started in the background");
                 }
                 catch (Exception e) {
-                    error("Failed to import: " + f.getKey());
+                    error("Failed to start import: " + e.getMessage());
+                    LOG.error("Failed to start import: ", e);
                 }
             }
         }
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.workload.dynamic;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Keeps track of documents which have been handed out to annotators but which the annotators have
+ * not started annotating yet. Between handing out a document and the annotator opening it, the
+ * database does not yet count the annotator as working on the document. Without these
+ * reservations, annotators asking for a document at the same time could all be handed the same
+ * document and exceed the number of annotations required for it.
+ * <p>
+ * Reservations are released once the annotation state of the document changes for the annotator
+ * or after a timeout.
+ * </p>
+ */
+class DocumentReservations
+{
+    private final Duration timeout;
+    private final ConcurrentMap<Long, ProjectReservations> projects = new ConcurrentHashMap<>();
+
+    public DocumentReservations(Duration aTimeout)
+    {
+        timeout = aTimeout;
+    }
+
+    /**
+     * @param aProjectId
+     *            a project ID.
+     * @return the reservations for the given project. Callers should synchronize on the returned
+     *         object while choosing and reserving a document.
+     */
+    public ProjectReservations forProject(long aProjectId)
+    {
+        return projects.computeIfAbsent(aProjectId, $ -> new ProjectReservations());
+    }
+
+    public void release(long aProjectId, long aDocumentId, String aUser)
+    {
+        var reservations = projects.get(aProjectId);
+        if (reservations != null) {
+            reservations.release(aDocumentId, aUser);
+        }
+    }
+
+    public void clear(long aProjectId)
+    {
+        projects.remove(aProjectId);
+    }
+
+    public class ProjectReservations
+    {
+        private final Map<Long, Map<String, Instant>> documents = new HashMap<>();
+
+        /**
+         * @return the number of annotators other than the given one that currently have a
+         *         reservation for the given document.
+         */
+        public synchronized int count(long aDocumentId, String aExcludedUser, Instant aNow)
+        {
+            var reservations = documents.get(aDocumentId);
+            if (reservations == null) {
+                return 0;
+            }
+
+            reservations.values().removeIf(expiry -> expiry.isBefore(aNow));
+            if (reservations.isEmpty()) {
+                documents.remove(aDocumentId);
+                return 0;
+            }
+
+            var count = reservations.size();
+            if (reservations.containsKey(aExcludedUser)) {
+                count--;
+            }
+            return count;
+        }
+
+        public synchronized void reserve(long aDocumentId, String aUser, Instant aNow)
+        {
+            // An annotator can only hold one reservation at a time
+            documents.values().forEach(reservations -> reservations.remove(aUser));
+            documents.values().removeIf(Map::isEmpty);
+
+            documents.computeIfAbsent(aDocumentId, $ -> new HashMap<>()) //
+                    .put(aUser, aNow.plus(timeout));
+        }
+
+        synchronized void release(long aDocumentId, String aUser)
+        {
+            var reservations = documents.get(aDocumentId);
+            if (reservations == null) {
+                return;
+            }
+
+            reservations.remove(aUser);
+            if (reservations.isEmpty()) {
+                documents.remove(aDocumentId);
+            }
+        }
+    }
+}
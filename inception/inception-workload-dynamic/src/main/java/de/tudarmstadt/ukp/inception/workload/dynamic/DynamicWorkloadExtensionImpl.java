@@ -42,6 +42,7 @@ import java.util.stream.Collectors;
 import org.apache.uima.UIMAException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -56,7 +57,9 @@ import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentStateStats;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.workload.dynamic.config.DynamicWorkloadManagerAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.dynamic.trait.DynamicWorkloadTraits;
@@ -75,6 +78,12 @@ import de.tudarmstadt.ukp.inception.workload.model.WorkloadManager;
 public class DynamicWorkloadExtensionImpl
     implements DynamicWorkloadExtension
 {
+    /**
+     * Time for which a document handed out to an annotator counts as being worked on by the
+     * annotator even if the annotator has not yet started working on it.
+     */
+    private static final Duration RESERVATION_TIMEOUT = Duration.ofMinutes(1);
+
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
     private final WorkloadManagementService workloadManagementService;
@@ -83,6 +92,8 @@ public class DynamicWorkloadExtensionImpl
     private final ProjectService projectService;
     private final UserDao userRepository;
     private final SessionRegistry sessionRegistry;
+    private final DocumentReservations documentReservations = new DocumentReservations(
+            RESERVATION_TIMEOUT);
 
     public DynamicWorkloadExtensionImpl(WorkloadManagementService aWorkloadManagementService,
             WorkflowExtensionPoint aWorkflowExtensionPoint, DocumentService aDocumentService,
@@ -197,21 +208,44 @@ public class DynamicWorkloadExtensionImpl
         // Rearrange list of documents according to current workflow
         sourceDocuments = currentWorkflowExtension.rankDocuments(sourceDocuments);
 
-        for (SourceDocument doc : sourceDocuments) {
-            // FIXME: repeated query to DB should be optimized into a single query returning
-            // a map of documents / annotator counts
-
-            // Check if there are less annotators working on the selected document than
-            // the target number of annotation set by the project manager
-            if ((workloadManagementService.getNumberOfUsersWorkingOnADocument(doc)) < (traits
-                    .getDefaultNumberOfAnnotations())) {
-                return Optional.of(doc);
+        // Choosing and reserving a document must be atomic - otherwise annotators asking for a
+        // document at the same time might all get the same document
+        var reservations = documentReservations.forProject(aProject.getId());
+        synchronized (reservations) {
+            var annotatorCounts = workloadManagementService
+                    .getNumberOfUsersWorkingOnDocuments(aProject);
+            var now = Instant.now();
+
+            for (SourceDocument doc : sourceDocuments) {
+                // Check if there are less annotators working on the selected document than
+                // the target number of annotation set by the project manager
+                var annotatorCount = annotatorCounts.getOrDefault(doc.getId(), 0L)
+                        + reservations.count(doc.getId(), aUser.getUsername(), now);
+                if (annotatorCount < traits.getDefaultNumberOfAnnotations()) {
+                    reservations.reserve(doc.getId(), aUser.getUsername(), now);
+                    return Optional.of(doc);
+                }
             }
         }
 
         return Optional.empty();
     }
 
+    @EventListener
+    public void onAnnotationStateChangeEvent(AnnotationStateChangeEvent aEvent)
+    {
+        // Once the state of the annotator changes, the database accounts for the annotator
+        var annDoc = aEvent.getAnnotationDocument();
+        documentReservations.release(annDoc.getProject().getId(), annDoc.getDocument().getId(),
+                annDoc.getUser());
+    }
+
+    @EventListener
+    public void onBeforeProjectRemovedEvent(BeforeProjectRemovedEvent aEvent)
+    {
+        documentReservations.clear(aEvent.getProject().getId());
+    }
+
     @Override
     @Transactional
     public ProjectState recalculate(Project aProject)
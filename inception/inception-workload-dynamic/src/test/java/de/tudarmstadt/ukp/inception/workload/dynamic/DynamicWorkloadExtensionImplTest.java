@@ -215,6 +215,27 @@ public class DynamicWorkloadExtensionImplTest
                 .isPresent().get().isEqualTo("1.txt");
     }
 
+    @Test
+    public void thatDocumentHandedOutToAnotherUserIsNotReturned() throws Exception
+    {
+        createSourceDocument("1.txt");
+
+        var nextDocForOtherAnnotator = dynamicWorkloadExtension.nextDocumentToAnnotate(project,
+                otherAnnotator);
+        var nextDoc = dynamicWorkloadExtension.nextDocumentToAnnotate(project, annotator);
+
+        assertThat(nextDocForOtherAnnotator) //
+                .map(SourceDocument::getName) //
+                .isPresent().get().isEqualTo("1.txt");
+        assertThat(nextDoc) //
+                .as("Other user has been handed out the only document but has not yet opened it")
+                .isNotPresent();
+        assertThat(dynamicWorkloadExtension.nextDocumentToAnnotate(project, otherAnnotator)) //
+                .as("User asking again gets the same document again") //
+                .map(SourceDocument::getName) //
+                .isPresent().get().isEqualTo("1.txt");
+    }
+
     private SourceDocument createSourceDocument(String aName)
     {
         return documentService
@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.workload.model;
 
 import java.util.List;
+import java.util.Map;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
@@ -48,4 +49,14 @@ public interface WorkloadManagementService
             SourceDocument aSourceDocument, AnnotationDocumentState aState);
 
     Long getNumberOfUsersWorkingOnADocument(SourceDocument aDocument);
+
+    /**
+     * @param aProject
+     *            a project
+     * @return for every document in the given project on which at least one user is working, the
+     *         number of users working on it (by document ID). This is equivalent to calling
+     *         {@link #getNumberOfUsersWorkingOnADocument} for every document, but requires only a
+     *         single query.
+     */
+    Map<Long, Long> getNumberOfUsersWorkingOnDocuments(Project aProject);
 }